@@ -0,0 +1,28 @@
+package com.comet.opik.api;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder(toBuilder = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record StreamIngestionReport(
+        @Schema(description = "Number of non-empty lines read from the stream") long received,
+        @Schema(description = "Number of lines written") long created,
+        @Schema(description = "Number of lines rejected or failed to be written") long failed,
+        @Schema(description = "Errors per line, truncated to the first ones") List<LineError> errors,
+        @Schema(description = "Why the stream wasn't read to its end, absent when it was") String stopReason) {
+
+    @Builder(toBuilder = true)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record LineError(
+            @Schema(description = "1-based line number in the stream") long line,
+            String message) {
+    }
+}
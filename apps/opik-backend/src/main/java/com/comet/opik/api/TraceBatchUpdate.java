@@ -0,0 +1,31 @@
+package com.comet.opik.api;
+
+import com.comet.opik.infrastructure.ratelimit.RateEventContainer;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+
+import java.util.List;
+import java.util.UUID;
+
+@Builder(toBuilder = true)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+public record TraceBatchUpdate(
+        @NotNull @Size(min = 1, max = 1000) @Valid List<TraceBatchUpdateItem> updates) implements RateEventContainer {
+
+    @Builder(toBuilder = true)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    @JsonNaming(PropertyNamingStrategies.SnakeCaseStrategy.class)
+    public record TraceBatchUpdateItem(@NotNull UUID id, @NotNull @Valid TraceUpdate update) {
+    }
+
+    @Override
+    public long eventCount() {
+        return updates.size();
+    }
+}
@@ -6,7 +6,9 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.experimental.Accessors;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -21,6 +23,17 @@ public class TracesCreated extends BaseEvent {
         this.traces = traces;
     }
 
+    @Override
+    public Optional<BaseEvent> coalesce(@NonNull BaseEvent next) {
+        if (next instanceof TracesCreated other && isSameWorkspaceAndUser(other)) {
+            var merged = new ArrayList<>(traces);
+            merged.addAll(other.traces());
+            return Optional.of(new TracesCreated(merged, workspaceId, userName));
+        }
+
+        return Optional.empty();
+    }
+
     public Set<UUID> projectIds() {
         return traces.stream()
                 .map(Trace::projectId)
@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.experimental.Accessors;
 
+import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
@@ -17,4 +19,15 @@ public class TracesUpdated extends BaseEvent {
         super(workspaceId, userName);
         this.projectIds = projectIds;
     }
+
+    @Override
+    public Optional<BaseEvent> coalesce(@NonNull BaseEvent next) {
+        if (next instanceof TracesUpdated other && isSameWorkspaceAndUser(other)) {
+            var merged = new HashSet<>(projectIds);
+            merged.addAll(other.projectIds());
+            return Optional.of(new TracesUpdated(merged, workspaceId, userName));
+        }
+
+        return Optional.empty();
+    }
 }
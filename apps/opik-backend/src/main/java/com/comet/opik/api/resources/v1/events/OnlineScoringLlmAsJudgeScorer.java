@@ -9,6 +9,7 @@ import com.comet.opik.infrastructure.OnlineScoringConfig;
 import com.comet.opik.infrastructure.OnlineScoringConfig.StreamConfiguration;
 import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.infrastructure.log.UserFacingLoggingFactory;
+import com.comet.opik.utils.SchedulerUtils;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import io.dropwizard.lifecycle.Managed;
@@ -26,7 +27,6 @@ import org.slf4j.MDC;
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import ru.vyarus.dropwizard.guice.module.installer.feature.eager.EagerSingleton;
 import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
 
@@ -106,7 +106,7 @@ public class OnlineScoringLlmAsJudgeScorer implements Managed {
                                     log.info("Processing last {} messages before shutdown.", messages.size());
 
                                     return Flux.fromIterable(messages.entrySet())
-                                            .publishOn(Schedulers.boundedElastic())
+                                            .publishOn(SchedulerUtils.blocking())
                                             .doOnNext(entry -> processReceivedMessages(stream, entry))
                                             .collectList()
                                             .then(Mono.fromRunnable(() -> streamSubscription.dispose()));
@@ -184,7 +184,7 @@ public class OnlineScoringLlmAsJudgeScorer implements Managed {
         this.streamSubscription = Flux.interval(config.getPoolingInterval().toJavaDuration())
                 .flatMap(i -> stream.readGroup(config.getConsumerGroupName(), consumerId, redisReadConfig))
                 .flatMap(messages -> Flux.fromIterable(messages.entrySet()))
-                .publishOn(Schedulers.boundedElastic())
+                .publishOn(SchedulerUtils.blocking())
                 .doOnNext(entry -> processReceivedMessages(stream, entry))
                 .subscribe();
     }
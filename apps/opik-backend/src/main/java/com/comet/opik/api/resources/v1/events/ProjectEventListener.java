@@ -5,37 +5,108 @@ import com.comet.opik.api.events.TracesCreated;
 import com.comet.opik.api.events.TracesUpdated;
 import com.comet.opik.domain.ProjectService;
 import com.comet.opik.domain.TraceService;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.infrastructure.IngestionConfig.LastUpdatedTraceConfig;
+import com.comet.opik.utils.SchedulerUtils;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import jakarta.inject.Inject;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
 import ru.vyarus.dropwizard.guice.module.installer.feature.eager.EagerSingleton;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Records the last updated trace of the projects with traces created or updated.
+ * <p>
+ * When enabled, the projects are collected per workspace and recorded together once the flush interval elapses, so a
+ * burst of trace events costs a single ClickHouse read and MySQL batch update per workspace, rather than one per event.
+ * The events don't carry the last updated time set by ClickHouse, so it's still read from ClickHouse on every flush.
+ */
 @EagerSingleton
 @Slf4j
 public class ProjectEventListener {
     private final ProjectService projectService;
     private final TraceService traceService;
+    private final LastUpdatedTraceConfig config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<String, Set<UUID>> pendingProjectIds = new HashMap<>();
+    private boolean flushScheduled;
 
     @Inject
-    public ProjectEventListener(EventBus eventBus, ProjectService projectService, TraceService traceService) {
+    public ProjectEventListener(EventBus eventBus, ProjectService projectService, TraceService traceService,
+            @NonNull @Config("ingestion") IngestionConfig ingestionConfig) {
         this.projectService = projectService;
         this.traceService = traceService;
+        this.config = ingestionConfig.getLastUpdatedTrace();
         eventBus.register(this);
     }
 
     @Subscribe
     public void onTracesCreated(TracesCreated event) {
-        updateProjectsLastUpdatedTraceAt(event.workspaceId(), event.projectIds());
+        recordLastUpdatedTrace(event.workspaceId(), event.projectIds());
     }
 
     @Subscribe
     public void onTracesUpdated(TracesUpdated event) {
-        updateProjectsLastUpdatedTraceAt(event.workspaceId(), event.projectIds());
+        recordLastUpdatedTrace(event.workspaceId(), event.projectIds());
+    }
+
+    private void recordLastUpdatedTrace(String workspaceId, Set<UUID> projectIds) {
+        if (!config.isEnabled()) {
+            updateProjectsLastUpdatedTraceAt(workspaceId, projectIds);
+            return;
+        }
+
+        lock.lock();
+        try {
+            pendingProjectIds.computeIfAbsent(workspaceId, __ -> new HashSet<>()).addAll(projectIds);
+
+            if (!flushScheduled) {
+                SchedulerUtils.blocking().schedule(this::flush, config.getFlushInterval().toMillis(),
+                        TimeUnit.MILLISECONDS);
+                flushScheduled = true;
+            }
+        } catch (RejectedExecutionException exception) {
+            // The projects stay pending, so they're flushed along with the next event's projects
+            log.warn("Failed to schedule recording last traces for projects on workspaceId '{}'", workspaceId,
+                    exception);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flush() {
+        Map<String, Set<UUID>> toFlush;
+
+        lock.lock();
+        try {
+            flushScheduled = false;
+            toFlush = pendingProjectIds;
+            pendingProjectIds = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+
+        // Recording is idempotent and only moves the last updated trace forward, so overlapping flushes are harmless
+        toFlush.forEach((workspaceId, projectIds) -> {
+            try {
+                updateProjectsLastUpdatedTraceAt(workspaceId, projectIds);
+            } catch (RuntimeException exception) {
+                log.error("Failed to record last traces for projects '{}'", projectIds, exception);
+            }
+        });
     }
 
     private void updateProjectsLastUpdatedTraceAt(String workspaceId, Set<UUID> projectIds) {
@@ -11,14 +11,18 @@ import com.comet.opik.api.FeedbackScoreNames;
 import com.comet.opik.api.ProjectStats;
 import com.comet.opik.api.Span;
 import com.comet.opik.api.SpanBatch;
+import com.comet.opik.api.SpanBatchUpdate;
 import com.comet.opik.api.SpanSearchCriteria;
 import com.comet.opik.api.SpanSearchStreamRequest;
 import com.comet.opik.api.SpanUpdate;
+import com.comet.opik.api.StreamIngestionReport;
 import com.comet.opik.api.filter.FiltersFactory;
 import com.comet.opik.api.filter.SpanFilter;
 import com.comet.opik.domain.CommentDAO;
 import com.comet.opik.domain.CommentService;
 import com.comet.opik.domain.FeedbackScoreService;
+import com.comet.opik.domain.IngestionQueue;
+import com.comet.opik.domain.NdjsonIngestor;
 import com.comet.opik.domain.SpanService;
 import com.comet.opik.domain.SpanType;
 import com.comet.opik.domain.Streamer;
@@ -62,8 +66,11 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.glassfish.jersey.server.ChunkedOutput;
+import reactor.core.publisher.Mono;
 
+import java.io.InputStream;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 import static com.comet.opik.api.Span.SpanPage;
@@ -85,6 +92,8 @@ public class SpansResource {
     private final @NonNull FiltersFactory filtersFactory;
     private final @NonNull Provider<RequestContext> requestContext;
     private final @NonNull Streamer streamer;
+    private final @NonNull IngestionQueue ingestionQueue;
+    private final @NonNull NdjsonIngestor ndjsonIngestor;
 
     @GET
     @Operation(operationId = "getSpansByProject", summary = "Get spans by project_name or project_id and optionally by trace_id and/or type", description = "Get spans by project_name or project_id and optionally by trace_id and/or type", responses = {
@@ -167,9 +176,10 @@ public class SpansResource {
     @POST
     @Path("/batch")
     @Operation(operationId = "createSpans", summary = "Create spans", description = "Create spans", responses = {
-            @ApiResponse(responseCode = "204", description = "No Content")})
+            @ApiResponse(responseCode = "204", description = "No Content"),
+            @ApiResponse(responseCode = "202", description = "Accepted")})
     @RateLimited
-    public Response createSpans(
+    public CompletionStage<Response> createSpans(
             @RequestBody(content = @Content(schema = @Schema(implementation = SpanBatch.class))) @JsonView(Span.View.Write.class) @NotNull @Valid SpanBatch spans) {
 
         spans.spans()
@@ -184,13 +194,79 @@ public class SpansResource {
 
         String workspaceId = requestContext.get().getWorkspaceId();
 
-        log.info("Creating spans batch with size '{}' on workspaceId '{}'", spans.spans().size(), workspaceId);
+        Mono<Boolean> queued = ingestionQueue.isEnabled() ? ingestionQueue.enqueue(spans) : Mono.just(false);
+
+        // Completes without holding the request thread, see RateLimitInterceptor
+        return queued
+                .flatMap(isQueued -> {
+                    if (Boolean.TRUE.equals(isQueued)) {
+                        log.info("Queued spans batch with size '{}' on workspaceId '{}'", spans.spans().size(),
+                                workspaceId);
+                        return Mono.just(Response.accepted().build());
+                    }
+
+                    log.info("Creating spans batch with size '{}' on workspaceId '{}'", spans.spans().size(),
+                            workspaceId);
+
+                    return spanService.create(spans)
+                            .doOnSuccess(__ -> log.info("Created spans batch with size '{}' on workspaceId '{}'",
+                                    spans.spans().size(), workspaceId))
+                            .thenReturn(Response.noContent().build());
+                })
+                .contextWrite(ctx -> setRequestContext(ctx, requestContext))
+                .toFuture();
+    }
+
+    @POST
+    @Path("/stream")
+    @Consumes(NdjsonIngestor.MEDIA_TYPE)
+    @Operation(operationId = "createSpansStream", summary = "Create spans from a stream", description = "Create spans from a newline-delimited JSON stream, optionally gzip encoded, with one span per line", responses = {
+            @ApiResponse(responseCode = "200", description = "Ingestion report", content = @Content(schema = @Schema(implementation = StreamIngestionReport.class)))})
+    @RateLimited
+    public Response createSpansStream(
+            @RequestBody(content = @Content(mediaType = NdjsonIngestor.MEDIA_TYPE, schema = @Schema(implementation = Span.class))) @NotNull InputStream spans) {
+
+        String workspaceId = requestContext.get().getWorkspaceId();
+
+        log.info("Creating spans from stream on workspaceId '{}'", workspaceId);
+
+        var report = ndjsonIngestor.ingest(spans, Span.class, Span.View.Write.class, Span::id,
+                chunk -> spanService.create(SpanBatch.builder().spans(chunk).build())
+                        .contextWrite(ctx -> setRequestContext(ctx, requestContext)));
+
+        log.info("Created '{}' spans from stream with '{}' failed lines on workspaceId '{}'", report.created(),
+                report.failed(), workspaceId);
+
+        return Response.ok(report).build();
+    }
+
+    @PATCH
+    @Path("/batch")
+    @Operation(operationId = "updateSpans", summary = "Update spans", description = "Update spans by id", responses = {
+            @ApiResponse(responseCode = "204", description = "No Content"),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(schema = @Schema(implementation = ErrorMessage.class)))})
+    @RateLimited
+    public Response updateSpans(
+            @RequestBody(content = @Content(schema = @Schema(implementation = SpanBatchUpdate.class))) @NotNull @Valid SpanBatchUpdate batch) {
+
+        batch.updates()
+                .stream()
+                .collect(Collectors.groupingBy(SpanBatchUpdate.SpanBatchUpdateItem::id, Collectors.counting()))
+                .forEach((id, count) -> {
+                    if (count > 1) {
+                        throw new ClientErrorException("Duplicate span id '%s'".formatted(id), 422);
+                    }
+                });
+
+        String workspaceId = requestContext.get().getWorkspaceId();
+
+        log.info("Updating spans batch with size '{}' on workspaceId '{}'", batch.updates().size(), workspaceId);
 
-        spanService.create(spans)
+        spanService.update(batch)
                 .contextWrite(ctx -> setRequestContext(ctx, requestContext))
                 .block();
 
-        log.info("Created spans batch with size '{}' on workspaceId '{}'", spans.spans().size(), workspaceId);
+        log.info("Updated spans batch with size '{}' on workspaceId '{}'", batch.updates().size(), workspaceId);
 
         return Response.noContent().build();
     }
@@ -9,9 +9,11 @@ import com.comet.opik.api.FeedbackScore;
 import com.comet.opik.api.FeedbackScoreBatch;
 import com.comet.opik.api.FeedbackScoreNames;
 import com.comet.opik.api.ProjectStats;
+import com.comet.opik.api.StreamIngestionReport;
 import com.comet.opik.api.Trace;
 import com.comet.opik.api.Trace.TracePage;
 import com.comet.opik.api.TraceBatch;
+import com.comet.opik.api.TraceBatchUpdate;
 import com.comet.opik.api.TraceSearchCriteria;
 import com.comet.opik.api.TraceUpdate;
 import com.comet.opik.api.filter.FiltersFactory;
@@ -19,6 +21,8 @@ import com.comet.opik.api.filter.TraceFilter;
 import com.comet.opik.domain.CommentDAO;
 import com.comet.opik.domain.CommentService;
 import com.comet.opik.domain.FeedbackScoreService;
+import com.comet.opik.domain.IngestionQueue;
+import com.comet.opik.domain.NdjsonIngestor;
 import com.comet.opik.domain.TraceService;
 import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.infrastructure.ratelimit.RateLimited;
@@ -57,8 +61,11 @@ import jakarta.ws.rs.core.UriInfo;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
+import java.io.InputStream;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 
 import static com.comet.opik.utils.AsyncUtils.setRequestContext;
@@ -78,6 +85,8 @@ public class TracesResource {
     private final @NonNull CommentService commentService;
     private final @NonNull FiltersFactory filtersFactory;
     private final @NonNull Provider<RequestContext> requestContext;
+    private final @NonNull IngestionQueue ingestionQueue;
+    private final @NonNull NdjsonIngestor ndjsonIngestor;
 
     @GET
     @Operation(operationId = "getTracesByProject", summary = "Get traces by project_name or project_id", description = "Get traces by project_name or project_id", responses = {
@@ -163,9 +172,10 @@ public class TracesResource {
     @POST
     @Path("/batch")
     @Operation(operationId = "createTraces", summary = "Create traces", description = "Create traces", responses = {
-            @ApiResponse(responseCode = "204", description = "No Content")})
+            @ApiResponse(responseCode = "204", description = "No Content"),
+            @ApiResponse(responseCode = "202", description = "Accepted")})
     @RateLimited
-    public Response createTraces(
+    public CompletionStage<Response> createTraces(
             @RequestBody(content = @Content(schema = @Schema(implementation = TraceBatch.class))) @JsonView(Trace.View.Write.class) @NotNull @Valid TraceBatch traces) {
 
         traces.traces()
@@ -178,10 +188,77 @@ public class TracesResource {
                     }
                 });
 
-        service.create(traces)
+        String workspaceId = requestContext.get().getWorkspaceId();
+
+        Mono<Boolean> queued = ingestionQueue.isEnabled() ? ingestionQueue.enqueue(traces) : Mono.just(false);
+
+        // Completes without holding the request thread, see RateLimitInterceptor
+        return queued
+                .flatMap(isQueued -> {
+                    if (Boolean.TRUE.equals(isQueued)) {
+                        log.info("Queued traces batch with size '{}' on workspaceId '{}'", traces.traces().size(),
+                                workspaceId);
+                        return Mono.just(Response.accepted().build());
+                    }
+
+                    return service.create(traces)
+                            .thenReturn(Response.noContent().build());
+                })
+                .contextWrite(ctx -> setRequestContext(ctx, requestContext))
+                .toFuture();
+    }
+
+    @POST
+    @Path("/stream")
+    @Consumes(NdjsonIngestor.MEDIA_TYPE)
+    @Operation(operationId = "createTracesStream", summary = "Create traces from a stream", description = "Create traces from a newline-delimited JSON stream, optionally gzip encoded, with one trace per line", responses = {
+            @ApiResponse(responseCode = "200", description = "Ingestion report", content = @Content(schema = @Schema(implementation = StreamIngestionReport.class)))})
+    @RateLimited
+    public Response createTracesStream(
+            @RequestBody(content = @Content(mediaType = NdjsonIngestor.MEDIA_TYPE, schema = @Schema(implementation = Trace.class))) @NotNull InputStream traces) {
+
+        String workspaceId = requestContext.get().getWorkspaceId();
+
+        log.info("Creating traces from stream on workspaceId '{}'", workspaceId);
+
+        var report = ndjsonIngestor.ingest(traces, Trace.class, Trace.View.Write.class, Trace::id,
+                chunk -> service.create(TraceBatch.builder().traces(chunk).build())
+                        .contextWrite(ctx -> setRequestContext(ctx, requestContext)));
+
+        log.info("Created '{}' traces from stream with '{}' failed lines on workspaceId '{}'", report.created(),
+                report.failed(), workspaceId);
+
+        return Response.ok(report).build();
+    }
+
+    @PATCH
+    @Path("/batch")
+    @Operation(operationId = "updateTraces", summary = "Update traces", description = "Update traces by id", responses = {
+            @ApiResponse(responseCode = "204", description = "No Content"),
+            @ApiResponse(responseCode = "409", description = "Conflict", content = @Content(schema = @Schema(implementation = ErrorMessage.class)))})
+    @RateLimited
+    public Response updateTraces(
+            @RequestBody(content = @Content(schema = @Schema(implementation = TraceBatchUpdate.class))) @NotNull @Valid TraceBatchUpdate batch) {
+
+        batch.updates()
+                .stream()
+                .collect(Collectors.groupingBy(TraceBatchUpdate.TraceBatchUpdateItem::id, Collectors.counting()))
+                .forEach((id, count) -> {
+                    if (count > 1) {
+                        throw new ClientErrorException("Duplicate trace id '%s'".formatted(id), 422);
+                    }
+                });
+
+        String workspaceId = requestContext.get().getWorkspaceId();
+
+        log.info("Updating traces batch with size '{}' on workspaceId '{}'", batch.updates().size(), workspaceId);
+
+        service.update(batch)
                 .contextWrite(ctx -> setRequestContext(ctx, requestContext))
                 .block();
 
+        log.info("Updated traces batch with size '{}' on workspaceId '{}'", batch.updates().size(), workspaceId);
+
         return Response.noContent().build();
     }
 
@@ -0,0 +1,53 @@
+package com.comet.opik.domain;
+
+import lombok.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of equally sized heap buffers, so encoding ingestion batches doesn't allocate new buffers per request.
+ * Buffers are allocated on demand when the pool is empty, and released buffers beyond the pool capacity are left to
+ * the garbage collector.
+ */
+class ByteBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    ByteBufferPool(int bufferSize, int maxPooledBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+
+        pooledBuffers.decrementAndGet();
+        return buffer.clear();
+    }
+
+    void release(@NonNull ByteBuffer buffer) {
+        if (buffer.capacity() != bufferSize) {
+            return;
+        }
+
+        if (pooledBuffers.incrementAndGet() > maxPooledBuffers) {
+            pooledBuffers.decrementAndGet();
+            return;
+        }
+
+        buffers.offer(buffer);
+    }
+
+    int pooled() {
+        return pooledBuffers.get();
+    }
+}
@@ -38,8 +38,8 @@ import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils
 import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils.startSegment;
 import static com.comet.opik.utils.AsyncUtils.makeFluxContextAware;
 import static com.comet.opik.utils.AsyncUtils.makeMonoContextAware;
-import static com.comet.opik.utils.TemplateUtils.QueryItem;
-import static com.comet.opik.utils.TemplateUtils.getQueryItemPlaceHolder;
+import static com.comet.opik.utils.TemplateUtils.indexedParam;
+import static com.comet.opik.utils.TemplateUtils.renderBulkInsert;
 
 @ImplementedBy(DatasetItemDAOImpl.class)
 public interface DatasetItemDAO {
@@ -539,14 +539,7 @@ class DatasetItemDAOImpl implements DatasetItemDAO {
     private Mono<Long> mapAndInsert(
             UUID datasetId, List<DatasetItem> items, Connection connection, String sqlTemplate) {
 
-        List<QueryItem> queryItems = getQueryItemPlaceHolder(items.size());
-
-        var template = new ST(sqlTemplate)
-                .add("items", queryItems);
-
-        String sql = template.render();
-
-        var statement = connection.createStatement(sql);
+        var statement = connection.createStatement(renderBulkInsert(sqlTemplate, items.size()));
 
         return makeMonoContextAware((userName, workspaceId) -> {
 
@@ -556,14 +549,14 @@ class DatasetItemDAOImpl implements DatasetItemDAO {
             for (DatasetItem item : items) {
                 Map<String, JsonNode> data = new HashMap<>(Optional.ofNullable(item.data()).orElse(Map.of()));
 
-                statement.bind("id" + i, item.id());
-                statement.bind("datasetId" + i, datasetId);
-                statement.bind("source" + i, item.source().getValue());
-                statement.bind("traceId" + i, DatasetItemResultMapper.getOrDefault(item.traceId()));
-                statement.bind("spanId" + i, DatasetItemResultMapper.getOrDefault(item.spanId()));
-                statement.bind("data" + i, DatasetItemResultMapper.getOrDefault(data));
-                statement.bind("createdBy" + i, userName);
-                statement.bind("lastUpdatedBy" + i, userName);
+                statement.bind(indexedParam("id", i), item.id());
+                statement.bind(indexedParam("datasetId", i), datasetId);
+                statement.bind(indexedParam("source", i), item.source().getValue());
+                statement.bind(indexedParam("traceId", i), DatasetItemResultMapper.getOrDefault(item.traceId()));
+                statement.bind(indexedParam("spanId", i), DatasetItemResultMapper.getOrDefault(item.spanId()));
+                statement.bind(indexedParam("data", i), DatasetItemResultMapper.getOrDefault(data));
+                statement.bind(indexedParam("createdBy", i), userName);
+                statement.bind(indexedParam("lastUpdatedBy", i), userName);
                 i++;
             }
 
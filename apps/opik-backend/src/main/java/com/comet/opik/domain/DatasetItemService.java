@@ -9,6 +9,7 @@ import com.comet.opik.api.PageColumns;
 import com.comet.opik.api.error.ErrorMessage;
 import com.comet.opik.api.error.IdentifierMismatchException;
 import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.utils.SchedulerUtils;
 import com.google.inject.ImplementedBy;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
 import jakarta.inject.Inject;
@@ -21,7 +22,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Objects;
@@ -90,7 +90,7 @@ class DatasetItemServiceImpl implements DatasetItemService {
                 }
 
                 return dataset.id();
-            }).subscribeOn(Schedulers.boundedElastic());
+            }).subscribeOn(SchedulerUtils.blocking());
         });
     }
 
@@ -115,7 +115,7 @@ class DatasetItemServiceImpl implements DatasetItemService {
     public Flux<DatasetItem> getItems(@NonNull String workspaceId, @NonNull DatasetItemStreamRequest request) {
         log.info("Getting dataset items by '{}' on workspaceId '{}'", request, workspaceId);
         return Mono.fromCallable(() -> datasetService.findByName(workspaceId, request.datasetName()))
-                .subscribeOn(Schedulers.boundedElastic())
+                .subscribeOn(SchedulerUtils.blocking())
                 .flatMapMany(dataset -> dao.getItems(dataset.id(), request.steamLimit(), request.lastRetrievedId()));
     }
 
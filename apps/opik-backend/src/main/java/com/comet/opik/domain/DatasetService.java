@@ -13,6 +13,7 @@ import com.comet.opik.domain.sorting.SortingQueryBuilder;
 import com.comet.opik.infrastructure.BatchOperationsConfig;
 import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.utils.AsyncUtils;
+import com.comet.opik.utils.SchedulerUtils;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.inject.ImplementedBy;
@@ -28,7 +29,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
 import ru.vyarus.guicey.jdbi3.tx.TransactionTemplate;
 
@@ -330,7 +330,7 @@ class DatasetServiceImpl implements DatasetService {
                         return fetchUsingTempTable(page, size, criteria, ids, workspaceId, sortingFieldsSql);
                     }
                 }
-            }).subscribeOn(Schedulers.boundedElastic()).block();
+            }).subscribeOn(SchedulerUtils.blocking()).block();
 
             return DatasetPage.builder()
                     .content(enrichDatasetWithAdditionalInformation(datasetPage.content()))
@@ -517,7 +517,7 @@ class DatasetServiceImpl implements DatasetService {
 
                 return Mono.empty();
             }));
-        }).subscribeOn(Schedulers.boundedElastic())
+        }).subscribeOn(SchedulerUtils.blocking())
                 .then();
     }
 
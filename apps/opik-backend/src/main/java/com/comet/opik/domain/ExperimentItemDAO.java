@@ -23,15 +23,14 @@ import reactor.core.publisher.SignalType;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
 import static com.comet.opik.domain.AsyncContextUtils.bindWorkspaceIdToFlux;
 import static com.comet.opik.utils.AsyncUtils.makeFluxContextAware;
 import static com.comet.opik.utils.AsyncUtils.makeMonoContextAware;
-import static com.comet.opik.utils.TemplateUtils.QueryItem;
-import static com.comet.opik.utils.TemplateUtils.getQueryItemPlaceHolder;
+import static com.comet.opik.utils.TemplateUtils.indexedParam;
+import static com.comet.opik.utils.TemplateUtils.renderBulkInsert;
 
 @Singleton
 @RequiredArgsConstructor(onConstructor_ = @Inject)
@@ -244,14 +243,7 @@ class ExperimentItemDAO {
 
     private Mono<Long> insert(Collection<ExperimentItem> experimentItems, Connection connection) {
 
-        List<QueryItem> queryItems = getQueryItemPlaceHolder(experimentItems.size());
-
-        var template = new ST(INSERT)
-                .add("items", queryItems);
-
-        String sql = template.render();
-
-        var statement = connection.createStatement(sql);
+        var statement = connection.createStatement(renderBulkInsert(INSERT, experimentItems.size()));
 
         return makeMonoContextAware((userName, workspaceId) -> {
 
@@ -259,12 +251,12 @@ class ExperimentItemDAO {
 
             int index = 0;
             for (ExperimentItem item : experimentItems) {
-                statement.bind("id" + index, item.id());
-                statement.bind("experiment_id" + index, item.experimentId());
-                statement.bind("dataset_item_id" + index, item.datasetItemId());
-                statement.bind("trace_id" + index, item.traceId());
-                statement.bind("created_by" + index, userName);
-                statement.bind("last_updated_by" + index, userName);
+                statement.bind(indexedParam("id", index), item.id());
+                statement.bind(indexedParam("experiment_id", index), item.experimentId());
+                statement.bind(indexedParam("dataset_item_id", index), item.datasetItemId());
+                statement.bind(indexedParam("trace_id", index), item.traceId());
+                statement.bind(indexedParam("created_by", index), userName);
+                statement.bind(indexedParam("last_updated_by", index), userName);
                 index++;
             }
 
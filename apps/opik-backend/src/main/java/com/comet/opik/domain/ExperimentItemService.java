@@ -4,6 +4,7 @@ import com.comet.opik.api.Experiment;
 import com.comet.opik.api.ExperimentItem;
 import com.comet.opik.api.ExperimentItemSearchCriteria;
 import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.utils.SchedulerUtils;
 import com.google.common.base.Preconditions;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -16,7 +17,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.Set;
 import java.util.UUID;
@@ -123,7 +123,7 @@ public class ExperimentItemService {
     public Flux<ExperimentItem> getExperimentItems(@NonNull ExperimentItemSearchCriteria criteria) {
         log.info("Getting experiment items by '{}'", criteria);
         return experimentService.findByName(criteria.experimentName())
-                .subscribeOn(Schedulers.boundedElastic())
+                .subscribeOn(SchedulerUtils.blocking())
                 .collect(Collectors.mapping(Experiment::id, Collectors.toUnmodifiableSet()))
                 .flatMapMany(experimentIds -> experimentItemDAO.getItems(
                         experimentIds, criteria));
@@ -13,6 +13,7 @@ import com.comet.opik.api.events.ExperimentCreated;
 import com.comet.opik.api.events.ExperimentsDeleted;
 import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.utils.AsyncUtils;
+import com.comet.opik.utils.SchedulerUtils;
 import com.google.common.base.Preconditions;
 import com.google.common.eventbus.EventBus;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
@@ -29,7 +30,6 @@ import org.apache.commons.collections4.SetUtils;
 import org.apache.commons.lang3.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Map;
@@ -76,7 +76,7 @@ public class ExperimentService {
                         }
 
                         return getDeletedDatasetAndBuildCriteria(experimentSearchCriteria, datasetIds, workspaceId)
-                                .subscribeOn(Schedulers.boundedElastic())
+                                .subscribeOn(SchedulerUtils.blocking())
                                 .flatMap(criteria -> {
                                     if (criteria.datasetIds().isEmpty()) {
                                         return Mono.just(ExperimentPage.empty(page));
@@ -118,7 +118,7 @@ public class ExperimentService {
                             promptService
                                     .getVersionsCommitByVersionsIds(getPromptVersionIds(experimentPage)),
                             Mono.fromCallable(() -> datasetService.findByIds(ids, workspaceId))
-                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .subscribeOn(SchedulerUtils.blocking())
                                     .map(this::getDatasetMap))
                             .map(tuple -> experimentPage.toBuilder()
                                     .content(experimentPage.content().stream()
@@ -240,7 +240,7 @@ public class ExperimentService {
                     return Mono.zip(
                             promptService.getVersionsCommitByVersionsIds(promptVersionIds),
                             Mono.fromCallable(() -> datasetService.getById(experiment.datasetId(), workspaceId))
-                                    .subscribeOn(Schedulers.boundedElastic()))
+                                    .subscribeOn(SchedulerUtils.blocking()))
                             .map(tuple -> experiment.toBuilder()
                                     .promptVersion(buildPromptVersion(tuple.getT1(), experiment))
                                     .promptVersions(buildPromptVersions(tuple.getT1(), experiment))
@@ -325,7 +325,7 @@ public class ExperimentService {
                             workspaceId,
                             userName)));
 
-        }).subscribeOn(Schedulers.boundedElastic());
+        }).subscribeOn(SchedulerUtils.blocking());
     }
 
     private static boolean hasPromptVersionLinks(Experiment experiment) {
@@ -353,7 +353,7 @@ public class ExperimentService {
             String workspaceId = ctx.get(RequestContext.WORKSPACE_ID);
 
             return Mono.fromCallable(() -> datasetService.getOrCreate(workspaceId, datasetName, userName))
-                    .subscribeOn(Schedulers.boundedElastic());
+                    .subscribeOn(SchedulerUtils.blocking());
         });
     }
 
@@ -368,7 +368,7 @@ public class ExperimentService {
                 String workspaceId = ctx.get(RequestContext.WORKSPACE_ID);
 
                 return Mono.fromCallable(() -> datasetService.findByName(workspaceId, datasetName))
-                        .subscribeOn(Schedulers.boundedElastic());
+                        .subscribeOn(SchedulerUtils.blocking());
             });
         }
         return Mono.error(throwable);
@@ -5,6 +5,7 @@ import com.comet.opik.api.FeedbackScoreBatchItem;
 import com.comet.opik.api.FeedbackScoreNames;
 import com.comet.opik.api.Project;
 import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.utils.SchedulerUtils;
 import com.comet.opik.utils.WorkspaceUtils;
 import com.google.inject.ImplementedBy;
 import com.google.inject.Singleton;
@@ -15,7 +16,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import ru.vyarus.guicey.jdbi3.tx.TransactionTemplate;
 
 import java.sql.SQLIntegrityConstraintViolationException;
@@ -63,6 +63,7 @@ class FeedbackScoreServiceImpl implements FeedbackScoreService {
     private final @NonNull SpanDAO spanDAO;
     private final @NonNull TraceDAO traceDAO;
     private final @NonNull IdGenerator idGenerator;
+    private final @NonNull ProjectResolutionCache projectCache;
 
     record ProjectDto(Project project, List<FeedbackScoreBatchItem> scores) {
     }
@@ -126,7 +127,7 @@ class FeedbackScoreServiceImpl implements FeedbackScoreService {
 
             return checkIfNeededToCreateProjectsWithContext(workspaceId, userName, scoresPerProject) // create projects if needed
                     .then(Mono.fromCallable(() -> getAllProjectsByName(workspaceId, scoresPerProject))
-                            .subscribeOn(Schedulers.boundedElastic())); // get all project itemIds
+                            .subscribeOn(SchedulerUtils.blocking())); // get all project itemIds
         });
     }
 
@@ -135,7 +136,7 @@ class FeedbackScoreServiceImpl implements FeedbackScoreService {
             Map<String, List<FeedbackScoreBatchItem>> scoresPerProject) {
 
         return Mono.fromRunnable(() -> checkIfNeededToCreateProjects(scoresPerProject, userName, workspaceId))
-                .publishOn(Schedulers.boundedElastic())
+                .publishOn(SchedulerUtils.blocking())
                 .then();
     }
 
@@ -166,12 +167,13 @@ class FeedbackScoreServiceImpl implements FeedbackScoreService {
 
     private List<Project> getAllProjectsByName(String workspaceId,
             Map<String, List<FeedbackScoreBatchItem>> scoresPerProject) {
-        return syncTemplate.inTransaction(READ_ONLY, handle -> {
+        return projectCache.getAll(workspaceId, scoresPerProject.keySet(),
+                missing -> syncTemplate.inTransaction(READ_ONLY, handle -> {
 
-            var projectDAO = handle.attach(ProjectDAO.class);
+                    var projectDAO = handle.attach(ProjectDAO.class);
 
-            return projectDAO.findByNames(workspaceId, scoresPerProject.keySet());
-        });
+                    return projectDAO.findByNames(workspaceId, missing);
+                }));
     }
 
     private void checkIfNeededToCreateProjects(Map<String, List<FeedbackScoreBatchItem>> scoresPerProject,
@@ -0,0 +1,19 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Span;
+import com.comet.opik.api.Trace;
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * A span or trace batch accepted by the API and waiting in the ingestion queue to be written to ClickHouse.
+ * Exactly one of spans or traces is set.
+ */
+@Builder(toBuilder = true)
+record IngestionBatch(
+        List<Span> spans,
+        List<Trace> traces,
+        String workspaceId,
+        String userName) {
+}
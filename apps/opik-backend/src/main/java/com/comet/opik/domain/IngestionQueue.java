@@ -0,0 +1,252 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Span;
+import com.comet.opik.api.SpanBatch;
+import com.comet.opik.api.Trace;
+import com.comet.opik.api.TraceBatch;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.utils.JsonUtils;
+import io.dropwizard.lifecycle.Managed;
+import jakarta.inject.Inject;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.AutoClaimResult;
+import org.redisson.api.RStreamReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.api.StreamMessageId;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.api.stream.StreamCreateGroupArgs;
+import org.redisson.api.stream.StreamReadGroupArgs;
+import org.redisson.client.codec.Codec;
+import org.redisson.codec.CompositeCodec;
+import org.redisson.codec.LZ4CodecV2;
+import org.redisson.codec.TypedJsonJacksonCodec;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ru.vyarus.dropwizard.guice.module.installer.feature.eager.EagerSingleton;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-ahead queue for span and trace batches, backed by a Redis Stream. The API acknowledges a batch as soon as it's
+ * appended to the stream, and a background drainer writes the queued batches to ClickHouse, retrying with backoff.
+ * <p>
+ * Ids are assigned and validated before enqueueing, so a batch written more than once, i.e. retried after a partial
+ * failure or claimed from a dead instance, is deduplicated by ClickHouse instead of creating new rows. Batches still
+ * failing after the retries stay pending in the consumer group and are claimed again once idle, until they've been
+ * delivered the maximum number of times. They're then moved to the dead-letter stream and acknowledged.
+ */
+@Slf4j
+@EagerSingleton
+public class IngestionQueue implements Managed {
+
+    static final String PAYLOAD_FIELD = "message";
+    static final Codec CODEC = new CompositeCodec(new LZ4CodecV2(),
+            new TypedJsonJacksonCodec(IngestionBatch.class, String.class, IngestionBatch.class, JsonUtils.MAPPER));
+
+    private final IngestionConfig.QueueConfig config;
+    private final SpanService spanService;
+    private final TraceService traceService;
+    private final IdGenerator idGenerator;
+    private final RStreamReactive<String, IngestionBatch> stream;
+    private final RStreamReactive<String, IngestionBatch> deadLetterStream;
+    private final StreamReadGroupArgs readArgs;
+    private final String consumerId;
+
+    private Disposable drainSubscription;
+
+    @Inject
+    public IngestionQueue(@NonNull @Config("ingestion") IngestionConfig ingestionConfig,
+            @NonNull RedissonReactiveClient redisClient,
+            @NonNull SpanService spanService,
+            @NonNull TraceService traceService,
+            @NonNull IdGenerator idGenerator) {
+        this.config = ingestionConfig.getQueue();
+        this.spanService = spanService;
+        this.traceService = traceService;
+        this.idGenerator = idGenerator;
+        this.stream = redisClient.getStream(config.getStreamName(), CODEC);
+        this.deadLetterStream = redisClient.getStream(config.getDeadLetterStreamName(), CODEC);
+        this.readArgs = StreamReadGroupArgs.neverDelivered().count(config.getConsumerBatchSize());
+        this.consumerId = "consumer-" + config.getConsumerGroupName() + "-" + UUID.randomUUID();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * @return true once the batch is durably queued, or false when the queue is full and the batch must be written
+     * synchronously.
+     */
+    public Mono<Boolean> enqueue(@NonNull SpanBatch batch) {
+        return Mono.defer(() -> {
+            List<Span> spans = batch.spans()
+                    .stream()
+                    .map(span -> span.toBuilder().id(assignId(span.id(), SpanService.SPAN_KEY)).build())
+                    .toList();
+
+            return enqueue(IngestionBatch.builder().spans(spans));
+        });
+    }
+
+    /**
+     * @return true once the batch is durably queued, or false when the queue is full and the batch must be written
+     * synchronously.
+     */
+    public Mono<Boolean> enqueue(@NonNull TraceBatch batch) {
+        return Mono.defer(() -> {
+            List<Trace> traces = batch.traces()
+                    .stream()
+                    .map(trace -> trace.toBuilder().id(assignId(trace.id(), TraceServiceImpl.TRACE_KEY)).build())
+                    .toList();
+
+            return enqueue(IngestionBatch.builder().traces(traces));
+        });
+    }
+
+    private UUID assignId(UUID id, String resource) {
+        if (id == null) {
+            return idGenerator.generateId();
+        }
+
+        IdGenerator.validateVersion(id, resource);
+        return id;
+    }
+
+    private Mono<Boolean> enqueue(IngestionBatch.IngestionBatchBuilder builder) {
+        return Mono.deferContextual(ctx -> {
+            var message = builder
+                    .workspaceId(ctx.get(RequestContext.WORKSPACE_ID))
+                    .userName(ctx.get(RequestContext.USER_NAME))
+                    .build();
+
+            return stream.size()
+                    .flatMap(length -> {
+                        if (length >= config.getMaxStreamLength()) {
+                            log.warn("Ingestion queue is full with '{}' batches, writing batch synchronously", length);
+                            return Mono.just(false);
+                        }
+
+                        return stream.add(StreamAddArgs.entry(PAYLOAD_FIELD, message))
+                                .doOnNext(id -> log.debug("Queued ingestion batch '{}' on workspaceId '{}'", id,
+                                        message.workspaceId()))
+                                .thenReturn(true);
+                    });
+        });
+    }
+
+    @Override
+    public void start() {
+        if (!config.isEnabled() || drainSubscription != null) {
+            return;
+        }
+
+        this.drainSubscription = createGroup()
+                .thenMany(Flux.interval(config.getPollingInterval()))
+                // Skip polls while the previous one is still draining
+                .onBackpressureDrop()
+                .concatMap(__ -> drain(), 1)
+                .subscribe();
+
+        log.info("Ingestion queue drainer '{}' started on stream '{}'", consumerId, config.getStreamName());
+    }
+
+    @Override
+    public void stop() {
+        if (drainSubscription != null && !drainSubscription.isDisposed()) {
+            // Batches being written stay pending and are claimed by another instance once idle
+            drainSubscription.dispose();
+            log.info("Ingestion queue drainer '{}' stopped", consumerId);
+        }
+    }
+
+    private Mono<Void> createGroup() {
+        return stream.createGroup(StreamCreateGroupArgs.name(config.getConsumerGroupName()).makeStream())
+                .onErrorResume(error -> {
+                    if (error.getMessage() != null && error.getMessage().contains("BUSYGROUP")) {
+                        return Mono.empty();
+                    }
+                    return Mono.error(error);
+                });
+    }
+
+    private Mono<Void> drain() {
+        Mono<Map<StreamMessageId, Map<String, IngestionBatch>>> idle = stream
+                .autoClaim(config.getConsumerGroupName(), consumerId, config.getClaimIdleTime().toMillis(),
+                        TimeUnit.MILLISECONDS, StreamMessageId.MIN, config.getConsumerBatchSize())
+                .map(AutoClaimResult::getMessages);
+
+        Mono<Map<StreamMessageId, Map<String, IngestionBatch>>> pending = stream
+                .readGroup(config.getConsumerGroupName(), consumerId, readArgs);
+
+        return Flux.concat(idle, pending)
+                .flatMapIterable(Map::entrySet)
+                .flatMap(entry -> write(entry.getKey(), entry.getValue().get(PAYLOAD_FIELD)),
+                        config.getDrainConcurrency())
+                .then()
+                .onErrorResume(error -> {
+                    log.error("Failed to read the ingestion queue", error);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> write(StreamMessageId id, IngestionBatch batch) {
+        if (batch == null) {
+            log.error("Dropping unreadable ingestion batch '{}'", id);
+            return acknowledge(id);
+        }
+
+        Mono<Long> write = Mono.defer(() -> batch.spans() != null
+                ? spanService.create(SpanBatch.builder().spans(batch.spans()).build())
+                : traceService.create(TraceBatch.builder().traces(batch.traces()).build()));
+
+        return write
+                .contextWrite(ctx -> ctx.put(RequestContext.USER_NAME, batch.userName())
+                        .put(RequestContext.WORKSPACE_ID, batch.workspaceId()))
+                .retryWhen(Retry.backoff(config.getMaxRetries(), config.getRetryBackoff()))
+                .then(acknowledge(id))
+                .doOnSuccess(__ -> log.debug("Written ingestion batch '{}' on workspaceId '{}'", id,
+                        batch.workspaceId()))
+                .onErrorResume(error -> handleFailure(id, batch, error));
+    }
+
+    private Mono<Void> handleFailure(StreamMessageId id, IngestionBatch batch, Throwable error) {
+        return stream.listPending(config.getConsumerGroupName(), id, id, 1)
+                .flatMap(entries -> {
+                    long deliveries = entries.isEmpty() ? 0 : entries.getFirst().getLastTimeDelivered();
+
+                    if (deliveries < config.getMaxDeliveries()) {
+                        log.error("Failed to write ingestion batch '{}' on workspaceId '{}' after '{}' deliveries, " +
+                                "it will be claimed again", id, batch.workspaceId(), deliveries, error);
+                        return Mono.<Void>empty();
+                    }
+
+                    log.error("Failed to write ingestion batch '{}' on workspaceId '{}' after '{}' deliveries, " +
+                            "moving it to the dead-letter stream", id, batch.workspaceId(), deliveries, error);
+
+                    return deadLetterStream.add(StreamAddArgs.entry(PAYLOAD_FIELD, batch))
+                            .doOnNext(deadLetterId -> log.warn("Moved ingestion batch '{}' to dead-letter batch '{}'",
+                                    id, deadLetterId))
+                            .then(acknowledge(id));
+                })
+                .onErrorResume(failure -> {
+                    log.error("Failed to handle the failed ingestion batch '{}', it will be claimed again", id,
+                            failure);
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> acknowledge(StreamMessageId id) {
+        return stream.ack(config.getConsumerGroupName(), id)
+                .then(stream.remove(id))
+                .then();
+    }
+}
@@ -0,0 +1,195 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.infrastructure.IngestionConfig.CoalescerConfig;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils.TRACER_NAME;
+
+/**
+ * Buffers single entity inserts per workspace and user, and flushes them together through a bulk insert once the
+ * configured window elapses or the buffer reaches the maximum batch size, whatever happens first.
+ * <p>
+ * Each caller's Mono completes when the bulk insert containing its entity succeeds, or fails with the bulk insert
+ * error. Coalesced inserts follow the bulk insert semantics: there is no conflict check against existing rows.
+ */
+@Slf4j
+abstract class InsertCoalescer<T> {
+
+    private static final AttributeKey<String> ENTITY = AttributeKey.stringKey("entity");
+
+    private record BufferKey(String workspaceId, String userName) {
+    }
+
+    private record PendingInsert<T>(T entity, MonoSink<Void> sink) {
+    }
+
+    private class Buffer {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private List<PendingInsert<T>> pending = new ArrayList<>();
+        private boolean flushScheduled;
+    }
+
+    private final CoalescerConfig config;
+    private final Function<List<T>, Mono<Long>> bulkInsert;
+    private final Map<BufferKey, Buffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicLong queueDepth = new AtomicLong();
+
+    private final Attributes attributes;
+    private final LongHistogram flushSize;
+    private final LongHistogram flushLatency;
+
+    protected InsertCoalescer(@NonNull String entityName, @NonNull CoalescerConfig config,
+            @NonNull Function<List<T>, Mono<Long>> bulkInsert) {
+        this.config = config;
+        this.bulkInsert = bulkInsert;
+        this.attributes = Attributes.of(ENTITY, entityName);
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter(TRACER_NAME);
+
+        meter.gaugeBuilder("opik.ingestion.coalescer.queue_depth")
+                .setDescription("Number of entities waiting to be flushed by the insert coalescer")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(queueDepth.get(), attributes));
+
+        this.flushSize = meter.histogramBuilder("opik.ingestion.coalescer.flush_size")
+                .setDescription("Number of entities written per insert coalescer flush")
+                .ofLongs()
+                .build();
+
+        this.flushLatency = meter.histogramBuilder("opik.ingestion.coalescer.flush_latency")
+                .setDescription("Duration of the bulk insert done per insert coalescer flush")
+                .setUnit("ms")
+                .ofLongs()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Adds the entity to the buffer of the workspace and user found in the subscriber context.
+     *
+     * @return a Mono completing once the entity has been written as part of a bulk insert.
+     */
+    public Mono<Void> add(@NonNull T entity) {
+        return Mono.deferContextual(ctx -> {
+            var key = new BufferKey(ctx.get(RequestContext.WORKSPACE_ID), ctx.get(RequestContext.USER_NAME));
+
+            return Mono.create(sink -> enqueue(key, new PendingInsert<>(entity, sink)));
+        });
+    }
+
+    private void enqueue(BufferKey key, PendingInsert<T> pendingInsert) {
+        Buffer buffer = buffers.computeIfAbsent(key, __ -> new Buffer());
+        List<PendingInsert<T>> toFlush = null;
+
+        buffer.lock.lock();
+        try {
+            buffer.pending.add(pendingInsert);
+            queueDepth.incrementAndGet();
+
+            if (buffer.pending.size() >= config.getMaxBatchSize()) {
+                toFlush = drain(buffer);
+                removeIfIdle(key, buffer);
+            } else if (!buffer.flushScheduled) {
+                buffer.flushScheduled = true;
+                Schedulers.parallel().schedule(() -> flushScheduled(key, buffer),
+                        config.getWindow().toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            buffer.lock.unlock();
+        }
+
+        if (toFlush != null) {
+            flush(key, toFlush);
+        }
+    }
+
+    private void flushScheduled(BufferKey key, Buffer buffer) {
+        List<PendingInsert<T>> toFlush;
+
+        buffer.lock.lock();
+        try {
+            buffer.flushScheduled = false;
+            toFlush = drain(buffer);
+            removeIfIdle(key, buffer);
+        } finally {
+            buffer.lock.unlock();
+        }
+
+        if (!toFlush.isEmpty()) {
+            flush(key, toFlush);
+        }
+    }
+
+    /**
+     * Removes the buffer once drained, so buffers of inactive workspaces and users don't pile up. Called with the buffer
+     * lock held. A caller still holding the removed buffer schedules its own flush on it, so no entity is lost.
+     */
+    private void removeIfIdle(BufferKey key, Buffer buffer) {
+        if (!buffer.flushScheduled && buffer.pending.isEmpty()) {
+            buffers.remove(key, buffer);
+        }
+    }
+
+    int bufferCount() {
+        return buffers.size();
+    }
+
+    private List<PendingInsert<T>> drain(Buffer buffer) {
+        List<PendingInsert<T>> drained = buffer.pending;
+        buffer.pending = new ArrayList<>();
+        queueDepth.addAndGet(-drained.size());
+        return drained;
+    }
+
+    private void flush(BufferKey key, List<PendingInsert<T>> toFlush) {
+        List<T> entities = toFlush.stream().map(PendingInsert::entity).toList();
+        long start = System.nanoTime();
+
+        log.debug("Flushing '{}' coalesced inserts on workspaceId '{}'", entities.size(), key.workspaceId());
+
+        bulkInsert.apply(entities)
+                .contextWrite(ctx -> ctx.put(RequestContext.USER_NAME, key.userName())
+                        .put(RequestContext.WORKSPACE_ID, key.workspaceId()))
+                .subscribe(
+                        __ -> {
+                        },
+                        error -> {
+                            recordFlush(entities.size(), start);
+                            log.error("Failed to flush '{}' coalesced inserts on workspaceId '{}'", entities.size(),
+                                    key.workspaceId(), error);
+                            toFlush.forEach(pendingInsert -> pendingInsert.sink().error(error));
+                        },
+                        () -> {
+                            recordFlush(entities.size(), start);
+                            toFlush.forEach(pendingInsert -> pendingInsert.sink().success());
+                        });
+    }
+
+    private void recordFlush(int size, long start) {
+        flushSize.record(size, attributes);
+        flushLatency.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), attributes);
+    }
+}
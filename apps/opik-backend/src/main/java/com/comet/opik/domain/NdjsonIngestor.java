@@ -0,0 +1,404 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.StreamIngestionReport;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.infrastructure.RateLimitConfig;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.infrastructure.ratelimit.RateLimitService;
+import com.comet.opik.infrastructure.ratelimit.RateLimited;
+import com.comet.opik.utils.JsonUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import reactor.core.publisher.Mono;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads newline-delimited JSON entities from a request body one line at a time and writes them in bounded chunks, so
+ * arbitrarily large streams are ingested with a single request and without materializing the whole body.
+ * <p>
+ * The next chunk is parsed while the previous one is being written. Lines that can't be parsed, fail validation or
+ * belong to a failed chunk are counted and reported by line number, the rest of the stream is still ingested.
+ * <p>
+ * When rate limiting is enabled, every chunk is charged to the general events limit before being written. Once the
+ * limit is exceeded, the lines of that chunk are reported as failed and the rest of the stream isn't read. Why the
+ * stream wasn't read to its end is reported apart from the lines, as only received lines are counted.
+ */
+@Slf4j
+@Singleton
+public class NdjsonIngestor {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final IngestionConfig.StreamConfig config;
+    private final RateLimitConfig rateLimitConfig;
+    private final Provider<RateLimitService> rateLimitService;
+    private final Provider<RequestContext> requestContext;
+    private final Validator validator;
+
+    @Inject
+    public NdjsonIngestor(@NonNull @Config("ingestion") IngestionConfig ingestionConfig,
+            @NonNull @Config("rateLimit") RateLimitConfig rateLimitConfig,
+            @NonNull Provider<RateLimitService> rateLimitService,
+            @NonNull Provider<RequestContext> requestContext,
+            @NonNull Validator validator) {
+        this.config = ingestionConfig.getStream();
+        this.rateLimitConfig = rateLimitConfig;
+        this.rateLimitService = rateLimitService;
+        this.requestContext = requestContext;
+        this.validator = validator;
+    }
+
+    /**
+     * @param view         the JSON view used to read the entities, as for the equivalent batch endpoint.
+     * @param idExtractor  returns the optional client side id of an entity, to reject duplicates within a chunk.
+     * @param chunkWriter  writes a chunk of valid entities, with the request context already set.
+     */
+    public <T> StreamIngestionReport ingest(@NonNull InputStream input, @NonNull Class<T> type,
+            @NonNull Class<?> view, @NonNull Function<T, UUID> idExtractor,
+            @NonNull Function<List<T>, Mono<Long>> chunkWriter) {
+
+        ObjectReader reader = JsonUtils.MAPPER.readerFor(type).withView(view);
+        var report = new Report(config.getMaxReportedErrors());
+        var chunk = new Chunk<T>(config.getChunkSize());
+        var rateLimit = rateLimit();
+        CompletableFuture<Void> pending = CompletableFuture.completedFuture(null);
+        long lineNumber = 0;
+
+        try (var lines = new LineReader(new InputStreamReader(input, StandardCharsets.UTF_8),
+                config.getMaxLineLength())) {
+            String line;
+
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+
+                if (lines.isTooLong()) {
+                    report.received++;
+                    report.fail(lineNumber, "Line exceeds the maximum length of '%d' characters"
+                            .formatted(config.getMaxLineLength()));
+                    continue;
+                }
+
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+
+                report.received++;
+
+                T entity = parse(reader, line, lineNumber, report);
+
+                if (entity == null) {
+                    continue;
+                }
+
+                UUID id = idExtractor.apply(entity);
+                if (id != null && !chunk.ids.add(id)) {
+                    report.fail(lineNumber, "Duplicate id '%s' in the same chunk".formatted(id));
+                    continue;
+                }
+
+                chunk.add(entity, lineNumber);
+
+                if (chunk.isFull()) {
+                    if (!rateLimit.acquire(chunk, report)) {
+                        report.stop("Rate limit exceeded, the rest of the stream wasn't read");
+                        chunk = new Chunk<>(config.getChunkSize());
+                        break;
+                    }
+
+                    pending = write(pending, chunk, chunkWriter, report);
+                    chunk = new Chunk<>(config.getChunkSize());
+                }
+            }
+        } catch (IOException exception) {
+            // The request body was cut, the lines read so far are still written
+            log.warn("Failed to read ingestion stream", exception);
+            report.stop("Failed to read the stream: %s".formatted(exception.getMessage()));
+        }
+
+        if (!chunk.rows.isEmpty() && rateLimit.acquire(chunk, report)) {
+            pending = write(pending, chunk, chunkWriter, report);
+        }
+
+        pending.join();
+
+        return report.build();
+    }
+
+    private RateLimit rateLimit() {
+        if (!rateLimitConfig.isEnabled()) {
+            return RateLimit.DISABLED;
+        }
+
+        // Same bucket as the @RateLimited endpoints without a custom limit
+        var limitConfig = Optional.ofNullable(rateLimitConfig.getCustomLimits())
+                .map(limits -> limits.get(RateLimited.GENERAL_EVENTS))
+                .orElse(rateLimitConfig.getGeneralLimit());
+
+        return new RateLimit(rateLimitService.get(), requestContext.get().getApiKey(), limitConfig);
+    }
+
+    private <T> T parse(ObjectReader reader, String line, long lineNumber, Report report) {
+        T entity;
+
+        try {
+            entity = reader.readValue(line);
+        } catch (JsonProcessingException exception) {
+            report.fail(lineNumber, "Invalid JSON: %s".formatted(exception.getOriginalMessage()));
+            return null;
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        if (entity == null) {
+            report.fail(lineNumber, "Invalid JSON: null entity");
+            return null;
+        }
+
+        Set<ConstraintViolation<T>> violations = validator.validate(entity);
+
+        if (!violations.isEmpty()) {
+            report.fail(lineNumber, violations.stream()
+                    .map(violation -> "%s %s".formatted(violation.getPropertyPath(), violation.getMessage()))
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+
+        return entity;
+    }
+
+    private <T> CompletableFuture<Void> write(CompletableFuture<Void> previous, Chunk<T> chunk,
+            Function<List<T>, Mono<Long>> chunkWriter, Report report) {
+        // At most one chunk is written while the next one is parsed, bounding the memory held per request
+        previous.join();
+
+        return chunkWriter.apply(List.copyOf(chunk.rows))
+                .toFuture()
+                .handle((__, error) -> {
+                    if (error == null) {
+                        report.created(chunk.rows.size());
+                    } else {
+                        var cause = error instanceof CompletionException ? error.getCause() : error;
+                        log.warn("Failed to write ingestion stream chunk of size '{}'", chunk.rows.size(), cause);
+                        chunk.lines.forEach(line -> report.fail(line,
+                                "Failed to write chunk: %s".formatted(cause.getMessage())));
+                    }
+                    return null;
+                });
+    }
+
+    private record RateLimit(RateLimitService service, String apiKey, RateLimitConfig.LimitConfig limitConfig) {
+
+        static final RateLimit DISABLED = new RateLimit(null, null, null);
+
+        /**
+         * Charges the rows of the chunk, reporting its lines as failed when the limit is exceeded.
+         *
+         * @return true if the chunk can be written.
+         */
+        boolean acquire(Chunk<?> chunk, Report report) {
+            if (service == null) {
+                return true;
+            }
+
+            var decision = service.tryAcquire(apiKey, chunk.rows.size(), RateLimited.GENERAL_EVENTS, limitConfig)
+                    .block();
+
+            if (decision == null || !decision.limitExceeded()) {
+                return true;
+            }
+
+            log.info("Rate limit exceeded while ingesting stream chunk of size '{}'", chunk.rows.size());
+            chunk.lines.forEach(line -> report.fail(line, "Rate limit exceeded"));
+            return false;
+        }
+    }
+
+    /**
+     * Reads lines ended by a line feed, optionally preceded by a carriage return, keeping at most the maximum length of
+     * each line in memory. The rest of a longer line is skipped and the line is flagged as too long.
+     */
+    private static class LineReader implements Closeable {
+        private final Reader reader;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean tooLong;
+
+        LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        String readLine() throws IOException {
+            line.setLength(0);
+            tooLong = false;
+            boolean read = false;
+
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit == -1) {
+                        limit = 0;
+                        break;
+                    }
+                }
+
+                read = true;
+                int start = position;
+                while (position < limit && buffer[position] != '\n') {
+                    position++;
+                }
+
+                // One more character than the maximum is kept, to tell a trailing carriage return from a long line
+                int length = Math.min(position - start, maxLength + 1 - line.length());
+                if (length > 0) {
+                    line.append(buffer, start, length);
+                }
+                if (position - start > Math.max(length, 0)) {
+                    tooLong = true;
+                }
+
+                if (position < limit) {
+                    position++;
+                    break;
+                }
+            }
+
+            if (!read) {
+                return null;
+            }
+
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+
+            tooLong |= line.length() > maxLength;
+            return tooLong ? "" : line.toString();
+        }
+
+        boolean isTooLong() {
+            return tooLong;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static class Chunk<T> {
+        private final int maxSize;
+        private final List<T> rows;
+        private final List<Long> lines;
+        private final Set<UUID> ids = new HashSet<>();
+
+        Chunk(int maxSize) {
+            this.maxSize = maxSize;
+            this.rows = new ArrayList<>(maxSize);
+            this.lines = new ArrayList<>(maxSize);
+        }
+
+        void add(T row, long line) {
+            rows.add(row);
+            lines.add(line);
+        }
+
+        boolean isFull() {
+            return rows.size() >= maxSize;
+        }
+    }
+
+    // Updated by the request thread while parsing and by the completion of the chunk being written. Guarded by a lock
+    // rather than synchronized, so the request thread doesn't pin its carrier when running on a virtual thread
+    private static class Report {
+        private final int maxReportedErrors;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<StreamIngestionReport.LineError> errors = new ArrayList<>();
+        private long received;
+        private long created;
+        private long failed;
+        private String stopReason;
+
+        Report(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        void created(int rows) {
+            lock.lock();
+            try {
+                created += rows;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void fail(long line, String message) {
+            lock.lock();
+            try {
+                failed++;
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new StreamIngestionReport.LineError(line, message));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void stop(String reason) {
+            lock.lock();
+            try {
+                stopReason = reason;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        StreamIngestionReport build() {
+            lock.lock();
+            try {
+                return StreamIngestionReport.builder()
+                        .received(received)
+                        .created(created)
+                        .failed(failed)
+                        .stopReason(stopReason)
+                        .errors(errors.stream()
+                                .sorted((left, right) -> Long.compare(left.line(), right.line()))
+                                .toList())
+                        .build();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
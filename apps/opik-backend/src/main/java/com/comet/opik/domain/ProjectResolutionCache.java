@@ -0,0 +1,249 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Project;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.utils.JsonUtils;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.inject.Singleton;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopicReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.codec.JsonJacksonCodec;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Near-cache of project ids by workspace and case-insensitive name, used to resolve the project of spans, traces and
+ * feedback scores without a MySQL round trip per request.
+ * <p>
+ * Only the id and name of the projects are cached and returned, which is all the ingestion needs. Their other fields,
+ * such as the last updated trace, change on every trace event and aren't cached, so recording them evicts nothing.
+ * <p>
+ * Concurrent misses for the same name share a single load, so a burst of first-time spans for a new project creates it
+ * only once per node. Entries are invalidated locally on project updates and deletions, and on other nodes through a
+ * Redis topic. Missed invalidations are bounded by the TTL.
+ */
+@Slf4j
+@Singleton
+class ProjectResolutionCache {
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, property = "@class")
+    record Invalidation(String nodeId, String workspaceId, Set<UUID> projectIds) {
+    }
+
+    record Key(String workspaceId, String name) {
+        static Key of(String workspaceId, String name) {
+            return new Key(workspaceId, name.toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private final IngestionConfig.ProjectCacheConfig config;
+    private final Provider<RedissonReactiveClient> redisClient;
+    private final Cache<Key, Project> cache;
+    // Cached keys by project id, mutated only within compute calls, so invalidations evict them without a scan
+    private final Map<UUID, Set<Key>> keysByProjectId = new ConcurrentHashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ReentrantLock subscriptionLock = new ReentrantLock();
+    private volatile RTopicReactive topic;
+
+    @Inject
+    ProjectResolutionCache(@NonNull @Config("ingestion") IngestionConfig ingestionConfig,
+            @NonNull Provider<RedissonReactiveClient> redisClient) {
+        this.config = ingestionConfig.getProjectCache();
+        this.redisClient = redisClient;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl())
+                .removalListener(this::unindex)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Returns the cached project, or calls the loader once for all concurrent callers of the same name. Exceptions of
+     * the loader are propagated unwrapped and nothing is cached.
+     */
+    public Project get(@NonNull String workspaceId, @NonNull String name, @NonNull Callable<Project> loader) {
+        if (!config.isEnabled()) {
+            return call(loader);
+        }
+
+        subscribe();
+
+        try {
+            var key = Key.of(workspaceId, name);
+            return cache.get(key, () -> index(key, loader.call()));
+        } catch (ExecutionException | UncheckedExecutionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    /**
+     * Returns the cached projects for the names, loading the missing ones with a single call to the loader. Names
+     * without a project aren't cached, so they're looked up again on the next call.
+     */
+    public List<Project> getAll(@NonNull String workspaceId, @NonNull Collection<String> names,
+            @NonNull Function<List<String>, List<Project>> loader) {
+        if (!config.isEnabled()) {
+            return loader.apply(List.copyOf(names));
+        }
+
+        subscribe();
+
+        Map<Key, Project> projects = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        names.forEach(name -> {
+            var key = Key.of(workspaceId, name);
+            var project = cache.getIfPresent(key);
+            if (project != null) {
+                projects.put(key, project);
+            } else if (!projects.containsKey(key)) {
+                missing.add(name);
+            }
+        });
+
+        if (!missing.isEmpty()) {
+            loader.apply(missing).forEach(project -> {
+                var key = Key.of(workspaceId, project.name());
+                var resolution = index(key, project);
+                cache.put(key, resolution);
+                projects.put(key, resolution);
+            });
+        }
+
+        return List.copyOf(projects.values());
+    }
+
+    /**
+     * Evicts the projects on this node and publishes the invalidation to the other nodes.
+     */
+    public void invalidate(@NonNull String workspaceId, @NonNull Set<UUID> projectIds) {
+        if (!config.isEnabled() || projectIds.isEmpty()) {
+            return;
+        }
+
+        invalidateLocally(workspaceId, projectIds);
+
+        subscribe();
+
+        topic.publish(new Invalidation(nodeId, workspaceId, projectIds))
+                .subscribe(
+                        __ -> log.debug("Published project cache invalidation on workspaceId '{}'", workspaceId),
+                        error -> log.warn("Failed to publish project cache invalidation on workspaceId '{}'",
+                                workspaceId, error));
+    }
+
+    void invalidateLocally(String workspaceId, Set<UUID> projectIds) {
+        List<Key> keys = new ArrayList<>();
+
+        projectIds.forEach(projectId -> keysByProjectId.computeIfPresent(projectId, (id, indexed) -> {
+            for (var iterator = indexed.iterator(); iterator.hasNext();) {
+                var key = iterator.next();
+                if (key.workspaceId().equals(workspaceId)) {
+                    keys.add(key);
+                    iterator.remove();
+                }
+            }
+            return indexed.isEmpty() ? null : indexed;
+        }));
+
+        cache.invalidateAll(keys);
+    }
+
+    /**
+     * Indexes the key by the project id, returning the project reduced to what's cached.
+     */
+    private Project index(Key key, Project project) {
+        keysByProjectId.compute(project.id(), (id, indexed) -> {
+            var keys = indexed == null ? new HashSet<Key>() : indexed;
+            keys.add(key);
+            return keys;
+        });
+
+        return Project.builder()
+                .id(project.id())
+                .name(project.name())
+                .build();
+    }
+
+    private void unindex(RemovalNotification<Key, Project> removal) {
+        // A replaced key stays cached, and it's indexed again under the id of its new project
+        if (removal.getCause() == RemovalCause.REPLACED || removal.getValue() == null) {
+            return;
+        }
+
+        keysByProjectId.computeIfPresent(removal.getValue().id(), (id, indexed) -> {
+            indexed.remove(removal.getKey());
+            return indexed.isEmpty() ? null : indexed;
+        });
+    }
+
+    private void subscribe() {
+        if (topic != null) {
+            return;
+        }
+
+        subscriptionLock.lock();
+        try {
+            if (topic != null) {
+                return;
+            }
+
+            var newTopic = redisClient.get()
+                    .getTopic(config.getInvalidationTopic(), new JsonJacksonCodec(JsonUtils.MAPPER));
+
+            newTopic.addListener(Invalidation.class, (channel, message) -> {
+                if (!nodeId.equals(message.nodeId())) {
+                    invalidateLocally(message.workspaceId(), message.projectIds());
+                }
+            }).subscribe(
+                    __ -> log.info("Subscribed to project cache invalidations on '{}'",
+                            config.getInvalidationTopic()),
+                    error -> log.error("Failed to subscribe to project cache invalidations", error));
+
+            topic = newTopic;
+        } finally {
+            subscriptionLock.unlock();
+        }
+    }
+
+    private static Project call(Callable<Project> loader) {
+        try {
+            return loader.call();
+        } catch (RuntimeException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
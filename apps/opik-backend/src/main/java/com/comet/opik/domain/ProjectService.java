@@ -105,6 +105,7 @@ class ProjectServiceImpl implements ProjectService {
     private final @NonNull TransactionTemplateAsync transactionTemplateAsync;
     private final @NonNull SortingFactoryProjects sortingFactory;
     private final @NonNull SortingQueryBuilder sortingQueryBuilder;
+    private final @NonNull ProjectResolutionCache projectCache;
 
     private NotFoundException createNotFoundError() {
         String message = "Project not found";
@@ -178,6 +179,8 @@ class ProjectServiceImpl implements ProjectService {
                 return null;
             });
 
+            projectCache.invalidate(workspaceId, Set.of(id));
+
             return get(id, workspaceId);
         } catch (UnableToExecuteStatementException e) {
             if (e.getCause() instanceof SQLIntegrityConstraintViolationException) {
@@ -264,6 +267,8 @@ class ProjectServiceImpl implements ProjectService {
             // Void return
             return null;
         });
+
+        projectCache.invalidate(workspaceId, Set.of(id));
     }
 
     @Override
@@ -279,6 +284,8 @@ class ProjectServiceImpl implements ProjectService {
             handle.attach(ProjectDAO.class).delete(ids, workspaceId);
             return null;
         });
+
+        projectCache.invalidate(workspaceId, ids);
     }
 
     @Override
@@ -431,6 +438,10 @@ class ProjectServiceImpl implements ProjectService {
             return List.of();
         }
 
+        return projectCache.getAll(workspaceId, names, missing -> fetchByNames(workspaceId, missing));
+    }
+
+    private List<Project> fetchByNames(String workspaceId, List<String> names) {
         return template.inTransaction(READ_ONLY, handle -> {
 
             var repository = handle.attach(ProjectDAO.class);
@@ -441,8 +452,12 @@ class ProjectServiceImpl implements ProjectService {
 
     @Override
     public Project getOrCreate(@NonNull String workspaceId, @NonNull String projectName, @NonNull String userName) {
+        // Concurrent callers for the same new project wait for a single creation on this node
+        return projectCache.get(workspaceId, projectName, () -> findOrCreate(workspaceId, projectName, userName));
+    }
 
-        return findByNames(workspaceId, List.of(projectName))
+    private Project findOrCreate(String workspaceId, String projectName, String userName) {
+        return fetchByNames(workspaceId, List.of(projectName))
                 .stream()
                 .findFirst()
                 .orElseGet(() -> {
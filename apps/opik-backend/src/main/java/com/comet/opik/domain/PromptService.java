@@ -7,6 +7,7 @@ import com.comet.opik.api.PromptVersion.PromptVersionPage;
 import com.comet.opik.api.error.EntityAlreadyExistsException;
 import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.utils.MustacheUtils;
+import com.comet.opik.utils.SchedulerUtils;
 import com.google.inject.ImplementedBy;
 import io.dropwizard.jersey.errors.ErrorMessage;
 import jakarta.inject.Inject;
@@ -18,7 +19,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import ru.vyarus.guicey.jdbi3.tx.TransactionTemplate;
 
 import java.util.List;
@@ -398,7 +398,7 @@ class PromptServiceImpl implements PromptService {
                     }
                     return Mono.just(versions);
                 })
-                .subscribeOn(Schedulers.boundedElastic()));
+                .subscribeOn(SchedulerUtils.blocking()));
     }
 
     public PromptVersion getVersionById(@NonNull String workspaceId, @NonNull UUID id) {
@@ -509,6 +509,6 @@ class PromptServiceImpl implements PromptService {
 
                     return promptVersionDAO.findCommitByVersionsIds(versionsIds, workspaceId).stream()
                             .collect(toMap(PromptVersionId::id, PromptVersionId::commit));
-                })).subscribeOn(Schedulers.boundedElastic()));
+                })).subscribeOn(SchedulerUtils.blocking()));
     }
 }
@@ -0,0 +1,320 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.utils.JsonUtils;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes values in the ClickHouse RowBinary format into a chain of pooled buffers. Strings are encoded straight
+ * into the buffers and JSON values are serialized into a reusable scratch buffer, so no intermediate String is created
+ * per value.
+ * <p>
+ * Not thread safe, an instance encodes a single insert body and must be released once the body has been sent.
+ *
+ * @see <a href="https://clickhouse.com/docs/en/interfaces/formats#rowbinary">RowBinary format</a>
+ */
+class RowBinaryOutput {
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int INT128_BYTES = 16;
+    private static final int UUID_LENGTH = 36;
+
+    private final ByteBufferPool pool;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private final ScratchOutputStream scratch = new ScratchOutputStream();
+    private ByteBuffer current;
+    private long size;
+
+    RowBinaryOutput(@NonNull ByteBufferPool pool) {
+        this.pool = pool;
+        nextBuffer();
+    }
+
+    void writeByte(int value) {
+        ensureRemaining();
+        current.put((byte) value);
+        size++;
+    }
+
+    void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    void writeVarUInt(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    void writeInt32(int value) {
+        if (current.remaining() < Integer.BYTES) {
+            for (int i = 0; i < Integer.BYTES; i++) {
+                writeByte(value >>> (8 * i));
+            }
+            return;
+        }
+        current.putInt(value);
+        size += Integer.BYTES;
+    }
+
+    void writeInt64(long value) {
+        if (current.remaining() < Long.BYTES) {
+            for (int i = 0; i < Long.BYTES; i++) {
+                writeByte((int) (value >>> (8 * i)));
+            }
+            return;
+        }
+        current.putLong(value);
+        size += Long.BYTES;
+    }
+
+    void writeBytes(byte[] value, int offset, int length) {
+        while (length > 0) {
+            ensureRemaining();
+            int chunk = Math.min(length, current.remaining());
+            current.put(value, offset, chunk);
+            offset += chunk;
+            length -= chunk;
+            size += chunk;
+        }
+    }
+
+    /**
+     * Writes a UUID as its 36 chars canonical representation, for FixedString(36) columns.
+     */
+    void writeUuid(@NonNull UUID value) {
+        writeHex(value.getMostSignificantBits() >>> 32, 8);
+        writeByte('-');
+        writeHex(value.getMostSignificantBits() >>> 16, 4);
+        writeByte('-');
+        writeHex(value.getMostSignificantBits(), 4);
+        writeByte('-');
+        writeHex(value.getLeastSignificantBits() >>> 48, 4);
+        writeByte('-');
+        writeHex(value.getLeastSignificantBits(), 12);
+    }
+
+    /**
+     * Writes a UUID into a String column, or an empty string when the value is null.
+     */
+    void writeUuidString(UUID value) {
+        if (value == null) {
+            writeVarUInt(0);
+            return;
+        }
+
+        writeVarUInt(UUID_LENGTH);
+        writeUuid(value);
+    }
+
+    /**
+     * Writes a String column: the UTF-8 length as a LEB128 varint, followed by the UTF-8 bytes. Null values are
+     * written as empty strings. Unpaired surrogates are replaced by '?', like {@link String#getBytes}.
+     */
+    void writeString(String value) {
+        if (value == null) {
+            writeVarUInt(0);
+            return;
+        }
+
+        writeVarUInt(utf8Length(value));
+
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    writeByte(0xF0 | (codePoint >> 18));
+                    writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                    writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                    writeByte(0x80 | (codePoint & 0x3F));
+                } else {
+                    writeByte('?');
+                }
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Writes a value serialized as JSON into a String column, or an empty string when the value is null.
+     */
+    void writeJson(Object value) {
+        if (value == null) {
+            writeVarUInt(0);
+            return;
+        }
+
+        scratch.reset();
+        try {
+            JsonUtils.MAPPER.writeValue(scratch, value);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        writeVarUInt(scratch.count);
+        writeBytes(scratch.buffer, 0, scratch.count);
+    }
+
+    void writeStringArray(Collection<String> values) {
+        if (values == null) {
+            writeVarUInt(0);
+            return;
+        }
+
+        writeVarUInt(values.size());
+        values.forEach(this::writeString);
+    }
+
+    /**
+     * Writes a DateTime64(9) column: the nanoseconds since epoch as Int64.
+     */
+    void writeDateTime64(@NonNull Instant value) {
+        writeInt64(value.getEpochSecond() * NANOS_PER_SECOND + value.getNano());
+    }
+
+    void writeNullableDateTime64(Instant value) {
+        writeBoolean(value == null);
+        if (value != null) {
+            writeDateTime64(value);
+        }
+    }
+
+    /**
+     * Writes a Decimal128(scale) column: the unscaled value as a little endian Int128. Extra decimal places are
+     * truncated, like ClickHouse does when parsing decimals.
+     */
+    void writeDecimal128(@NonNull BigDecimal value, int scale) {
+        BigInteger unscaled = value.setScale(scale, RoundingMode.DOWN).unscaledValue();
+        byte[] bigEndian = unscaled.toByteArray();
+
+        if (bigEndian.length > INT128_BYTES) {
+            throw new ArithmeticException("Decimal value '%s' overflows Decimal128(%d)".formatted(value, scale));
+        }
+
+        int signExtension = unscaled.signum() < 0 ? 0xFF : 0x00;
+        for (int i = 0; i < INT128_BYTES; i++) {
+            writeByte(i < bigEndian.length ? bigEndian[bigEndian.length - 1 - i] : signExtension);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return the encoded buffers, ready to be read. They stay owned by this output until {@link #release()}.
+     */
+    List<ByteBuffer> buffers() {
+        return buffers.stream()
+                .map(buffer -> buffer.duplicate().flip())
+                .toList();
+    }
+
+    void release() {
+        buffers.forEach(pool::release);
+        buffers.clear();
+        current = null;
+    }
+
+    private void ensureRemaining() {
+        if (!current.hasRemaining()) {
+            nextBuffer();
+        }
+    }
+
+    private void nextBuffer() {
+        current = pool.acquire().order(ByteOrder.LITTLE_ENDIAN);
+        buffers.add(current);
+    }
+
+    private void writeHex(long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            writeByte(HEX_DIGITS[(int) ((value >>> (4 * i)) & 0xF)]);
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 2;
+                    i++;
+                }
+            } else {
+                bytes += 2;
+            }
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Unsynchronized growable buffer, reused across the JSON values of an insert body.
+     */
+    private static class ScratchOutputStream extends OutputStream {
+
+        private byte[] buffer = new byte[1024];
+        private int count;
+
+        @Override
+        public void write(int value) {
+            grow(1);
+            buffer[count++] = (byte) value;
+        }
+
+        @Override
+        public void write(byte[] value, int offset, int length) {
+            grow(length);
+            System.arraycopy(value, offset, buffer, count, length);
+            count += length;
+        }
+
+        void reset() {
+            count = 0;
+        }
+
+        private void grow(int length) {
+            if (count + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + length));
+            }
+        }
+    }
+}
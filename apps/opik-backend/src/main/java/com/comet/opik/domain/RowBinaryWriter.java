@@ -0,0 +1,162 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.infrastructure.DatabaseAnalyticsFactory;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.utils.JsonUtils;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import reactor.adapter.JdkFlowAdapter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Writes batches of rows to ClickHouse in the RowBinary format, streaming the encoded pooled buffers as the body of a
+ * single HTTP request. This skips the named parameter binding of the r2dbc driver, which converts every value to a
+ * String and embeds it in the rendered SQL.
+ */
+@Slf4j
+@Singleton
+class RowBinaryWriter {
+
+    private static final String SUMMARY_HEADER = "X-ClickHouse-Summary";
+    private static final String EXCEPTION_CODE_HEADER = "X-ClickHouse-Exception-Code";
+    private static final String CUSTOM_HTTP_PARAMS = "custom_http_params";
+
+    private final IngestionConfig.RowBinaryConfig config;
+    private final DatabaseAnalyticsFactory databaseAnalyticsFactory;
+    private final ByteBufferPool pool;
+    private final HttpClient httpClient;
+    private final Map<String, URI> insertUris = new ConcurrentHashMap<>();
+
+    @Inject
+    RowBinaryWriter(@NonNull @Config("databaseAnalytics") DatabaseAnalyticsFactory databaseAnalyticsFactory,
+            @NonNull @Config("ingestion") IngestionConfig ingestionConfig) {
+        this.config = ingestionConfig.getRowBinary();
+        this.databaseAnalyticsFactory = databaseAnalyticsFactory;
+        this.pool = new ByteBufferPool(config.getBufferSize(), config.getMaxPooledBuffers());
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(config.getTimeout())
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * Encodes the rows with the given encoder and sends them as the data of the insert query.
+     *
+     * @param insertQuery an INSERT query listing the columns written by the encoder, in the same order, and ending with
+     *                    {@code FORMAT RowBinary}.
+     * @return the number of written rows reported by ClickHouse.
+     */
+    public <T> Mono<Long> insert(@NonNull String insertQuery, @NonNull List<T> rows,
+            @NonNull BiConsumer<T, RowBinaryOutput> encoder) {
+        return Mono.defer(() -> {
+            var output = new RowBinaryOutput(pool);
+
+            try {
+                rows.forEach(row -> encoder.accept(row, output));
+            } catch (RuntimeException exception) {
+                output.release();
+                return Mono.error(exception);
+            }
+
+            var body = JdkFlowAdapter.publisherToFlowPublisher(Flux.fromIterable(output.buffers()));
+
+            var request = HttpRequest.newBuilder(insertUri(insertQuery))
+                    .timeout(config.getTimeout())
+                    .header("X-ClickHouse-User", databaseAnalyticsFactory.getUsername())
+                    .header("X-ClickHouse-Key", databaseAnalyticsFactory.getPassword())
+                    .header("Content-Type", "application/octet-stream")
+                    .POST(HttpRequest.BodyPublishers.fromPublisher(body, output.size()))
+                    .build();
+
+            // Buffers are only returned to the pool on success, on failure the client might still hold them
+            return Mono.fromFuture(() -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                    .map(response -> writtenRows(response, rows.size()))
+                    .doOnSuccess(__ -> output.release());
+        });
+    }
+
+    private URI insertUri(String insertQuery) {
+        return insertUris.computeIfAbsent(insertQuery, query -> {
+            var uri = new StringBuilder("%s://%s:%d/?database=%s&query=%s"
+                    .formatted(databaseAnalyticsFactory.getProtocol().getValue(),
+                            databaseAnalyticsFactory.getHost(),
+                            databaseAnalyticsFactory.getPort(),
+                            encode(databaseAnalyticsFactory.getDatabaseName()),
+                            encode(query)));
+
+            serverSettings(databaseAnalyticsFactory.getQueryParameters())
+                    .forEach((name, value) -> uri.append('&').append(encode(name)).append('=').append(encode(value)));
+
+            return URI.create(uri.toString());
+        });
+    }
+
+    /**
+     * Extracts the server settings from the query parameters of the r2dbc connection string, so inserts run with the
+     * same settings, e.g. {@code max_query_size}. The driver sends the settings listed in {@code custom_http_params}
+     * as parameters of its HTTP requests. The other parameters configure the driver itself, e.g. {@code compress} or
+     * {@code failover}, and ClickHouse rejects them as unknown settings, so they're skipped.
+     */
+    static Map<String, String> serverSettings(String queryParameters) {
+        Map<String, String> settings = new LinkedHashMap<>();
+
+        if (StringUtils.isBlank(queryParameters)) {
+            return settings;
+        }
+
+        for (String parameter : queryParameters.split("&")) {
+            if (!CUSTOM_HTTP_PARAMS.equals(StringUtils.substringBefore(parameter, "="))) {
+                continue;
+            }
+
+            for (String setting : StringUtils.substringAfter(parameter, "=").split(",")) {
+                if (setting.contains("=")) {
+                    settings.put(StringUtils.substringBefore(setting, "=").trim(),
+                            StringUtils.substringAfter(setting, "=").trim());
+                }
+            }
+        }
+
+        return settings;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private long writtenRows(HttpResponse<String> response, int rows) {
+        if (response.statusCode() != 200) {
+            String code = response.headers().firstValue(EXCEPTION_CODE_HEADER).orElse("unknown");
+            log.error("RowBinary insert failed with status '{}' and ClickHouse code '{}'", response.statusCode(),
+                    code);
+            throw new IllegalStateException("RowBinary insert failed with ClickHouse code '%s': %s"
+                    .formatted(code, response.body()));
+        }
+
+        return response.headers().firstValue(SUMMARY_HEADER)
+                .map(JsonUtils::getJsonNodeFromString)
+                .map(summary -> summary.path("written_rows").asLong(rows))
+                .orElse((long) rows);
+    }
+}
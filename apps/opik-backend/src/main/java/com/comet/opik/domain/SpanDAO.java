@@ -9,7 +9,6 @@ import com.comet.opik.domain.filter.FilterQueryBuilder;
 import com.comet.opik.domain.filter.FilterStrategy;
 import com.comet.opik.domain.stats.StatsMapper;
 import com.comet.opik.utils.JsonUtils;
-import com.comet.opik.utils.TemplateUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
@@ -53,7 +52,8 @@ import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils
 import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils.startSegment;
 import static com.comet.opik.utils.AsyncUtils.makeFluxContextAware;
 import static com.comet.opik.utils.AsyncUtils.makeMonoContextAware;
-import static com.comet.opik.utils.TemplateUtils.getQueryItemPlaceHolder;
+import static com.comet.opik.utils.TemplateUtils.indexedParam;
+import static com.comet.opik.utils.TemplateUtils.renderBulkInsert;
 
 @Singleton
 @RequiredArgsConstructor(onConstructor_ = @Inject)
@@ -113,6 +113,94 @@ class SpanDAO {
             ;
             """;
 
+    /**
+     * Writes the merged rows of a batch update. Unlike {@link #BULK_INSERT}, it keeps the creation time and author of
+     * the existing rows.
+     */
+    private static final String BULK_UPDATE = """
+            INSERT INTO spans(
+                id,
+                project_id,
+                workspace_id,
+                trace_id,
+                parent_span_id,
+                name,
+                type,
+                start_time,
+                end_time,
+                input,
+                output,
+                metadata,
+                model,
+                provider,
+                total_estimated_cost,
+                total_estimated_cost_version,
+                tags,
+                usage,
+                error_info,
+                created_at,
+                created_by,
+                last_updated_by
+            ) VALUES
+                <items:{item |
+                    (
+                        :id<item.index>,
+                        :project_id<item.index>,
+                        :workspace_id,
+                        :trace_id<item.index>,
+                        :parent_span_id<item.index>,
+                        :name<item.index>,
+                        :type<item.index>,
+                        parseDateTime64BestEffort(:start_time<item.index>, 9),
+                        if(:end_time<item.index> IS NULL, NULL, parseDateTime64BestEffort(:end_time<item.index>, 9)),
+                        :input<item.index>,
+                        :output<item.index>,
+                        :metadata<item.index>,
+                        :model<item.index>,
+                        :provider<item.index>,
+                        toDecimal128(:total_estimated_cost<item.index>, 12),
+                        :total_estimated_cost_version<item.index>,
+                        :tags<item.index>,
+                        mapFromArrays(:usage_keys<item.index>, :usage_values<item.index>),
+                        :error_info<item.index>,
+                        parseDateTime64BestEffort(:created_at<item.index>, 9),
+                        :created_by<item.index>,
+                        :last_updated_by<item.index>
+                    )
+                    <if(item.hasNext)>,<endif>
+                }>
+            ;
+            """;
+
+    /**
+     * The columns are sent in this order by {@link #writeRowBinary}, keep both in sync.
+     */
+    private static final String ROW_BINARY_INSERT = """
+            INSERT INTO spans(
+                id,
+                project_id,
+                workspace_id,
+                trace_id,
+                parent_span_id,
+                name,
+                type,
+                start_time,
+                end_time,
+                input,
+                output,
+                metadata,
+                model,
+                provider,
+                total_estimated_cost,
+                total_estimated_cost_version,
+                tags,
+                usage,
+                error_info,
+                created_by,
+                last_updated_by
+            ) FORMAT RowBinary
+            """;
+
     /**
      * This query handles the insertion of a new span into the database in two cases:
      * 1. When the span does not exist in the database.
@@ -478,6 +566,17 @@ class SpanDAO {
             ;
             """;
 
+    private static final String SELECT_LATEST_BY_IDS = """
+            SELECT
+                *
+            FROM spans
+            WHERE workspace_id = :workspace_id
+            AND id IN :ids
+            ORDER BY id DESC, last_updated_at DESC
+            LIMIT 1 BY id
+            ;
+            """;
+
     private static final String SELECT_BY_ID = """
             SELECT
                 s.*,
@@ -796,6 +895,7 @@ class SpanDAO {
     private final @NonNull ConnectionFactory connectionFactory;
     private final @NonNull FeedbackScoreDAO feedbackScoreDAO;
     private final @NonNull FilterQueryBuilder filterQueryBuilder;
+    private final @NonNull RowBinaryWriter rowBinaryWriter;
 
     @WithSpan
     public Mono<Void> insert(@NonNull Span span) {
@@ -809,6 +909,10 @@ class SpanDAO {
 
         Preconditions.checkArgument(!spans.isEmpty(), "Spans list must not be empty");
 
+        if (rowBinaryWriter.isEnabled()) {
+            return insertRowBinary(spans);
+        }
+
         return Mono.from(connectionFactory.create())
                 .flatMapMany(connection -> insert(spans, connection))
                 .flatMap(Result::getRowsUpdated)
@@ -818,59 +922,18 @@ class SpanDAO {
     private Publisher<? extends Result> insert(List<Span> spans, Connection connection) {
 
         return makeMonoContextAware((userName, workspaceId) -> {
-            List<TemplateUtils.QueryItem> queryItems = getQueryItemPlaceHolder(spans.size());
-
-            var template = new ST(BULK_INSERT)
-                    .add("items", queryItems);
-
-            Statement statement = connection.createStatement(template.render());
+            Statement statement = connection.createStatement(renderBulkInsert(BULK_INSERT, spans.size()));
 
             int i = 0;
             for (Span span : spans) {
 
-                statement.bind("id" + i, span.id())
-                        .bind("project_id" + i, span.projectId())
-                        .bind("trace_id" + i, span.traceId())
-                        .bind("name" + i, span.name())
-                        .bind("type" + i, span.type().toString())
-                        .bind("start_time" + i, span.startTime().toString())
-                        .bind("parent_span_id" + i, span.parentSpanId() != null ? span.parentSpanId() : "")
-                        .bind("input" + i, span.input() != null ? span.input().toString() : "")
-                        .bind("output" + i, span.output() != null ? span.output().toString() : "")
-                        .bind("metadata" + i, span.metadata() != null ? span.metadata().toString() : "")
-                        .bind("model" + i, span.model() != null ? span.model() : "")
-                        .bind("provider" + i, span.provider() != null ? span.provider() : "")
-                        .bind("tags" + i, span.tags() != null ? span.tags().toArray(String[]::new) : new String[]{})
-                        .bind("error_info" + i,
-                                span.errorInfo() != null ? JsonUtils.readTree(span.errorInfo()).toString() : "")
-                        .bind("created_by" + i, userName)
-                        .bind("last_updated_by" + i, userName);
-
-                if (span.endTime() != null) {
-                    statement.bind("end_time" + i, span.endTime().toString());
-                } else {
-                    statement.bindNull("end_time" + i, String.class);
-                }
-
-                if (span.usage() != null) {
-                    Stream.Builder<String> keys = Stream.builder();
-                    Stream.Builder<Integer> values = Stream.builder();
+                bindBulkRow(statement, span, i);
 
-                    span.usage().forEach((key, value) -> {
-                        if (Objects.nonNull(value)) {
-                            keys.add(key);
-                            values.add(value);
-                        }
-                    });
-
-                    statement.bind("usage_keys" + i, keys.build().toArray(String[]::new));
-                    statement.bind("usage_values" + i, values.build().toArray(Integer[]::new));
-                } else {
-                    statement.bind("usage_keys" + i, new String[]{});
-                    statement.bind("usage_values" + i, new Integer[]{});
-                }
+                statement.bind(indexedParam("created_by", i), userName)
+                        .bind(indexedParam("last_updated_by", i), userName);
 
-                bindCost(span, statement, String.valueOf(i));
+                bindCost(span, statement, indexedParam("total_estimated_cost", i),
+                        indexedParam("total_estimated_cost_version", i));
 
                 i++;
             }
@@ -884,6 +947,105 @@ class SpanDAO {
         });
     }
 
+    private void bindBulkRow(Statement statement, Span span, int i) {
+        statement.bind(indexedParam("id", i), span.id())
+                .bind(indexedParam("project_id", i), span.projectId())
+                .bind(indexedParam("trace_id", i), span.traceId())
+                .bind(indexedParam("name", i), span.name())
+                // Spans partially inserted by an update before their creation don't have a type yet
+                .bind(indexedParam("type", i), span.type() != null ? span.type().toString() : "unknown")
+                .bind(indexedParam("start_time", i), span.startTime().toString())
+                .bind(indexedParam("parent_span_id", i),
+                        span.parentSpanId() != null ? span.parentSpanId() : "")
+                .bind(indexedParam("input", i), span.input() != null ? span.input().toString() : "")
+                .bind(indexedParam("output", i), span.output() != null ? span.output().toString() : "")
+                .bind(indexedParam("metadata", i),
+                        span.metadata() != null ? span.metadata().toString() : "")
+                .bind(indexedParam("model", i), span.model() != null ? span.model() : "")
+                .bind(indexedParam("provider", i), span.provider() != null ? span.provider() : "")
+                .bind(indexedParam("tags", i),
+                        span.tags() != null ? span.tags().toArray(String[]::new) : new String[]{})
+                .bind(indexedParam("error_info", i),
+                        span.errorInfo() != null ? JsonUtils.readTree(span.errorInfo()).toString() : "");
+
+        if (span.endTime() != null) {
+            statement.bind(indexedParam("end_time", i), span.endTime().toString());
+        } else {
+            statement.bindNull(indexedParam("end_time", i), String.class);
+        }
+
+        if (span.usage() != null) {
+            Stream.Builder<String> keys = Stream.builder();
+            Stream.Builder<Integer> values = Stream.builder();
+
+            span.usage().forEach((key, value) -> {
+                if (Objects.nonNull(value)) {
+                    keys.add(key);
+                    values.add(value);
+                }
+            });
+
+            statement.bind(indexedParam("usage_keys", i), keys.build().toArray(String[]::new));
+            statement.bind(indexedParam("usage_values", i), values.build().toArray(Integer[]::new));
+        } else {
+            statement.bind(indexedParam("usage_keys", i), new String[]{});
+            statement.bind(indexedParam("usage_values", i), new Integer[]{});
+        }
+    }
+
+    private Mono<Long> insertRowBinary(List<Span> spans) {
+        return makeMonoContextAware((userName, workspaceId) -> {
+            Segment segment = startSegment("spans", "Clickhouse", "batch_insert_row_binary");
+
+            return rowBinaryWriter.insert(ROW_BINARY_INSERT, spans,
+                    (span, output) -> writeRowBinary(span, output, workspaceId, userName))
+                    .doFinally(signalType -> endSegment(segment));
+        });
+    }
+
+    private void writeRowBinary(Span span, RowBinaryOutput output, String workspaceId, String userName) {
+        output.writeUuid(span.id());
+        output.writeUuid(span.projectId());
+        output.writeString(workspaceId);
+        output.writeUuid(span.traceId());
+        output.writeUuidString(span.parentSpanId());
+        output.writeString(span.name());
+        // Enum8('unknown' = 0 , 'general' = 1, 'tool' = 2, 'llm' = 3)
+        output.writeByte(span.type() != null ? span.type().ordinal() + 1 : 0);
+        output.writeDateTime64(span.startTime());
+        output.writeNullableDateTime64(span.endTime());
+        output.writeJson(span.input());
+        output.writeJson(span.output());
+        output.writeJson(span.metadata());
+        output.writeString(span.model());
+        output.writeString(span.provider());
+
+        if (span.totalEstimatedCost() != null) {
+            // Cost is set manually by the user
+            output.writeDecimal128(span.totalEstimatedCost(), 12);
+            output.writeString("");
+        } else {
+            BigDecimal estimatedCost = calculateCost(span);
+            output.writeDecimal128(estimatedCost, 12);
+            output.writeString(estimatedCost.compareTo(BigDecimal.ZERO) > 0 ? ESTIMATED_COST_VERSION : "");
+        }
+
+        output.writeStringArray(span.tags());
+
+        Map<String, Integer> usage = Optional.ofNullable(span.usage()).orElse(Map.of());
+        output.writeVarUInt(usage.values().stream().filter(Objects::nonNull).count());
+        usage.forEach((key, value) -> {
+            if (Objects.nonNull(value)) {
+                output.writeString(key);
+                output.writeInt32(value);
+            }
+        });
+
+        output.writeJson(span.errorInfo());
+        output.writeString(userName);
+        output.writeString(userName);
+    }
+
     private Publisher<? extends Result> insert(Span span, Connection connection) {
         var template = newInsertTemplate(span);
         var statement = connection.createStatement(template.render())
@@ -957,7 +1119,7 @@ class SpanDAO {
             statement.bind("error_info", "");
         }
 
-        bindCost(span, statement, "");
+        bindCost(span, statement, "total_estimated_cost", "total_estimated_cost_version");
 
         Segment segment = startSegment("spans", "Clickhouse", "insert");
 
@@ -980,6 +1142,55 @@ class SpanDAO {
                 .reduce(0L, Long::sum);
     }
 
+    /**
+     * Writes the given spans, already merged with their updates, with a single insert. The creation time and author
+     * of the spans are kept, and their estimated cost is calculated again when it isn't set. Spans without creation
+     * time, partially inserted by this batch, are created now by the current user.
+     */
+    @WithSpan
+    public Mono<Long> batchUpdate(@NonNull List<Span> spans) {
+
+        Preconditions.checkArgument(!spans.isEmpty(), "Spans list must not be empty");
+
+        return Mono.from(connectionFactory.create())
+                .flatMapMany(connection -> makeMonoContextAware((userName, workspaceId) -> {
+                    Statement statement = connection.createStatement(renderBulkInsert(BULK_UPDATE, spans.size()));
+
+                    int i = 0;
+                    for (Span span : spans) {
+
+                        bindBulkRow(statement, span, i);
+
+                        statement.bind(indexedParam("created_at", i),
+                                Objects.requireNonNullElseGet(span.createdAt(), Instant::now).toString())
+                                .bind(indexedParam("created_by", i),
+                                        Objects.requireNonNullElse(span.createdBy(), userName))
+                                .bind(indexedParam("last_updated_by", i), userName);
+
+                        if (span.totalEstimatedCost() != null) {
+                            statement.bind(indexedParam("total_estimated_cost", i),
+                                    span.totalEstimatedCost().toString());
+                            statement.bind(indexedParam("total_estimated_cost_version", i),
+                                    Objects.toString(span.totalEstimatedCostVersion(), ""));
+                        } else {
+                            bindCost(span, statement, indexedParam("total_estimated_cost", i),
+                                    indexedParam("total_estimated_cost_version", i));
+                        }
+
+                        i++;
+                    }
+
+                    statement.bind("workspace_id", workspaceId);
+
+                    Segment segment = startSegment("spans", "Clickhouse", "batch_update");
+
+                    return Mono.from(statement.execute())
+                            .doFinally(signalType -> endSegment(segment));
+                }))
+                .flatMap(Result::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
     @WithSpan
     public Mono<Long> partialInsert(@NonNull UUID id, @NonNull UUID projectId, @NonNull SpanUpdate spanUpdate) {
         return Mono.from(connectionFactory.create())
@@ -1105,6 +1316,29 @@ class SpanDAO {
         return template;
     }
 
+    /**
+     * Returns the latest stored version of the spans, without comments nor feedback scores.
+     */
+    @WithSpan
+    public Mono<List<Span>> getLatestByIds(@NonNull Set<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        return Mono.from(connectionFactory.create())
+                .flatMapMany(connection -> {
+                    var statement = connection.createStatement(SELECT_LATEST_BY_IDS)
+                            .bind("ids", ids.toArray(UUID[]::new));
+
+                    Segment segment = startSegment("spans", "Clickhouse", "get_latest_by_ids");
+
+                    return makeFluxContextAware(bindWorkspaceIdToFlux(statement))
+                            .doFinally(signalType -> endSegment(segment));
+                })
+                .flatMap(this::mapToDto)
+                .collectList();
+    }
+
     @WithSpan
     public Mono<Span> getById(@NonNull UUID id) {
         log.info("Getting span by id '{}'", id);
@@ -1188,7 +1422,9 @@ class SpanDAO {
                             .filter(set -> !set.isEmpty())
                             .orElse(null))
                     .usage(row.get("usage", Map.class))
-                    .comments(getComments(row.get("comments", List[].class)))
+                    .comments(row.getMetadata().contains("comments")
+                            ? getComments(row.get("comments", List[].class))
+                            : null)
                     .errorInfo(Optional.ofNullable(row.get("error_info", String.class))
                             .filter(str -> !str.isBlank())
                             .map(errorInfo -> JsonUtils.readValue(errorInfo, ERROR_INFO_TYPE))
@@ -1197,7 +1433,9 @@ class SpanDAO {
                     .lastUpdatedAt(row.get("last_updated_at", Instant.class))
                     .createdBy(row.get("created_by", String.class))
                     .lastUpdatedBy(row.get("last_updated_by", String.class))
-                    .duration(row.get("duration_millis", Double.class))
+                    .duration(row.getMetadata().contains("duration_millis")
+                            ? row.get("duration_millis", Double.class)
+                            : null)
                     .build();
         });
     }
@@ -1421,15 +1659,15 @@ class SpanDAO {
         return span.totalEstimatedCost() != null && StringUtils.isBlank(span.totalEstimatedCostVersion());
     }
 
-    private void bindCost(Span span, Statement statement, String index) {
+    private void bindCost(Span span, Statement statement, String costParam, String costVersionParam) {
         if (span.totalEstimatedCost() != null) {
             // Cost is set manually by the user
-            statement.bind("total_estimated_cost" + index, span.totalEstimatedCost().toString());
-            statement.bind("total_estimated_cost_version" + index, "");
+            statement.bind(costParam, span.totalEstimatedCost().toString());
+            statement.bind(costVersionParam, "");
         } else {
             BigDecimal estimatedCost = calculateCost(span);
-            statement.bind("total_estimated_cost" + index, estimatedCost.toString());
-            statement.bind("total_estimated_cost_version" + index,
+            statement.bind(costParam, estimatedCost.toString());
+            statement.bind(costVersionParam,
                     estimatedCost.compareTo(BigDecimal.ZERO) > 0 ? ESTIMATED_COST_VERSION : "");
         }
     }
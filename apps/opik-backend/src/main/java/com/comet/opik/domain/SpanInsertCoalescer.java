@@ -0,0 +1,17 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Span;
+import com.comet.opik.infrastructure.IngestionConfig;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import lombok.NonNull;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
+
+@Singleton
+class SpanInsertCoalescer extends InsertCoalescer<Span> {
+
+    @Inject
+    SpanInsertCoalescer(@NonNull SpanDAO spanDAO, @NonNull @Config("ingestion") IngestionConfig ingestionConfig) {
+        super("spans", ingestionConfig.getCoalescer(), spanDAO::batchInsert);
+    }
+}
@@ -5,13 +5,16 @@ import com.comet.opik.api.Project;
 import com.comet.opik.api.ProjectStats;
 import com.comet.opik.api.Span;
 import com.comet.opik.api.SpanBatch;
+import com.comet.opik.api.SpanBatchUpdate;
 import com.comet.opik.api.SpanSearchCriteria;
 import com.comet.opik.api.SpanUpdate;
 import com.comet.opik.api.error.EntityAlreadyExistsException;
 import com.comet.opik.api.error.ErrorMessage;
 import com.comet.opik.api.error.IdentifierMismatchException;
+import com.comet.opik.infrastructure.IngestionConfig;
 import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.infrastructure.lock.LockService;
+import com.comet.opik.utils.SchedulerUtils;
 import com.comet.opik.utils.WorkspaceUtils;
 import com.google.common.base.Preconditions;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
@@ -21,11 +24,15 @@ import jakarta.ws.rs.NotFoundException;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -54,6 +61,16 @@ public class SpanService {
     private final @NonNull IdGenerator idGenerator;
     private final @NonNull LockService lockService;
     private final @NonNull CommentService commentService;
+    private final @NonNull SpanInsertCoalescer spanInsertCoalescer;
+    private final @NonNull @Config("ingestion") IngestionConfig ingestionConfig;
+
+    private record ProjectKey(UUID id, String name) {
+        static ProjectKey of(SpanUpdate spanUpdate) {
+            return spanUpdate.projectId() != null
+                    ? new ProjectKey(spanUpdate.projectId(), null)
+                    : new ProjectKey(null, WorkspaceUtils.getProjectName(spanUpdate.projectName()));
+        }
+    }
 
     @WithSpan
     public Mono<Span.SpanPage> find(int page, int size, @NonNull SpanSearchCriteria searchCriteria) {
@@ -76,7 +93,7 @@ public class SpanService {
 
             return Mono
                     .fromCallable(() -> projectService.findByNames(workspaceId, List.of(searchCriteria.projectName())))
-                    .subscribeOn(Schedulers.boundedElastic());
+                    .subscribeOn(SchedulerUtils.blocking());
         });
     }
 
@@ -94,16 +111,27 @@ public class SpanService {
         return IdGenerator
                 .validateVersionAsync(id, SPAN_KEY)
                 .then(getOrCreateProject(projectName))
-                .flatMap(project -> lockService.executeWithLock(
-                        new LockService.Lock(id, SPAN_KEY),
-                        Mono.defer(() -> insertSpan(span, project, id))));
+                .flatMap(project -> {
+                    if (spanInsertCoalescer.isEnabled()) {
+                        var newSpan = span.toBuilder().id(id).projectId(project.id()).build();
+                        return spanInsertCoalescer.add(newSpan).thenReturn(id);
+                    }
+
+                    if (ingestionConfig.isLockFreeSpanCreate()) {
+                        return insertSpanLockFree(span, project, id);
+                    }
+
+                    return lockService.executeWithLock(
+                            new LockService.Lock(id, SPAN_KEY),
+                            Mono.defer(() -> insertSpan(span, project, id)));
+                });
     }
 
     private Mono<Project> getOrCreateProject(String projectName) {
         return makeMonoContextAware((userName, workspaceId) -> {
             return Mono.fromCallable(() -> projectService.getOrCreate(workspaceId, projectName, userName))
                     .onErrorResume(e -> handleProjectCreationError(e, projectName, workspaceId))
-                    .subscribeOn(Schedulers.boundedElastic());
+                    .subscribeOn(SchedulerUtils.blocking());
         });
 
     }
@@ -116,6 +144,19 @@ public class SpanService {
                 .onErrorResume(this::handleSpanDBError);
     }
 
+    /**
+     * Inserts the span without taking the per-id lock or reading the existing row first. The INSERT ... SELECT merges
+     * the new span with the latest existing row inside ClickHouse, keeping non-empty existing values and failing on
+     * project, trace or parent span mismatches, which are mapped to conflicts by {@link #handleSpanDBError}.
+     * <p>
+     * Only rows already written are merged. An update partially inserting the span at the same time isn't seen, and
+     * the latest of both rows replaces the other, so that update may be lost. Updates sent after this returns are kept.
+     */
+    private Mono<UUID> insertSpanLockFree(Span span, Project project, UUID id) {
+        return create(span, project, id)
+                .onErrorResume(this::handleSpanDBError);
+    }
+
     private Mono<UUID> insertSpan(Span span, Project project, UUID id, Span existingSpan) {
         return Mono.defer(() -> {
             // check if a partial span exists caused by a patch request
@@ -162,7 +203,7 @@ public class SpanService {
     private Mono<Project> findProjectByName(String projectName, String workspaceId) {
         return Mono.fromCallable(() -> projectService.findByNames(workspaceId, List.of(projectName))
                 .stream().findFirst().orElseThrow())
-                .subscribeOn(Schedulers.boundedElastic());
+                .subscribeOn(SchedulerUtils.blocking());
     }
 
     @WithSpan
@@ -175,7 +216,7 @@ public class SpanService {
                 .validateVersionAsync(id, SPAN_KEY)
                 .then(Mono.defer(() -> getProjectById(spanUpdate)
                         .switchIfEmpty(Mono.defer(() -> getOrCreateProject(projectName)))
-                        .subscribeOn(Schedulers.boundedElastic()))
+                        .subscribeOn(SchedulerUtils.blocking()))
                         //TODO: refactor to implement proper conflict resolution
                         .flatMap(project -> lockService.executeWithLock(
                                 new LockService.Lock(id, SPAN_KEY),
@@ -187,6 +228,136 @@ public class SpanService {
                                         .then()))));
     }
 
+    /**
+     * Applies a batch of updates with a single read of the existing spans and a single insert of the merged rows.
+     * Spans not created yet are partially inserted within that same insert, as in {@link #update(UUID, SpanUpdate)}.
+     * A conflict with any existing span rejects the whole batch before writing. The locks of all the spans are held
+     * meanwhile, so single updates can't interleave.
+     */
+    @WithSpan
+    public Mono<Void> update(@NonNull SpanBatchUpdate batch) {
+        Map<UUID, SpanUpdate> updates = batch.updates()
+                .stream()
+                .collect(Collectors.toMap(SpanBatchUpdate.SpanBatchUpdateItem::id,
+                        SpanBatchUpdate.SpanBatchUpdateItem::update));
+
+        log.info("Updating batch of '{}' spans", updates.size());
+
+        return Flux.fromIterable(updates.keySet())
+                .concatMap(id -> IdGenerator.validateVersionAsync(id, SPAN_KEY))
+                .then(Mono.defer(() -> getOrCreateProjects(updates.values())))
+                .flatMap(projects -> lockService.executeWithLocks(
+                        updates.keySet().stream().map(id -> new LockService.Lock(id, SPAN_KEY)).toList(),
+                        Mono.defer(() -> spanDAO.getLatestByIds(updates.keySet()))
+                                .flatMap(existingSpans -> update(updates, projects, existingSpans))))
+                .onErrorResume(this::handleSpanDBError)
+                .then();
+    }
+
+    private Mono<Map<ProjectKey, Project>> getOrCreateProjects(Collection<SpanUpdate> spanUpdates) {
+        Map<ProjectKey, SpanUpdate> updatesPerProject = spanUpdates.stream()
+                .collect(Collectors.toMap(ProjectKey::of, Function.identity(), (first, second) -> first));
+
+        return Flux.fromIterable(updatesPerProject.entrySet())
+                .flatMap(entry -> getProjectById(entry.getValue())
+                        .switchIfEmpty(Mono.defer(() -> getOrCreateProject(entry.getKey().name())))
+                        .subscribeOn(SchedulerUtils.blocking())
+                        .map(project -> Map.entry(entry.getKey(), project)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private Mono<Long> update(Map<UUID, SpanUpdate> updates, Map<ProjectKey, Project> projects,
+            List<Span> existingSpans) {
+        Map<UUID, Span> existingById = existingSpans.stream()
+                .collect(Collectors.toMap(Span::id, Function.identity()));
+
+        List<Span> mergedSpans = new ArrayList<>();
+
+        for (var entry : updates.entrySet()) {
+            UUID id = entry.getKey();
+            SpanUpdate spanUpdate = entry.getValue();
+            Project project = projects.get(ProjectKey.of(spanUpdate));
+            Span existingSpan = existingById.get(id);
+
+            if (existingSpan == null) {
+                mergedSpans.add(newPartialSpan(id, project, spanUpdate));
+                continue;
+            }
+
+            String conflict = findConflict(spanUpdate, existingSpan, project);
+            if (conflict != null) {
+                return failWithConflict(conflict);
+            }
+
+            mergedSpans.add(merge(existingSpan, spanUpdate));
+        }
+
+        return spanDAO.batchUpdate(mergedSpans);
+    }
+
+    /**
+     * Builds the row of a span not created yet, with the same values {@link SpanDAO#partialInsert} writes when there's
+     * no existing row. It's written along with the merged rows, and completed once the span is created.
+     */
+    private Span newPartialSpan(UUID id, Project project, SpanUpdate spanUpdate) {
+        return Span.builder()
+                .id(id)
+                .projectId(project.id())
+                .traceId(spanUpdate.traceId())
+                .parentSpanId(spanUpdate.parentSpanId())
+                .name("")
+                .startTime(Instant.EPOCH)
+                .endTime(spanUpdate.endTime())
+                .input(spanUpdate.input())
+                .output(spanUpdate.output())
+                .metadata(spanUpdate.metadata())
+                .model(spanUpdate.model())
+                .provider(spanUpdate.provider())
+                .tags(spanUpdate.tags())
+                .usage(spanUpdate.usage())
+                .errorInfo(spanUpdate.errorInfo())
+                .totalEstimatedCost(spanUpdate.totalEstimatedCost())
+                .totalEstimatedCostVersion(spanUpdate.totalEstimatedCost() != null ? "" : null)
+                .build();
+    }
+
+    /**
+     * Merges the update into the existing span with the same semantics as the single span update: only the non-null
+     * values of the update are applied, and a manually set cost is kept unless the update sets a new one.
+     */
+    private Span merge(Span existingSpan, SpanUpdate spanUpdate) {
+        var mergedSpan = existingSpan.toBuilder()
+                .endTime(ObjectUtils.firstNonNull(spanUpdate.endTime(), existingSpan.endTime()))
+                .input(ObjectUtils.firstNonNull(spanUpdate.input(), existingSpan.input()))
+                .output(ObjectUtils.firstNonNull(spanUpdate.output(), existingSpan.output()))
+                .metadata(ObjectUtils.firstNonNull(spanUpdate.metadata(), existingSpan.metadata()))
+                .model(ObjectUtils.firstNonNull(spanUpdate.model(), existingSpan.model()))
+                .provider(ObjectUtils.firstNonNull(spanUpdate.provider(), existingSpan.provider()))
+                .tags(ObjectUtils.firstNonNull(spanUpdate.tags(), existingSpan.tags()))
+                .usage(ObjectUtils.firstNonNull(spanUpdate.usage(), existingSpan.usage()))
+                .errorInfo(ObjectUtils.firstNonNull(spanUpdate.errorInfo(), existingSpan.errorInfo()));
+
+        boolean isManualCost = existingSpan.totalEstimatedCost() != null
+                && StringUtils.isBlank(existingSpan.totalEstimatedCostVersion());
+
+        if (spanUpdate.totalEstimatedCost() != null) {
+            return mergedSpan
+                    .totalEstimatedCost(spanUpdate.totalEstimatedCost())
+                    .totalEstimatedCostVersion("")
+                    .build();
+        }
+
+        if (isManualCost) {
+            return mergedSpan.build();
+        }
+
+        // Estimated again from the merged model and usage
+        return mergedSpan
+                .totalEstimatedCost(null)
+                .totalEstimatedCostVersion(null)
+                .build();
+    }
+
     private Mono<Project> getProjectById(SpanUpdate spanUpdate) {
         return makeMonoContextAware((userName, workspaceId) -> {
 
@@ -225,19 +396,28 @@ public class SpanService {
     }
 
     private Mono<Long> updateOrFail(SpanUpdate spanUpdate, UUID id, Span existingSpan, Project project) {
+        String conflict = findConflict(spanUpdate, existingSpan, project);
+        if (conflict != null) {
+            return failWithConflict(conflict);
+        }
+
+        return spanDAO.update(id, spanUpdate, existingSpan);
+    }
+
+    private String findConflict(SpanUpdate spanUpdate, Span existingSpan, Project project) {
         if (!project.id().equals(existingSpan.projectId())) {
-            return failWithConflict(PROJECT_AND_WORKSPACE_NAME_MISMATCH);
+            return PROJECT_AND_WORKSPACE_NAME_MISMATCH;
         }
 
         if (!Objects.equals(existingSpan.parentSpanId(), spanUpdate.parentSpanId())) {
-            return failWithConflict(PARENT_SPAN_IS_MISMATCH);
+            return PARENT_SPAN_IS_MISMATCH;
         }
 
         if (!existingSpan.traceId().equals(spanUpdate.traceId())) {
-            return failWithConflict(TRACE_ID_MISMATCH);
+            return TRACE_ID_MISMATCH;
         }
 
-        return spanDAO.update(id, spanUpdate, existingSpan);
+        return null;
     }
 
     private <T> Mono<T> failWithConflict(String error) {
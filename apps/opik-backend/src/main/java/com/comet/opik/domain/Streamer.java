@@ -1,6 +1,7 @@
 package com.comet.opik.domain;
 
 import com.comet.opik.utils.JsonUtils;
+import com.comet.opik.utils.SchedulerUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import io.dropwizard.jersey.errors.ErrorMessage;
 import jakarta.inject.Singleton;
@@ -8,7 +9,6 @@ import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.glassfish.jersey.server.ChunkedOutput;
 import reactor.core.publisher.Flux;
-import reactor.core.scheduler.Schedulers;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -25,7 +25,7 @@ public class Streamer {
 
     public <T> ChunkedOutput<JsonNode> getOutputStream(@NonNull Flux<T> flux, Runnable onCompleted) {
         var outputStream = new ChunkedOutput<JsonNode>(JsonNode.class, "\r\n");
-        Schedulers.boundedElastic()
+        SchedulerUtils.blocking()
                 .schedule(() -> flux.doOnNext(item -> sendItem(item, outputStream))
                         .onErrorResume(throwable -> handleError(throwable, outputStream))
                         .doFinally(signalType -> {
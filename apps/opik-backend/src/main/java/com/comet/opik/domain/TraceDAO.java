@@ -10,7 +10,6 @@ import com.comet.opik.domain.filter.FilterStrategy;
 import com.comet.opik.domain.stats.StatsMapper;
 import com.comet.opik.infrastructure.db.TransactionTemplateAsync;
 import com.comet.opik.utils.JsonUtils;
-import com.comet.opik.utils.TemplateUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.base.Preconditions;
 import com.google.inject.ImplementedBy;
@@ -35,6 +34,7 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -53,7 +53,8 @@ import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils
 import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils.startSegment;
 import static com.comet.opik.utils.AsyncUtils.makeFluxContextAware;
 import static com.comet.opik.utils.AsyncUtils.makeMonoContextAware;
-import static com.comet.opik.utils.TemplateUtils.getQueryItemPlaceHolder;
+import static com.comet.opik.utils.TemplateUtils.indexedParam;
+import static com.comet.opik.utils.TemplateUtils.renderBulkInsert;
 
 @ImplementedBy(TraceDAOImpl.class)
 interface TraceDAO {
@@ -76,6 +77,10 @@ interface TraceDAO {
 
     Mono<Long> batchInsert(List<Trace> traces, Connection connection);
 
+    Mono<Long> batchUpdate(List<Trace> traces, Connection connection);
+
+    Mono<List<Trace>> findLatestByIds(Set<UUID> ids, Connection connection);
+
     Flux<WorkspaceTraceCount> countTracesPerWorkspace(Connection connection);
 
     Mono<Map<UUID, Instant>> getLastUpdatedTraceAt(Set<UUID> projectIds, String workspaceId, Connection connection);
@@ -133,6 +138,70 @@ class TraceDAOImpl implements TraceDAO {
             ;
             """;
 
+    /**
+     * Writes the merged rows of a batch update. Unlike {@link #BATCH_INSERT}, it keeps the creation time and author of
+     * the existing rows.
+     */
+    private static final String BATCH_UPDATE = """
+            INSERT INTO traces(
+                id,
+                project_id,
+                workspace_id,
+                name,
+                start_time,
+                end_time,
+                input,
+                output,
+                metadata,
+                tags,
+                error_info,
+                created_at,
+                created_by,
+                last_updated_by
+            ) VALUES
+                <items:{item |
+                    (
+                        :id<item.index>,
+                        :project_id<item.index>,
+                        :workspace_id,
+                        :name<item.index>,
+                        parseDateTime64BestEffort(:start_time<item.index>, 9),
+                        if(:end_time<item.index> IS NULL, NULL, parseDateTime64BestEffort(:end_time<item.index>, 9)),
+                        :input<item.index>,
+                        :output<item.index>,
+                        :metadata<item.index>,
+                        :tags<item.index>,
+                        :error_info<item.index>,
+                        parseDateTime64BestEffort(:created_at<item.index>, 9),
+                        :created_by<item.index>,
+                        :user_name
+                    )
+                    <if(item.hasNext)>,<endif>
+                }>
+            ;
+            """;
+
+    /**
+     * The columns are sent in this order by {@link #writeRowBinary}, keep both in sync.
+     */
+    private static final String ROW_BINARY_INSERT = """
+            INSERT INTO traces(
+                id,
+                project_id,
+                workspace_id,
+                name,
+                start_time,
+                end_time,
+                input,
+                output,
+                metadata,
+                tags,
+                error_info,
+                created_by,
+                last_updated_by
+            ) FORMAT RowBinary
+            """;
+
     /**
      * This query handles the insertion of a new trace into the database in two cases:
      * 1. When the trace does not exist in the database.
@@ -267,6 +336,17 @@ class TraceDAOImpl implements TraceDAO {
             ;
             """;
 
+    private static final String SELECT_LATEST_BY_IDS = """
+            SELECT
+                *
+            FROM traces
+            WHERE workspace_id = :workspace_id
+            AND id IN :ids
+            ORDER BY id DESC, last_updated_at DESC
+            LIMIT 1 BY id
+            ;
+            """;
+
     private static final String SELECT_BY_ID = """
             SELECT
                 t.*,
@@ -827,6 +907,7 @@ class TraceDAOImpl implements TraceDAO {
     private final @NonNull FeedbackScoreDAO feedbackScoreDAO;
     private final @NonNull FilterQueryBuilder filterQueryBuilder;
     private final @NonNull TransactionTemplateAsync asyncTemplate;
+    private final @NonNull RowBinaryWriter rowBinaryWriter;
 
     @Override
     @WithSpan
@@ -1032,11 +1113,15 @@ class TraceDAOImpl implements TraceDAO {
                         .collect(Collectors.toSet()))
                         .filter(it -> !it.isEmpty())
                         .orElse(null))
-                .comments(getComments(row.get("comments", List[].class)))
-                .usage(row.get("usage", Map.class))
-                .totalEstimatedCost(row.get("total_estimated_cost", BigDecimal.class).compareTo(BigDecimal.ZERO) == 0
-                        ? null
-                        : row.get("total_estimated_cost", BigDecimal.class))
+                .comments(row.getMetadata().contains("comments")
+                        ? getComments(row.get("comments", List[].class))
+                        : null)
+                // Aggregated from the spans, so missing when only the stored trace columns are selected
+                .usage(row.getMetadata().contains("usage") ? row.get("usage", Map.class) : null)
+                .totalEstimatedCost(!row.getMetadata().contains("total_estimated_cost")
+                        || row.get("total_estimated_cost", BigDecimal.class).compareTo(BigDecimal.ZERO) == 0
+                                ? null
+                                : row.get("total_estimated_cost", BigDecimal.class))
                 .errorInfo(Optional.ofNullable(row.get("error_info", String.class))
                         .filter(str -> !str.isBlank())
                         .map(errorInfo -> JsonUtils.readValue(errorInfo, ERROR_INFO_TYPE))
@@ -1045,7 +1130,9 @@ class TraceDAOImpl implements TraceDAO {
                 .lastUpdatedAt(row.get("last_updated_at", Instant.class))
                 .createdBy(row.get("created_by", String.class))
                 .lastUpdatedBy(row.get("last_updated_by", String.class))
-                .duration(row.get("duration_millis", Double.class))
+                .duration(row.getMetadata().contains("duration_millis")
+                        ? row.get("duration_millis", Double.class)
+                        : null)
                 .build());
     }
 
@@ -1180,6 +1267,10 @@ class TraceDAOImpl implements TraceDAO {
 
         Preconditions.checkArgument(!traces.isEmpty(), "traces must not be empty");
 
+        if (rowBinaryWriter.isEnabled()) {
+            return insertRowBinary(traces);
+        }
+
         return Mono.from(insert(traces, connection))
                 .flatMapMany(Result::getRowsUpdated)
                 .reduce(0L, Long::sum);
@@ -1189,33 +1280,61 @@ class TraceDAOImpl implements TraceDAO {
     private Publisher<? extends Result> insert(List<Trace> traces, Connection connection) {
 
         return makeMonoContextAware((userName, workspaceId) -> {
-            List<TemplateUtils.QueryItem> queryItems = getQueryItemPlaceHolder(traces.size());
-
-            var template = new ST(BATCH_INSERT)
-                    .add("items", queryItems);
-
-            Statement statement = connection.createStatement(template.render());
+            Statement statement = connection.createStatement(renderBulkInsert(BATCH_INSERT, traces.size()));
 
             int i = 0;
             for (Trace trace : traces) {
+                bindBatchRow(statement, trace, i);
+                i++;
+            }
+
+            statement
+                    .bind("workspace_id", workspaceId)
+                    .bind("user_name", userName);
+
+            Segment segment = startSegment("traces", "Clickhouse", "batch_insert");
+
+            return Mono.from(statement.execute())
+                    .doFinally(signalType -> endSegment(segment));
+        });
+    }
+
+    private void bindBatchRow(Statement statement, Trace trace, int i) {
+        statement.bind(indexedParam("id", i), trace.id())
+                .bind(indexedParam("project_id", i), trace.projectId())
+                .bind(indexedParam("name", i), trace.name())
+                .bind(indexedParam("start_time", i), trace.startTime().toString())
+                .bind(indexedParam("input", i), getOrDefault(trace.input()))
+                .bind(indexedParam("output", i), getOrDefault(trace.output()))
+                .bind(indexedParam("metadata", i), getOrDefault(trace.metadata()))
+                .bind(indexedParam("tags", i),
+                        trace.tags() != null ? trace.tags().toArray(String[]::new) : new String[]{})
+                .bind(indexedParam("error_info", i),
+                        trace.errorInfo() != null ? JsonUtils.readTree(trace.errorInfo()).toString() : "");
+
+        if (trace.endTime() != null) {
+            statement.bind(indexedParam("end_time", i), trace.endTime().toString());
+        } else {
+            statement.bindNull(indexedParam("end_time", i), String.class);
+        }
+    }
+
+    @Override
+    @WithSpan
+    public Mono<Long> batchUpdate(@NonNull List<Trace> traces, @NonNull Connection connection) {
+
+        Preconditions.checkArgument(!traces.isEmpty(), "traces must not be empty");
 
-                statement.bind("id" + i, trace.id())
-                        .bind("project_id" + i, trace.projectId())
-                        .bind("name" + i, trace.name())
-                        .bind("start_time" + i, trace.startTime().toString())
-                        .bind("input" + i, getOrDefault(trace.input()))
-                        .bind("output" + i, getOrDefault(trace.output()))
-                        .bind("metadata" + i, getOrDefault(trace.metadata()))
-                        .bind("tags" + i, trace.tags() != null ? trace.tags().toArray(String[]::new) : new String[]{})
-                        .bind("error_info" + i,
-                                trace.errorInfo() != null ? JsonUtils.readTree(trace.errorInfo()).toString() : "");
-
-                if (trace.endTime() != null) {
-                    statement.bind("end_time" + i, trace.endTime().toString());
-                } else {
-                    statement.bindNull("end_time" + i, String.class);
-                }
+        return makeMonoContextAware((userName, workspaceId) -> {
+            Statement statement = connection.createStatement(renderBulkInsert(BATCH_UPDATE, traces.size()));
 
+            int i = 0;
+            for (Trace trace : traces) {
+                bindBatchRow(statement, trace, i);
+                // Traces without creation time are partially inserted by this batch, so they're created now
+                statement.bind(indexedParam("created_at", i),
+                        Objects.requireNonNullElseGet(trace.createdAt(), Instant::now).toString())
+                        .bind(indexedParam("created_by", i), Objects.requireNonNullElse(trace.createdBy(), userName));
                 i++;
             }
 
@@ -1223,13 +1342,58 @@ class TraceDAOImpl implements TraceDAO {
                     .bind("workspace_id", workspaceId)
                     .bind("user_name", userName);
 
-            Segment segment = startSegment("traces", "Clickhouse", "batch_insert");
+            Segment segment = startSegment("traces", "Clickhouse", "batch_update");
 
             return Mono.from(statement.execute())
                     .doFinally(signalType -> endSegment(segment));
+        }).flatMapMany(Result::getRowsUpdated)
+                .reduce(0L, Long::sum);
+    }
+
+    @Override
+    @WithSpan
+    public Mono<List<Trace>> findLatestByIds(@NonNull Set<UUID> ids, @NonNull Connection connection) {
+        if (ids.isEmpty()) {
+            return Mono.just(List.of());
+        }
+
+        var statement = connection.createStatement(SELECT_LATEST_BY_IDS)
+                .bind("ids", ids.toArray(UUID[]::new));
+
+        Segment segment = startSegment("traces", "Clickhouse", "find_latest_by_ids");
+
+        return makeFluxContextAware(bindWorkspaceIdToFlux(statement))
+                .doFinally(signalType -> endSegment(segment))
+                .flatMap(this::mapToDto)
+                .collectList();
+    }
+
+    private Mono<Long> insertRowBinary(List<Trace> traces) {
+        return makeMonoContextAware((userName, workspaceId) -> {
+            Segment segment = startSegment("traces", "Clickhouse", "batch_insert_row_binary");
+
+            return rowBinaryWriter.insert(ROW_BINARY_INSERT, traces,
+                    (trace, output) -> writeRowBinary(trace, output, workspaceId, userName))
+                    .doFinally(signalType -> endSegment(segment));
         });
     }
 
+    private void writeRowBinary(Trace trace, RowBinaryOutput output, String workspaceId, String userName) {
+        output.writeUuid(trace.id());
+        output.writeUuid(trace.projectId());
+        output.writeString(workspaceId);
+        output.writeString(trace.name());
+        output.writeDateTime64(trace.startTime());
+        output.writeNullableDateTime64(trace.endTime());
+        output.writeJson(trace.input());
+        output.writeJson(trace.output());
+        output.writeJson(trace.metadata());
+        output.writeStringArray(trace.tags());
+        output.writeJson(trace.errorInfo());
+        output.writeString(userName);
+        output.writeString(userName);
+    }
+
     private String getOrDefault(JsonNode value) {
         return value != null ? value.toString() : "";
     }
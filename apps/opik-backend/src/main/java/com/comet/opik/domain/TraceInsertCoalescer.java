@@ -0,0 +1,38 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Trace;
+import com.comet.opik.api.events.TracesCreated;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.infrastructure.db.TransactionTemplateAsync;
+import com.google.common.eventbus.EventBus;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import lombok.NonNull;
+import reactor.core.publisher.Mono;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
+
+import java.util.List;
+
+@Singleton
+class TraceInsertCoalescer extends InsertCoalescer<Trace> {
+
+    @Inject
+    TraceInsertCoalescer(@NonNull TraceDAO traceDAO, @NonNull TransactionTemplateAsync template,
+            @NonNull EventBus eventBus, @NonNull @Config("ingestion") IngestionConfig ingestionConfig) {
+        super("traces", ingestionConfig.getCoalescer(),
+                traces -> batchInsert(traceDAO, template, eventBus, traces));
+    }
+
+    private static Mono<Long> batchInsert(TraceDAO traceDAO, TransactionTemplateAsync template, EventBus eventBus,
+            List<Trace> traces) {
+        return Mono.deferContextual(ctx -> {
+            String workspaceId = ctx.get(RequestContext.WORKSPACE_ID);
+            String userName = ctx.get(RequestContext.USER_NAME);
+
+            // A single event for the whole flush, instead of one per trace
+            return template.nonTransaction(connection -> traceDAO.batchInsert(traces, connection))
+                    .doOnSuccess(__ -> eventBus.post(new TracesCreated(traces, workspaceId, userName)));
+        });
+    }
+}
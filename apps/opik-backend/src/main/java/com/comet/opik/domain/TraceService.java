@@ -6,6 +6,7 @@ import com.comet.opik.api.Project;
 import com.comet.opik.api.ProjectStats;
 import com.comet.opik.api.Trace;
 import com.comet.opik.api.TraceBatch;
+import com.comet.opik.api.TraceBatchUpdate;
 import com.comet.opik.api.TraceCountResponse;
 import com.comet.opik.api.TraceSearchCriteria;
 import com.comet.opik.api.TraceUpdate;
@@ -18,6 +19,7 @@ import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.infrastructure.db.TransactionTemplateAsync;
 import com.comet.opik.infrastructure.lock.LockService;
 import com.comet.opik.utils.AsyncUtils;
+import com.comet.opik.utils.SchedulerUtils;
 import com.comet.opik.utils.WorkspaceUtils;
 import com.google.common.base.Preconditions;
 import com.google.common.eventbus.EventBus;
@@ -29,11 +31,13 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.ObjectUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -55,6 +59,8 @@ public interface TraceService {
 
     Mono<Void> update(TraceUpdate trace, UUID id);
 
+    Mono<Void> update(TraceBatchUpdate batch);
+
     Mono<Trace> get(UUID id);
 
     Mono<Void> delete(UUID id);
@@ -92,6 +98,15 @@ class TraceServiceImpl implements TraceService {
     private final @NonNull IdGenerator idGenerator;
     private final @NonNull LockService lockService;
     private final @NonNull EventBus eventBus;
+    private final @NonNull TraceInsertCoalescer traceInsertCoalescer;
+
+    private record ProjectKey(UUID id, String name) {
+        static ProjectKey of(TraceUpdate traceUpdate) {
+            return traceUpdate.projectId() != null
+                    ? new ProjectKey(traceUpdate.projectId(), null)
+                    : new ProjectKey(null, WorkspaceUtils.getProjectName(traceUpdate.projectName()));
+        }
+    }
 
     @Override
     @WithSpan
@@ -100,6 +115,19 @@ class TraceServiceImpl implements TraceService {
         String projectName = WorkspaceUtils.getProjectName(trace.projectName());
         UUID id = trace.id() == null ? idGenerator.generateId() : trace.id();
 
+        if (traceInsertCoalescer.isEnabled()) {
+            // The coalescer posts the TracesCreated event once per flush
+            return IdGenerator
+                    .validateVersionAsync(id, TRACE_KEY)
+                    .then(Mono.defer(() -> getOrCreateProject(projectName)))
+                    .flatMap(project -> traceInsertCoalescer.add(trace.toBuilder()
+                            .id(id)
+                            .projectId(project.id())
+                            .projectName(project.name())
+                            .build()))
+                    .thenReturn(id);
+        }
+
         return Mono.deferContextual(ctx -> IdGenerator
                 .validateVersionAsync(id, TRACE_KEY)
                 .then(Mono.defer(() -> getOrCreateProject(projectName)))
@@ -132,7 +160,7 @@ class TraceServiceImpl implements TraceService {
                     .flatMap(this::getOrCreateProject)
                     .collectList()
                     .map(projects -> bindTraceToProjectAndId(batch, projects))
-                    .subscribeOn(Schedulers.boundedElastic());
+                    .subscribeOn(SchedulerUtils.blocking());
 
             String workspaceId = ctx.get(RequestContext.WORKSPACE_ID);
             String userName = ctx.get(RequestContext.USER_NAME);
@@ -196,7 +224,7 @@ class TraceServiceImpl implements TraceService {
         return AsyncUtils.makeMonoContextAware((userName, workspaceId) -> Mono
                 .fromCallable(() -> projectService.getOrCreate(workspaceId, projectName, userName))
                 .onErrorResume(e -> handleProjectCreationError(e, projectName, workspaceId))
-                .subscribeOn(Schedulers.boundedElastic()));
+                .subscribeOn(SchedulerUtils.blocking()));
     }
 
     private Mono<UUID> insertTrace(Trace newTrace, Project project, UUID id, Trace existingTrace) {
@@ -232,7 +260,7 @@ class TraceServiceImpl implements TraceService {
             case EntityAlreadyExistsException __ -> Mono.fromCallable(
                     () -> projectService.findByNames(workspaceId, List.of(projectName)).stream().findFirst()
                             .orElseThrow())
-                    .subscribeOn(Schedulers.boundedElastic());
+                    .subscribeOn(SchedulerUtils.blocking());
             default -> Mono.error(exception);
         };
     }
@@ -245,7 +273,7 @@ class TraceServiceImpl implements TraceService {
 
         return Mono.deferContextual(ctx -> getProjectById(traceUpdate)
                 .switchIfEmpty(Mono.defer(() -> getOrCreateProject(projectName)))
-                .subscribeOn(Schedulers.boundedElastic())
+                .subscribeOn(SchedulerUtils.blocking())
                 .flatMap(project -> lockService.executeWithLock(
                         new LockService.Lock(id, TRACE_KEY),
                         Mono.defer(() -> template.nonTransaction(connection -> dao.findById(id, connection))
@@ -260,6 +288,104 @@ class TraceServiceImpl implements TraceService {
                 .then());
     }
 
+    /**
+     * Applies a batch of updates with a single read of the existing traces and a single insert of the merged rows.
+     * Traces not created yet are partially inserted within that same insert, as in {@link #update(TraceUpdate, UUID)}.
+     * A project mismatch with any existing trace rejects the whole batch before writing. The locks of all the traces
+     * are held meanwhile, so single updates can't interleave.
+     */
+    @Override
+    @WithSpan
+    public Mono<Void> update(@NonNull TraceBatchUpdate batch) {
+        Map<UUID, TraceUpdate> updates = batch.updates()
+                .stream()
+                .collect(Collectors.toMap(TraceBatchUpdate.TraceBatchUpdateItem::id,
+                        TraceBatchUpdate.TraceBatchUpdateItem::update));
+
+        log.info("Updating batch of '{}' traces", updates.size());
+
+        return Mono.deferContextual(ctx -> Flux.fromIterable(updates.keySet())
+                .concatMap(id -> IdGenerator.validateVersionAsync(id, TRACE_KEY))
+                .then(Mono.defer(() -> getOrCreateProjects(updates.values())))
+                .flatMap(projects -> lockService.executeWithLocks(
+                        locks(updates.keySet()),
+                        Mono.defer(() -> template.nonTransaction(connection -> dao.findLatestByIds(updates.keySet(),
+                                connection)))
+                                .flatMap(existingTraces -> update(updates, projects, existingTraces)))
+                        .doOnSuccess(__ -> eventBus.post(new TracesUpdated(
+                                projects.values().stream().map(Project::id).collect(Collectors.toSet()),
+                                ctx.get(RequestContext.WORKSPACE_ID),
+                                ctx.get(RequestContext.USER_NAME)))))
+                .onErrorResume(this::handleDBError)
+                .then());
+    }
+
+    private Mono<Map<ProjectKey, Project>> getOrCreateProjects(Collection<TraceUpdate> traceUpdates) {
+        Map<ProjectKey, TraceUpdate> updatesPerProject = traceUpdates.stream()
+                .collect(Collectors.toMap(ProjectKey::of, Function.identity(), (first, second) -> first));
+
+        return Flux.fromIterable(updatesPerProject.entrySet())
+                .flatMap(entry -> getProjectById(entry.getValue())
+                        .switchIfEmpty(Mono.defer(() -> getOrCreateProject(entry.getKey().name())))
+                        .subscribeOn(SchedulerUtils.blocking())
+                        .map(project -> Map.entry(entry.getKey(), project)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private Mono<Long> update(Map<UUID, TraceUpdate> updates, Map<ProjectKey, Project> projects,
+            List<Trace> existingTraces) {
+        Map<UUID, Trace> existingById = existingTraces.stream()
+                .collect(Collectors.toMap(Trace::id, Function.identity()));
+
+        List<Trace> mergedTraces = new ArrayList<>();
+
+        for (var entry : updates.entrySet()) {
+            UUID id = entry.getKey();
+            TraceUpdate traceUpdate = entry.getValue();
+            Project project = projects.get(ProjectKey.of(traceUpdate));
+            Trace existingTrace = existingById.get(id);
+
+            if (existingTrace == null) {
+                mergedTraces.add(newPartialTrace(id, project, traceUpdate));
+                continue;
+            }
+
+            if (!project.id().equals(existingTrace.projectId())) {
+                return failWithConflict(PROJECT_NAME_AND_WORKSPACE_NAME_MISMATCH);
+            }
+
+            mergedTraces.add(existingTrace.toBuilder()
+                    .endTime(ObjectUtils.firstNonNull(traceUpdate.endTime(), existingTrace.endTime()))
+                    .input(ObjectUtils.firstNonNull(traceUpdate.input(), existingTrace.input()))
+                    .output(ObjectUtils.firstNonNull(traceUpdate.output(), existingTrace.output()))
+                    .metadata(ObjectUtils.firstNonNull(traceUpdate.metadata(), existingTrace.metadata()))
+                    .tags(ObjectUtils.firstNonNull(traceUpdate.tags(), existingTrace.tags()))
+                    .errorInfo(ObjectUtils.firstNonNull(traceUpdate.errorInfo(), existingTrace.errorInfo()))
+                    .build());
+        }
+
+        return template.nonTransaction(connection -> dao.batchUpdate(mergedTraces, connection));
+    }
+
+    /**
+     * Builds the row of a trace not created yet, with the same values {@link TraceDAO#partialInsert} writes when
+     * there's no existing row. It's written along with the merged rows, and completed once the trace is created.
+     */
+    private Trace newPartialTrace(UUID id, Project project, TraceUpdate traceUpdate) {
+        return Trace.builder()
+                .id(id)
+                .projectId(project.id())
+                .name("")
+                .startTime(Instant.EPOCH)
+                .endTime(traceUpdate.endTime())
+                .input(traceUpdate.input())
+                .output(traceUpdate.output())
+                .metadata(traceUpdate.metadata())
+                .tags(traceUpdate.tags())
+                .errorInfo(traceUpdate.errorInfo())
+                .build();
+    }
+
     private Mono<Void> insertUpdate(Project project, TraceUpdate traceUpdate, UUID id) {
         return IdGenerator
                 .validateVersionAsync(id, TRACE_KEY)
@@ -281,7 +407,7 @@ class TraceServiceImpl implements TraceService {
 
             return Mono.fromCallable(() -> projectService.findByNames(workspaceId, List.of(projectName)))
                     .flatMap(projects -> projects.stream().findFirst().map(Mono::just).orElseGet(Mono::empty))
-                    .subscribeOn(Schedulers.boundedElastic());
+                    .subscribeOn(SchedulerUtils.blocking());
         });
     }
 
@@ -314,11 +440,19 @@ class TraceServiceImpl implements TraceService {
     public Mono<Void> delete(Set<UUID> ids) {
         Preconditions.checkArgument(CollectionUtils.isNotEmpty(ids), "Argument 'ids' must not be empty");
         log.info("Deleting traces, count '{}'", ids.size());
-        return template
-                .nonTransaction(connection -> feedbackScoreDAO.deleteByEntityIds(EntityType.TRACE, ids))
-                .then(Mono.defer(() -> commentDAO.deleteByEntityIds(CommentDAO.EntityType.TRACE, ids)))
-                .then(Mono.defer(() -> spanService.deleteByTraceIds(ids)))
-                .then(Mono.defer(() -> template.nonTransaction(connection -> dao.delete(ids, connection))));
+        return lockService.executeWithLocks(
+                locks(ids),
+                Mono.defer(() -> template
+                        .nonTransaction(connection -> feedbackScoreDAO.deleteByEntityIds(EntityType.TRACE, ids)))
+                        .then(Mono.defer(() -> commentDAO.deleteByEntityIds(CommentDAO.EntityType.TRACE, ids)))
+                        .then(Mono.defer(() -> spanService.deleteByTraceIds(ids)))
+                        .then(Mono.defer(() -> template.nonTransaction(connection -> dao.delete(ids, connection)))));
+    }
+
+    private static List<LockService.Lock> locks(Collection<UUID> ids) {
+        return ids.stream()
+                .map(id -> new LockService.Lock(id, TRACE_KEY))
+                .toList();
     }
 
     @Override
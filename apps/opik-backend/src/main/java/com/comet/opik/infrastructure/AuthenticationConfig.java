@@ -2,6 +2,7 @@ package com.comet.opik.infrastructure;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -17,6 +18,12 @@ public class AuthenticationConfig {
     @Valid @JsonProperty
     private int apiKeyResolutionCacheTTLInSec;
 
+    @Valid @JsonProperty
+    private int apiKeyRejectionCacheTTLInSec;
+
+    @Valid @JsonProperty
+    @Min(1) private long apiKeyLocalCacheMaximumSize = 10_000;
+
     @Valid @JsonProperty
     private UrlConfig ui;
 
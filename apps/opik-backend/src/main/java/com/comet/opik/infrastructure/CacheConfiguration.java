@@ -2,6 +2,8 @@ package com.comet.opik.infrastructure;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -12,6 +14,43 @@ import java.util.Optional;
 @Data
 public class CacheConfiguration {
 
+    /**
+     * Encoding of the cached values in Redis. Values are serialized to JSON in both cases, LZ4 additionally compresses
+     * them, which pays off for large values such as lists.
+     */
+    public enum Codec {
+        JSON,
+        LZ4
+    }
+
+    /**
+     * In-process tier in front of Redis. Each cache group gets its own bounded map, whose entries expire after the
+     * duration of the group. Evictions are propagated to the other nodes through a Redis topic.
+     */
+    @Data
+    public static class LocalCacheConfig {
+
+        @Valid @JsonProperty
+        private boolean enabled;
+
+        @Valid @JsonProperty
+        @Min(1) private long maximumSize = 1_000;
+
+        @Valid @JsonProperty
+        private Map<String, Long> maximumSizes;
+
+        @Valid @JsonProperty
+        @NotBlank private String invalidationTopic = "opik_cache_invalidation";
+
+        public Map<String, Long> getMaximumSizes() {
+            return Optional.ofNullable(maximumSizes).orElse(Map.of());
+        }
+
+        public long getMaximumSize(String group) {
+            return getMaximumSizes().getOrDefault(group, maximumSize);
+        }
+    }
+
     @Valid @JsonProperty
     private boolean enabled = false;
 
@@ -21,7 +60,44 @@ public class CacheConfiguration {
     @Valid @JsonProperty
     private Map<String, Duration> caches;
 
+    /**
+     * Extra time the entries of a cache are served once expired, while a single caller reloads them in the background.
+     */
+    @Valid @JsonProperty
+    private Map<String, Duration> staleDurations;
+
+    /**
+     * Whether misses are loaded by a single caller across all the nodes, instead of one per node.
+     */
+    @Valid @JsonProperty
+    private boolean distributedSingleFlight;
+
+    @Valid @JsonProperty
+    @NotNull private Codec codec = Codec.JSON;
+
+    @Valid @JsonProperty
+    @NotNull private LocalCacheConfig local = new LocalCacheConfig();
+
     public Map<String, Duration> getCaches() {
         return Optional.ofNullable(caches).orElse(Map.of());
     }
+
+    public Duration getDuration(String group) {
+        return getCaches().getOrDefault(group, defaultDuration);
+    }
+
+    public Map<String, Duration> getStaleDurations() {
+        return Optional.ofNullable(staleDurations).orElse(Map.of());
+    }
+
+    public Duration getStaleDuration(String group) {
+        return getStaleDurations().getOrDefault(group, Duration.ZERO);
+    }
+
+    /**
+     * Returns how long the entries of the group are kept, including the time they're served stale.
+     */
+    public Duration getTimeToLive(String group) {
+        return getDuration(group).plus(getStaleDuration(group));
+    }
 }
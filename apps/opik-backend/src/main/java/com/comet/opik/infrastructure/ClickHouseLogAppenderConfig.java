@@ -2,6 +2,8 @@ package com.comet.opik.infrastructure;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
@@ -10,9 +12,29 @@ import java.time.Duration;
 @Data
 public class ClickHouseLogAppenderConfig {
 
+    public enum OverflowPolicy {
+        DROP,
+        SPILL_TO_DISK
+    }
+
     @Valid @JsonProperty
     private int batchSize = 1000;
 
     @Valid @JsonProperty
     @NotNull private Duration flushIntervalDuration;
+
+    @Valid @JsonProperty
+    @Min(2) private int bufferCapacity = 65_536;
+
+    @Valid @JsonProperty
+    @NotNull private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    @Valid @JsonProperty
+    @NotBlank private String spillDirectory = "/tmp/opik/user-logs";
+
+    @Valid @JsonProperty
+    @Min(0) private long maxSpillBytes = 64L * 1024 * 1024;
+
+    @Valid @JsonProperty
+    @NotNull private Duration insertTimeout = Duration.ofSeconds(30);
 }
@@ -8,6 +8,39 @@ import lombok.Data;
 @Data
 public class DistributedLockConfig {
 
+    public enum Mode {
+        /**
+         * Every lock is acquired in Redis, several round trips per lock.
+         */
+        REDIS,
+        /**
+         * Locks are only held in memory, for single node deployments. No Redis round trips.
+         */
+        LOCAL,
+        /**
+         * Contenders on the same node are serialized in memory first, so only one of them per node waits on Redis.
+         */
+        HYBRID
+    }
+
+    public enum Strategy {
+        /**
+         * Redisson semaphore, waiters retry every 10 milliseconds.
+         */
+        SEMAPHORE,
+        /**
+         * Locks granted in arrival order, waiters are notified on release through Redis pub/sub. Its keys don't overlap
+         * with the semaphore ones, so all the nodes must be restarted together when switching strategy.
+         */
+        FAIR
+    }
+
+    @Valid @JsonProperty
+    @NotNull private Mode mode = Mode.REDIS;
+
+    @Valid @JsonProperty
+    @NotNull private Strategy strategy = Strategy.SEMAPHORE;
+
     @Valid @JsonProperty
     @NotNull private int lockTimeoutMS; // lease time in milliseconds
 
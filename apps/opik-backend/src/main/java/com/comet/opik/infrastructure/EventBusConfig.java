@@ -0,0 +1,60 @@
+package com.comet.opik.infrastructure;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Data
+public class EventBusConfig {
+
+    public enum OverflowPolicy {
+        /**
+         * The event is dropped.
+         */
+        DROP,
+        /**
+         * The event is merged into a queued event of its type and workspace when possible, otherwise it waits for room
+         * as with {@link #BLOCK}.
+         */
+        COALESCE,
+        /**
+         * The event waits for room in the queue, up to the maximum block duration, then it's dropped. Only virtual
+         * threads wait themselves, the events posted from other threads wait on a virtual thread instead.
+         */
+        BLOCK
+    }
+
+    @Data
+    public static class DispatchConfig {
+
+        @Valid @JsonProperty
+        @Min(1) private int maxConcurrency = 4;
+
+        @Valid @JsonProperty
+        @Min(1) private int maxQueueSize = 1_000;
+
+        @Valid @JsonProperty
+        @NotNull private OverflowPolicy overflowPolicy = OverflowPolicy.COALESCE;
+
+        @Valid @JsonProperty
+        @NotNull private Duration maxBlockDuration = Duration.ofSeconds(1);
+    }
+
+    @Valid @JsonProperty
+    @NotNull private DispatchConfig defaults = new DispatchConfig();
+
+    /**
+     * Overrides of the defaults per event type, keyed by the simple name of the event class.
+     */
+    @Valid @JsonProperty
+    @NotNull private Map<String, @Valid DispatchConfig> eventTypes = Map.of();
+
+    public DispatchConfig getDispatch(@NotNull String eventType) {
+        return eventTypes.getOrDefault(eventType, defaults);
+    }
+}
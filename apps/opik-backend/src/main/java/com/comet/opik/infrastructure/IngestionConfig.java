@@ -0,0 +1,178 @@
+package com.comet.opik.infrastructure;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.Duration;
+
+@Data
+public class IngestionConfig {
+
+    @Data
+    public static class CoalescerConfig {
+
+        @Valid @JsonProperty
+        private boolean enabled;
+
+        @Valid @JsonProperty
+        @NotNull private Duration window = Duration.ofMillis(50);
+
+        @Valid @JsonProperty
+        @Min(1) @Max(1000) private int maxBatchSize = 500;
+    }
+
+    @Data
+    public static class RowBinaryConfig {
+
+        @Valid @JsonProperty
+        private boolean enabled;
+
+        @Valid @JsonProperty
+        @Min(1024) private int bufferSize = 64 * 1024;
+
+        @Valid @JsonProperty
+        @Min(0) private int maxPooledBuffers = 256;
+
+        @Valid @JsonProperty
+        @NotNull private Duration timeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class QueueConfig {
+
+        @Valid @JsonProperty
+        private boolean enabled;
+
+        @Valid @JsonProperty
+        @NotBlank private String streamName = "opik_ingestion";
+
+        @Valid @JsonProperty
+        @NotBlank private String consumerGroupName = "opik_ingestion";
+
+        @Valid @JsonProperty
+        @Min(1) private int consumerBatchSize = 10;
+
+        @Valid @JsonProperty
+        @NotNull private Duration pollingInterval = Duration.ofMillis(100);
+
+        @Valid @JsonProperty
+        @Min(1) private int drainConcurrency = 4;
+
+        @Valid @JsonProperty
+        @Min(0) private int maxRetries = 5;
+
+        @Valid @JsonProperty
+        @NotNull private Duration retryBackoff = Duration.ofMillis(500);
+
+        @Valid @JsonProperty
+        @NotNull private Duration claimIdleTime = Duration.ofMinutes(1);
+
+        @Valid @JsonProperty
+        @Min(1) private int maxDeliveries = 10;
+
+        @Valid @JsonProperty
+        @NotBlank private String deadLetterStreamName = "opik_ingestion_dead_letter";
+
+        @Valid @JsonProperty
+        @Min(1) private long maxStreamLength = 100_000;
+    }
+
+    @Data
+    public static class ProjectCacheConfig {
+
+        @Valid @JsonProperty
+        private boolean enabled;
+
+        @Valid @JsonProperty
+        @Min(1) private long maximumSize = 10_000;
+
+        @Valid @JsonProperty
+        @NotNull private Duration ttl = Duration.ofMinutes(5);
+
+        @Valid @JsonProperty
+        @NotBlank private String invalidationTopic = "opik_project_cache_invalidation";
+    }
+
+    @Data
+    public static class LastUpdatedTraceConfig {
+
+        @Valid @JsonProperty
+        private boolean enabled;
+
+        @Valid @JsonProperty
+        @NotNull private Duration flushInterval = Duration.ofMillis(500);
+    }
+
+    @Data
+    public static class StreamConfig {
+
+        @Valid @JsonProperty
+        @Min(1) @Max(1000) private int chunkSize = 1000;
+
+        @Valid @JsonProperty
+        @Min(0) private int maxReportedErrors = 100;
+
+        @Valid @JsonProperty
+        @Min(1) private int maxLineLength = 10 * 1024 * 1024;
+    }
+
+    /**
+     * When enabled, single span creation skips the distributed lock and the existence pre-read. Conflicts are resolved
+     * by ClickHouse while inserting: non-empty values of an existing row win over the new ones, and project, trace or
+     * parent span mismatches are still rejected. Re-sending an existing span is therefore idempotent instead of
+     * failing with a conflict.
+     * <p>
+     * The insert only merges rows already written. Updates still take the lock, but the creation doesn't wait for it,
+     * so an update of a span not created yet that runs at the same time as its creation may be lost. Only enable it
+     * when clients send the updates of a span once its creation returned.
+     */
+    @Valid @JsonProperty
+    private boolean lockFreeSpanCreate;
+
+    /**
+     * Coalesces single span and trace creations per workspace into bulk inserts. Coalesced creations follow the batch
+     * endpoints semantics, so they don't check for conflicts with existing rows.
+     */
+    @Valid @JsonProperty
+    @NotNull private CoalescerConfig coalescer = new CoalescerConfig();
+
+    /**
+     * Writes span and trace batches in the ClickHouse RowBinary format over a single HTTP request body, instead of
+     * binding every value as a named parameter of a rendered INSERT statement.
+     */
+    @Valid @JsonProperty
+    @NotNull private RowBinaryConfig rowBinary = new RowBinaryConfig();
+
+    /**
+     * Queues span and trace batches in a Redis Stream and answers 202 Accepted, while a background drainer writes
+     * them to ClickHouse. Keeps accepting batches during ClickHouse merges or brief unavailability.
+     */
+    @Valid @JsonProperty
+    @NotNull private QueueConfig queue = new QueueConfig();
+
+    /**
+     * Caches projects by workspace and name on every node, so resolving the project of spans, traces and feedback
+     * scores doesn't query MySQL per request. Project updates and deletions are propagated through a Redis topic.
+     */
+    @Valid @JsonProperty
+    @NotNull private ProjectCacheConfig projectCache = new ProjectCacheConfig();
+
+    /**
+     * Settings of the NDJSON streaming endpoints, which write the streamed spans and traces in chunks as they're read.
+     */
+    @Valid @JsonProperty
+    @NotNull private StreamConfig stream = new StreamConfig();
+
+    /**
+     * Records the last updated trace of projects periodically, for all the projects with traces created or updated
+     * since the previous flush, instead of on every trace event.
+     */
+    @Valid @JsonProperty
+    @NotNull private LastUpdatedTraceConfig lastUpdatedTrace = new LastUpdatedTraceConfig();
+
+}
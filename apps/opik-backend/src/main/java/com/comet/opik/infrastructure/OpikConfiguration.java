@@ -59,4 +59,13 @@ public class OpikConfiguration extends JobConfiguration {
 
     @Valid @NotNull @JsonProperty
     private ClickHouseLogAppenderConfig clickHouseLogAppender = new ClickHouseLogAppenderConfig();
+
+    @Valid @NotNull @JsonProperty
+    private IngestionConfig ingestion = new IngestionConfig();
+
+    @Valid @NotNull @JsonProperty
+    private VirtualThreadsConfig virtualThreads = new VirtualThreadsConfig();
+
+    @Valid @NotNull @JsonProperty
+    private EventBusConfig eventBus = new EventBusConfig();
 }
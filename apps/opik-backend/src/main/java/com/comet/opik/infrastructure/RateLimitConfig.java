@@ -2,10 +2,13 @@ package com.comet.opik.infrastructure;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.Data;
 
+import java.time.Duration;
 import java.util.Map;
 
 @Data
@@ -15,13 +18,43 @@ public class RateLimitConfig {
             @Valid @JsonProperty @Positive long durationInSeconds) {
     }
 
+    public enum Strategy {
+        /**
+         * Redisson rate limiter, several round trips to Redis per request.
+         */
+        RATE_LIMITER,
+        /**
+         * Single Lua script per evaluation, counting events in fixed windows.
+         */
+        SCRIPT
+    }
+
+    @Data
+    public static class LocalLeaseConfig {
+
+        @Valid @JsonProperty
+        private boolean enabled;
+
+        @Valid @JsonProperty
+        @Min(1) private long maxLeaseSize = 100;
+
+        @Valid @JsonProperty
+        @NotNull private Duration leaseDuration = Duration.ofSeconds(1);
+    }
+
     @Valid @JsonProperty
     private boolean enabled;
 
+    @Valid @JsonProperty
+    @NotNull private Strategy strategy = Strategy.RATE_LIMITER;
+
     @Valid @JsonProperty
     private LimitConfig generalLimit;
 
     @Valid @JsonProperty
     private Map<String, LimitConfig> customLimits;
 
+    @Valid @JsonProperty
+    @NotNull private LocalLeaseConfig localLease = new LocalLeaseConfig();
+
 }
@@ -0,0 +1,19 @@
+package com.comet.opik.infrastructure;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+@Data
+public class VirtualThreadsConfig {
+
+    @Valid @JsonProperty
+    private boolean enabled;
+
+    @Valid @JsonProperty
+    @Min(1) private int maxConcurrentBlockingTasks = 10_000;
+
+    @Valid @JsonProperty
+    @Min(1) private int maxQueuedBlockingTasks = 100_000;
+}
@@ -1,8 +1,11 @@
 package com.comet.opik.infrastructure.auth;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import jakarta.ws.rs.ClientErrorException;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.BatchOptions;
 import org.redisson.api.RListReactive;
 import org.redisson.api.RedissonReactiveClient;
 
@@ -10,33 +13,125 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Caches the credentials of API keys per workspace in memory, in front of Redis where they're shared between the
+ * instances. Credentials read from Redis are kept in memory until their Redis entry expires, so they're never cached
+ * longer than the configured TTL.
+ * <p>
+ * Rejections of an API key for a workspace are kept in memory only, for a shorter TTL, so retries of a rejected client
+ * don't reach Redis nor the auth service.
+ */
 @Slf4j
-@RequiredArgsConstructor
 class AuthCredentialsCacheService implements CacheService {
 
     public static final String KEY_FORMAT = "auth-%s-%s";
+
+    private record Key(String apiKey, String workspaceName) {
+    }
+
+    private record CachedCredentials(AuthCredentials credentials, long expiresAt) {
+    }
+
+    private record Rejection(int status, String message) {
+    }
+
     private final RedissonReactiveClient redissonClient;
     private final int ttlInSeconds;
+    private final int rejectionTtlInSeconds;
+    private final Cache<Key, CachedCredentials> credentials;
+    private final Cache<Key, Rejection> rejections;
+
+    AuthCredentialsCacheService(@NonNull RedissonReactiveClient redissonClient, int ttlInSeconds,
+            int rejectionTtlInSeconds, long maximumSize) {
+        this.redissonClient = redissonClient;
+        this.ttlInSeconds = ttlInSeconds;
+        this.rejectionTtlInSeconds = rejectionTtlInSeconds;
+        this.credentials = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlInSeconds))
+                .build();
+        this.rejections = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(rejectionTtlInSeconds))
+                .build();
+    }
+
+    public Optional<AuthCredentials> resolveApiKeyUserAndWorkspaceIdFromLocalCache(@NonNull String apiKey,
+            @NonNull String workspaceName) {
+
+        var key = new Key(apiKey, workspaceName);
+
+        var rejection = rejections.getIfPresent(key);
+        if (rejection != null) {
+            log.debug("API key rejection found in local cache");
+            throw new ClientErrorException(rejection.message(), rejection.status());
+        }
+
+        return Optional.ofNullable(credentials.getIfPresent(key))
+                .filter(cached -> System.currentTimeMillis() < cached.expiresAt())
+                .map(CachedCredentials::credentials);
+    }
 
     public Optional<AuthCredentials> resolveApiKeyUserAndWorkspaceIdFromCache(@NonNull String apiKey,
             @NonNull String workspaceName) {
 
         String key = KEY_FORMAT.formatted(apiKey, workspaceName);
 
-        RListReactive<String> bucket = redissonClient.getList(key);
+        // Reads the credentials along with their remaining TTL, in a single round trip
+        var batch = redissonClient.createBatch();
+        RListReactive<String> bucket = batch.getList(key);
+        bucket.readAll();
+        bucket.remainTimeToLive();
+
+        List<?> responses = batch.execute().block().getResponses();
+
+        @SuppressWarnings("unchecked")
+        List<String> pair = (List<String>) responses.get(0);
+        long remainingTtlInMillis = (Long) responses.get(1);
+
+        if (pair == null || pair.size() != 2) {
+            return Optional.empty();
+        }
+
+        var resolved = new AuthCredentials(pair.getFirst(), pair.getLast());
+
+        if (remainingTtlInMillis > 0) {
+            long ttlInMillis = Math.min(remainingTtlInMillis, Duration.ofSeconds(ttlInSeconds).toMillis());
+            credentials.put(new Key(apiKey, workspaceName),
+                    new CachedCredentials(resolved, System.currentTimeMillis() + ttlInMillis));
+        }
 
-        return bucket
-                .readAll()
-                .blockOptional()
-                .filter(pair -> pair.size() == 2)
-                .map(pair -> new AuthCredentials(pair.getFirst(), pair.getLast()));
+        return Optional.of(resolved);
     }
 
     public void cache(@NonNull String apiKey, @NonNull String workspaceName, @NonNull String userName,
             @NonNull String workspaceId) {
         String key = KEY_FORMAT.formatted(apiKey, workspaceName);
-        redissonClient.getList(key).addAll(List.of(userName, workspaceId)).block();
-        redissonClient.getList(key).expire(Duration.ofSeconds(ttlInSeconds)).block();
+
+        // Replaces the credentials and sets their TTL atomically, in a single round trip
+        var batch = redissonClient.createBatch(BatchOptions.defaults()
+                .executionMode(BatchOptions.ExecutionMode.IN_MEMORY_ATOMIC));
+        RListReactive<String> bucket = batch.getList(key);
+        bucket.delete();
+        bucket.addAll(List.of(userName, workspaceId));
+        bucket.expire(Duration.ofSeconds(ttlInSeconds));
+
+        batch.execute().block();
+
+        credentials.put(new Key(apiKey, workspaceName), new CachedCredentials(
+                new AuthCredentials(userName, workspaceId),
+                System.currentTimeMillis() + Duration.ofSeconds(ttlInSeconds).toMillis()));
+    }
+
+    public void cacheRejection(@NonNull String apiKey, @NonNull String workspaceName,
+            @NonNull ClientErrorException rejection) {
+        if (rejectionTtlInSeconds <= 0) {
+            return;
+        }
+
+        var key = new Key(apiKey, workspaceName);
+        credentials.invalidate(key);
+        rejections.put(key, new Rejection(rejection.getResponse().getStatus(), rejection.getMessage()));
     }
 
 }
@@ -2,7 +2,6 @@ package com.comet.opik.infrastructure.auth;
 
 import com.comet.opik.infrastructure.AuthenticationConfig;
 import com.comet.opik.infrastructure.OpikConfiguration;
-import com.comet.opik.infrastructure.lock.LockService;
 import com.google.common.base.Preconditions;
 import com.google.inject.Provides;
 import jakarta.inject.Provider;
@@ -24,8 +23,7 @@ public class AuthModule extends DropwizardAwareModule<OpikConfiguration> {
     public AuthService authService(
             @Config("authentication") AuthenticationConfig config,
             @NonNull Provider<RequestContext> requestContext,
-            @NonNull RedissonReactiveClient redissonClient,
-            @NonNull LockService lockService) {
+            @NonNull RedissonReactiveClient redissonClient) {
 
         if (!config.isEnabled()) {
             return new AuthServiceImpl(requestContext);
@@ -42,11 +40,11 @@ public class AuthModule extends DropwizardAwareModule<OpikConfiguration> {
                 "The property authentication.sdk.url must not be blank when authentication is enabled");
 
         var cacheService = config.getApiKeyResolutionCacheTTLInSec() > 0
-                ? new AuthCredentialsCacheService(redissonClient, config.getApiKeyResolutionCacheTTLInSec())
+                ? new AuthCredentialsCacheService(redissonClient, config.getApiKeyResolutionCacheTTLInSec(),
+                        config.getApiKeyRejectionCacheTTLInSec(), config.getApiKeyLocalCacheMaximumSize())
                 : new NoopCacheService();
 
-        return new RemoteAuthService(client(), config.getSdk(), config.getUi(), requestContext, cacheService,
-                lockService);
+        return new RemoteAuthService(client(), config.getSdk(), config.getUi(), requestContext, cacheService);
     }
 
     public Client client() {
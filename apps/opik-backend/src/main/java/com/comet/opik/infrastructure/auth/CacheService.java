@@ -1,5 +1,7 @@
 package com.comet.opik.infrastructure.auth;
 
+import jakarta.ws.rs.ClientErrorException;
+
 import java.util.Optional;
 
 interface CacheService {
@@ -9,6 +11,14 @@ interface CacheService {
 
     void cache(String apiKey, String workspaceName, String userName, String workspaceId);
     Optional<AuthCredentials> resolveApiKeyUserAndWorkspaceIdFromCache(String apiKey, String workspaceName);
+
+    /**
+     * Returns the credentials kept in memory, without any remote call. Throws the rejection of the API key for the
+     * workspace instead, if it was rejected recently.
+     */
+    Optional<AuthCredentials> resolveApiKeyUserAndWorkspaceIdFromLocalCache(String apiKey, String workspaceName);
+
+    void cacheRejection(String apiKey, String workspaceName, ClientErrorException rejection);
 }
 
 class NoopCacheService implements CacheService {
@@ -23,4 +33,15 @@ class NoopCacheService implements CacheService {
             String apiKey, String workspaceName) {
         return Optional.empty();
     }
-}
\ No newline at end of file
+
+    @Override
+    public Optional<AuthCredentials> resolveApiKeyUserAndWorkspaceIdFromLocalCache(String apiKey,
+            String workspaceName) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void cacheRejection(String apiKey, String workspaceName, ClientErrorException rejection) {
+        // no-op
+    }
+}
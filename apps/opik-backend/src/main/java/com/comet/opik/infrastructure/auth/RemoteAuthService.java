@@ -1,7 +1,6 @@
 package com.comet.opik.infrastructure.auth;
 
 import com.comet.opik.domain.ProjectService;
-import com.comet.opik.infrastructure.lock.LockService;
 import jakarta.inject.Provider;
 import jakarta.ws.rs.ClientErrorException;
 import jakarta.ws.rs.InternalServerErrorException;
@@ -15,15 +14,16 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.net.URI;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.comet.opik.infrastructure.AuthenticationConfig.UrlConfig;
 import static com.comet.opik.infrastructure.auth.AuthCredentialsCacheService.AuthCredentials;
-import static com.comet.opik.infrastructure.lock.LockService.Lock;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -36,7 +36,8 @@ class RemoteAuthService implements AuthService {
     private final @NonNull UrlConfig uiAuthUrl;
     private final @NonNull Provider<RequestContext> requestContext;
     private final @NonNull CacheService cacheService;
-    private final @NonNull LockService lockService;
+    private final Map<ValidationKey, CompletableFuture<ValidatedAuthCredentials>> validations =
+            new ConcurrentHashMap<>();
 
     record AuthRequest(String workspaceName, String path) {
     }
@@ -47,6 +48,9 @@ class RemoteAuthService implements AuthService {
     record ValidatedAuthCredentials(boolean shouldCache, String userName, String workspaceId) {
     }
 
+    private record ValidationKey(String apiKey, String workspaceName) {
+    }
+
     @Override
     public void authenticate(HttpHeaders headers, Cookie sessionToken, String path) {
 
@@ -97,23 +101,66 @@ class RemoteAuthService implements AuthService {
             throw new ClientErrorException(NOT_ALLOWED_TO_ACCESS_WORKSPACE, Response.Status.UNAUTHORIZED);
         }
 
-        var lock = new Lock(apiKey, workspaceName);
+        Optional<AuthCredentials> cachedCredentials = cacheService.resolveApiKeyUserAndWorkspaceIdFromLocalCache(
+                apiKey, workspaceName);
 
-        ValidatedAuthCredentials credentials = lockService.executeWithLock(
-                lock,
-                Mono.fromCallable(() -> validateApiKeyAndGetCredentials(workspaceName, apiKey, path))
-                        .subscribeOn(Schedulers.boundedElastic()))
-                .block();
-
-        if (credentials.shouldCache()) {
-            log.debug("Caching user and workspace id for API key");
-            cacheService.cache(apiKey, workspaceName, credentials.userName(), credentials.workspaceId());
+        if (cachedCredentials.isPresent()) {
+            setCredentialIntoContext(cachedCredentials.get().userName(), cachedCredentials.get().workspaceId());
+            requestContext.get().setApiKey(apiKey);
+            return;
         }
 
+        var credentials = validateOnce(apiKey, workspaceName, path);
+
         setCredentialIntoContext(credentials.userName(), credentials.workspaceId());
         requestContext.get().setApiKey(apiKey);
     }
 
+    /**
+     * Concurrent requests of an API key and workspace share the validation of the first one, so only it calls Redis
+     * and the auth service, and caches the credentials. They're cached before the validation is shared and removed,
+     * so later requests find them in the cache instead of validating again.
+     */
+    private ValidatedAuthCredentials validateOnce(String apiKey, String workspaceName, String path) {
+        var key = new ValidationKey(apiKey, workspaceName);
+        var validation = new CompletableFuture<ValidatedAuthCredentials>();
+        var inFlight = validations.putIfAbsent(key, validation);
+
+        if (inFlight != null) {
+            log.debug("Waiting for in-flight validation of API key");
+            return await(inFlight);
+        }
+
+        try {
+            var credentials = validateApiKeyAndGetCredentials(workspaceName, apiKey, path);
+            if (credentials.shouldCache()) {
+                log.debug("Caching user and workspace id for API key");
+                cacheService.cache(apiKey, workspaceName, credentials.userName(), credentials.workspaceId());
+            }
+            validation.complete(credentials);
+        } catch (ClientErrorException exception) {
+            cacheService.cacheRejection(apiKey, workspaceName, exception);
+            validation.completeExceptionally(exception);
+        } catch (RuntimeException exception) {
+            validation.completeExceptionally(exception);
+        } finally {
+            validations.remove(key, validation);
+        }
+
+        return await(validation);
+    }
+
+    private ValidatedAuthCredentials await(CompletableFuture<ValidatedAuthCredentials> validation) {
+        try {
+            return validation.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
     private ValidatedAuthCredentials validateApiKeyAndGetCredentials(String workspaceName, String apiKey, String path) {
         Optional<AuthCredentials> credentials = cacheService.resolveApiKeyUserAndWorkspaceIdFromCache(apiKey,
                 workspaceName);
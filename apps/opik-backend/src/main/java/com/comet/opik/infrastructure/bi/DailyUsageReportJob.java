@@ -5,6 +5,7 @@ import com.comet.opik.domain.ExperimentService;
 import com.comet.opik.domain.TraceService;
 import com.comet.opik.infrastructure.OpikConfiguration;
 import com.comet.opik.infrastructure.lock.LockService;
+import com.comet.opik.utils.SchedulerUtils;
 import io.dropwizard.jobs.Job;
 import io.dropwizard.jobs.annotations.On;
 import io.opentelemetry.api.GlobalOpenTelemetry;
@@ -22,7 +23,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.quartz.JobExecutionContext;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.function.Tuple4;
 
 import java.net.URI;
@@ -126,7 +126,7 @@ public class DailyUsageReportJob extends Job {
                 traceService.getDailyCreatedCount(),
                 experimentService.getDailyCreatedCount(),
                 Mono.fromCallable(datasetService::getDailyCreatedCount)
-                        .subscribeOn(Schedulers.boundedElastic()));
+                        .subscribeOn(SchedulerUtils.blocking()));
     }
 
     private BiEvent mapResults(String anonymousId, Tuple4<UserCount, Long, Long, Long> results) {
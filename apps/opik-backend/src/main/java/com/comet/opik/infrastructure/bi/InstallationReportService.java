@@ -2,6 +2,7 @@ package com.comet.opik.infrastructure.bi;
 
 import com.comet.opik.infrastructure.OpikConfiguration;
 import com.comet.opik.infrastructure.lock.LockService;
+import com.comet.opik.utils.SchedulerUtils;
 import com.google.inject.ImplementedBy;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -14,7 +15,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import ru.vyarus.dropwizard.guice.module.lifecycle.GuiceyLifecycle;
 
 import java.net.URI;
@@ -58,7 +58,7 @@ class InstallationReportServiceImpl implements InstallationReportService {
 
         try {
             lockService.executeWithLock(lock, tryToReportStartupEvent(eventType))
-                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribeOn(SchedulerUtils.blocking())
                     .block(Duration.ofSeconds(5));
         } catch (Exception e) {
             log.warn("Didn't reported due to error", e);
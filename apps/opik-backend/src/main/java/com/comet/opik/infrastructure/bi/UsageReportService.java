@@ -1,6 +1,7 @@
 package com.comet.opik.infrastructure.bi;
 
 import com.comet.opik.infrastructure.OpikConfiguration;
+import com.comet.opik.utils.SchedulerUtils;
 import com.google.inject.ImplementedBy;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -10,7 +11,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.jdbi.v3.core.statement.UnableToExecuteStatementException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.function.Tuples;
 import ru.vyarus.guicey.jdbi3.tx.TransactionTemplate;
 
@@ -127,7 +127,7 @@ class UsageReportServiceImpl implements UsageReportService {
     private Mono<Set<String>> getStateTableUsers(String table, boolean daily) {
         return Mono.fromCallable(() -> template.inTransaction(READ_ONLY,
                 handle -> handle.attach(MetadataDAO.class).getReportUsers(table, daily)))
-                .subscribeOn(Schedulers.boundedElastic());
+                .subscribeOn(SchedulerUtils.blocking());
     }
 
     private Mono<List<String>> getStateTable() {
@@ -135,7 +135,7 @@ class UsageReportServiceImpl implements UsageReportService {
                 .fromCallable(() -> template.inTransaction(READ_ONLY,
                         handle -> handle.attach(MetadataDAO.class)
                                 .getTablesForDailyReport(handle.getConnection().getCatalog())))
-                .subscribeOn(Schedulers.boundedElastic());
+                .subscribeOn(SchedulerUtils.blocking());
     }
 
     private Set<String> reduceResults(Set<String> t1, Set<String> t2) {
@@ -0,0 +1,23 @@
+package com.comet.opik.infrastructure.cache;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+
+/**
+ * Value of a cache serving stale entries, cached along with the time it's fresh until. Stale entries are still served
+ * until they expire, while they're reloaded in the background.
+ */
+record CacheEntry<T>(T value, long freshUntil) {
+
+    static <T> CacheEntry<T> fresh(T value) {
+        return new CacheEntry<>(value, Long.MAX_VALUE);
+    }
+
+    static JavaType type(JavaType valueType) {
+        return TypeFactory.defaultInstance().constructParametricType(CacheEntry.class, valueType);
+    }
+
+    boolean isStale() {
+        return System.currentTimeMillis() >= freshUntil;
+    }
+}
@@ -21,16 +21,24 @@ public @interface CacheEvict {
     /**
      * key is a SpEL expression implemented using MVEL. Please refer to the <a href="http://mvel.documentnode.com/">MVEL documentation for more information</a>.
      *
-     * @return SpEL expression evaluated to generate the cache key.
+     * @return SpEL expression evaluated to generate the cache key. Default is no key, when only evicting by tag.
      * */
-    String key();
+    String key() default "";
 
     /**
      * @return whether the key is a pattern or not. Default is false.
      *
      * @see <a href="https://redis.io/commands/KEYS">Redis KEYS command documentation</a>
      *
-     * This is useful when you want to evict multiple keys that match a pattern.
+     * This is useful when you want to evict multiple keys that match a pattern. Matching keys are found by scanning
+     * the whole keyspace, prefer {@link #tag()} for evictions on hot paths.
      * */
     boolean keyUsesPatternMatching() default false;
+
+    /**
+     * tag is a SpEL expression implemented using MVEL, like the key.
+     *
+     * @return SpEL expression evaluated to generate the tag of the entries to evict. Default is no tag.
+     * */
+    String tag() default "";
 }
@@ -1,7 +1,8 @@
 package com.comet.opik.infrastructure.cache;
 
 import com.comet.opik.infrastructure.CacheConfiguration;
-import com.comet.opik.utils.TypeReferenceUtils;
+import com.comet.opik.infrastructure.lock.LockService;
+import com.comet.opik.utils.SchedulerUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.type.TypeFactory;
@@ -11,21 +12,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
-import org.mvel2.MVEL;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
 import java.lang.reflect.Type;
 import java.time.Duration;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.BiFunction;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
@@ -33,8 +30,26 @@ import java.util.stream.Stream;
 @RequiredArgsConstructor
 public class CacheInterceptor implements MethodInterceptor {
 
+    /**
+     * Separates the cache name from the evaluated tag, so tags never match the keys or key patterns of the cache.
+     */
+    static final String TAG_SEPARATOR = ":-#";
+
+    private static final String CACHE_LOAD_LOCK = "cache_load";
+
+    private record ExpressionKey(Method method, String expression) {
+    }
+
+    @FunctionalInterface
+    private interface CacheAction {
+        Object apply(String key, String group, String tag);
+    }
+
     private final @NonNull Provider<CacheManager> cacheManager;
+    private final @NonNull Provider<LockService> lockService;
     private final @NonNull CacheConfiguration cacheConfiguration;
+    private final Map<ExpressionKey, CacheKeyExpression> keyExpressions = new ConcurrentHashMap<>();
+    private final Map<String, Mono<Object>> loads = new ConcurrentHashMap<>();
 
     @Override
     public Object invoke(MethodInvocation invocation) throws Throwable {
@@ -49,55 +64,55 @@ public class CacheInterceptor implements MethodInterceptor {
 
         var cacheable = method.getAnnotation(Cacheable.class);
         if (cacheable != null) {
-            return runCacheAwareAction(invocation, isReactive, cacheable.name(), cacheable.key(),
-                    (key, group) -> processCacheableMethod(invocation, isReactive, key, group, cacheable));
+            return runCacheAwareAction(invocation, isReactive, cacheable.name(), cacheable.key(), cacheable.tag(),
+                    (key, group, tag) -> processCacheableMethod(invocation, isReactive, key, group, tag, cacheable));
         }
 
         var cachePut = method.getAnnotation(CachePut.class);
         if (cachePut != null) {
-            return runCacheAwareAction(invocation, isReactive, cachePut.name(), cachePut.key(),
-                    (key, group) -> processCachePutMethod(invocation, isReactive, key, group));
+            return runCacheAwareAction(invocation, isReactive, cachePut.name(), cachePut.key(), cachePut.tag(),
+                    (key, group, tag) -> processCachePutMethod(invocation, isReactive, key, group, tag));
         }
 
         var cacheEvict = method.getAnnotation(CacheEvict.class);
         if (cacheEvict != null) {
-            return runCacheAwareAction(invocation, isReactive, cacheEvict.name(), cacheEvict.key(),
-                    (key, group) -> processCacheEvictMethod(invocation, isReactive, key, cacheEvict));
+            return runCacheAwareAction(invocation, isReactive, cacheEvict.name(), cacheEvict.key(), cacheEvict.tag(),
+                    (key, group, tag) -> processCacheEvictMethod(invocation, isReactive, key, tag, cacheEvict));
         }
 
         return invocation.proceed();
     }
 
     private Object runCacheAwareAction(MethodInvocation invocation, boolean isReactive, String group, String keyAgs,
-            BiFunction<String, String, Object> action) throws Throwable {
+            String tagArgs, CacheAction action) throws Throwable {
 
         String key;
+        String tag;
 
         try {
-            key = getKeyName(group, keyAgs, invocation);
+            key = keyAgs.isEmpty() ? null : getKeyName(group, keyAgs, invocation);
+            tag = tagArgs.isEmpty() ? null : getTagName(group, tagArgs, invocation);
         } catch (Exception e) {
             // If there is an error evaluating the key, proceed without caching
-            log.error("Error evaluating key expression: {}", keyAgs, e);
+            log.error("Error evaluating key expression: {}, tag expression: {}", keyAgs, tagArgs, e);
             log.warn("Cache will be skipped due to error evaluating key expression");
             return invocation.proceed();
         }
 
         if (isReactive) {
-            return action.apply(key, group);
+            return action.apply(key, group, tag);
         }
 
-        return ((Mono<?>) action.apply(key, group)).block();
+        return ((Mono<?>) action.apply(key, group, tag)).block();
     }
 
     private Mono<Object> processCacheEvictMethod(MethodInvocation invocation, boolean isReactive, String key,
-            CacheEvict cacheEvict) {
+            String tag, CacheEvict cacheEvict) {
         if (isReactive) {
             try {
                 return ((Mono<?>) invocation.proceed())
-                        .flatMap(value -> cacheManager.get().evict(key, cacheEvict.keyUsesPatternMatching())
-                                .thenReturn(value))
-                        .switchIfEmpty(
-                                cacheManager.get().evict(key, cacheEvict.keyUsesPatternMatching()).then(Mono.empty()))
+                        .flatMap(value -> evict(key, tag, cacheEvict).thenReturn(value))
+                        .switchIfEmpty(evict(key, tag, cacheEvict).then(Mono.empty()))
                         .map(Function.identity());
             } catch (Throwable e) {
                 return Mono.error(e);
@@ -106,27 +121,39 @@ public class CacheInterceptor implements MethodInterceptor {
             try {
                 var value = invocation.proceed();
                 if (value == null) {
-                    return cacheManager.get().evict(key, cacheEvict.keyUsesPatternMatching()).then(Mono.empty());
+                    return evict(key, tag, cacheEvict).then(Mono.empty());
                 }
-                return cacheManager.get().evict(key, cacheEvict.keyUsesPatternMatching()).thenReturn(value);
+                return evict(key, tag, cacheEvict).thenReturn(value);
             } catch (Throwable e) {
                 return Mono.error(e);
             }
         }
     }
 
+    private Mono<Boolean> evict(String key, String tag, CacheEvict cacheEvict) {
+        return Mono.defer(() -> {
+            var keyEviction = key != null
+                    ? cacheManager.get().evict(key, cacheEvict.keyUsesPatternMatching())
+                    : Mono.just(false);
+            var tagEviction = tag != null
+                    ? cacheManager.get().evictTag(tag)
+                    : Mono.just(false);
+            return keyEviction.zipWith(tagEviction, Boolean::logicalOr);
+        });
+    }
+
     private Mono<Object> processCachePutMethod(MethodInvocation invocation, boolean isReactive, String key,
-            String group) {
+            String group, String tag) {
         if (isReactive) {
             try {
-                return ((Mono<?>) invocation.proceed()).flatMap(value -> cachePut(value, key, group));
+                return ((Mono<?>) invocation.proceed()).flatMap(value -> cachePut(value, key, group, tag, true));
             } catch (Throwable e) {
                 return Mono.error(e);
             }
         } else {
             try {
                 var value = invocation.proceed();
-                return cachePut(value, key, group).thenReturn(value);
+                return cachePut(value, key, group, tag, true).thenReturn(value);
             } catch (Throwable e) {
                 return Mono.error(e);
             }
@@ -134,112 +161,135 @@ public class CacheInterceptor implements MethodInterceptor {
     }
 
     private Object processCacheableMethod(MethodInvocation invocation, boolean isReactive, String key,
-            String group, Cacheable cacheable) {
+            String group, String tag, Cacheable cacheable) {
 
-        if (isReactive) {
-
-            if (invocation.getMethod().getReturnType().isAssignableFrom(Mono.class)) {
-                return handleMono(invocation, key, group, cacheable);
-            } else {
-                return handleFlux(invocation, key, group, cacheable);
-            }
-        } else {
+        JavaType valueType = valueType(invocation, isReactive, cacheable);
 
-            if (cacheable.wrapperType() != Object.class) {
-                TypeReference typeReference = TypeReferenceUtils.forTypes(cacheable.wrapperType(),
-                        cacheable.returnType());
+        if (isReactive && !invocation.getMethod().getReturnType().isAssignableFrom(Mono.class)) {
+            return handleFlux(invocation, key, group, tag, valueType);
+        }
 
-                return cacheManager.get().get(key, typeReference)
-                        .switchIfEmpty(processSyncCacheMiss(invocation, key, group));
-            }
+        Mono<Object> load = singleFlight(key, load(invocation, isReactive, key, group, tag, valueType));
+        Mono<Object> cached = getCachedEntry(key, group, valueType)
+                .map(entry -> {
+                    if (entry.isStale()) {
+                        refresh(key, load);
+                    }
+                    return entry.value();
+                });
 
-            return cacheManager.get().get(key, invocation.getMethod().getReturnType())
-                    .map(Object.class::cast)
-                    .switchIfEmpty(processSyncCacheMiss(invocation, key, group));
+        if (isReactive) {
+            return cached.switchIfEmpty(load);
         }
+
+        // Blocks on the lookup first, so a miss invokes the method on the calling thread instead of the Redis
+        // client thread completing the lookup, where blocking calls would stall the client's event loop
+        Object cachedValue = cached.block();
+
+        return cachedValue != null
+                ? Mono.just(cachedValue)
+                : load;
     }
 
-    private Flux<Object> handleFlux(MethodInvocation invocation, String key, String group, Cacheable cacheable) {
-        if (cacheable.wrapperType() != Object.class) {
-            TypeReference typeReference = TypeReferenceUtils.forTypes(cacheable.wrapperType(),
-                    cacheable.returnType());
-
-            TypeReference<List<?>> collectionType = new TypeReference<>() {
-                @Override
-                public Type getType() {
-                    return TypeFactory.defaultInstance().constructCollectionType(List.class,
-                            (JavaType) typeReference.getType());
-                }
-            };
+    private JavaType valueType(MethodInvocation invocation, boolean isReactive, Cacheable cacheable) {
+        var typeFactory = TypeFactory.defaultInstance();
 
-            return getFromCacheOrCallMethod(invocation, key, group, collectionType);
+        if (cacheable.wrapperType() != Object.class) {
+            return typeFactory.constructParametricType(cacheable.wrapperType(), cacheable.returnType());
         }
 
-        TypeReference<List<?>> collectionType = new TypeReference<>() {
-            @Override
-            public Type getType() {
-                return TypeFactory.defaultInstance().constructCollectionType(List.class, cacheable.returnType());
-            }
-        };
-
-        return getFromCacheOrCallMethod(invocation, key, group, collectionType);
+        return typeFactory.constructType(isReactive ? cacheable.returnType() : invocation.getMethod().getReturnType());
     }
 
-    private Flux<Object> getFromCacheOrCallMethod(MethodInvocation invocation, String key, String group,
-            TypeReference<List<?>> collectionType) {
-        return cacheManager.get()
-                .get(key, collectionType)
-                .map(Collection.class::cast)
+    /**
+     * Flux methods don't serve stale entries, as their misses are cached while the values are streamed to the caller.
+     */
+    private Flux<Object> handleFlux(MethodInvocation invocation, String key, String group, String tag,
+            JavaType valueType) {
+        JavaType collectionType = TypeFactory.defaultInstance().constructCollectionType(List.class, valueType);
+
+        return getCachedEntry(key, group, collectionType)
+                .filter(entry -> !entry.isStale())
+                .map(entry -> (Collection<Object>) entry.value())
                 .flatMapMany(Flux::fromIterable)
-                .switchIfEmpty(processFluxCacheMiss(invocation, key, group));
+                .switchIfEmpty(processFluxCacheMiss(invocation, key, group, tag));
     }
 
-    private Mono<Object> handleMono(MethodInvocation invocation, String key, String group, Cacheable cacheable) {
-        if (cacheable.wrapperType() != Object.class) {
-            TypeReference typeReference = TypeReferenceUtils.forTypes(cacheable.wrapperType(),
-                    cacheable.returnType());
+    private Mono<CacheEntry<Object>> getCachedEntry(String key, String group, JavaType valueType) {
+        if (!isStaleWhileRevalidate(group)) {
+            return cacheManager.get().get(key, typeReference(valueType))
+                    .map(CacheEntry::fresh);
+        }
+
+        return cacheManager.get().get(key, typeReference(CacheEntry.type(valueType)));
+    }
 
-            return cacheManager.get().get(key, typeReference)
-                    .switchIfEmpty(processCacheMiss(invocation, key, group));
+    private Mono<Object> load(MethodInvocation invocation, boolean isReactive, String key, String group, String tag,
+            JavaType valueType) {
+        Mono<Object> load = isReactive
+                ? processCacheMiss(invocation, key, group, tag)
+                : processSyncCacheMiss(invocation, key, group, tag);
+
+        if (!cacheConfiguration.isDistributedSingleFlight()) {
+            return load;
         }
 
-        return cacheManager.get().get(key, cacheable.returnType())
-                .map(Object.class::cast)
-                .switchIfEmpty(processCacheMiss(invocation, key, group));
+        // Callers on the other nodes wait for the lock, then read the value cached by its previous holder
+        return lockService.get().executeWithLock(new LockService.Lock(key, CACHE_LOAD_LOCK),
+                getCachedEntry(key, group, valueType)
+                        .filter(entry -> !entry.isStale())
+                        .map(CacheEntry::value)
+                        .switchIfEmpty(load));
+    }
+
+    /**
+     * Concurrent misses of a key share the load of the first one, until it completes.
+     */
+    private Mono<Object> singleFlight(String key, Mono<Object> load) {
+        return Mono.defer(() -> loads.computeIfAbsent(key, __ -> load
+                .doFinally(signal -> loads.remove(key))
+                .cache()));
     }
 
-    private Mono<Object> processSyncCacheMiss(MethodInvocation invocation, String key, String group) {
+    private void refresh(String key, Mono<Object> load) {
+        load.subscribeOn(SchedulerUtils.blocking())
+                .subscribe(
+                        __ -> log.debug("Stale cache entry '{}' refreshed", key),
+                        error -> log.warn("Failed to refresh stale cache entry '{}'", key, error));
+    }
+
+    private Mono<Object> processSyncCacheMiss(MethodInvocation invocation, String key, String group, String tag) {
         return Mono.defer(() -> {
             try {
                 return Mono.just(invocation.proceed());
             } catch (Throwable e) {
                 return Mono.error(e);
             }
-        }).flatMap(value -> cachePut(value, key, group));
+        }).flatMap(value -> cachePut(value, key, group, tag, false));
     }
 
-    private Mono<Object> processCacheMiss(MethodInvocation invocation, String key, String group) {
+    private Mono<Object> processCacheMiss(MethodInvocation invocation, String key, String group, String tag) {
         return Mono.defer(() -> {
             try {
                 return ((Mono<?>) invocation.proceed())
-                        .flatMap(value -> cachePut(value, key, group));
+                        .flatMap(value -> cachePut(value, key, group, tag, false));
             } catch (Throwable e) {
                 return Mono.error(e);
             }
         });
     }
 
-    private Flux<Object> processFluxCacheMiss(MethodInvocation invocation, String key, String group) {
+    private Flux<Object> processFluxCacheMiss(MethodInvocation invocation, String key, String group, String tag) {
         return Flux.defer(() -> {
             try {
                 Flux<Object> flux = (Flux<Object>) invocation.proceed();
 
                 var cacheable = flux.cache()
                         .collectList()
-                        .flatMap(value -> cachePut(value, key, group));
+                        .flatMap(value -> cachePut(value, key, group, tag, false));
 
                 return flux
-                        .doOnSubscribe(subscription -> Schedulers.boundedElastic().schedule(() -> {
+                        .doOnSubscribe(subscription -> SchedulerUtils.blocking().schedule(() -> {
                             cacheable.subscribe(
                                     __ -> log.info("Flux value put in cache"),
                                     e -> log.error("Error putting flux value in cache", e));
@@ -250,10 +300,26 @@ public class CacheInterceptor implements MethodInterceptor {
         });
     }
 
-    private Mono<Object> cachePut(Object value, String key, String group) {
-        Duration ttlDuration = cacheConfiguration.getCaches().getOrDefault(group,
-                cacheConfiguration.getDefaultDuration());
-        return cacheManager.get().put(key, value, ttlDuration)
+    /**
+     * Replaces the cached value for {@link CachePut} methods, otherwise fills the missed key.
+     */
+    private Mono<Object> cachePut(Object value, String key, String group, String tag, boolean replace) {
+        Duration ttlDuration = cacheConfiguration.getTimeToLive(group);
+        Object cachedValue = isStaleWhileRevalidate(group)
+                ? new CacheEntry<>(value, System.currentTimeMillis() + cacheConfiguration.getDuration(group).toMillis())
+                : value;
+        var cache = cacheManager.get();
+        Mono<Boolean> put;
+        if (replace) {
+            put = tag != null
+                    ? cache.replace(key, cachedValue, ttlDuration, tag)
+                    : cache.replace(key, cachedValue, ttlDuration);
+        } else {
+            put = tag != null
+                    ? cache.put(key, cachedValue, ttlDuration, tag)
+                    : cache.put(key, cachedValue, ttlDuration);
+        }
+        return put
                 .thenReturn(value)
                 .onErrorResume(e -> {
                     log.error("Error putting value in cache", e);
@@ -261,25 +327,37 @@ public class CacheInterceptor implements MethodInterceptor {
                 });
     }
 
+    private boolean isStaleWhileRevalidate(String group) {
+        return cacheConfiguration.getStaleDuration(group).isPositive();
+    }
+
+    private static <T> TypeReference<T> typeReference(JavaType type) {
+        return new TypeReference<>() {
+            @Override
+            public Type getType() {
+                return type;
+            }
+        };
+    }
+
     private String getKeyName(String name, String key, MethodInvocation invocation) {
-        Map<String, Object> params = new HashMap<>();
+        return name + ":-" + evaluate(key, invocation);
+    }
 
-        // Use Paranamer to resolve parameter names
-        Parameter[] parameters = invocation.getMethod().getParameters();
-        Object[] args = invocation.getArguments();
+    private String getTagName(String name, String tag, MethodInvocation invocation) {
+        return name + TAG_SEPARATOR + evaluate(tag, invocation);
+    }
 
-        // Populate the context map with parameter names and values
-        for (int i = 0; i < invocation.getMethod().getParameterCount(); i++) {
-            Object value = args[i];
-            params.put("$" + parameters[i].getName(), value != null ? value : ""); // Null safety
-        }
+    private String evaluate(String key, MethodInvocation invocation) {
+        var expression = keyExpressions.computeIfAbsent(new ExpressionKey(invocation.getMethod(), key),
+                expressionKey -> CacheKeyExpression.compile(key, expressionKey.method()));
 
-        String evaluatedKey = Objects.requireNonNull(MVEL.evalToString(key, params),
+        String evaluatedKey = Objects.requireNonNull(expression.evaluate(invocation.getArguments()),
                 "Key expression cannot return be null");
         if (evaluatedKey.isEmpty() || evaluatedKey.equals("null")) {
             throw new IllegalArgumentException("Key expression cannot return an empty string");
         }
-        return "%s:-%s".formatted(name, evaluatedKey);
+        return evaluatedKey;
     }
 
 }
@@ -0,0 +1,136 @@
+package com.comet.opik.infrastructure.cache;
+
+import lombok.NonNull;
+import org.mvel2.MVEL;
+
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Cache key expression of a method, parsed once when the method is first intercepted.
+ * <p>
+ * Keys only concatenating parameters and single-quoted literals, such as {@code $projectId + '-' + $workspaceId}, are
+ * built directly from the arguments. Any other expression is compiled by MVEL and evaluated with the parameters bound
+ * by name. In both cases, {@code null} arguments are replaced by empty strings.
+ */
+final class CacheKeyExpression {
+
+    private static final Pattern PARAMETER = Pattern.compile("\\$([A-Za-z_][A-Za-z0-9_]*)");
+    private static final Pattern LITERAL = Pattern.compile("'([^'\\\\]*)'");
+
+    /**
+     * Either the index of a parameter, or a literal when the index is negative.
+     */
+    private record Segment(int parameterIndex, String literal) {
+    }
+
+    private final String[] variableNames;
+    private final List<Segment> segments;
+    private final Serializable compiledExpression;
+
+    private CacheKeyExpression(String[] variableNames, List<Segment> segments, Serializable compiledExpression) {
+        this.variableNames = variableNames;
+        this.segments = segments;
+        this.compiledExpression = compiledExpression;
+    }
+
+    static CacheKeyExpression compile(@NonNull String expression, @NonNull Method method) {
+        Parameter[] parameters = method.getParameters();
+        String[] variableNames = new String[parameters.length];
+        Map<String, Integer> indexes = new HashMap<>();
+
+        for (int i = 0; i < parameters.length; i++) {
+            variableNames[i] = "$" + parameters[i].getName();
+            indexes.put(variableNames[i], i);
+        }
+
+        List<Segment> segments = parseConcatenation(expression, indexes);
+        if (segments != null) {
+            return new CacheKeyExpression(variableNames, segments, null);
+        }
+
+        return new CacheKeyExpression(variableNames, null, MVEL.compileExpression(expression));
+    }
+
+    boolean isCompiled() {
+        return compiledExpression != null;
+    }
+
+    String evaluate(@NonNull Object[] args) {
+        if (segments != null) {
+            var key = new StringBuilder();
+            for (Segment segment : segments) {
+                if (segment.parameterIndex() < 0) {
+                    key.append(segment.literal());
+                } else {
+                    Object value = args[segment.parameterIndex()];
+                    key.append(value != null ? value : "");
+                }
+            }
+            return key.toString();
+        }
+
+        Map<String, Object> variables = new HashMap<>(variableNames.length * 2);
+        for (int i = 0; i < variableNames.length; i++) {
+            variables.put(variableNames[i], args[i] != null ? args[i] : "");
+        }
+
+        return String.valueOf(MVEL.executeExpression(compiledExpression, variables));
+    }
+
+    /**
+     * Returns the segments of an expression made of parameters and literals joined by {@code +}, or {@code null} if the
+     * expression has anything else. Expressions starting with two parameters are left to MVEL, which adds them up when
+     * they're numbers.
+     */
+    private static List<Segment> parseConcatenation(String expression, Map<String, Integer> indexes) {
+        List<Segment> segments = new ArrayList<>();
+
+        for (String operand : splitOperands(expression)) {
+            var parameter = PARAMETER.matcher(operand);
+            var literal = LITERAL.matcher(operand);
+
+            if (parameter.matches() && indexes.containsKey(operand)) {
+                segments.add(new Segment(indexes.get(operand), null));
+            } else if (literal.matches()) {
+                segments.add(new Segment(-1, literal.group(1)));
+            } else {
+                return null;
+            }
+        }
+
+        if (segments.size() > 1 && segments.get(0).parameterIndex() >= 0 && segments.get(1).parameterIndex() >= 0) {
+            return null;
+        }
+
+        return segments;
+    }
+
+    private static List<String> splitOperands(String expression) {
+        List<String> operands = new ArrayList<>();
+        var operand = new StringBuilder();
+        boolean quoted = false;
+
+        for (char character : expression.toCharArray()) {
+            if (character == '\'') {
+                quoted = !quoted;
+            }
+
+            if (character == '+' && !quoted) {
+                operands.add(operand.toString().trim());
+                operand.setLength(0);
+            } else {
+                operand.append(character);
+            }
+        }
+
+        operands.add(operand.toString().trim());
+        return operands;
+    }
+}
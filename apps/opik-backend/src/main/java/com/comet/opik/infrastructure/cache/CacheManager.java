@@ -5,13 +5,53 @@ import lombok.NonNull;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
 
 public interface CacheManager {
 
     Mono<Boolean> evict(@NonNull String key, boolean usePatternMatching);
     Mono<Boolean> put(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration);
+
+    /**
+     * Caches the value and adds its key to the tag, so it's evicted along with all the keys of the tag by
+     * {@link #evictTag(String)}. The tag expires with its latest key.
+     */
+    Mono<Boolean> put(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration, @NonNull String tag);
+
+    /**
+     * Caches the value in place of the one already cached for the key, as {@link CachePut} does. Unlike
+     * {@link #put(String, Object, Duration)}, which fills a missing key, copies of the replaced value kept in memory on
+     * other nodes are invalidated.
+     */
+    default Mono<Boolean> replace(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration) {
+        return put(key, value, ttlDuration);
+    }
+
+    /**
+     * Same as {@link #replace(String, Object, Duration)}, adding the key to the tag.
+     */
+    default Mono<Boolean> replace(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration,
+            @NonNull String tag) {
+        return put(key, value, ttlDuration, tag);
+    }
+
+    /**
+     * Evicts all the keys of the tag and the tag itself, returns whether any key was evicted.
+     */
+    Mono<Boolean> evictTag(@NonNull String tag);
     <T> Mono<T> get(@NonNull String key, @NonNull Class<T> clazz);
     <T> Mono<T> get(@NonNull String key, @NonNull TypeReference<T> clazz);
     Mono<Boolean> contains(@NonNull String key);
 
+    /**
+     * Returns the cached values of the keys in a single round trip, missing keys are left out of the result.
+     */
+    <T> Mono<Map<String, T>> getAll(@NonNull Collection<String> keys, @NonNull TypeReference<T> clazz);
+
+    /**
+     * Caches all the values by key in a single round trip.
+     */
+    Mono<Boolean> putAll(@NonNull Map<String, ?> values, @NonNull Duration ttlDuration);
+
 }
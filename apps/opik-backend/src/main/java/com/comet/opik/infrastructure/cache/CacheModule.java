@@ -1,6 +1,7 @@
 package com.comet.opik.infrastructure.cache;
 
 import com.comet.opik.infrastructure.OpikConfiguration;
+import com.comet.opik.infrastructure.lock.LockService;
 import com.google.inject.matcher.Matchers;
 import ru.vyarus.dropwizard.guice.module.support.DropwizardAwareModule;
 
@@ -10,7 +11,8 @@ public class CacheModule extends DropwizardAwareModule<OpikConfiguration> {
     protected void configure() {
         var cacheManagerProvider = getProvider(CacheManager.class);
         var cacheManagerConfig = configuration().getCacheManager();
-        var cacheInterceptor = new CacheInterceptor(cacheManagerProvider, cacheManagerConfig);
+        var lockServiceProvider = getProvider(LockService.class);
+        var cacheInterceptor = new CacheInterceptor(cacheManagerProvider, lockServiceProvider, cacheManagerConfig);
 
         bindInterceptor(Matchers.any(), Matchers.annotatedWith(Cacheable.class), cacheInterceptor);
         bindInterceptor(Matchers.any(), Matchers.annotatedWith(CachePut.class), cacheInterceptor);
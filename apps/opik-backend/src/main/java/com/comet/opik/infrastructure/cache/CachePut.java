@@ -25,4 +25,12 @@ public @interface CachePut {
      * */
     String key();
 
+    /**
+     * tag is a SpEL expression implemented using MVEL, like the key. Entries cached with a tag are evicted together by
+     * {@link CacheEvict#tag()}, without scanning the keyspace.
+     *
+     * @return SpEL expression evaluated to generate the cache tag. Default is no tag.
+     * */
+    String tag() default "";
+
 }
@@ -34,4 +34,12 @@ public @interface Cacheable {
      * @return the type of the wrapper class for the return type of the method annotated with this annotation.
      * */
     Class<?> wrapperType() default Object.class;
+
+    /**
+     * tag is a SpEL expression implemented using MVEL, like the key. Entries cached with a tag are evicted together by
+     * {@link CacheEvict#tag()}, without scanning the keyspace.
+     *
+     * @return SpEL expression evaluated to generate the cache tag. Default is no tag.
+     * */
+    String tag() default "";
 }
@@ -27,8 +27,7 @@ public class DatabaseAnalyticsModule extends DropwizardAwareModule<OpikConfigura
         ClickHouseLogAppenderConfig clickHouseLogAppenderConfig = configuration(ClickHouseLogAppenderConfig.class);
 
         // Initialize the UserFacingRuleLollingFactory
-        UserFacingLoggingFactory.init(connectionFactory, clickHouseLogAppenderConfig.getBatchSize(),
-                clickHouseLogAppenderConfig.getFlushIntervalDuration());
+        UserFacingLoggingFactory.init(connectionFactory, clickHouseLogAppenderConfig);
     }
 
     @Provides
@@ -6,6 +6,9 @@ import io.opentelemetry.api.trace.Tracer;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 
+import java.util.Objects;
+import java.util.Optional;
+
 import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils.TRACER_NAME;
 
 @Getter
@@ -24,4 +27,17 @@ public abstract class BaseEvent {
         this.userName = userName;
     }
 
+    /**
+     * Merges an event posted after this one, when both can be handled as a single event.
+     *
+     * @return the merged event, or empty if they can't be merged.
+     */
+    public Optional<BaseEvent> coalesce(BaseEvent next) {
+        return Optional.empty();
+    }
+
+    protected boolean isSameWorkspaceAndUser(BaseEvent other) {
+        return Objects.equals(workspaceId, other.workspaceId) && Objects.equals(userName, other.userName);
+    }
+
 }
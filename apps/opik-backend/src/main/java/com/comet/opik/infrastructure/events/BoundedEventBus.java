@@ -0,0 +1,263 @@
+package com.comet.opik.infrastructure.events;
+
+import com.comet.opik.infrastructure.EventBusConfig;
+import com.comet.opik.infrastructure.EventBusConfig.DispatchConfig;
+import com.google.common.eventbus.EventBus;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils.TRACER_NAME;
+
+/**
+ * Event bus dispatching events to their listeners in the background, through a bounded queue per event type.
+ * <p>
+ * Posting only enqueues the event. At most the configured number of events of each type are dispatched at the same
+ * time, so a burst of one type can't starve the others nor pile up threads. Once the queue of a type is full, its
+ * overflow policy applies: the event is dropped, merged into a queued event of the same workspace, or it waits for
+ * room. Events that can't be merged wait for room too.
+ * <p>
+ * Events are posted from reactive callbacks, whose threads must not block. So only virtual threads wait for room
+ * themselves, other threads hand the event over to a virtual thread waiting on their behalf. At most as many events
+ * as the queue size wait that way per type, beyond that they're dropped.
+ * <p>
+ * Listeners not annotated with {@link com.google.common.eventbus.AllowConcurrentEvents} still handle one event at a
+ * time.
+ */
+@Slf4j
+class BoundedEventBus extends EventBus {
+
+    private static final AttributeKey<String> EVENT_TYPE = AttributeKey.stringKey("event_type");
+
+    private class Lane {
+
+        private final DispatchConfig config;
+        private final Attributes attributes;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notFull = lock.newCondition();
+        private final LinkedList<Object> queue = new LinkedList<>();
+        private int workers;
+        private int handedOver;
+
+        private Lane(String eventType) {
+            this.config = BoundedEventBus.this.config.getDispatch(eventType);
+            this.attributes = Attributes.of(EVENT_TYPE, eventType);
+        }
+
+        /**
+         * @param mayWait whether the caller may wait for room, otherwise only virtual threads do.
+         */
+        private void offer(Object event, boolean mayWait) {
+            boolean startWorker = false;
+
+            lock.lock();
+            try {
+                if (queue.size() >= config.getMaxQueueSize() && !makeRoom(event, mayWait)) {
+                    return;
+                }
+
+                queue.addLast(event);
+
+                if (workers < config.getMaxConcurrency()) {
+                    workers++;
+                    startWorker = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (startWorker) {
+                startWorker();
+            }
+        }
+
+        /**
+         * Applies the overflow policy, called with the lock held.
+         *
+         * @return true if there's room for the event, false if it was coalesced, handed over or dropped.
+         */
+        private boolean makeRoom(Object event, boolean mayWait) {
+            return switch (config.getOverflowPolicy()) {
+                case DROP -> drop(event);
+                case COALESCE -> !coalesce(event) && awaitRoom(event, mayWait);
+                case BLOCK -> awaitRoom(event, mayWait);
+            };
+        }
+
+        /**
+         * Merges the event into the latest queued event it can be handled with, replacing it at its position in the queue,
+         * so events queued after it are still dispatched after it.
+         *
+         * @return true if the event was merged.
+         */
+        private boolean coalesce(Object event) {
+            if (!(event instanceof BaseEvent next)) {
+                return false;
+            }
+
+            var iterator = queue.listIterator(queue.size());
+            while (iterator.hasPrevious()) {
+                if (iterator.previous() instanceof BaseEvent queued) {
+                    var coalesced = queued.coalesce(next);
+                    if (coalesced.isPresent()) {
+                        iterator.set(coalesced.get());
+                        BoundedEventBus.this.coalesced.add(1, attributes);
+                        return true;
+                    }
+                }
+            }
+
+            return false;
+        }
+
+        private boolean awaitRoom(Object event, boolean mayWait) {
+            if (!mayWait && !Thread.currentThread().isVirtual()) {
+                return handOver(event);
+            }
+
+            long remaining = config.getMaxBlockDuration().toNanos();
+            try {
+                while (queue.size() >= config.getMaxQueueSize() && remaining > 0) {
+                    remaining = notFull.awaitNanos(remaining);
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+
+            return queue.size() < config.getMaxQueueSize() || drop(event);
+        }
+
+        /**
+         * Offers the event again from a virtual thread, which waits for room instead of the caller.
+         */
+        private boolean handOver(Object event) {
+            if (handedOver >= config.getMaxQueueSize()) {
+                return drop(event);
+            }
+
+            try {
+                executor.execute(() -> {
+                    try {
+                        offer(event, true);
+                    } finally {
+                        lock.lock();
+                        try {
+                            handedOver--;
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                });
+                handedOver++;
+            } catch (RejectedExecutionException exception) {
+                return drop(event);
+            }
+
+            return false;
+        }
+
+        private boolean drop(Object event) {
+            dropped.add(1, attributes);
+            log.warn("Event queue full, dropping event '{}'", event.getClass().getSimpleName());
+            return false;
+        }
+
+        private void startWorker() {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException exception) {
+                lock.lock();
+                try {
+                    workers--;
+                } finally {
+                    lock.unlock();
+                }
+                log.error("Failed to start dispatching events", exception);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                Object event;
+
+                lock.lock();
+                try {
+                    event = queue.pollFirst();
+                    if (event == null) {
+                        workers--;
+                        return;
+                    }
+                    notFull.signal();
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    dispatch(event);
+                } catch (RuntimeException exception) {
+                    log.error("Failed to dispatch event '{}'", event.getClass().getSimpleName(), exception);
+                }
+            }
+        }
+
+        private int size() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final EventBusConfig config;
+    private final Executor executor;
+    private final Map<Class<?>, Lane> lanes = new ConcurrentHashMap<>();
+
+    private final LongCounter dropped;
+    private final LongCounter coalesced;
+
+    BoundedEventBus(@NonNull String identifier, @NonNull EventBusConfig config, @NonNull Executor executor) {
+        super(identifier);
+        this.config = config;
+        this.executor = executor;
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter(TRACER_NAME);
+
+        meter.gaugeBuilder("opik.event_bus.queue_depth")
+                .setDescription("Number of events waiting to be dispatched to their listeners")
+                .ofLongs()
+                .buildWithCallback(measurement -> lanes.values()
+                        .forEach(lane -> measurement.record(lane.size(), lane.attributes)));
+
+        this.dropped = meter.counterBuilder("opik.event_bus.dropped")
+                .setDescription("Number of events dropped because the queue of their type was full")
+                .build();
+
+        this.coalesced = meter.counterBuilder("opik.event_bus.coalesced")
+                .setDescription("Number of events merged into a queued event because the queue of their type was full")
+                .build();
+    }
+
+    @Override
+    public void post(@NonNull Object event) {
+        lanes.computeIfAbsent(event.getClass(), type -> new Lane(type.getSimpleName()))
+                .offer(event, false);
+    }
+
+    private void dispatch(Object event) {
+        super.post(event);
+    }
+}
@@ -1,6 +1,6 @@
 package com.comet.opik.infrastructure.events;
 
-import com.google.common.eventbus.AsyncEventBus;
+import com.comet.opik.infrastructure.EventBusConfig;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.inject.AbstractModule;
@@ -8,6 +8,7 @@ import com.google.inject.Provides;
 import com.google.inject.matcher.Matchers;
 import jakarta.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
+import ru.vyarus.dropwizard.guice.module.yaml.bind.Config;
 
 import java.util.concurrent.Executors;
 
@@ -21,12 +22,13 @@ public class EventModule extends AbstractModule {
 
     @Provides
     @Singleton
-    public EventBus eventBus() {
-        return getEventBus();
+    public EventBus eventBus(@Config("eventBus") EventBusConfig config) {
+        return getEventBus(config);
     }
 
-    protected EventBus getEventBus() {
-        return new AsyncEventBus("opik-event-bus", Executors.newVirtualThreadPerTaskExecutor());
+    protected EventBus getEventBus(EventBusConfig config) {
+        return new BoundedEventBus("opik-event-bus", config,
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("opik-event-bus-", 0).factory()));
     }
 
 }
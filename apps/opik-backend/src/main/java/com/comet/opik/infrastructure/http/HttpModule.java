@@ -3,6 +3,7 @@ package com.comet.opik.infrastructure.http;
 import com.comet.opik.infrastructure.OpikConfiguration;
 import com.google.inject.Provides;
 import jakarta.inject.Singleton;
+import jakarta.validation.Validator;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import ru.vyarus.dropwizard.guice.module.support.DropwizardAwareModule;
@@ -14,6 +15,15 @@ public class HttpModule extends DropwizardAwareModule<OpikConfiguration> {
         return ClientBuilder.newClient();
     }
 
+    /**
+     * The validator Jersey uses for request entities, so entities read outside of Jersey are validated the same way.
+     */
+    @Provides
+    @Singleton
+    public Validator validator() {
+        return environment().getValidator();
+    }
+
     @Override
     protected void configure() {
         CorsFactory.registerFilterIfEnabled(configuration(), environment());
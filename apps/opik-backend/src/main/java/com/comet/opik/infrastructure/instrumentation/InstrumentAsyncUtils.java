@@ -1,5 +1,6 @@
 package com.comet.opik.infrastructure.instrumentation;
 
+import com.comet.opik.utils.SchedulerUtils;
 import io.opentelemetry.api.GlobalOpenTelemetry;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.api.trace.Tracer;
@@ -7,7 +8,6 @@ import io.opentelemetry.context.Context;
 import io.opentelemetry.context.Scope;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
-import reactor.core.scheduler.Schedulers;
 
 @Slf4j
 @UtilityClass
@@ -35,7 +35,7 @@ public class InstrumentAsyncUtils {
     public static void endSegment(Segment segment) {
         if (segment != null) {
             // Fire and forget logic
-            Schedulers.boundedElastic().schedule(() -> {
+            SchedulerUtils.blocking().schedule(() -> {
                 try {
                     // End the segment
                     segment.scope().close();
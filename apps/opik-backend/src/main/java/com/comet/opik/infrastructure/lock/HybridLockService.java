@@ -0,0 +1,45 @@
+package com.comet.opik.infrastructure.lock;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Lock service serializing the contenders of this node in memory before acquiring the distributed lock, so only one
+ * of them per node waits on it, instead of all of them polling Redis.
+ * <p>
+ * The local lease also covers the wait for the distributed lock. If it expires first, another contender of this node
+ * goes on to wait on the distributed lock too, which still guarantees mutual exclusion.
+ */
+@RequiredArgsConstructor
+public class HybridLockService implements LockService {
+
+    private final @NonNull LockService localLockService;
+    private final @NonNull LockService distributedLockService;
+
+    @Override
+    public <T> Mono<T> executeWithLock(@NonNull Lock lock, @NonNull Mono<T> action) {
+        return localLockService.executeWithLock(lock, distributedLockService.executeWithLock(lock, action));
+    }
+
+    @Override
+    public <T> Mono<T> executeWithLockCustomExpire(@NonNull Lock lock, @NonNull Mono<T> action,
+            @NonNull Duration duration) {
+        return localLockService.executeWithLockCustomExpire(lock,
+                distributedLockService.executeWithLockCustomExpire(lock, action, duration), duration);
+    }
+
+    @Override
+    public <T> Flux<T> executeWithLock(@NonNull Lock lock, @NonNull Flux<T> stream) {
+        return localLockService.executeWithLock(lock, distributedLockService.executeWithLock(lock, stream));
+    }
+
+    @Override
+    public <T> Mono<T> executeWithLocks(@NonNull Collection<Lock> locks, @NonNull Mono<T> action) {
+        return localLockService.executeWithLocks(locks, distributedLockService.executeWithLocks(locks, action));
+    }
+}
@@ -0,0 +1,230 @@
+package com.comet.opik.infrastructure.lock;
+
+import com.comet.opik.infrastructure.DistributedLockConfig;
+import com.comet.opik.utils.SchedulerUtils;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock service holding the locks in memory, so it's only safe when a single node runs the locked actions.
+ * <p>
+ * Waiters are queued per key and granted the lock in arrival order when the previous holder releases it, without
+ * blocking any thread while waiting. As with Redis, a lock is released after its lease time even if the action didn't
+ * finish, so a stuck action can't block its key forever.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class LocalLockService implements LockService {
+
+    private static final String LOCK_ACQUIRED = "Lock '{}' acquired";
+    private static final String LOCK_RELEASED = "Lock '{}' released";
+    private static final String TRYING_TO_LOCK_WITH = "Trying to lock with '{}'";
+
+    private final @NonNull DistributedLockConfig distributedLockConfig;
+
+    /**
+     * A key is held while it's mapped, its queue containing the waiters for it.
+     */
+    private final Map<String, Queue<Waiter>> locks = new ConcurrentHashMap<>();
+
+    private final class Permit {
+
+        private final String key;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final Disposable.Swap lease = Disposables.swap();
+
+        private Permit(String key) {
+            this.key = key;
+        }
+
+        private void expireAfter(Duration duration) {
+            lease.update(Mono.delay(duration).subscribe(__ -> {
+                log.debug("Lock '{}' lease expired", key);
+                release();
+            }));
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                lease.dispose();
+                handOff(key);
+            }
+        }
+    }
+
+    /**
+     * Permits acquired by a batch so far, all released together once the batch terminates or is cancelled. A permit
+     * granted after that is released right away.
+     */
+    private static final class Permits {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final List<Permit> permits = new ArrayList<>();
+        private boolean released;
+
+        private void add(Permit permit) {
+            lock.lock();
+            try {
+                if (!released) {
+                    permits.add(permit);
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            permit.release();
+        }
+
+        private void releaseAll() {
+            lock.lock();
+            try {
+                released = true;
+            } finally {
+                lock.unlock();
+            }
+
+            // Released in reverse order of acquisition, and no permit is added once released
+            permits.reversed().forEach(Permit::release);
+        }
+    }
+
+    /**
+     * Claimed once, either by the holder granting it the lock or by its cancellation, whichever comes first.
+     */
+    private record Waiter(MonoSink<Permit> sink, Permit permit, Duration lease, AtomicBoolean claimed) {
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    @Override
+    public <T> Mono<T> executeWithLock(@NonNull Lock lock, @NonNull Mono<T> action) {
+        return executeWithLockCustomExpire(lock, action, Duration.ofMillis(distributedLockConfig.getLockTimeoutMS()));
+    }
+
+    @Override
+    public <T> Mono<T> executeWithLockCustomExpire(@NonNull Lock lock, @NonNull Mono<T> action,
+            @NonNull Duration duration) {
+        return Mono.usingWhen(
+                acquire(lock, duration),
+                permit -> action.subscribeOn(SchedulerUtils.blocking()),
+                permit -> release(lock, permit));
+    }
+
+    @Override
+    public <T> Flux<T> executeWithLock(@NonNull Lock lock, @NonNull Flux<T> stream) {
+        return Flux.usingWhen(
+                acquire(lock, Duration.ofMillis(distributedLockConfig.getLockTimeoutMS())),
+                permit -> stream.subscribeOn(SchedulerUtils.blocking()),
+                permit -> release(lock, permit));
+    }
+
+    @Override
+    public <T> Mono<T> executeWithLocks(@NonNull Collection<Lock> locks, @NonNull Mono<T> action) {
+        var lease = Duration.ofMillis(distributedLockConfig.getLockTimeoutMS());
+        var sorted = LockService.sorted(locks);
+
+        // Acquired one after the other in key order, so batches overlapping in any order don't deadlock
+        return Mono.using(
+                Permits::new,
+                permits -> Flux.fromIterable(sorted)
+                        .concatMap(lock -> acquire(lock, lease))
+                        .doOnNext(permits::add)
+                        .then(Mono.defer(() -> action.subscribeOn(SchedulerUtils.blocking()))),
+                permits -> {
+                    permits.releaseAll();
+                    log.debug(LOCK_RELEASED, sorted);
+                });
+    }
+
+    private Mono<Permit> acquire(Lock lock, Duration duration) {
+        return Mono.<Permit>create(sink -> {
+            log.debug(TRYING_TO_LOCK_WITH, lock);
+
+            var waiter = new Waiter(sink, new Permit(lock.key()), duration, new AtomicBoolean());
+            sink.onCancel(() -> cancel(waiter));
+
+            var acquired = new AtomicBoolean();
+            locks.compute(lock.key(), (key, queue) -> {
+                if (queue != null) {
+                    queue.add(waiter);
+                    return queue;
+                }
+
+                if (waiter.claim()) {
+                    acquired.set(true);
+                    return new ArrayDeque<>();
+                }
+
+                return null;
+            });
+
+            if (acquired.get()) {
+                grant(waiter);
+            }
+        }).doOnNext(__ -> log.debug(LOCK_ACQUIRED, lock));
+    }
+
+    private void grant(Waiter waiter) {
+        waiter.permit().expireAfter(waiter.lease());
+        waiter.sink().success(waiter.permit());
+    }
+
+    private void cancel(Waiter waiter) {
+        if (waiter.claim()) {
+            locks.computeIfPresent(waiter.permit().key, (key, queue) -> {
+                queue.remove(waiter);
+                return queue;
+            });
+        } else {
+            // Granted the lock while being cancelled, so nobody else will release it
+            waiter.permit().release();
+        }
+    }
+
+    private void handOff(String key) {
+        var next = new AtomicReference<Waiter>();
+        locks.computeIfPresent(key, (__, queue) -> {
+            Waiter waiter;
+            while ((waiter = queue.poll()) != null) {
+                if (waiter.claim()) {
+                    next.set(waiter);
+                    return queue;
+                }
+            }
+
+            return null;
+        });
+
+        if (next.get() != null) {
+            grant(next.get());
+        }
+    }
+
+    private Mono<Void> release(Lock lock, Permit permit) {
+        return Mono.fromRunnable(() -> {
+            permit.release();
+            log.debug(LOCK_RELEASED, lock);
+        });
+    }
+}
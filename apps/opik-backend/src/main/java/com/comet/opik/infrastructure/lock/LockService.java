@@ -4,6 +4,9 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.UUID;
 
 public interface LockService {
@@ -25,4 +28,17 @@ public interface LockService {
     <T> Mono<T> executeWithLock(Lock lock, Mono<T> action);
     <T> Mono<T> executeWithLockCustomExpire(Lock lock, Mono<T> action, Duration duration);
     <T> Flux<T> executeWithLock(Lock lock, Flux<T> action);
+
+    /**
+     * Executes the action holding all the given locks, so it's exclusive with any other action locking any of them.
+     * Locks are acquired in the order of their keys, so concurrent callers can't deadlock.
+     */
+    <T> Mono<T> executeWithLocks(Collection<Lock> locks, Mono<T> action);
+
+    static List<Lock> sorted(Collection<Lock> locks) {
+        return locks.stream()
+                .distinct()
+                .sorted(Comparator.comparing(Lock::key))
+                .toList();
+    }
 }
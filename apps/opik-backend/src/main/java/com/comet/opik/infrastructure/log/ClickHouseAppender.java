@@ -2,38 +2,58 @@ package com.comet.opik.infrastructure.log;
 
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.AppenderBase;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
 import com.comet.opik.domain.UserLog;
+import com.comet.opik.infrastructure.ClickHouseLogAppenderConfig;
+import com.comet.opik.infrastructure.ClickHouseLogAppenderConfig.OverflowPolicy;
 import com.comet.opik.infrastructure.log.tables.UserLogTableFactory;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.Meter;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 import java.util.stream.Collectors;
 
-import static java.util.stream.Collectors.groupingBy;
+import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils.TRACER_NAME;
 
-@RequiredArgsConstructor(access = lombok.AccessLevel.PRIVATE)
+/**
+ * Writes user-facing log events to ClickHouse in batches.
+ * <p>
+ * Logging threads publish events to a bounded lock-free ring buffer, without blocking or allocating per event. A single
+ * drainer thread writes the buffered events once a batch is full or the flush interval elapses. When the buffer is full
+ * or an insert fails, events are either dropped or spilled to a local file replayed once ClickHouse catches up,
+ * depending on the overflow policy. Appended, dropped and spilled events are counted through OpenTelemetry metrics.
+ */
 @Slf4j
-class ClickHouseAppender extends AppenderBase<ILoggingEvent> {
+class ClickHouseAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    private static final AttributeKey<String> REASON = AttributeKey.stringKey("reason");
+    private static final Attributes BUFFER_FULL = Attributes.of(REASON, "buffer_full");
+    private static final Attributes SPILL_FULL = Attributes.of(REASON, "spill_full");
+    private static final Attributes INSERT_FAILED = Attributes.of(REASON, "insert_failed");
+    private static final Attributes MISSING_MARKER = Attributes.of(REASON, "missing_marker");
+    private static final Attributes STOPPED = Attributes.of(REASON, "stopped");
+
+    private static final int MAX_REPLAYED_BATCHES_PER_FLUSH = 10;
 
     private static ClickHouseAppender instance;
 
-    public static synchronized ClickHouseAppender init(@NonNull UserLogTableFactory userLogTableFactory, int batchSize,
-            @NonNull Duration flushIntervalDuration, @NonNull LoggerContext context) {
+    public static synchronized ClickHouseAppender init(@NonNull UserLogTableFactory userLogTableFactory,
+            @NonNull ClickHouseLogAppenderConfig config, @NonNull LoggerContext context) {
 
         if (instance == null) {
-            ClickHouseAppender appender = new ClickHouseAppender(userLogTableFactory, flushIntervalDuration, batchSize);
+            ClickHouseAppender appender = new ClickHouseAppender(userLogTableFactory, config);
             setInstance(appender);
             appender.setContext(context);
             instance.start();
@@ -46,97 +66,213 @@ class ClickHouseAppender extends AppenderBase<ILoggingEvent> {
         ClickHouseAppender.instance = instance;
     }
 
-    private final @NonNull UserLogTableFactory userLogTableFactory;
-    private final @NonNull Duration flushIntervalDuration;
-    private final int batchSize;
-    private volatile boolean running = true;
+    private final UserLogTableFactory userLogTableFactory;
+    private final ClickHouseLogAppenderConfig config;
+    private final MpscRingBuffer<ILoggingEvent> buffer;
+    private final LogEventSpillFile spillFile;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean running;
+    private volatile Thread drainer;
+
+    private final LongCounter appended;
+    private final LongCounter dropped;
+    private final LongCounter spilled;
+
+    private ClickHouseAppender(UserLogTableFactory userLogTableFactory, ClickHouseLogAppenderConfig config) {
+        this.userLogTableFactory = userLogTableFactory;
+        this.config = config;
+        this.buffer = new MpscRingBuffer<>(config.getBufferCapacity());
+        this.spillFile = config.getOverflowPolicy() == OverflowPolicy.SPILL_TO_DISK
+                ? new LogEventSpillFile(Path.of(config.getSpillDirectory()), config.getMaxSpillBytes())
+                : null;
 
-    private final BlockingQueue<ILoggingEvent> logQueue = new LinkedBlockingQueue<>();
+        Meter meter = GlobalOpenTelemetry.get().getMeter(TRACER_NAME);
 
-    private final AtomicReference<ScheduledExecutorService> scheduler = new AtomicReference<>(
-            Executors.newSingleThreadScheduledExecutor());
+        meter.gaugeBuilder("opik.user_logs.buffer_depth")
+                .setDescription("Number of user-facing log events waiting to be written to ClickHouse")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(buffer.size()));
+
+        this.appended = meter.counterBuilder("opik.user_logs.appended")
+                .setDescription("Number of user-facing log events added to the buffer")
+                .build();
+
+        this.dropped = meter.counterBuilder("opik.user_logs.dropped")
+                .setDescription("Number of user-facing log events dropped, per reason")
+                .build();
+
+        this.spilled = meter.counterBuilder("opik.user_logs.spilled")
+                .setDescription("Number of user-facing log events spilled to disk")
+                .build();
+    }
 
     @Override
     public void start() {
-        // Background flush thread
-        scheduler.get().scheduleAtFixedRate(this::flushLogs, flushIntervalDuration.toMillis(),
-                flushIntervalDuration.toMillis(), TimeUnit.MILLISECONDS);
+        running = true;
 
-        super.start();
-    }
+        drainer = Thread.ofPlatform()
+                .name("clickhouse-log-appender")
+                .daemon()
+                .start(this::drain);
 
-    private void flushLogs() {
-        if (logQueue.isEmpty()) return;
-
-        List<ILoggingEvent> batch = new ArrayList<>(logQueue.size());
-        logQueue.drainTo(batch, logQueue.size());
-
-        if (batch.isEmpty()) return;
-
-        Map<String, List<ILoggingEvent>> eventsPerTable = batch.stream()
-                .collect(groupingBy(event -> event.getMDCPropertyMap().getOrDefault(UserLog.MARKER, "")));
-
-        eventsPerTable
-                .forEach((userLog, events) -> {
-
-                    if (userLog.isBlank()) {
-                        log.error("UserLog marker is not set for events: {}", events.stream()
-                                .map(ILoggingEvent::getFormattedMessage)
-                                .collect(Collectors.joining(", ")));
-                    } else {
-                        UserLogTableFactory.UserLogTableDAO tableDAO = userLogTableFactory
-                                .getDAO(UserLog.valueOf(userLog));
-
-                        tableDAO
-                                .saveAll(events)
-                                .subscribe(
-                                        noop -> {
-                                        },
-                                        e -> log.error("Failed to insert logs", e));
-                    }
-                });
+        super.start();
     }
 
     @Override
     protected void append(ILoggingEvent event) {
         if (!running) {
-            log.debug("ClickHouseAppender is stopped, dropping log: {}", event.getFormattedMessage());
+            dropped.add(1, STOPPED);
+            return;
+        }
+
+        // Captures the message, MDC and thread name before the event is handed over to the drainer thread
+        event.prepareForDeferredProcessing();
+
+        if (buffer.offer(event)) {
+            appended.add(1);
+
+            if (buffer.size() >= config.getBatchSize() && flushRequested.compareAndSet(false, true)) {
+                LockSupport.unpark(drainer);
+            }
             return;
         }
 
-        boolean added = logQueue.offer(event);
-        if (!added) {
-            log.warn("Log queue is full, dropping log: {}", event.getFormattedMessage());
+        overflow(event, BUFFER_FULL);
+    }
+
+    private void overflow(ILoggingEvent event, Attributes reason) {
+        if (spillFile == null) {
+            dropped.add(1, reason);
+        } else if (spillFile.append(event)) {
+            spilled.add(1);
+        } else {
+            dropped.add(1, SPILL_FULL);
+        }
+    }
+
+    private void drain() {
+        long flushIntervalNanos = config.getFlushIntervalDuration().toNanos();
+
+        while (running) {
+            if (!flushRequested.get()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flushRequested.set(false);
+
+            try {
+                flushLogs();
+                replaySpilledLogs();
+            } catch (RuntimeException exception) {
+                log.error("Failed to flush logs", exception);
+            }
         }
 
-        if (logQueue.size() >= batchSize) {
-            scheduler.get().execute(this::flushLogs);
+        // Flushes what was appended before stopping
+        flushLogs();
+    }
+
+    private void flushLogs() {
+        List<ILoggingEvent> batch = new ArrayList<>(Math.min(buffer.size(), config.getBatchSize()));
+
+        while (buffer.drainTo(batch, config.getBatchSize()) > 0) {
+            write(batch, true);
+            batch = new ArrayList<>(Math.min(buffer.size(), config.getBatchSize()));
         }
     }
 
+    private void replaySpilledLogs() {
+        // Replays only once the buffer is drained, so spilled events don't delay the live ones
+        if (spillFile == null || !buffer.isEmpty() || !spillFile.hasPending()) {
+            return;
+        }
+
+        spillFile.replay(config.getBatchSize(), MAX_REPLAYED_BATCHES_PER_FLUSH, events -> write(events, false));
+    }
+
+    /**
+     * @param overflowOnFailure whether events of failed inserts go through the overflow policy. Replayed events aren't
+     *                          spilled again, their batch is retried by the next replay instead.
+     * @return whether all events were written.
+     */
+    private boolean write(List<ILoggingEvent> batch, boolean overflowOnFailure) {
+        Map<UserLog, List<ILoggingEvent>> eventsPerTable = new EnumMap<>(UserLog.class);
+        List<ILoggingEvent> unmarked = null;
+
+        for (ILoggingEvent event : batch) {
+            String userLog = event.getMDCPropertyMap().get(UserLog.MARKER);
+
+            if (userLog == null || userLog.isBlank()) {
+                if (unmarked == null) {
+                    unmarked = new ArrayList<>();
+                }
+                unmarked.add(event);
+            } else {
+                eventsPerTable.computeIfAbsent(UserLog.valueOf(userLog), __ -> new ArrayList<>()).add(event);
+            }
+        }
+
+        if (unmarked != null) {
+            log.error("UserLog marker is not set for events: {}", unmarked.stream()
+                    .map(ILoggingEvent::getFormattedMessage)
+                    .collect(Collectors.joining(", ")));
+            dropped.add(unmarked.size(), MISSING_MARKER);
+        }
+
+        boolean written = true;
+
+        for (var entry : eventsPerTable.entrySet()) {
+            List<ILoggingEvent> events = entry.getValue();
+
+            try {
+                userLogTableFactory.getDAO(entry.getKey())
+                        .saveAll(events)
+                        .block(config.getInsertTimeout());
+            } catch (RuntimeException exception) {
+                log.error("Failed to insert '{}' logs", events.size(), exception);
+                written = false;
+
+                if (overflowOnFailure) {
+                    events.forEach(event -> overflow(event, INSERT_FAILED));
+                }
+            }
+        }
+
+        return written;
+    }
+
     @Override
     public void stop() {
         running = false;
         super.stop();
-        flushLogs();
-        setInstance(null);
-        scheduler.get().shutdown();
+        LockSupport.unpark(drainer);
         awaitTermination();
-        logQueue.clear();
-        scheduler.set(Executors.newSingleThreadScheduledExecutor());
+
+        // Events the drainer didn't write in time go through the overflow policy, so spilled ones survive a restart
+        if (!drainer.isAlive()) {
+            ILoggingEvent event;
+            while ((event = buffer.poll()) != null) {
+                overflow(event, STOPPED);
+            }
+        }
+
+        if (spillFile != null) {
+            spillFile.close();
+        }
+
+        setInstance(null);
     }
 
     private void awaitTermination() {
         try {
-            if (!scheduler.get().awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.get().shutdownNow();
-                if (!scheduler.get().awaitTermination(5, TimeUnit.SECONDS)) { // Final attempt
+            if (!drainer.join(Duration.ofSeconds(5))) {
+                drainer.interrupt();
+                if (!drainer.join(Duration.ofSeconds(5))) { // Final attempt
                     log.error("ClickHouseAppender did not terminate");
                 }
             }
         } catch (InterruptedException ex) {
             Thread.currentThread().interrupt();
-            scheduler.get().shutdownNow();
+            drainer.interrupt();
             log.warn("ClickHouseAppender interrupted while waiting for termination", ex);
         }
     }
@@ -0,0 +1,237 @@
+package com.comet.opik.infrastructure.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.comet.opik.utils.JsonUtils;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Local overflow of user-facing log events, written as one JSON line per event and replayed in batches once ClickHouse
+ * catches up.
+ * <p>
+ * Appended events go to the spill file. A replay moves the spill file aside and reads it back, while new events keep
+ * being appended to a fresh spill file. Replay progress is kept in memory, so a batch is retried until it's written.
+ * Events are delivered at least once: a restart in the middle of a replay writes its first batches again.
+ */
+@Slf4j
+class LogEventSpillFile implements AutoCloseable {
+
+    private static final String SPILL_FILE = "user-logs.spill";
+    private static final String REPLAY_FILE = "user-logs.replay";
+
+    record SpilledEvent(String timestamp, String level, String loggerName, String message, Map<String, String> mdc) {
+
+        static SpilledEvent of(ILoggingEvent event) {
+            return new SpilledEvent(event.getInstant().toString(), event.getLevel().toString(), event.getLoggerName(),
+                    event.getFormattedMessage(), event.getMDCPropertyMap());
+        }
+
+        ILoggingEvent toEvent() {
+            var event = new LoggingEvent();
+            event.setInstant(Instant.parse(timestamp));
+            event.setLevel(Level.toLevel(level));
+            event.setLoggerName(loggerName);
+            event.setMessage(message);
+            event.setMDCPropertyMap(mdc == null ? Map.of() : mdc);
+            return event;
+        }
+    }
+
+    private final Path spillFile;
+    private final Path replayFile;
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private BufferedWriter writer;
+    private long spilledBytes;
+    private long replayedLines;
+
+    LogEventSpillFile(@NonNull Path directory, long maxBytes) {
+        try {
+            Files.createDirectories(directory);
+            this.spillFile = directory.resolve(SPILL_FILE);
+            this.replayFile = directory.resolve(REPLAY_FILE);
+            this.maxBytes = maxBytes;
+            // Events spilled before a restart count against the limit until they're replayed
+            this.spilledBytes = Files.exists(spillFile) ? Files.size(spillFile) : 0;
+        } catch (IOException exception) {
+            throw new UncheckedIOException("Failed to open log spill directory '%s'".formatted(directory), exception);
+        }
+    }
+
+    /**
+     * @return false if the spill file reached its maximum size or can't be written, the event isn't spilled.
+     */
+    boolean append(@NonNull ILoggingEvent event) {
+        String line;
+        try {
+            line = JsonUtils.MAPPER.writeValueAsString(SpilledEvent.of(event));
+        } catch (IOException exception) {
+            log.warn("Failed to serialize log event for spilling", exception);
+            return false;
+        }
+
+        lock.lock();
+        try {
+            long lineBytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+            if (spilledBytes + lineBytes > maxBytes) {
+                return false;
+            }
+
+            if (writer == null) {
+                writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+            }
+
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+            spilledBytes += lineBytes;
+            return true;
+        } catch (IOException exception) {
+            log.warn("Failed to spill log event to '{}'", spillFile, exception);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean hasPending() {
+        lock.lock();
+        try {
+            return spilledBytes > 0 || Files.exists(replayFile);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads back up to maxBatches batches of spilled events and passes them to the writer, in the order they were
+     * spilled. Stops at the first batch the writer fails to write, which is retried on the next call. Must only be
+     * called by a single thread.
+     */
+    void replay(int batchSize, int maxBatches, @NonNull Predicate<List<ILoggingEvent>> batchWriter) {
+        try {
+            if (!Files.exists(replayFile) && !rollSpillFile()) {
+                return;
+            }
+
+            long skipped = 0;
+            long batchLines = 0;
+            int batches = 0;
+            List<ILoggingEvent> batch = new ArrayList<>(batchSize);
+
+            try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                String line;
+
+                while ((line = reader.readLine()) != null) {
+                    if (skipped++ < replayedLines) {
+                        continue;
+                    }
+
+                    batchLines++;
+                    ILoggingEvent event = parse(line);
+                    if (event != null) {
+                        batch.add(event);
+                    }
+
+                    if (batch.size() == batchSize) {
+                        if (!batchWriter.test(batch)) {
+                            return;
+                        }
+                        replayedLines += batchLines;
+                        batchLines = 0;
+                        batch = new ArrayList<>(batchSize);
+
+                        if (++batches == maxBatches) {
+                            return;
+                        }
+                    }
+                }
+            }
+
+            if (!batch.isEmpty() && !batchWriter.test(batch)) {
+                return;
+            }
+
+            Files.delete(replayFile);
+            replayedLines = 0;
+        } catch (IOException exception) {
+            log.error("Failed to replay spilled log events from '{}', dropping them", replayFile, exception);
+            deleteQuietly(replayFile);
+            replayedLines = 0;
+        }
+    }
+
+    private boolean rollSpillFile() throws IOException {
+        lock.lock();
+        try {
+            if (spilledBytes == 0) {
+                return false;
+            }
+
+            closeWriter();
+            Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+            spilledBytes = 0;
+            replayedLines = 0;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ILoggingEvent parse(String line) {
+        try {
+            return JsonUtils.MAPPER.readValue(line, SpilledEvent.class).toEvent();
+        } catch (IOException | RuntimeException exception) {
+            // I.e. the last line of a spill file written during a crash
+            log.warn("Skipping malformed spilled log event", exception);
+            return null;
+        }
+    }
+
+    private void closeWriter() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException exception) {
+            log.warn("Failed to delete '{}'", path, exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closeWriter();
+        } catch (IOException exception) {
+            log.warn("Failed to close log spill file '{}'", spillFile, exception);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.comet.opik.infrastructure.log;
+
+import lombok.NonNull;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer, backed by preallocated arrays so offering an
+ * element allocates nothing.
+ * <p>
+ * Each slot carries a sequence number telling whether it's free for the producer claiming the position or holds an
+ * element published for the consumer. Producers claim positions with a CAS on the tail, the consumer is the only
+ * writer of the head.
+ */
+class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    MpscRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2 || requestedCapacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30");
+        }
+
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.elements = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return false if the buffer is full, the element isn't added.
+     */
+    boolean offer(@NonNull E element) {
+        long position = tail.get();
+
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // Publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The slot still holds the element of the previous lap, not consumed yet
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Must only be called by the single consumer.
+     *
+     * @return the oldest element or null if the buffer is empty, or the oldest element is claimed but not published
+     * yet.
+     */
+    E poll() {
+        long position = head.get();
+        int index = (int) (position & mask);
+
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+
+        E element = elements.get(index);
+        elements.lazySet(index, null);
+        // Frees the slot for the producer of the next lap
+        sequences.lazySet(index, position + capacity);
+        head.lazySet(position + 1);
+
+        return element;
+    }
+
+    /**
+     * Must only be called by the single consumer.
+     *
+     * @return the number of elements moved to the target, at most maxElements.
+     */
+    int drainTo(@NonNull List<? super E> target, int maxElements) {
+        int drained = 0;
+
+        while (drained < maxElements) {
+            E element = poll();
+            if (element == null) {
+                break;
+            }
+            target.add(element);
+            drained++;
+        }
+
+        return drained;
+    }
+
+    int size() {
+        // Reads head first, so the difference is never negative
+        long currentHead = head.get();
+        long size = tail.get() - currentHead;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -2,6 +2,9 @@ package com.comet.opik.infrastructure.ratelimit;
 
 import com.comet.opik.infrastructure.RateLimitConfig;
 import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.utils.SchedulerUtils;
+import com.google.inject.servlet.RequestScoper;
+import com.google.inject.servlet.ServletScopes;
 import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import jakarta.inject.Provider;
 import jakarta.ws.rs.ClientErrorException;
@@ -15,6 +18,7 @@ import reactor.core.publisher.Mono;
 import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
 
@@ -53,44 +57,120 @@ class RateLimitInterceptor implements MethodInterceptor {
 
         long events = body instanceof RateEventContainer container ? container.eventCount() : 1;
 
-        verifyRateLimit(events, apiKey, limitBucket, generalLimit);
+        if (isAsync(method)) {
+            return invokeAsync(invocation, events, apiKey, limitBucket, generalLimit);
+        }
+
+        RequestContext context = requestContext.get();
+
+        verifyRateLimit(context, events, apiKey, limitBucket, generalLimit);
 
         try {
             return invocation.proceed();
         } finally {
-            setLimitHeaders(apiKey, limitBucket, generalLimit);
+            setLimitHeaders(context, apiKey, limitBucket, generalLimit);
         }
     }
 
-    private void verifyRateLimit(long events, String apiKey, String bucket, LimitConfig limitConfig) {
+    private static boolean isAsync(Method method) {
+        return Mono.class.isAssignableFrom(method.getReturnType())
+                || CompletionStage.class.isAssignableFrom(method.getReturnType());
+    }
+
+    /**
+     * Checks the limit without blocking the request thread, which is released while waiting on Redis. A rejected
+     * request never gets to the method. Otherwise, the method is invoked on the blocking scheduler within the scope of
+     * the original request, and the limit headers are filled once its result completes.
+     */
+    private Object invokeAsync(MethodInvocation invocation, long events, String apiKey, String bucket,
+            LimitConfig limitConfig) {
+
+        // Captured on the request thread, as the request scope isn't available on the Redis threads
+        RequestContext context = requestContext.get();
+        RequestScoper requestScope = ServletScopes.transferRequest();
+
+        Mono<Object> result = rateLimitService.get()
+                .tryAcquire(apiKey, events, bucket, limitConfig)
+                .flatMap(decision -> {
+                    if (decision.limitExceeded()) {
+                        putLimitHeaders(context, bucket, decision.state());
+                        return Mono.error(new ClientErrorException("Too Many Requests",
+                                HttpStatus.SC_TOO_MANY_REQUESTS));
+                    }
+
+                    Mono<Void> limitHeaders = Mono.defer(() -> setLimitHeadersAsync(context, apiKey, bucket,
+                            limitConfig));
+
+                    return Mono.defer(() -> proceed(invocation, requestScope))
+                            .subscribeOn(SchedulerUtils.blocking())
+                            .flatMap(value -> limitHeaders.thenReturn(value))
+                            .switchIfEmpty(limitHeaders.then(Mono.empty()))
+                            .onErrorResume(error -> limitHeaders.then(Mono.error(error)));
+                });
+
+        return CompletionStage.class.isAssignableFrom(invocation.getMethod().getReturnType())
+                ? result.toFuture()
+                : result;
+    }
+
+    private Mono<Object> proceed(MethodInvocation invocation, RequestScoper requestScope) {
+        CompletionStage<?> result;
+
+        // The result is subscribed within the request scope too, as methods may read it on subscription
+        try (RequestScoper.CloseableScope ignored = requestScope.open()) {
+            Object value = invocation.proceed();
+            result = value instanceof Mono<?> mono ? mono.toFuture() : (CompletionStage<?>) value;
+        } catch (Throwable throwable) {
+            return Mono.error(throwable);
+        }
 
-        // Check if the rate limit is exceeded
-        Boolean limitExceeded = rateLimitService.get()
-                .isLimitExceeded(apiKey, events, bucket, limitConfig)
+        return Mono.fromCompletionStage(result);
+    }
+
+    private void verifyRateLimit(RequestContext context, long events, String apiKey, String bucket,
+            LimitConfig limitConfig) {
+
+        // Check if the rate limit is exceeded, the state of the limit comes along in the same call
+        RateLimitService.Decision decision = rateLimitService.get()
+                .tryAcquire(apiKey, events, bucket, limitConfig)
                 .block();
 
-        if (Boolean.TRUE.equals(limitExceeded)) {
-            setLimitHeaders(apiKey, bucket, limitConfig);
+        if (decision != null && decision.limitExceeded()) {
+            putLimitHeaders(context, bucket, decision.state());
             throw new ClientErrorException("Too Many Requests", HttpStatus.SC_TOO_MANY_REQUESTS);
         }
     }
 
-    private void setLimitHeaders(String apiKey, String bucket, LimitConfig limitConfig) {
-        requestContext.get().getHeaders().put(RequestContext.USER_LIMIT, List.of(bucket));
+    private void setLimitHeaders(RequestContext context, String apiKey, String bucket, LimitConfig limitConfig) {
+        context.getHeaders().put(RequestContext.USER_LIMIT, List.of(bucket));
 
         try {
-            var values = Mono.zip(
-                    rateLimitService.get().getRemainingTTL(apiKey, bucket, limitConfig),
-                    rateLimitService.get().availableEvents(apiKey, bucket, limitConfig)).block();
-
-            requestContext.get().getHeaders().put(RequestContext.USER_LIMIT_REMAINING_TTL,
-                    List.of("" + values.getT1()));
-            requestContext.get().getHeaders().put(RequestContext.USER_REMAINING_LIMIT, List.of("" + values.getT2()));
+            var state = rateLimitService.get().getLimitState(apiKey, bucket, limitConfig).block();
+            putLimitHeaders(context, bucket, state);
         } catch (Exception e) {
             log.error("Error setting rate limit headers", e);
         }
     }
 
+    private Mono<Void> setLimitHeadersAsync(RequestContext context, String apiKey, String bucket,
+            LimitConfig limitConfig) {
+        context.getHeaders().put(RequestContext.USER_LIMIT, List.of(bucket));
+
+        return rateLimitService.get().getLimitState(apiKey, bucket, limitConfig)
+                .doOnNext(state -> putLimitHeaders(context, bucket, state))
+                .onErrorResume(e -> {
+                    log.error("Error setting rate limit headers", e);
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void putLimitHeaders(RequestContext context, String bucket, RateLimitService.LimitState state) {
+        context.getHeaders().put(RequestContext.USER_LIMIT, List.of(bucket));
+        context.getHeaders().put(RequestContext.USER_LIMIT_REMAINING_TTL, List.of("" + state.remainingTTL()));
+        context.getHeaders().put(RequestContext.USER_REMAINING_LIMIT, List.of("" + state.availableEvents()));
+    }
+
     private Object getParameters(MethodInvocation method) {
 
         for (int i = 0; i < method.getArguments().length; i++) {
@@ -6,9 +6,35 @@ import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
 
 public interface RateLimitService {
 
+    /**
+     * State of a limit, as returned in the rate limit headers.
+     *
+     * @param remainingTTL in milliseconds.
+     */
+    record LimitState(long availableEvents, long remainingTTL) {
+    }
+
+    record Decision(boolean limitExceeded, LimitState state) {
+    }
+
     Mono<Boolean> isLimitExceeded(String apiKey, long events, String bucketName, LimitConfig limitConfig);
 
     Mono<Long> availableEvents(String apiKey, String bucketName, LimitConfig limitConfig);
 
     Mono<Long> getRemainingTTL(String apiKey, String bucket, LimitConfig limitConfig);
+
+    /**
+     * Acquires the events, if the limit isn't exceeded, and returns the state of the limit afterwards.
+     */
+    default Mono<Decision> tryAcquire(String apiKey, long events, String bucketName, LimitConfig limitConfig) {
+        return isLimitExceeded(apiKey, events, bucketName, limitConfig)
+                .flatMap(limitExceeded -> getLimitState(apiKey, bucketName, limitConfig)
+                        .map(state -> new Decision(limitExceeded, state)));
+    }
+
+    default Mono<LimitState> getLimitState(String apiKey, String bucketName, LimitConfig limitConfig) {
+        return Mono.zip(availableEvents(apiKey, bucketName, limitConfig),
+                getRemainingTTL(apiKey, bucketName, limitConfig))
+                .map(values -> new LimitState(values.getT1(), values.getT2()));
+    }
 }
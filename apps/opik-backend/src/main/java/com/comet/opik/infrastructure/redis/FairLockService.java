@@ -0,0 +1,271 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.infrastructure.DistributedLockConfig;
+import com.comet.opik.infrastructure.lock.LockService;
+import com.comet.opik.utils.SchedulerUtils;
+import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.Meter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.StringCodec;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static com.comet.opik.infrastructure.instrumentation.InstrumentAsyncUtils.TRACER_NAME;
+
+/**
+ * Lock service granting the locks in arrival order, without polling Redis while waiting.
+ * <p>
+ * Every lock has an owner key holding the token of its holder until its lease expires, and a queue of the waiting
+ * tokens. Releasing a lock hands it over to the head of its queue and publishes its token, so the waiter only goes
+ * back to Redis to confirm it. Notifications are received through a single subscription per node. If one is missed,
+ * or a holder dies without releasing, waiters check again once the lease of the current holder expires.
+ * <p>
+ * Waiters not checking again within the lock time to live are dropped from the queue, so dead nodes can't block it.
+ * Waiting for longer than the time to live fails with {@link IllegalStateException}.
+ */
+@Slf4j
+class FairLockService implements LockService {
+
+    static final String GRANTED_CHANNEL = "opik:lock:granted";
+
+    /**
+     * Takes every lock which is free and either has nobody waiting or has this token first in its queue, queueing the
+     * token for the others. Returns 0 once all the locks are held by the token, otherwise the milliseconds to wait
+     * before checking again if not notified.
+     */
+    static final String ACQUIRE_SCRIPT = """
+            local token = ARGV[1]
+            local wait = 0
+            for i = 1, #KEYS, 3 do
+                local stale = redis.call('zrangebyscore', KEYS[i + 2], 0, ARGV[2])
+                for _, waiter in ipairs(stale) do
+                    redis.call('lrem', KEYS[i + 1], 0, waiter)
+                    redis.call('zrem', KEYS[i + 2], waiter)
+                end
+                local owner = redis.call('get', KEYS[i])
+                local head = redis.call('lindex', KEYS[i + 1], 0)
+                if owner == token then
+                    redis.call('pexpire', KEYS[i], ARGV[3])
+                elseif owner == false and (head == false or head == token) then
+                    if head == token then
+                        redis.call('lpop', KEYS[i + 1])
+                        redis.call('zrem', KEYS[i + 2], token)
+                    end
+                    redis.call('set', KEYS[i], token, 'px', ARGV[3])
+                else
+                    if redis.call('zadd', KEYS[i + 2], ARGV[4], token) == 1 then
+                        redis.call('rpush', KEYS[i + 1], token)
+                    end
+                    redis.call('pexpire', KEYS[i + 1], ARGV[5])
+                    redis.call('pexpire', KEYS[i + 2], ARGV[5])
+                    local ttl = redis.call('pttl', KEYS[i])
+                    if ttl < 0 then
+                        ttl = tonumber(ARGV[3])
+                    end
+                    wait = math.max(wait, ttl, 1)
+                end
+            end
+            return wait
+            """;
+
+    /**
+     * Leaves the queues of the token and hands over the locks it holds to the heads of their queues.
+     */
+    static final String RELEASE_SCRIPT = """
+            local token = ARGV[1]
+            for i = 1, #KEYS, 3 do
+                redis.call('lrem', KEYS[i + 1], 0, token)
+                redis.call('zrem', KEYS[i + 2], token)
+                if redis.call('get', KEYS[i]) == token then
+                    local next = redis.call('lpop', KEYS[i + 1])
+                    if next then
+                        redis.call('zrem', KEYS[i + 2], next)
+                        redis.call('set', KEYS[i], next, 'px', ARGV[2])
+                        redis.call('publish', ARGV[3], next)
+                    else
+                        redis.call('del', KEYS[i])
+                    end
+                end
+            end
+            return 1
+            """;
+
+    private static final long ACQUIRED = 0;
+
+    private final RedissonReactiveClient redisClient;
+    private final Duration lease;
+    private final Duration timeToLive;
+
+    private final Map<String, Sinks.Empty<Void>> waiters = new ConcurrentHashMap<>();
+    private final Mono<Integer> subscription;
+
+    private final LongHistogram waitTime;
+    private final LongCounter contended;
+    private final LongCounter timeouts;
+
+    FairLockService(@NonNull RedissonReactiveClient redisClient, @NonNull DistributedLockConfig config) {
+        this.redisClient = redisClient;
+        this.lease = Duration.ofMillis(config.getLockTimeoutMS());
+        this.timeToLive = Duration.ofSeconds(config.getTtlInSeconds());
+
+        // Retried on the next lock if it failed, waiters still check again when leases expire meanwhile
+        this.subscription = Mono.defer(() -> redisClient.getTopic(GRANTED_CHANNEL, StringCodec.INSTANCE)
+                .addListener(String.class, (channel, token) -> notify(token)))
+                .doOnNext(__ -> log.info("Subscribed to lock notifications on '{}'", GRANTED_CHANNEL))
+                .doOnError(error -> log.error("Failed to subscribe to lock notifications", error))
+                .cache(__ -> Duration.ofMillis(Long.MAX_VALUE), __ -> Duration.ZERO, () -> Duration.ZERO);
+
+        Meter meter = GlobalOpenTelemetry.get().getMeter(TRACER_NAME);
+
+        this.waitTime = meter.histogramBuilder("opik.lock.wait_time")
+                .setDescription("Time waited to acquire a distributed lock")
+                .setUnit("ms")
+                .ofLongs()
+                .build();
+
+        this.contended = meter.counterBuilder("opik.lock.contended")
+                .setDescription("Number of distributed lock acquisitions which had to wait for another holder")
+                .build();
+
+        this.timeouts = meter.counterBuilder("opik.lock.timeouts")
+                .setDescription("Number of distributed lock acquisitions given up after waiting for the time to live")
+                .build();
+    }
+
+    @Override
+    public <T> Mono<T> executeWithLock(@NonNull Lock lock, @NonNull Mono<T> action) {
+        return executeWithLocks(List.of(lock), action, lease);
+    }
+
+    @Override
+    public <T> Mono<T> executeWithLockCustomExpire(@NonNull Lock lock, @NonNull Mono<T> action,
+            @NonNull Duration duration) {
+        return executeWithLocks(List.of(lock), action, duration);
+    }
+
+    @Override
+    public <T> Mono<T> executeWithLocks(@NonNull Collection<Lock> locks, @NonNull Mono<T> action) {
+        return executeWithLocks(locks, action, lease);
+    }
+
+    @Override
+    public <T> Flux<T> executeWithLock(@NonNull Lock lock, @NonNull Flux<T> stream) {
+        var locks = List.of(lock);
+        var keys = keys(locks);
+        var token = UUID.randomUUID().toString();
+
+        return acquire(locks, keys, token, lease)
+                .thenMany(Flux.defer(() -> stream.subscribeOn(SchedulerUtils.blocking())
+                        .doFinally(signalType -> release(locks, keys, token))));
+    }
+
+    private <T> Mono<T> executeWithLocks(Collection<Lock> locks, Mono<T> action, Duration duration) {
+        var sorted = LockService.sorted(locks);
+        var keys = keys(sorted);
+        var token = UUID.randomUUID().toString();
+
+        return acquire(sorted, keys, token, duration)
+                .then(Mono.defer(() -> action.subscribeOn(SchedulerUtils.blocking())
+                        .doFinally(signalType -> release(sorted, keys, token))));
+    }
+
+    /**
+     * The keys of a lock share its hash tag, so they live in the same slot if Redis is ever clustered.
+     */
+    private static List<Object> keys(List<Lock> locks) {
+        return locks.stream()
+                .<Object>flatMap(lock -> {
+                    var owner = "opik:lock:{%s}".formatted(lock.key());
+                    return Stream.of(owner, owner + ":queue", owner + ":waiters");
+                })
+                .toList();
+    }
+
+    private Mono<Void> acquire(List<Lock> locks, List<Object> keys, String token, Duration duration) {
+        var startTime = System.nanoTime();
+        var waited = new AtomicBoolean();
+
+        log.debug("Trying to lock with '{}'", locks);
+
+        return subscription.onErrorComplete()
+                .then(Mono.defer(() -> {
+                    // Registered before checking, so a grant published right after the check isn't missed
+                    Sinks.Empty<Void> granted = Sinks.empty();
+                    waiters.put(token, granted);
+
+                    return tryAcquire(keys, token, duration)
+                            .flatMap(wait -> {
+                                if (wait == ACQUIRED) {
+                                    return Mono.just(true);
+                                }
+
+                                if (waited.compareAndSet(false, true)) {
+                                    contended.add(1);
+                                }
+
+                                var timer = Duration.ofMillis(Math.min(wait, timeToLive.toMillis() / 2));
+                                return granted.asMono().timeout(timer, Mono.empty()).then(Mono.<Boolean>empty());
+                            });
+                }))
+                // Empty until acquired, checking again once notified or after waiting
+                .repeatWhenEmpty(attempts -> attempts)
+                .then()
+                .timeout(timeToLive)
+                .doOnSuccess(__ -> {
+                    waitTime.record(Duration.ofNanos(System.nanoTime() - startTime).toMillis());
+                    log.debug("Lock '{}' acquired", locks);
+                })
+                .onErrorMap(TimeoutException.class, exception -> {
+                    timeouts.add(1);
+                    return new IllegalStateException("Could not acquire lock", exception);
+                })
+                .doOnError(__ -> release(locks, keys, token))
+                .doOnCancel(() -> release(locks, keys, token))
+                .doFinally(__ -> waiters.remove(token));
+    }
+
+    private Mono<Long> tryAcquire(List<Object> keys, String token, Duration duration) {
+        long now = System.currentTimeMillis();
+        return redisClient.getScript(StringCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, ACQUIRE_SCRIPT, RScript.ReturnType.INTEGER, keys,
+                        token,
+                        now,
+                        duration.toMillis(),
+                        now + timeToLive.toMillis(),
+                        timeToLive.toMillis());
+    }
+
+    private void release(List<Lock> locks, List<Object> keys, String token) {
+        redisClient.getScript(StringCodec.INSTANCE)
+                .eval(RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER, keys,
+                        token,
+                        lease.toMillis(),
+                        GRANTED_CHANNEL)
+                .subscribe(
+                        __ -> log.debug("Lock '{}' released", locks),
+                        error -> log.warn("Failed to release lock '{}'", locks, error));
+    }
+
+    private void notify(String token) {
+        var granted = waiters.get(token);
+        if (granted != null) {
+            granted.tryEmitEmpty();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.infrastructure.ratelimit.RateLimitService;
+import reactor.core.publisher.Mono;
+
+import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
+
+/**
+ * Rate limit service able to hand out blocks of permits to a node, see {@link LeasingRateLimitService}.
+ */
+interface LeasableRateLimitService extends RateLimitService {
+
+    /**
+     * Permits acquired in one go by a node, along with the state of the limit right after acquiring them.
+     *
+     * @param permits         the number of acquired permits, 0 if the limit is exceeded.
+     * @param availableEvents the permits left in Redis.
+     * @param remainingTTL    the remaining time to live of the limit, in milliseconds.
+     */
+    record PermitLease(long permits, long availableEvents, long remainingTTL) {
+    }
+
+    /**
+     * Acquires the given number of permits, or only the minimum number of permits if fewer are left.
+     */
+    Mono<PermitLease> lease(String apiKey, String bucketName, LimitConfig limitConfig, long permits, long minPermits);
+}
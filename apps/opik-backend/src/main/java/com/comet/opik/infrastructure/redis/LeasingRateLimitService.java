@@ -0,0 +1,242 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.infrastructure.RateLimitConfig.LocalLeaseConfig;
+import com.comet.opik.infrastructure.ratelimit.RateLimitService;
+import com.comet.opik.infrastructure.redis.LeasableRateLimitService.PermitLease;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
+
+/**
+ * Rate limiter that leases blocks of permits from Redis and hands them out from a local token bucket, so most requests
+ * don't go to Redis at all.
+ * <p>
+ * Each node leases at most a tenth of a limit, and leased permits are only valid for the lease duration. Permits a node
+ * leased but didn't use are lost for the limit window, which is the price for skipping Redis. The remaining events and
+ * time to live headers are computed from the state of the limit when the current lease was acquired. Requests for more
+ * events than a lease go to Redis directly.
+ */
+@Slf4j
+class LeasingRateLimitService implements RateLimitService {
+
+    private static final String KEY = "%s:%s";
+    private static final long MAX_LEASE_SHARE = 10;
+    private static final long MAXIMUM_BUCKETS = 100_000;
+
+    private final LeasableRateLimitService rateLimitService;
+    private final LocalLeaseConfig config;
+    private final Cache<String, LocalBucket> buckets;
+
+    LeasingRateLimitService(@NonNull LeasableRateLimitService rateLimitService, @NonNull LocalLeaseConfig config) {
+        this.rateLimitService = rateLimitService;
+        this.config = config;
+        this.buckets = CacheBuilder.newBuilder()
+                .maximumSize(MAXIMUM_BUCKETS)
+                .expireAfterAccess(config.getLeaseDuration().multipliedBy(2))
+                .build();
+    }
+
+    @Override
+    public Mono<Boolean> isLimitExceeded(@NonNull String apiKey, long events, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+
+        long leaseSize = leaseSize(limitConfig);
+        if (events > leaseSize) {
+            return rateLimitService.isLimitExceeded(apiKey, events, bucketName, limitConfig);
+        }
+
+        LocalBucket bucket = getBucket(apiKey, bucketName);
+        if (bucket.tryAcquire(events)) {
+            return Mono.just(false);
+        }
+
+        return bucket.refill(() -> rateLimitService.lease(apiKey, bucketName, limitConfig, leaseSize, events))
+                .flatMap(lease -> {
+                    if (bucket.tryAcquire(events)) {
+                        return Mono.just(false);
+                    }
+
+                    if (lease.permits() == 0) {
+                        return Mono.just(true);
+                    }
+
+                    // Concurrent requests used up the lease first, so this one goes to Redis directly
+                    return rateLimitService.isLimitExceeded(apiKey, events, bucketName, limitConfig);
+                });
+    }
+
+    @Override
+    public Mono<Long> availableEvents(@NonNull String apiKey, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+        LocalBucket bucket = buckets.getIfPresent(KEY.formatted(bucketName, apiKey));
+
+        if (bucket == null || !bucket.isLeased()) {
+            return rateLimitService.availableEvents(apiKey, bucketName, limitConfig);
+        }
+
+        return Mono.just(bucket.availableEvents());
+    }
+
+    @Override
+    public Mono<Long> getRemainingTTL(@NonNull String apiKey, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+        LocalBucket bucket = buckets.getIfPresent(KEY.formatted(bucketName, apiKey));
+
+        if (bucket == null || !bucket.isLeased()) {
+            return rateLimitService.getRemainingTTL(apiKey, bucketName, limitConfig);
+        }
+
+        return Mono.just(bucket.remainingTTL());
+    }
+
+    @Override
+    public Mono<LimitState> getLimitState(@NonNull String apiKey, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+        LocalBucket bucket = buckets.getIfPresent(KEY.formatted(bucketName, apiKey));
+
+        if (bucket == null || !bucket.isLeased()) {
+            return rateLimitService.getLimitState(apiKey, bucketName, limitConfig);
+        }
+
+        return Mono.just(new LimitState(bucket.availableEvents(), bucket.remainingTTL()));
+    }
+
+    private long leaseSize(LimitConfig limitConfig) {
+        return Math.max(1, Math.min(config.getMaxLeaseSize(), limitConfig.limit() / MAX_LEASE_SHARE));
+    }
+
+    private LocalBucket getBucket(String apiKey, String bucketName) {
+        try {
+            return buckets.get(KEY.formatted(bucketName, apiKey), () -> new LocalBucket(config.getLeaseDuration()));
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException(exception.getCause());
+        }
+    }
+
+    /**
+     * Token bucket of the permits leased by this node for a limit. Permits are taken without locking, and concurrent
+     * refills share a single lease request to Redis.
+     */
+    static class LocalBucket {
+
+        private record LeaseState(PermitLease lease, long leasedAtNanos, long expiresAtNanos) {
+
+            boolean isExpired(long nowNanos) {
+                return nowNanos - expiresAtNanos >= 0;
+            }
+        }
+
+        private final long leaseDurationNanos;
+        private final AtomicLong permits = new AtomicLong();
+        private final AtomicReference<Mono<PermitLease>> inflightRefill = new AtomicReference<>();
+        private volatile LeaseState state;
+
+        LocalBucket(@NonNull Duration leaseDuration) {
+            this.leaseDurationNanos = leaseDuration.toNanos();
+        }
+
+        boolean tryAcquire(long events) {
+            LeaseState current = state;
+            if (current == null || current.isExpired(System.nanoTime())) {
+                return false;
+            }
+
+            long available = permits.get();
+            while (available >= events) {
+                if (permits.compareAndSet(available, available - events)) {
+                    return true;
+                }
+                available = permits.get();
+            }
+
+            return false;
+        }
+
+        boolean isLeased() {
+            LeaseState current = state;
+            return current != null && !current.isExpired(System.nanoTime());
+        }
+
+        /**
+         * @return the permits left in Redis when the lease was acquired, plus the ones this node didn't use yet.
+         */
+        long availableEvents() {
+            return state.lease().availableEvents() + permits.get();
+        }
+
+        long remainingTTL() {
+            LeaseState current = state;
+            long remainingTTL = current.lease().remainingTTL();
+
+            // Negative values tell the limit has no time to live, they're returned as they are
+            if (remainingTTL < 0) {
+                return remainingTTL;
+            }
+
+            long elapsedMillis = Duration.ofNanos(System.nanoTime() - current.leasedAtNanos()).toMillis();
+            return Math.max(0, remainingTTL - elapsedMillis);
+        }
+
+        /**
+         * Requests a new lease, unless one is already in progress, in which case its result is shared.
+         */
+        Mono<PermitLease> refill(@NonNull Supplier<Mono<PermitLease>> leaser) {
+            return Mono.defer(() -> {
+                Mono<PermitLease> inflight = inflightRefill.get();
+                if (inflight != null) {
+                    return inflight;
+                }
+
+                Sinks.One<PermitLease> sink = Sinks.one();
+                Mono<PermitLease> refill = sink.asMono();
+
+                if (!inflightRefill.compareAndSet(null, refill)) {
+                    return refill(leaser);
+                }
+
+                leaser.get().subscribe(
+                        lease -> {
+                            apply(lease);
+                            inflightRefill.compareAndSet(refill, null);
+                            sink.tryEmitValue(lease);
+                        },
+                        error -> {
+                            inflightRefill.compareAndSet(refill, null);
+                            sink.tryEmitError(error);
+                        },
+                        () -> {
+                            if (inflightRefill.compareAndSet(refill, null)) {
+                                sink.tryEmitEmpty();
+                            }
+                        });
+
+                return refill;
+            });
+        }
+
+        private void apply(PermitLease lease) {
+            long now = System.nanoTime();
+            LeaseState previous = state;
+
+            // Permits of an expired lease are dropped rather than carried over to the new one
+            if (previous == null || previous.isExpired(now)) {
+                permits.set(lease.permits());
+            } else {
+                permits.addAndGet(lease.permits());
+            }
+
+            state = new LeaseState(lease, now, now + leaseDurationNanos);
+        }
+    }
+}
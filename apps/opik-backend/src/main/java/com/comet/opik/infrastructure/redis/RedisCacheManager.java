@@ -1,21 +1,64 @@
 package com.comet.opik.infrastructure.redis;
 
+import com.comet.opik.infrastructure.CacheConfiguration;
 import com.comet.opik.infrastructure.cache.CacheManager;
 import com.comet.opik.utils.JsonUtils;
+import com.comet.opik.utils.SchedulerUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.apache.commons.lang3.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.redisson.api.RBucketReactive;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.redisson.client.codec.StringCodec;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Caches values as JSON bytes, optionally LZ4-compressed, written along with their time to live in a single command.
+ * <p>
+ * Compressed entries start with a header byte JSON never starts with, so entries are read whichever codec wrote them
+ * and the codec can be changed on a running cluster. Entries that can't be read, such as the JSON strings written
+ * before, are treated as missing so the value is loaded and cached again.
+ * <p>
+ * Tags are Redis sets of the keys cached with them, so a group of entries is evicted by deleting the members of its
+ * set instead of scanning the keyspace for a pattern.
+ */
+@Slf4j
 @RequiredArgsConstructor
 class RedisCacheManager implements CacheManager {
 
+    private static final byte LZ4_HEADER = 0;
+
+    /**
+     * Deletes the keys of the tag, in chunks below the Lua stack limit, and the tag itself. Returns the deleted keys.
+     */
+    static final String EVICT_TAG_SCRIPT = """
+            local keys = redis.call('SMEMBERS', KEYS[1])
+            local deleted = 0
+            for i = 1, #keys, 1000 do
+                deleted = deleted + redis.call('DEL', unpack(keys, i, math.min(i + 999, #keys)))
+            end
+            redis.call('DEL', KEYS[1])
+            return deleted
+            """;
+
     private final @NonNull RedissonReactiveClient redisClient;
+    private final @NonNull CacheConfiguration.Codec codec;
 
     public Mono<Boolean> evict(@NonNull String key, boolean usePatternMatching) {
         if (usePatternMatching) {
@@ -26,29 +69,138 @@ class RedisCacheManager implements CacheManager {
     }
 
     public Mono<Boolean> put(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration) {
-        return Mono.fromCallable(() -> JsonUtils.writeValueAsString(value))
-                .subscribeOn(Schedulers.boundedElastic())
-                .flatMap(json -> redisClient.getBucket(key).set(json))
-                .then(Mono.defer(() -> redisClient.getBucket(key).expire(ttlDuration)));
+        return Mono.fromCallable(() -> encode(value))
+                .subscribeOn(SchedulerUtils.blocking())
+                .flatMap(bytes -> bucket(key).set(bytes, ttlDuration))
+                .thenReturn(true);
+    }
+
+    public Mono<Boolean> put(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration,
+            @NonNull String tag) {
+        return Mono.fromCallable(() -> encode(value))
+                .subscribeOn(SchedulerUtils.blocking())
+                .flatMap(bytes -> {
+                    var batch = redisClient.createBatch();
+                    batch.<byte[]>getBucket(key, ByteArrayCodec.INSTANCE).set(bytes, ttlDuration);
+                    var keys = batch.<String>getSet(tag, StringCodec.INSTANCE);
+                    keys.add(key);
+                    keys.expire(ttlDuration);
+                    return batch.execute();
+                })
+                .thenReturn(true);
+    }
+
+    public Mono<Boolean> evictTag(@NonNull String tag) {
+        return redisClient.getScript(StringCodec.INSTANCE)
+                .<Long>eval(RScript.Mode.READ_WRITE, EVICT_TAG_SCRIPT, RScript.ReturnType.INTEGER, List.of(tag))
+                .map(count -> count > 0);
     }
 
     public <T> Mono<T> get(@NonNull String key, @NonNull Class<T> clazz) {
-        return redisClient.<String>getBucket(key)
-                .get()
-                .filter(StringUtils::isNotEmpty)
-                .flatMap(json -> Mono.fromCallable(() -> JsonUtils.readValue(json, clazz))
-                        .subscribeOn(Schedulers.boundedElastic()));
+        return get(key, JsonUtils.MAPPER.getTypeFactory().constructType(clazz));
     }
 
     public <T> Mono<T> get(@NonNull String key, @NonNull TypeReference<T> clazz) {
-        return redisClient.<String>getBucket(key)
-                .get()
-                .filter(StringUtils::isNotEmpty)
-                .flatMap(json -> Mono.fromCallable(() -> JsonUtils.readValue(json, clazz))
-                        .subscribeOn(Schedulers.boundedElastic()));
+        return get(key, JsonUtils.MAPPER.getTypeFactory().constructType(clazz));
     }
 
     public Mono<Boolean> contains(@NonNull String key) {
         return redisClient.getBucket(key).isExists();
     }
+
+    public <T> Mono<Map<String, T>> getAll(@NonNull Collection<String> keys, @NonNull TypeReference<T> clazz) {
+        if (keys.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+
+        JavaType type = JsonUtils.MAPPER.getTypeFactory().constructType(clazz);
+
+        return redisClient.getBuckets(ByteArrayCodec.INSTANCE).<byte[]>get(keys.toArray(String[]::new))
+                .flatMap(entries -> Mono.fromCallable(() -> {
+                    Map<String, T> values = new LinkedHashMap<>();
+                    entries.forEach((key, bytes) -> {
+                        T value = decode(key, bytes, type);
+                        if (value != null) {
+                            values.put(key, value);
+                        }
+                    });
+                    return values;
+                }).subscribeOn(SchedulerUtils.blocking()))
+                .onErrorResume(exception -> {
+                    log.warn("Failed to read '{}' cache entries, treating them as missing", keys.size(), exception);
+                    return Mono.just(Map.of());
+                });
+    }
+
+    public Mono<Boolean> putAll(@NonNull Map<String, ?> values, @NonNull Duration ttlDuration) {
+        if (values.isEmpty()) {
+            return Mono.just(true);
+        }
+
+        return Mono.fromCallable(() -> encode(values))
+                .subscribeOn(SchedulerUtils.blocking())
+                .flatMap(entries -> {
+                    var batch = redisClient.createBatch();
+                    entries.forEach((key, bytes) -> batch.<byte[]>getBucket(key, ByteArrayCodec.INSTANCE)
+                            .set(bytes, ttlDuration));
+                    return batch.execute();
+                })
+                .thenReturn(true);
+    }
+
+    private <T> Mono<T> get(String key, JavaType type) {
+        return bucket(key).get()
+                .flatMap(bytes -> Mono.fromCallable(() -> this.<T>decode(key, bytes, type))
+                        .subscribeOn(SchedulerUtils.blocking()))
+                .onErrorResume(exception -> {
+                    log.warn("Failed to read cache entry '{}', treating it as missing", key, exception);
+                    return Mono.empty();
+                });
+    }
+
+    private Map<String, byte[]> encode(Map<String, ?> values) {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        values.forEach((key, value) -> entries.put(key, encode(value)));
+        return entries;
+    }
+
+    private byte[] encode(Object value) {
+        byte[] json = JsonUtils.writeValueAsBytes(value);
+        if (codec == CacheConfiguration.Codec.JSON) {
+            return json;
+        }
+
+        var bytes = new ByteArrayOutputStream(json.length / 2 + 1);
+        bytes.write(LZ4_HEADER);
+        try (var compressor = new BlockLZ4CompressorOutputStream(bytes)) {
+            compressor.write(json);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    private <T> T decode(String key, byte[] bytes, JavaType type) {
+        if (bytes.length == 0) {
+            return null;
+        }
+
+        try {
+            if (bytes[0] != LZ4_HEADER) {
+                return JsonUtils.readValue(bytes, type);
+            }
+
+            try (var decompressor = new BlockLZ4CompressorInputStream(
+                    new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+                return JsonUtils.readValue(decompressor.readAllBytes(), type);
+            }
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Failed to decode cache entry '{}', treating it as missing", key, exception);
+            return null;
+        }
+    }
+
+    private RBucketReactive<byte[]> bucket(String key) {
+        return redisClient.getBucket(key, ByteArrayCodec.INSTANCE);
+    }
 }
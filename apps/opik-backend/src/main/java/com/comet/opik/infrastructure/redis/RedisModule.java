@@ -1,9 +1,13 @@
 package com.comet.opik.infrastructure.redis;
 
+import com.comet.opik.infrastructure.CacheConfiguration;
 import com.comet.opik.infrastructure.DistributedLockConfig;
 import com.comet.opik.infrastructure.OpikConfiguration;
+import com.comet.opik.infrastructure.RateLimitConfig;
 import com.comet.opik.infrastructure.RedisConfig;
 import com.comet.opik.infrastructure.cache.CacheManager;
+import com.comet.opik.infrastructure.lock.HybridLockService;
+import com.comet.opik.infrastructure.lock.LocalLockService;
 import com.comet.opik.infrastructure.lock.LockService;
 import com.comet.opik.infrastructure.ratelimit.RateLimitService;
 import com.google.inject.Provides;
@@ -25,19 +29,49 @@ public class RedisModule extends DropwizardAwareModule<OpikConfiguration> {
     @Singleton
     public LockService lockService(RedissonReactiveClient redisClient,
             @Config("distributedLock") DistributedLockConfig distributedLockConfig) {
-        return new RedissonLockService(redisClient, distributedLockConfig);
+        if (distributedLockConfig.getMode() == DistributedLockConfig.Mode.LOCAL) {
+            return new LocalLockService(distributedLockConfig);
+        }
+
+        LockService lockService = switch (distributedLockConfig.getStrategy()) {
+            case SEMAPHORE -> new RedissonLockService(redisClient, distributedLockConfig);
+            case FAIR -> new FairLockService(redisClient, distributedLockConfig);
+        };
+
+        if (distributedLockConfig.getMode() == DistributedLockConfig.Mode.HYBRID) {
+            return new HybridLockService(new LocalLockService(distributedLockConfig), lockService);
+        }
+
+        return lockService;
     }
 
     @Provides
     @Singleton
-    public RateLimitService rateLimitService(RedissonReactiveClient redisClient) {
-        return new RedisRateLimitService(redisClient);
+    public RateLimitService rateLimitService(RedissonReactiveClient redisClient,
+            @Config("rateLimit") RateLimitConfig rateLimitConfig) {
+        LeasableRateLimitService rateLimitService = switch (rateLimitConfig.getStrategy()) {
+            case RATE_LIMITER -> new RedisRateLimitService(redisClient);
+            case SCRIPT -> new ScriptRateLimitService(redisClient);
+        };
+
+        if (rateLimitConfig.getLocalLease().isEnabled()) {
+            return new LeasingRateLimitService(rateLimitService, rateLimitConfig.getLocalLease());
+        }
+
+        return rateLimitService;
     }
 
     @Provides
     @Singleton
-    public CacheManager cacheManager(RedissonReactiveClient redisClient) {
-        return new RedisCacheManager(redisClient);
+    public CacheManager cacheManager(RedissonReactiveClient redisClient,
+            @Config("cacheManager") CacheConfiguration cacheConfiguration) {
+        var cacheManager = new RedisCacheManager(redisClient, cacheConfiguration.getCodec());
+
+        if (cacheConfiguration.getLocal().isEnabled()) {
+            return new TwoLevelCacheManager(cacheManager, redisClient, cacheConfiguration);
+        }
+
+        return cacheManager;
     }
 
 }
@@ -1,6 +1,5 @@
 package com.comet.opik.infrastructure.redis;
 
-import com.comet.opik.infrastructure.ratelimit.RateLimitService;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -17,7 +16,7 @@ import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
 
 @RequiredArgsConstructor
 @Slf4j
-class RedisRateLimitService implements RateLimitService {
+class RedisRateLimitService implements LeasableRateLimitService {
 
     private static final String KEY = "%s:%s";
 
@@ -34,6 +33,35 @@ class RedisRateLimitService implements RateLimitService {
                 .map(Boolean.FALSE::equals);
     }
 
+    @Override
+    public Mono<PermitLease> lease(@NonNull String apiKey, @NonNull String bucketName, @NonNull LimitConfig limitConfig,
+            long permits, long minPermits) {
+
+        RRateLimiterReactive rateLimit = redisClient.getRateLimiter(KEY.formatted(bucketName, apiKey));
+
+        return setLimitIfNecessary(limitConfig.limit(), limitConfig.durationInSeconds(), rateLimit)
+                .then(Mono.defer(() -> tryAcquire(rateLimit, permits, minPermits))
+                        .retryWhen(configureRetry(limitConfig, rateLimit)))
+                .flatMap(acquired -> Mono.zip(rateLimit.availablePermits(), rateLimit.remainTimeToLive())
+                        .map(values -> new PermitLease(acquired, values.getT1(), values.getT2())));
+    }
+
+    private Mono<Long> tryAcquire(RRateLimiterReactive rateLimit, long permits, long minPermits) {
+        return rateLimit.tryAcquire(permits)
+                .flatMap(acquired -> {
+                    if (Boolean.TRUE.equals(acquired)) {
+                        return Mono.just(permits);
+                    }
+
+                    if (permits == minPermits) {
+                        return Mono.just(0L);
+                    }
+
+                    return rateLimit.tryAcquire(minPermits)
+                            .map(minAcquired -> Boolean.TRUE.equals(minAcquired) ? minPermits : 0L);
+                });
+    }
+
     private Retry configureRetry(LimitConfig limitConfig, RRateLimiterReactive rateLimit) {
         return Retry.fixedDelay(2, Duration.ofMillis(5))
                 .filter(RedisException.class::isInstance)
@@ -2,20 +2,27 @@ package com.comet.opik.infrastructure.redis;
 
 import com.comet.opik.infrastructure.DistributedLockConfig;
 import com.comet.opik.infrastructure.lock.LockService;
+import com.comet.opik.utils.SchedulerUtils;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.RedissonObject;
 import org.redisson.api.RPermitExpirableSemaphoreReactive;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonReactiveClient;
 import org.redisson.api.options.CommonOptions;
 import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 import reactor.util.retry.Retry;
 
 import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -25,6 +32,52 @@ class RedissonLockService implements LockService {
     private static final String LOCK_RELEASED = "Lock '{}' released";
     private static final String TRYING_TO_LOCK_WITH = "Trying to lock with '{}'";
 
+    /**
+     * Acquires a permit of every semaphore, or none if any of them has no permit left. Semaphores are laid out as
+     * Redisson does, with the permits in the first key, the permits taken in the second and their release channel in
+     * the third, so batches and single locks exclude each other. Expired permits are released first, as Redisson does.
+     */
+    static final String ACQUIRE_ALL_SCRIPT = """
+            local now = tonumber(ARGV[2])
+            for i = 1, #KEYS, 3 do
+                local expiredIds = redis.call('zrangebyscore', KEYS[i + 1], 0, now)
+                if #expiredIds > 0 then
+                    redis.call('zrem', KEYS[i + 1], unpack(expiredIds))
+                    local value = redis.call('incrby', KEYS[i], #expiredIds)
+                    if tonumber(value) > 0 then
+                        redis.call('publish', KEYS[i + 2], value)
+                    end
+                end
+                local value = redis.call('get', KEYS[i])
+                if value == false then
+                    value = 1 - redis.call('zcard', KEYS[i + 1])
+                    redis.call('set', KEYS[i], value)
+                end
+                if tonumber(value) < 1 then
+                    return 0
+                end
+            end
+            for i = 1, #KEYS, 3 do
+                redis.call('decr', KEYS[i])
+                redis.call('zadd', KEYS[i + 1], ARGV[3], ARGV[1])
+                redis.call('pexpire', KEYS[i], ARGV[4])
+                redis.call('pexpire', KEYS[i + 1], ARGV[4])
+            end
+            return 1
+            """;
+
+    static final String RELEASE_ALL_SCRIPT = """
+            for i = 1, #KEYS, 3 do
+                if redis.call('zrem', KEYS[i + 1], ARGV[1]) == 1 then
+                    local value = redis.call('incr', KEYS[i])
+                    redis.call('publish', KEYS[i + 2], value)
+                end
+            end
+            return 1
+            """;
+
+    private static final Duration RETRY_INTERVAL = Duration.ofMillis(10);
+
     private final @NonNull RedissonReactiveClient redisClient;
     private final @NonNull DistributedLockConfig distributedLockConfig;
 
@@ -48,7 +101,7 @@ class RedissonLockService implements LockService {
 
         return acquireLock(semaphore, Duration.ofMillis(distributedLockConfig.getLockTimeoutMS()))
                 .flatMap(lockInstance -> runAction(lock, action, lockInstance.locked())
-                        .subscribeOn(Schedulers.boundedElastic())
+                        .subscribeOn(SchedulerUtils.blocking())
                         .doFinally(signalType -> {
                             lockInstance.release();
                             log.debug(LOCK_RELEASED, lock);
@@ -64,7 +117,7 @@ class RedissonLockService implements LockService {
 
         return acquireLock(semaphore, duration)
                 .flatMap(lockInstance -> runAction(lock, action, lockInstance.locked())
-                        .subscribeOn(Schedulers.boundedElastic())
+                        .subscribeOn(SchedulerUtils.blocking())
                         .doFinally(signalType -> {
                             lockInstance.release();
                             log.debug(LOCK_RELEASED, lock);
@@ -112,13 +165,67 @@ class RedissonLockService implements LockService {
 
         return acquireLock(semaphore, Duration.ofMillis(distributedLockConfig.getLockTimeoutMS()))
                 .flatMapMany(lockInstance -> stream(lock, stream, lockInstance.locked())
-                        .subscribeOn(Schedulers.boundedElastic())
+                        .subscribeOn(SchedulerUtils.blocking())
                         .doFinally(signalType -> {
                             lockInstance.release();
                             log.debug(LOCK_RELEASED, lock);
                         }));
     }
 
+    /**
+     * Acquires all the locks in a single script, retrying until the lock timeout if any of them is held, as the single
+     * lock acquisition does. Fails with the same error as the single lock acquisition once the timeout is reached.
+     */
+    @Override
+    public <T> Mono<T> executeWithLocks(@NonNull Collection<Lock> locks, @NonNull Mono<T> action) {
+        var sorted = LockService.sorted(locks);
+        if (sorted.size() == 1) {
+            return executeWithLock(sorted.getFirst(), action);
+        }
+
+        List<Object> keys = sorted.stream()
+                .<Object>flatMap(lock -> Stream.of(
+                        lock.key(),
+                        RedissonObject.suffixName(lock.key(), "timeout"),
+                        RedissonObject.prefixName("redisson_sc", lock.key())))
+                .toList();
+        var permitId = UUID.randomUUID().toString();
+        long maxAttempts = Math.max(1,
+                Duration.ofMillis(distributedLockConfig.getLockTimeoutMS()).dividedBy(RETRY_INTERVAL));
+
+        log.debug(TRYING_TO_LOCK_WITH, sorted);
+
+        return Mono.defer(() -> acquireAll(keys, permitId))
+                .retryWhen(Retry.max(3).filter(RedisException.class::isInstance))
+                .filter(Boolean::booleanValue)
+                .repeatWhenEmpty(attempts -> attempts.take(maxAttempts).delayElements(RETRY_INTERVAL))
+                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Could not acquire lock")))
+                .flatMap(__ -> {
+                    log.debug(LOCK_ACQUIRED, sorted);
+                    return action.subscribeOn(SchedulerUtils.blocking())
+                            .doFinally(signalType -> releaseAll(sorted, keys, permitId));
+                });
+    }
+
+    private Mono<Boolean> acquireAll(List<Object> keys, String permitId) {
+        long now = System.currentTimeMillis();
+        return redisClient.getScript(StringCodec.INSTANCE)
+                .<Long>eval(RScript.Mode.READ_WRITE, ACQUIRE_ALL_SCRIPT, RScript.ReturnType.INTEGER, keys,
+                        permitId,
+                        now,
+                        now + distributedLockConfig.getLockTimeoutMS(),
+                        Duration.ofSeconds(distributedLockConfig.getTtlInSeconds()).toMillis())
+                .map(acquired -> acquired == 1);
+    }
+
+    private void releaseAll(List<Lock> locks, List<Object> keys, String permitId) {
+        redisClient.getScript(StringCodec.INSTANCE)
+                .<Long>eval(RScript.Mode.READ_WRITE, RELEASE_ALL_SCRIPT, RScript.ReturnType.INTEGER, keys, permitId)
+                .subscribe(
+                        __ -> log.debug(LOCK_RELEASED, locks),
+                        error -> log.warn("Failed to release locks '{}'", locks, error));
+    }
+
     private <T> Flux<T> stream(Lock lock, Flux<T> action, String locked) {
         if (locked != null) {
             log.debug(LOCK_ACQUIRED, lock);
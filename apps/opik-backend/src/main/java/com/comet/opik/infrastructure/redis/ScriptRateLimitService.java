@@ -0,0 +1,147 @@
+package com.comet.opik.infrastructure.redis;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+
+import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
+
+/**
+ * Rate limit service evaluating a limit with a single Lua script, so acquiring events and reading the remaining events
+ * and time to live take one round trip to Redis.
+ * <p>
+ * Limits are counted in fixed windows of the limit duration, starting with the first event of the window. The script is
+ * called by its SHA, and only sent to Redis when it isn't cached there yet.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class ScriptRateLimitService implements LeasableRateLimitService {
+
+    private static final String KEY = "%s:%s:events";
+
+    /**
+     * Acquires the events, or the minimum events if fewer are left, and returns the acquired events, the events left
+     * and the remaining time to live of the window in milliseconds.
+     */
+    static final String SCRIPT = """
+            local limit = tonumber(ARGV[1])
+            local window = tonumber(ARGV[2])
+            local events = tonumber(ARGV[3])
+            local min_events = tonumber(ARGV[4])
+
+            redis.call('SET', KEYS[1], 0, 'PX', window, 'NX')
+            local used = tonumber(redis.call('GET', KEYS[1]))
+
+            local acquired = 0
+            if used + events <= limit then
+                acquired = events
+            elseif used + min_events <= limit then
+                acquired = min_events
+            end
+
+            if acquired > 0 then
+                used = redis.call('INCRBY', KEYS[1], acquired)
+            end
+
+            local ttl = redis.call('PTTL', KEYS[1])
+            if ttl < 0 then
+                redis.call('PEXPIRE', KEYS[1], window)
+                ttl = window
+            end
+
+            return {acquired, math.max(limit - used, 0), ttl}
+            """;
+
+    private static final String SCRIPT_SHA = sha1(SCRIPT);
+
+    private final RedissonReactiveClient redisClient;
+
+    @Override
+    public Mono<Boolean> isLimitExceeded(@NonNull String apiKey, long events, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+        return evaluate(apiKey, bucketName, limitConfig, events, events)
+                .map(result -> result.permits() < events);
+    }
+
+    @Override
+    public Mono<Long> availableEvents(@NonNull String apiKey, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+        return evaluate(apiKey, bucketName, limitConfig, 0, 0)
+                .map(PermitLease::availableEvents);
+    }
+
+    @Override
+    public Mono<Long> getRemainingTTL(@NonNull String apiKey, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+        return evaluate(apiKey, bucketName, limitConfig, 0, 0)
+                .map(PermitLease::remainingTTL);
+    }
+
+    @Override
+    public Mono<Decision> tryAcquire(@NonNull String apiKey, long events, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+        return evaluate(apiKey, bucketName, limitConfig, events, events)
+                .map(result -> new Decision(result.permits() < events,
+                        new LimitState(result.availableEvents(), result.remainingTTL())));
+    }
+
+    @Override
+    public Mono<LimitState> getLimitState(@NonNull String apiKey, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig) {
+        return evaluate(apiKey, bucketName, limitConfig, 0, 0)
+                .map(result -> new LimitState(result.availableEvents(), result.remainingTTL()));
+    }
+
+    @Override
+    public Mono<PermitLease> lease(@NonNull String apiKey, @NonNull String bucketName,
+            @NonNull LimitConfig limitConfig, long permits, long minPermits) {
+        return evaluate(apiKey, bucketName, limitConfig, permits, minPermits);
+    }
+
+    private Mono<PermitLease> evaluate(String apiKey, String bucketName, LimitConfig limitConfig, long events,
+            long minEvents) {
+
+        RScriptReactive script = redisClient.getScript(StringCodec.INSTANCE);
+        List<Object> keys = List.of(KEY.formatted(bucketName, apiKey));
+        Object[] args = {
+                String.valueOf(limitConfig.limit()),
+                String.valueOf(Duration.ofSeconds(limitConfig.durationInSeconds()).toMillis()),
+                String.valueOf(events),
+                String.valueOf(minEvents)};
+
+        return script.<List<Long>>evalSha(RScript.Mode.READ_WRITE, SCRIPT_SHA, RScript.ReturnType.MULTI, keys, args)
+                .onErrorResume(ScriptRateLimitService::isScriptMissing, __ -> {
+                    log.info("Rate limit script not cached in Redis, sending it");
+                    return script.eval(RScript.Mode.READ_WRITE, SCRIPT, RScript.ReturnType.MULTI, keys, args);
+                })
+                .map(values -> new PermitLease(values.get(0), values.get(1), values.get(2)));
+    }
+
+    private static boolean isScriptMissing(Throwable throwable) {
+        return throwable instanceof RedisException
+                && throwable.getMessage() != null
+                && throwable.getMessage().contains("NOSCRIPT");
+    }
+
+    private static String sha1(String script) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1")
+                    .digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.infrastructure.CacheConfiguration;
+import com.comet.opik.infrastructure.cache.CacheManager;
+import com.comet.opik.utils.JsonUtils;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RTopicReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.codec.JsonJacksonCodec;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Cache manager keeping the cached values in memory on top of Redis, so hits don't pay the Redis round trip nor the
+ * deserialization.
+ * <p>
+ * Entries are grouped by the cache name prefixing the keys, each group bounded by its maximum size and expiring after
+ * its time to live. Values are shared between callers, so they must not be mutated. Evictions and updates are
+ * propagated to the other nodes through a Redis topic, missed messages are bounded by the duration of the group. Values
+ * filling missing keys aren't propagated, as other nodes either don't have them or load them the same way.
+ */
+@Slf4j
+class TwoLevelCacheManager implements CacheManager {
+
+    private static final String GROUP_SEPARATOR = ":-";
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.CLASS, property = "@class")
+    record Invalidation(String nodeId, String key, Type type) {
+
+        enum Type {
+            KEY,
+            PATTERN,
+            TAG
+        }
+
+        static Invalidation of(String nodeId, String key, boolean usePatternMatching) {
+            return new Invalidation(nodeId, key, usePatternMatching ? Type.PATTERN : Type.KEY);
+        }
+    }
+
+    /**
+     * The generation is increased on every invalidation, so values read from Redis before an invalidation aren't kept.
+     */
+    private record LocalCache(Cache<String, Object> entries, AtomicLong generation) {
+
+        void put(String key, Object value, long expectedGeneration) {
+            if (generation.get() == expectedGeneration) {
+                entries.put(key, value);
+            }
+        }
+
+        /**
+         * Tagged keys aren't tracked in memory, so a tag invalidates the whole group.
+         */
+        void invalidate(String key, Invalidation.Type type) {
+            generation.incrementAndGet();
+
+            switch (type) {
+                case KEY -> entries.invalidate(key);
+                case PATTERN -> {
+                    var pattern = globToRegex(key);
+                    entries.asMap().keySet().removeIf(entry -> pattern.matcher(entry).matches());
+                }
+                case TAG -> entries.invalidateAll();
+            }
+        }
+    }
+
+    private final CacheManager redisCacheManager;
+    private final RedissonReactiveClient redisClient;
+    private final CacheConfiguration config;
+    private final Map<String, LocalCache> localCaches = new ConcurrentHashMap<>();
+    final String nodeId = UUID.randomUUID().toString();
+
+    private final ReentrantLock subscriptionLock = new ReentrantLock();
+    private volatile RTopicReactive topic;
+
+    TwoLevelCacheManager(@NonNull CacheManager redisCacheManager, @NonNull RedissonReactiveClient redisClient,
+            @NonNull CacheConfiguration config) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisClient = redisClient;
+        this.config = config;
+    }
+
+    @Override
+    public Mono<Boolean> evict(@NonNull String key, boolean usePatternMatching) {
+        // Evicted after Redis, so concurrent reads can't load the evicted value back into memory
+        return redisCacheManager.evict(key, usePatternMatching)
+                .doOnTerminate(() -> invalidate(Invalidation.of(nodeId, key, usePatternMatching)));
+    }
+
+    @Override
+    public Mono<Boolean> evictTag(@NonNull String tag) {
+        return redisCacheManager.evictTag(tag)
+                .doOnTerminate(() -> invalidate(new Invalidation(nodeId, tag, Invalidation.Type.TAG)));
+    }
+
+    /**
+     * Fills a missing key, so other nodes have no copy of it to invalidate.
+     */
+    @Override
+    public Mono<Boolean> put(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration) {
+        return redisCacheManager.put(key, value, ttlDuration)
+                .doOnSuccess(__ -> localCache(key).entries().put(key, value));
+    }
+
+    @Override
+    public Mono<Boolean> put(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration,
+            @NonNull String tag) {
+        return redisCacheManager.put(key, value, ttlDuration, tag)
+                .doOnSuccess(__ -> localCache(key).entries().put(key, value));
+    }
+
+    @Override
+    public Mono<Boolean> replace(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration) {
+        return redisCacheManager.replace(key, value, ttlDuration)
+                .doOnSuccess(__ -> {
+                    localCache(key).entries().put(key, value);
+                    publish(Invalidation.of(nodeId, key, false));
+                });
+    }
+
+    @Override
+    public Mono<Boolean> replace(@NonNull String key, @NonNull Object value, @NonNull Duration ttlDuration,
+            @NonNull String tag) {
+        return redisCacheManager.replace(key, value, ttlDuration, tag)
+                .doOnSuccess(__ -> {
+                    localCache(key).entries().put(key, value);
+                    publish(Invalidation.of(nodeId, key, false));
+                });
+    }
+
+    @Override
+    public <T> Mono<T> get(@NonNull String key, @NonNull Class<T> clazz) {
+        var localCache = localCache(key);
+        var value = localCache.entries().getIfPresent(key);
+        if (clazz.isInstance(value)) {
+            return Mono.just(clazz.cast(value));
+        }
+
+        long generation = localCache.generation().get();
+        return redisCacheManager.get(key, clazz)
+                .doOnNext(loaded -> localCache.put(key, loaded, generation));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> get(@NonNull String key, @NonNull TypeReference<T> clazz) {
+        var localCache = localCache(key);
+        var value = localCache.entries().getIfPresent(key);
+        if (value != null) {
+            return Mono.just((T) value);
+        }
+
+        long generation = localCache.generation().get();
+        return redisCacheManager.get(key, clazz)
+                .doOnNext(loaded -> localCache.put(key, loaded, generation));
+    }
+
+    @Override
+    public Mono<Boolean> contains(@NonNull String key) {
+        if (localCache(key).entries().getIfPresent(key) != null) {
+            return Mono.just(true);
+        }
+
+        return redisCacheManager.contains(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Mono<Map<String, T>> getAll(@NonNull Collection<String> keys, @NonNull TypeReference<T> clazz) {
+        Map<String, T> values = new LinkedHashMap<>();
+        Map<String, Long> generations = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        keys.forEach(key -> {
+            var localCache = localCache(key);
+            var value = localCache.entries().getIfPresent(key);
+            if (value != null) {
+                values.put(key, (T) value);
+            } else {
+                generations.put(key, localCache.generation().get());
+                missing.add(key);
+            }
+        });
+
+        if (missing.isEmpty()) {
+            return Mono.just(values);
+        }
+
+        return redisCacheManager.getAll(missing, clazz)
+                .map(loaded -> {
+                    loaded.forEach((key, value) -> {
+                        localCache(key).put(key, value, generations.get(key));
+                        values.put(key, value);
+                    });
+                    return values;
+                });
+    }
+
+    @Override
+    public Mono<Boolean> putAll(@NonNull Map<String, ?> values, @NonNull Duration ttlDuration) {
+        return redisCacheManager.putAll(values, ttlDuration)
+                .doOnSuccess(__ -> values.forEach((key, value) -> localCache(key).entries().put(key, value)));
+    }
+
+    void invalidateLocally(Invalidation invalidation) {
+        localCache(invalidation.key()).invalidate(invalidation.key(), invalidation.type());
+    }
+
+    private void invalidate(Invalidation invalidation) {
+        invalidateLocally(invalidation);
+        publish(invalidation);
+    }
+
+    private LocalCache localCache(String key) {
+        subscribe();
+
+        return localCaches.computeIfAbsent(StringUtils.substringBefore(key, GROUP_SEPARATOR),
+                group -> new LocalCache(
+                        CacheBuilder.newBuilder()
+                                .maximumSize(config.getLocal().getMaximumSize(group))
+                                .expireAfterWrite(config.getTimeToLive(group))
+                                .build(),
+                        new AtomicLong()));
+    }
+
+    private void publish(Invalidation invalidation) {
+        topic.publish(invalidation)
+                .subscribe(
+                        __ -> log.debug("Published cache invalidation of key '{}'", invalidation.key()),
+                        error -> log.warn("Failed to publish cache invalidation of key '{}'", invalidation.key(),
+                                error));
+    }
+
+    private void subscribe() {
+        if (topic != null) {
+            return;
+        }
+
+        subscriptionLock.lock();
+        try {
+            if (topic != null) {
+                return;
+            }
+
+            var invalidationTopic = config.getLocal().getInvalidationTopic();
+            var newTopic = redisClient.getTopic(invalidationTopic, new JsonJacksonCodec(JsonUtils.MAPPER));
+
+            newTopic.addListener(Invalidation.class, (channel, message) -> {
+                if (!nodeId.equals(message.nodeId())) {
+                    invalidateLocally(message);
+                }
+            }).subscribe(
+                    __ -> log.info("Subscribed to cache invalidations on '{}'", invalidationTopic),
+                    error -> log.error("Failed to subscribe to cache invalidations", error));
+
+            topic = newTopic;
+        } finally {
+            subscriptionLock.unlock();
+        }
+    }
+
+    /**
+     * Translates a Redis glob-style pattern, as used to evict keys from Redis, to a regular expression.
+     */
+    static Pattern globToRegex(String glob) {
+        var regex = new StringBuilder();
+
+        for (int i = 0; i < glob.length(); i++) {
+            char character = glob.charAt(i);
+            switch (character) {
+                case '*' -> regex.append(".*");
+                case '?' -> regex.append('.');
+                case '[' -> {
+                    int end = glob.indexOf(']', i + 1);
+                    if (end < 0) {
+                        regex.append(Pattern.quote(String.valueOf(character)));
+                    } else {
+                        regex.append(glob, i, end + 1);
+                        i = end;
+                    }
+                }
+                case '\\' -> {
+                    if (i + 1 < glob.length()) {
+                        regex.append(Pattern.quote(String.valueOf(glob.charAt(++i))));
+                    }
+                }
+                default -> regex.append(Pattern.quote(String.valueOf(character)));
+            }
+        }
+
+        return Pattern.compile(regex.toString());
+    }
+}
@@ -3,6 +3,7 @@ package com.comet.opik.utils;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
@@ -60,6 +61,14 @@ public class JsonUtils {
         }
     }
 
+    public <T> T readValue(@NonNull byte[] content, @NonNull JavaType valueType) {
+        try {
+            return MAPPER.readValue(content, valueType);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
     public <T> T readValue(@NonNull InputStream inputStream, @NonNull TypeReference<T> valueTypeRef) {
         try {
             return MAPPER.readValue(inputStream, valueTypeRef);
@@ -90,6 +99,14 @@ public class JsonUtils {
         }
     }
 
+    public byte[] writeValueAsBytes(@NonNull Object value) {
+        try {
+            return MAPPER.writeValueAsBytes(value);
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
     public void writeValueAsString(@NonNull ByteArrayOutputStream baos, @NonNull Object value) {
         try {
             MAPPER.writeValue(baos, value);
@@ -0,0 +1,62 @@
+package com.comet.opik.utils;
+
+import com.comet.opik.infrastructure.VirtualThreadsConfig;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Schedulers for blocking work bridged into reactive pipelines, i.e. JDBI calls, HTTP calls and JSON (de)serialization.
+ * <p>
+ * By default, blocking work runs on {@link Schedulers#boundedElastic()}. In virtual-thread mode, it runs on a new
+ * virtual thread per task instead, so a blocked task parks and releases its carrier thread rather than holding one of
+ * the few platform threads of boundedElastic. Concurrent and queued tasks are still bounded, by configuration.
+ */
+@Slf4j
+@UtilityClass
+public class SchedulerUtils {
+
+    private static final ReentrantLock LOCK = new ReentrantLock();
+    private static volatile Scheduler virtualThreadScheduler;
+
+    public static void setConfig(@NonNull VirtualThreadsConfig config) {
+        LOCK.lock();
+        try {
+            if (!config.isEnabled()) {
+                if (virtualThreadScheduler != null) {
+                    virtualThreadScheduler.dispose();
+                    virtualThreadScheduler = null;
+                }
+                return;
+            }
+
+            if (virtualThreadScheduler == null) {
+                Scheduler scheduler = new Schedulers.Factory() {
+                }.newThreadPerTaskBoundedElastic(config.getMaxConcurrentBlockingTasks(),
+                        config.getMaxQueuedBlockingTasks(), Thread.ofVirtual().name("opik-virtual-", 0).factory());
+                scheduler.init();
+                virtualThreadScheduler = scheduler;
+
+                log.info("Virtual-thread mode enabled, blocking work runs on virtual threads");
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    public static boolean isVirtualThreadsEnabled() {
+        return virtualThreadScheduler != null;
+    }
+
+    /**
+     * Scheduler to subscribe on, or publish on, for blocking work.
+     */
+    public static Scheduler blocking() {
+        Scheduler scheduler = virtualThreadScheduler;
+        return scheduler != null ? scheduler : Schedulers.boundedElastic();
+    }
+}
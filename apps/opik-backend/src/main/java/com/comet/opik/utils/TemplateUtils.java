@@ -1,12 +1,39 @@
 package com.comet.opik.utils;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.stringtemplate.v4.ST;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.IntStream;
 
 public class TemplateUtils {
 
+    /**
+     * Upper bound of the chars kept by the bulk insert SQL cache. A 1000 rows span insert renders to roughly 1M chars,
+     * so this keeps a few dozen batch sizes per template.
+     */
+    private static final long BULK_INSERT_CACHE_MAX_CHARS = 32L * 1024 * 1024;
+
+    /**
+     * Bulk insert endpoints are capped at 1000 items, larger indexes fall back to concatenation.
+     */
+    private static final int MAX_PRECOMPUTED_INDEX = 1000;
+
+    private record BulkInsertKey(String template, int size) {
+    }
+
+    private static final Cache<BulkInsertKey, String> BULK_INSERT_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(BULK_INSERT_CACHE_MAX_CHARS)
+            .<BulkInsertKey, String>weigher((key, sql) -> sql.length())
+            .build();
+
+    private static final Map<String, String[]> INDEXED_PARAMS = new ConcurrentHashMap<>();
+
     @RequiredArgsConstructor
     public static class QueryItem {
         public final int index;
@@ -23,4 +50,32 @@ public class TemplateUtils {
                 .mapToObj(i -> new QueryItem(i, i < size - 1))
                 .toList();
     }
+
+    /**
+     * Renders a bulk insert template, whose rows are generated from an {@code items} attribute, for the given number
+     * of rows. The rendered SQL only depends on the template and the number of rows, so it's rendered once and cached
+     * for subsequent batches of the same size.
+     */
+    public static String renderBulkInsert(@NonNull String template, int size) {
+        return BULK_INSERT_CACHE.asMap().computeIfAbsent(new BulkInsertKey(template, size),
+                key -> new ST(key.template()).add("items", getQueryItemPlaceHolder(key.size())).render());
+    }
+
+    /**
+     * @return the name of the parameter bound to the row at the given index of a bulk insert, i.e. {@code name + index},
+     * without concatenating it again for every row of every batch.
+     */
+    public static String indexedParam(@NonNull String name, int index) {
+        if (index >= MAX_PRECOMPUTED_INDEX) {
+            return name + index;
+        }
+
+        return INDEXED_PARAMS.computeIfAbsent(name, TemplateUtils::precomputeIndexedParams)[index];
+    }
+
+    private static String[] precomputeIndexedParams(String name) {
+        return IntStream.range(0, MAX_PRECOMPUTED_INDEX)
+                .mapToObj(i -> name + i)
+                .toArray(String[]::new);
+    }
 }
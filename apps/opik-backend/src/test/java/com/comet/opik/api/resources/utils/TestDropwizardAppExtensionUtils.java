@@ -2,6 +2,7 @@ package com.comet.opik.api.resources.utils;
 
 import com.comet.opik.OpikApplication;
 import com.comet.opik.infrastructure.DatabaseAnalyticsFactory;
+import com.comet.opik.infrastructure.EventBusConfig;
 import com.comet.opik.infrastructure.events.EventModule;
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.google.common.eventbus.EventBus;
@@ -138,7 +139,7 @@ public class TestDropwizardAppExtensionUtils {
             if (appContextConfig.mockEventBus() != null) {
                 injector.modulesOverride(new EventModule() {
                     @Override
-                    public EventBus getEventBus() {
+                    public EventBus getEventBus(EventBusConfig config) {
                         return appContextConfig.mockEventBus();
                     }
                 });
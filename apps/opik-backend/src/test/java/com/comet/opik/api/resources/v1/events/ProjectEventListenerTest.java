@@ -0,0 +1,110 @@
+package com.comet.opik.api.resources.v1.events;
+
+import com.comet.opik.api.ProjectIdLastUpdated;
+import com.comet.opik.api.Trace;
+import com.comet.opik.api.events.TracesCreated;
+import com.comet.opik.api.events.TracesUpdated;
+import com.comet.opik.domain.ProjectService;
+import com.comet.opik.domain.TraceService;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.podam.PodamFactoryUtils;
+import com.google.common.eventbus.EventBus;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import uk.co.jemos.podam.api.PodamFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
+
+class ProjectEventListenerTest {
+
+    private static final String WORKSPACE_ID = UUID.randomUUID().toString();
+    private static final String USER_NAME = "user";
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(200);
+
+    private final PodamFactory podamFactory = PodamFactoryUtils.newPodamFactory();
+    private final ProjectService projectService = Mockito.mock(ProjectService.class);
+    private final TraceService traceService = Mockito.mock(TraceService.class);
+
+    private ProjectEventListener newListener() {
+        var ingestionConfig = new IngestionConfig();
+        ingestionConfig.getLastUpdatedTrace().setEnabled(true);
+        ingestionConfig.getLastUpdatedTrace().setFlushInterval(FLUSH_INTERVAL);
+        return new ProjectEventListener(Mockito.mock(EventBus.class), projectService, traceService, ingestionConfig);
+    }
+
+    private TracesCreated tracesCreated(UUID... projectIds) {
+        List<Trace> traces = Stream.of(projectIds)
+                .map(projectId -> podamFactory.manufacturePojo(Trace.class).toBuilder().projectId(projectId).build())
+                .toList();
+        return new TracesCreated(traces, WORKSPACE_ID, USER_NAME);
+    }
+
+    private static TracesUpdated tracesUpdated(UUID... projectIds) {
+        return new TracesUpdated(Set.of(projectIds), WORKSPACE_ID, USER_NAME);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onTracesEvents__whenSeveralEventsForWorkspace__thenRecordOnceWithAllProjectsPerFlush() {
+        var listener = newListener();
+        var projectId = UUID.randomUUID();
+        var otherProjectId = UUID.randomUUID();
+        var anotherProjectId = UUID.randomUUID();
+        Mockito.when(traceService.getLastUpdatedTraceAt(any(), eq(WORKSPACE_ID)))
+                .thenAnswer(invocation -> Mono.just(((Set<UUID>) invocation.getArgument(0)).stream()
+                        .collect(Collectors.toMap(Function.identity(), __ -> Instant.now()))));
+
+        listener.onTracesCreated(tracesCreated(projectId, otherProjectId));
+        listener.onTracesUpdated(tracesUpdated(otherProjectId));
+        listener.onTracesCreated(tracesCreated(anotherProjectId));
+        listener.onTracesUpdated(tracesUpdated(anotherProjectId, projectId));
+
+        // A single recording for the whole flush, and nothing more afterwards
+        Mockito.verify(projectService, Mockito.after(FLUSH_INTERVAL.toMillis() * 3).times(1))
+                .recordLastUpdatedTrace(eq(WORKSPACE_ID), any());
+        Mockito.verify(traceService).getLastUpdatedTraceAt(Set.of(projectId, otherProjectId, anotherProjectId),
+                WORKSPACE_ID);
+
+        ArgumentCaptor<Collection<ProjectIdLastUpdated>> recorded = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(projectService).recordLastUpdatedTrace(eq(WORKSPACE_ID), recorded.capture());
+        assertThat(recorded.getValue()).extracting(ProjectIdLastUpdated::id)
+                .containsExactlyInAnyOrder(projectId, otherProjectId, anotherProjectId);
+
+        // Events after the flush are recorded by the next one
+        listener.onTracesUpdated(tracesUpdated(projectId));
+
+        await().atMost(Duration.ofSeconds(2)).untilAsserted(() -> Mockito.verify(projectService, Mockito.times(2))
+                .recordLastUpdatedTrace(eq(WORKSPACE_ID), any()));
+        Mockito.verify(traceService).getLastUpdatedTraceAt(Set.of(projectId), WORKSPACE_ID);
+    }
+
+    @Test
+    void onTracesEvents__whenDisabled__thenRecordOnEveryEvent() {
+        var listener = new ProjectEventListener(Mockito.mock(EventBus.class), projectService, traceService,
+                new IngestionConfig());
+        var projectId = UUID.randomUUID();
+        Mockito.when(traceService.getLastUpdatedTraceAt(Set.of(projectId), WORKSPACE_ID))
+                .thenReturn(Mono.just(Map.of(projectId, Instant.now())));
+
+        listener.onTracesUpdated(tracesUpdated(projectId));
+        listener.onTracesUpdated(tracesUpdated(projectId));
+
+        Mockito.verify(projectService, Mockito.times(2)).recordLastUpdatedTrace(eq(WORKSPACE_ID), any());
+    }
+}
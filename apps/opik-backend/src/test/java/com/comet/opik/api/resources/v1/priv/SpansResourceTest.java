@@ -13,6 +13,7 @@ import com.comet.opik.api.ProjectStats.ProjectStatItem;
 import com.comet.opik.api.ScoreSource;
 import com.comet.opik.api.Span;
 import com.comet.opik.api.SpanBatch;
+import com.comet.opik.api.SpanBatchUpdate;
 import com.comet.opik.api.SpanSearchStreamRequest;
 import com.comet.opik.api.SpanUpdate;
 import com.comet.opik.api.Trace;
@@ -37,8 +38,11 @@ import com.comet.opik.api.resources.utils.resources.ProjectResourceClient;
 import com.comet.opik.api.resources.utils.resources.SpanResourceClient;
 import com.comet.opik.api.resources.utils.resources.TraceResourceClient;
 import com.comet.opik.domain.SpanMapper;
+import com.comet.opik.domain.SpanService;
 import com.comet.opik.domain.SpanType;
 import com.comet.opik.domain.cost.CostService;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.infrastructure.OpikConfiguration;
 import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.podam.PodamFactoryUtils;
 import com.comet.opik.utils.JsonUtils;
@@ -61,6 +65,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
 import org.assertj.core.api.recursive.comparison.RecursiveComparisonConfiguration;
 import org.jdbi.v3.core.Jdbi;
+import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -114,7 +119,9 @@ import static com.comet.opik.api.resources.utils.TestHttpClientUtils.UNAUTHORIZE
 import static com.comet.opik.api.resources.utils.resources.SpanResourceClient.IGNORED_FIELDS;
 import static com.comet.opik.api.resources.utils.resources.SpanResourceClient.IGNORED_FIELDS_SCORES;
 import static com.comet.opik.domain.ProjectService.DEFAULT_PROJECT;
+import static com.comet.opik.domain.SpanService.PARENT_SPAN_IS_MISMATCH;
 import static com.comet.opik.domain.SpanService.PROJECT_AND_WORKSPACE_NAME_MISMATCH;
+import static com.comet.opik.domain.SpanService.TRACE_ID_MISMATCH;
 import static com.comet.opik.infrastructure.auth.RequestContext.SESSION_COOKIE;
 import static com.comet.opik.infrastructure.auth.RequestContext.WORKSPACE_HEADER;
 import static com.comet.opik.utils.ValidationUtils.MAX_FEEDBACK_SCORE_VALUE;
@@ -4923,6 +4930,280 @@ class SpansResourceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Lock Free Create:")
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class LockFreeCreateSpan {
+
+        private IngestionConfig ingestionConfig;
+
+        @BeforeAll
+        void setUpAll(OpikConfiguration configuration) {
+            ingestionConfig = configuration.getIngestion();
+            ingestionConfig.setLockFreeSpanCreate(true);
+        }
+
+        @AfterAll
+        void tearDownAll() {
+            ingestionConfig.setLockFreeSpanCreate(false);
+        }
+
+        @Test
+        @DisplayName("when span is sent twice, then keep the first one")
+        void create__whenSpanIsSentTwice__thenKeepTheFirstOne() {
+            var expectedSpan = podamFactory.manufacturePojo(Span.class).toBuilder()
+                    .projectId(null)
+                    .parentSpanId(null)
+                    .build();
+
+            createAndAssert(expectedSpan, API_KEY, TEST_WORKSPACE);
+            createAndAssert(expectedSpan.toBuilder().name(UUID.randomUUID().toString()).build(), API_KEY,
+                    TEST_WORKSPACE);
+
+            getAndAssert(expectedSpan, API_KEY, TEST_WORKSPACE);
+        }
+
+        @ParameterizedTest
+        @MethodSource
+        @DisplayName("when span conflicts with the existing one, then return 409")
+        void create__whenSpanConflictsWithTheExistingOne__thenReturn409(Function<Span, Span> mapper,
+                String errorMessage) {
+            var existingSpan = podamFactory.manufacturePojo(Span.class).toBuilder()
+                    .projectId(null)
+                    .build();
+
+            createAndAssert(existingSpan, API_KEY, TEST_WORKSPACE);
+
+            createAndAssertErrorMessage(mapper.apply(existingSpan), API_KEY, TEST_WORKSPACE, HttpStatus.SC_CONFLICT,
+                    errorMessage);
+        }
+
+        Stream<Arguments> create__whenSpanConflictsWithTheExistingOne__thenReturn409() {
+            return Stream.of(
+                    arguments((Function<Span, Span>) span -> span.toBuilder()
+                            .projectName(UUID.randomUUID().toString())
+                            .build(),
+                            PROJECT_AND_WORKSPACE_NAME_MISMATCH),
+                    arguments((Function<Span, Span>) span -> span.toBuilder()
+                            .traceId(generator.generate())
+                            .build(),
+                            TRACE_ID_MISMATCH),
+                    arguments((Function<Span, Span>) span -> span.toBuilder()
+                            .parentSpanId(generator.generate())
+                            .build(),
+                            PARENT_SPAN_IS_MISMATCH));
+        }
+
+        @Test
+        @DisplayName("when span was partially inserted by an update, then merge both")
+        void create__whenSpanWasPartiallyInsertedByAnUpdate__thenMergeBoth() {
+            var id = generator.generate();
+            var spanUpdate = podamFactory.manufacturePojo(SpanUpdate.class).toBuilder()
+                    .projectId(null)
+                    .build();
+
+            try (var actualResponse = client.target(URL_TEMPLATE.formatted(baseURI))
+                    .path(id.toString())
+                    .request()
+                    .header(HttpHeaders.AUTHORIZATION, API_KEY)
+                    .header(WORKSPACE_HEADER, TEST_WORKSPACE)
+                    .method(HttpMethod.PATCH, Entity.json(spanUpdate))) {
+
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(204);
+            }
+
+            var newSpan = podamFactory.manufacturePojo(Span.class).toBuilder()
+                    .id(id)
+                    .projectName(spanUpdate.projectName())
+                    .traceId(spanUpdate.traceId())
+                    .parentSpanId(spanUpdate.parentSpanId())
+                    .build();
+
+            createAndAssert(newSpan, API_KEY, TEST_WORKSPACE);
+
+            var actualEntity = getById(id, TEST_WORKSPACE, API_KEY).readEntity(Span.class);
+
+            assertThat(actualEntity.projectId()).isEqualTo(getProjectId(spanUpdate.projectName(), TEST_WORKSPACE,
+                    API_KEY));
+            assertThat(actualEntity.input()).isEqualTo(spanUpdate.input());
+            assertThat(actualEntity.output()).isEqualTo(spanUpdate.output());
+            assertThat(actualEntity.endTime()).isEqualTo(spanUpdate.endTime());
+            assertThat(actualEntity.metadata()).isEqualTo(spanUpdate.metadata());
+            assertThat(actualEntity.tags()).isEqualTo(spanUpdate.tags());
+
+            assertThat(actualEntity.name()).isEqualTo(newSpan.name());
+            assertThat(actualEntity.startTime()).isEqualTo(newSpan.startTime());
+            assertThat(actualEntity.type()).isEqualTo(newSpan.type());
+        }
+    }
+
+    @Nested
+    @DisplayName("Batch Update:")
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class BatchUpdateSpans {
+
+        private Response runBatchPatch(SpanBatchUpdate batch) {
+            return client.target(URL_TEMPLATE.formatted(baseURI))
+                    .path("batch")
+                    .request()
+                    .header(HttpHeaders.AUTHORIZATION, API_KEY)
+                    .header(WORKSPACE_HEADER, TEST_WORKSPACE)
+                    .method(HttpMethod.PATCH, Entity.json(batch));
+        }
+
+        @Test
+        @DisplayName("when spans exist or not, then update existing and create missing")
+        void batchUpdate__whenSpansExistOrNot__thenUpdateExistingAndCreateMissing() {
+            var existingSpans = PodamFactoryUtils.manufacturePojoList(podamFactory, Span.class).stream()
+                    .map(span -> span.toBuilder()
+                            .projectName(null)
+                            .parentSpanId(null)
+                            .feedbackScores(null)
+                            .build())
+                    .toList();
+            batchCreateAndAssert(existingSpans, API_KEY, TEST_WORKSPACE);
+
+            var updates = existingSpans.stream()
+                    .map(span -> SpanBatchUpdate.SpanBatchUpdateItem.builder()
+                            .id(span.id())
+                            .update(podamFactory.manufacturePojo(SpanUpdate.class).toBuilder()
+                                    .projectId(null)
+                                    .projectName(span.projectName())
+                                    .traceId(span.traceId())
+                                    .parentSpanId(span.parentSpanId())
+                                    .build())
+                            .build())
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            var missingId = generator.generate();
+            var missingUpdate = podamFactory.manufacturePojo(SpanUpdate.class).toBuilder()
+                    .projectId(null)
+                    .build();
+            updates.add(SpanBatchUpdate.SpanBatchUpdateItem.builder().id(missingId).update(missingUpdate).build());
+
+            try (var actualResponse = runBatchPatch(SpanBatchUpdate.builder().updates(updates).build())) {
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(204);
+                assertThat(actualResponse.hasEntity()).isFalse();
+            }
+
+            for (int i = 0; i < existingSpans.size(); i++) {
+                var expectedSpanBuilder = existingSpans.get(i).toBuilder();
+                SpanMapper.INSTANCE.updateSpanBuilder(expectedSpanBuilder, updates.get(i).update());
+                var actualSpan = getAndAssert(expectedSpanBuilder.build(), API_KEY, TEST_WORKSPACE);
+                // The merged row is a new version of the span, so its creation metadata is kept
+                assertThat(actualSpan.createdAt()).isBefore(actualSpan.lastUpdatedAt());
+            }
+
+            var actualEntity = getById(missingId, TEST_WORKSPACE, API_KEY).readEntity(Span.class);
+            assertThat(actualEntity.id()).isEqualTo(missingId);
+            assertThat(actualEntity.projectId())
+                    .isEqualTo(getProjectId(missingUpdate.projectName(), TEST_WORKSPACE, API_KEY));
+            assertThat(actualEntity.traceId()).isEqualTo(missingUpdate.traceId());
+            assertThat(actualEntity.input()).isEqualTo(missingUpdate.input());
+            assertThat(actualEntity.output()).isEqualTo(missingUpdate.output());
+        }
+
+        @Test
+        @DisplayName("when spans are missing, then insert them partially and merge them with their creation")
+        void batchUpdate__whenSpansAreMissing__thenInsertPartiallyAndMergeWithCreation() {
+            var projectName = RandomStringUtils.randomAlphanumeric(10);
+            var updates = IntStream.range(0, 5)
+                    .mapToObj(i -> SpanBatchUpdate.SpanBatchUpdateItem.builder()
+                            .id(generator.generate())
+                            .update(podamFactory.manufacturePojo(SpanUpdate.class).toBuilder()
+                                    .projectId(null)
+                                    .projectName(projectName)
+                                    .build())
+                            .build())
+                    .toList();
+
+            try (var actualResponse = runBatchPatch(SpanBatchUpdate.builder().updates(updates).build())) {
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(204);
+            }
+
+            for (var item : updates) {
+                var actualEntity = getById(item.id(), TEST_WORKSPACE, API_KEY).readEntity(Span.class);
+                assertThat(actualEntity.traceId()).isEqualTo(item.update().traceId());
+                assertThat(actualEntity.parentSpanId()).isEqualTo(item.update().parentSpanId());
+                assertThat(actualEntity.input()).isEqualTo(item.update().input());
+                assertThat(actualEntity.output()).isEqualTo(item.update().output());
+                assertThat(actualEntity.name()).isEmpty();
+                assertThat(actualEntity.startTime()).isEqualTo(Instant.EPOCH);
+                assertThat(actualEntity.type()).isNull();
+                assertThat(actualEntity.createdBy()).isEqualTo(USER);
+            }
+
+            var partialSpan = updates.getFirst();
+            var newSpan = podamFactory.manufacturePojo(Span.class).toBuilder()
+                    .id(partialSpan.id())
+                    .projectName(projectName)
+                    .traceId(partialSpan.update().traceId())
+                    .parentSpanId(partialSpan.update().parentSpanId())
+                    .build();
+            createAndAssert(newSpan, API_KEY, TEST_WORKSPACE);
+
+            var actualEntity = getById(partialSpan.id(), TEST_WORKSPACE, API_KEY).readEntity(Span.class);
+            assertThat(actualEntity.name()).isEqualTo(newSpan.name());
+            assertThat(actualEntity.startTime()).isEqualTo(newSpan.startTime());
+            assertThat(actualEntity.input()).isEqualTo(partialSpan.update().input());
+            assertThat(actualEntity.output()).isEqualTo(partialSpan.update().output());
+        }
+
+        @Test
+        @DisplayName("when span ids are duplicated, then return 422")
+        void batchUpdate__whenSpanIdsAreDuplicated__thenReturn422() {
+            var id = generator.generate();
+            var item = SpanBatchUpdate.SpanBatchUpdateItem.builder()
+                    .id(id)
+                    .update(podamFactory.manufacturePojo(SpanUpdate.class).toBuilder().projectId(null).build())
+                    .build();
+
+            try (var actualResponse = runBatchPatch(SpanBatchUpdate.builder().updates(List.of(item, item)).build())) {
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(422);
+                assertThat(actualResponse.readEntity(ErrorMessage.class).errors())
+                        .contains("Duplicate span id '%s'".formatted(id));
+            }
+        }
+
+        @Test
+        @DisplayName("when project does not match, then return 409 and update nothing")
+        void batchUpdate__whenProjectDoesNotMatch__thenReturn409AndUpdateNothing() {
+            var spans = PodamFactoryUtils.manufacturePojoList(podamFactory, Span.class).stream()
+                    .limit(2)
+                    .map(span -> span.toBuilder()
+                            .projectName(null)
+                            .parentSpanId(null)
+                            .feedbackScores(null)
+                            .build())
+                    .toList();
+            batchCreateAndAssert(spans, API_KEY, TEST_WORKSPACE);
+
+            var matching = SpanBatchUpdate.SpanBatchUpdateItem.builder()
+                    .id(spans.getFirst().id())
+                    .update(SpanUpdate.builder()
+                            .traceId(spans.getFirst().traceId())
+                            .output(JsonUtils.getJsonNodeFromString("{ \"output\": \"data\"}"))
+                            .build())
+                    .build();
+            var conflicting = SpanBatchUpdate.SpanBatchUpdateItem.builder()
+                    .id(spans.getLast().id())
+                    .update(SpanUpdate.builder()
+                            .projectName(UUID.randomUUID().toString())
+                            .traceId(spans.getLast().traceId())
+                            .build())
+                    .build();
+
+            try (var actualResponse = runBatchPatch(
+                    SpanBatchUpdate.builder().updates(List.of(matching, conflicting)).build())) {
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(409);
+                assertThat(actualResponse.readEntity(ErrorMessage.class).errors())
+                        .contains(SpanService.PROJECT_AND_WORKSPACE_NAME_MISMATCH);
+            }
+
+            getAndAssert(spans.getFirst(), API_KEY, TEST_WORKSPACE);
+        }
+    }
+
     private Response getById(UUID id, String workspaceName, String apiKey) {
         return client.target(URL_TEMPLATE.formatted(baseURI))
                 .path(id.toString())
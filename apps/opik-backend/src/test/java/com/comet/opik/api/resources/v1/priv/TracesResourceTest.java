@@ -15,6 +15,7 @@ import com.comet.opik.api.Span;
 import com.comet.opik.api.SpanBatch;
 import com.comet.opik.api.Trace;
 import com.comet.opik.api.TraceBatch;
+import com.comet.opik.api.TraceBatchUpdate;
 import com.comet.opik.api.TraceUpdate;
 import com.comet.opik.api.error.ErrorMessage;
 import com.comet.opik.api.filter.Field;
@@ -37,6 +38,7 @@ import com.comet.opik.api.resources.utils.resources.SpanResourceClient;
 import com.comet.opik.api.resources.utils.resources.TraceResourceClient;
 import com.comet.opik.domain.FeedbackScoreMapper;
 import com.comet.opik.domain.SpanType;
+import com.comet.opik.domain.TraceService;
 import com.comet.opik.domain.cost.CostService;
 import com.comet.opik.infrastructure.auth.RequestContext;
 import com.comet.opik.podam.PodamFactoryUtils;
@@ -4315,6 +4317,178 @@ class TracesResourceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Batch Update:")
+    @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+    class BatchUpdateTraces {
+
+        private Response runBatchPatch(TraceBatchUpdate batch) {
+            return client.target(URL_TEMPLATE.formatted(baseURI))
+                    .path("batch")
+                    .request()
+                    .header(HttpHeaders.AUTHORIZATION, API_KEY)
+                    .header(WORKSPACE_HEADER, TEST_WORKSPACE)
+                    .method(HttpMethod.PATCH, Entity.json(batch));
+        }
+
+        private List<Trace> createTraces(String projectName) {
+            var traces = PodamFactoryUtils.manufacturePojoList(factory, Trace.class).stream()
+                    .map(trace -> trace.toBuilder()
+                            .projectName(projectName)
+                            .usage(null)
+                            .feedbackScores(null)
+                            .build())
+                    .toList();
+            traceResourceClient.batchCreateTraces(traces, API_KEY, TEST_WORKSPACE);
+            return traces;
+        }
+
+        @Test
+        @DisplayName("when traces exist or not, then update existing and create missing")
+        void batchUpdate__whenTracesExistOrNot__thenUpdateExistingAndCreateMissing() {
+            var projectName = RandomStringUtils.randomAlphanumeric(10);
+            var traces = createTraces(projectName);
+
+            var updates = traces.stream()
+                    .map(trace -> TraceBatchUpdate.TraceBatchUpdateItem.builder()
+                            .id(trace.id())
+                            .update(TraceUpdate.builder()
+                                    .projectName(projectName)
+                                    .endTime(Instant.now())
+                                    .output(JsonUtils.getJsonNodeFromString("{ \"output\": \"%s\"}"
+                                            .formatted(trace.id())))
+                                    .tags(Set.of("tag1", "tag2"))
+                                    .build())
+                            .build())
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            var missingId = generator.generate();
+            var missingUpdate = factory.manufacturePojo(TraceUpdate.class).toBuilder()
+                    .projectId(null)
+                    .build();
+            updates.add(TraceBatchUpdate.TraceBatchUpdateItem.builder().id(missingId).update(missingUpdate).build());
+
+            try (var actualResponse = runBatchPatch(TraceBatchUpdate.builder().updates(updates).build())) {
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(204);
+                assertThat(actualResponse.hasEntity()).isFalse();
+            }
+
+            for (int i = 0; i < traces.size(); i++) {
+                var trace = traces.get(i);
+                var traceUpdate = updates.get(i).update();
+                var actualEntity = traceResourceClient.getById(trace.id(), TEST_WORKSPACE, API_KEY);
+
+                assertThat(actualEntity.output()).isEqualTo(traceUpdate.output());
+                assertThat(actualEntity.endTime()).isEqualTo(traceUpdate.endTime());
+                assertThat(actualEntity.tags()).isEqualTo(traceUpdate.tags());
+                // Fields not in the update are kept from the existing trace
+                assertThat(actualEntity.name()).isEqualTo(trace.name());
+                assertThat(actualEntity.input()).isEqualTo(trace.input());
+                assertThat(actualEntity.startTime()).isEqualTo(trace.startTime());
+                assertThat(actualEntity.createdBy()).isEqualTo(USER);
+                assertThat(actualEntity.createdAt()).isBefore(actualEntity.lastUpdatedAt());
+            }
+
+            var actualEntity = traceResourceClient.getById(missingId, TEST_WORKSPACE, API_KEY);
+            assertThat(actualEntity.id()).isEqualTo(missingId);
+            assertThat(actualEntity.projectId())
+                    .isEqualTo(getProjectId(missingUpdate.projectName(), TEST_WORKSPACE, API_KEY));
+            assertThat(actualEntity.input()).isEqualTo(missingUpdate.input());
+            assertThat(actualEntity.output()).isEqualTo(missingUpdate.output());
+        }
+
+        @Test
+        @DisplayName("when traces are missing, then insert them partially and merge them with their creation")
+        void batchUpdate__whenTracesAreMissing__thenInsertPartiallyAndMergeWithCreation() {
+            var projectName = RandomStringUtils.randomAlphanumeric(10);
+            var updates = IntStream.range(0, 5)
+                    .mapToObj(i -> TraceBatchUpdate.TraceBatchUpdateItem.builder()
+                            .id(generator.generate())
+                            .update(factory.manufacturePojo(TraceUpdate.class).toBuilder()
+                                    .projectId(null)
+                                    .projectName(projectName)
+                                    .build())
+                            .build())
+                    .toList();
+
+            try (var actualResponse = runBatchPatch(TraceBatchUpdate.builder().updates(updates).build())) {
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(204);
+            }
+
+            for (var item : updates) {
+                var actualEntity = traceResourceClient.getById(item.id(), TEST_WORKSPACE, API_KEY);
+                assertThat(actualEntity.input()).isEqualTo(item.update().input());
+                assertThat(actualEntity.output()).isEqualTo(item.update().output());
+                assertThat(actualEntity.tags()).isEqualTo(item.update().tags());
+                assertThat(actualEntity.name()).isEmpty();
+                assertThat(actualEntity.startTime()).isEqualTo(Instant.EPOCH);
+                assertThat(actualEntity.createdBy()).isEqualTo(USER);
+            }
+
+            var partialTrace = updates.getFirst();
+            var newTrace = factory.manufacturePojo(Trace.class).toBuilder()
+                    .id(partialTrace.id())
+                    .projectName(projectName)
+                    .usage(null)
+                    .feedbackScores(null)
+                    .build();
+            create(newTrace, API_KEY, TEST_WORKSPACE);
+
+            var actualEntity = traceResourceClient.getById(partialTrace.id(), TEST_WORKSPACE, API_KEY);
+            assertThat(actualEntity.name()).isEqualTo(newTrace.name());
+            assertThat(actualEntity.startTime()).isEqualTo(newTrace.startTime());
+            assertThat(actualEntity.input()).isEqualTo(partialTrace.update().input());
+            assertThat(actualEntity.output()).isEqualTo(partialTrace.update().output());
+        }
+
+        @Test
+        @DisplayName("when trace ids are duplicated, then return 422")
+        void batchUpdate__whenTraceIdsAreDuplicated__thenReturn422() {
+            var id = generator.generate();
+            var item = TraceBatchUpdate.TraceBatchUpdateItem.builder()
+                    .id(id)
+                    .update(factory.manufacturePojo(TraceUpdate.class).toBuilder().projectId(null).build())
+                    .build();
+
+            try (var actualResponse = runBatchPatch(TraceBatchUpdate.builder().updates(List.of(item, item)).build())) {
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(422);
+                assertThat(actualResponse.readEntity(com.comet.opik.api.error.ErrorMessage.class).errors())
+                        .contains("Duplicate trace id '%s'".formatted(id));
+            }
+        }
+
+        @Test
+        @DisplayName("when project does not match, then return 409 and update nothing")
+        void batchUpdate__whenProjectDoesNotMatch__thenReturn409AndUpdateNothing() {
+            var projectName = RandomStringUtils.randomAlphanumeric(10);
+            var traces = createTraces(projectName);
+
+            var matching = TraceBatchUpdate.TraceBatchUpdateItem.builder()
+                    .id(traces.getFirst().id())
+                    .update(TraceUpdate.builder()
+                            .projectName(projectName)
+                            .output(JsonUtils.getJsonNodeFromString("{ \"output\": \"data\"}"))
+                            .build())
+                    .build();
+            var conflicting = TraceBatchUpdate.TraceBatchUpdateItem.builder()
+                    .id(traces.getLast().id())
+                    .update(TraceUpdate.builder()
+                            .projectName(RandomStringUtils.randomAlphanumeric(10))
+                            .build())
+                    .build();
+
+            try (var actualResponse = runBatchPatch(
+                    TraceBatchUpdate.builder().updates(List.of(matching, conflicting)).build())) {
+                assertThat(actualResponse.getStatusInfo().getStatusCode()).isEqualTo(409);
+                assertThat(actualResponse.readEntity(com.comet.opik.api.error.ErrorMessage.class).errors())
+                        .contains(TraceService.PROJECT_NAME_AND_WORKSPACE_NAME_MISMATCH);
+            }
+
+            var actualEntity = traceResourceClient.getById(traces.getFirst().id(), TEST_WORKSPACE, API_KEY);
+            assertThat(actualEntity.output()).isEqualTo(traces.getFirst().output());
+        }
+    }
+
     @Nested
     @DisplayName("Update:")
     @TestInstance(TestInstance.Lifecycle.PER_CLASS)
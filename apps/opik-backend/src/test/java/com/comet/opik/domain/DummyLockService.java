@@ -5,6 +5,7 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.Collection;
 
 public class DummyLockService implements LockService {
 
@@ -22,4 +23,9 @@ public class DummyLockService implements LockService {
     public <T> Mono<T> executeWithLockCustomExpire(LockService.Lock lock, Mono<T> action, Duration duration) {
         return action;
     }
-}
\ No newline at end of file
+
+    @Override
+    public <T> Mono<T> executeWithLocks(Collection<LockService.Lock> locks, Mono<T> action) {
+        return action;
+    }
+}
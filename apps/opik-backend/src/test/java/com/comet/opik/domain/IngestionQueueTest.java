@@ -0,0 +1,179 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Span;
+import com.comet.opik.api.SpanBatch;
+import com.comet.opik.api.Trace;
+import com.comet.opik.api.TraceBatch;
+import com.comet.opik.api.resources.utils.ClickHouseContainerUtils;
+import com.comet.opik.api.resources.utils.MigrationUtils;
+import com.comet.opik.api.resources.utils.MySQLContainerUtils;
+import com.comet.opik.api.resources.utils.RedisContainerUtils;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.podam.PodamFactoryUtils;
+import com.redis.testcontainers.RedisContainer;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.api.StreamMessageId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.testcontainers.clickhouse.ClickHouseContainer;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.lifecycle.Startables;
+import org.testcontainers.shaded.org.awaitility.Awaitility;
+import reactor.core.publisher.Mono;
+import ru.vyarus.dropwizard.guice.test.jupiter.ext.TestDropwizardAppExtension;
+import uk.co.jemos.podam.api.PodamFactory;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.comet.opik.api.resources.utils.ClickHouseContainerUtils.DATABASE_NAME;
+import static com.comet.opik.api.resources.utils.MigrationUtils.CLICKHOUSE_CHANGELOG_FILE;
+import static com.comet.opik.api.resources.utils.TestDropwizardAppExtensionUtils.AppContextConfig;
+import static com.comet.opik.api.resources.utils.TestDropwizardAppExtensionUtils.CustomConfig;
+import static com.comet.opik.api.resources.utils.TestDropwizardAppExtensionUtils.newTestDropwizardAppExtension;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class IngestionQueueTest {
+
+    private static final String USER = UUID.randomUUID().toString();
+    private static final String WORKSPACE_ID = UUID.randomUUID().toString();
+
+    private static final RedisContainer REDIS = RedisContainerUtils.newRedisContainer();
+    private static final MySQLContainer<?> MYSQL = MySQLContainerUtils.newMySQLContainer();
+    private static final ClickHouseContainer CLICKHOUSE = ClickHouseContainerUtils.newClickHouseContainer();
+
+    @RegisterExtension
+    private static final TestDropwizardAppExtension app;
+
+    static {
+        Startables.deepStart(REDIS, MYSQL, CLICKHOUSE).join();
+
+        var databaseAnalyticsFactory = ClickHouseContainerUtils.newDatabaseAnalyticsFactory(
+                CLICKHOUSE, DATABASE_NAME);
+
+        try {
+            MigrationUtils.runDbMigration(MYSQL.createConnection(""), MySQLContainerUtils.migrationParameters());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        try (var connection = CLICKHOUSE.createConnection("")) {
+            MigrationUtils.runDbMigration(connection, CLICKHOUSE_CHANGELOG_FILE,
+                    ClickHouseContainerUtils.migrationParameters());
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        app = newTestDropwizardAppExtension(
+                AppContextConfig.builder()
+                        .jdbcUrl(MYSQL.getJdbcUrl())
+                        .databaseAnalyticsFactory(databaseAnalyticsFactory)
+                        .redisUrl(REDIS.getRedisURI())
+                        .customConfigs(List.of(
+                                new CustomConfig("ingestion.queue.enabled", "true"),
+                                new CustomConfig("ingestion.queue.streamName", "test_ingestion_queue"),
+                                new CustomConfig("ingestion.queue.pollingInterval", "PT0.05S"),
+                                new CustomConfig("ingestion.queue.maxRetries", "0"),
+                                new CustomConfig("ingestion.queue.claimIdleTime", "PT0.2S"),
+                                new CustomConfig("ingestion.queue.maxDeliveries", "2"),
+                                new CustomConfig("ingestion.queue.deadLetterStreamName",
+                                        "test_ingestion_queue_dead_letter")))
+                        .build());
+    }
+
+    private final PodamFactory podamFactory = PodamFactoryUtils.newPodamFactory();
+
+    private <T> Mono<T> withContext(Mono<T> mono) {
+        return mono.contextWrite(ctx -> ctx.put(RequestContext.USER_NAME, USER)
+                .put(RequestContext.WORKSPACE_ID, WORKSPACE_ID));
+    }
+
+    @Test
+    void enqueueSpans__whenDrained__thenSpansAreCreated(IngestionQueue ingestionQueue, SpanService spanService) {
+        var spans = podamFactory.manufacturePojoList(Span.class, 5).stream()
+                .map(span -> span.toBuilder()
+                        .projectId(null)
+                        .feedbackScores(null)
+                        .build())
+                .toList();
+
+        var queued = withContext(ingestionQueue.enqueue(SpanBatch.builder().spans(spans).build())).block();
+
+        assertThat(queued).isTrue();
+
+        Awaitility.await()
+                .atMost(10, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> spans.forEach(span -> assertThat(
+                        withContext(spanService.getById(span.id()).onErrorResume(__ -> Mono.empty())).block())
+                        .isNotNull()));
+    }
+
+    @Test
+    void enqueueTraces__whenDrained__thenTracesAreCreated(IngestionQueue ingestionQueue,
+            TraceService traceService) {
+        var trace = podamFactory.manufacturePojo(Trace.class).toBuilder()
+                .id(null)
+                .projectId(null)
+                .feedbackScores(null)
+                .build();
+        var identified = podamFactory.manufacturePojo(Trace.class).toBuilder()
+                .projectId(null)
+                .feedbackScores(null)
+                .build();
+
+        var queued = withContext(ingestionQueue.enqueue(TraceBatch.builder().traces(List.of(trace, identified))
+                .build())).block();
+
+        assertThat(queued).isTrue();
+
+        Awaitility.await()
+                .atMost(10, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> assertThat(
+                        withContext(traceService.get(identified.id()).onErrorResume(__ -> Mono.empty())).block())
+                        .isNotNull());
+    }
+
+    @Test
+    void enqueue__whenWriteKeepsFailing__thenBatchIsMovedToDeadLetterStream(IngestionQueue ingestionQueue,
+            RedissonReactiveClient redisClient) {
+        var workspaceId = UUID.randomUUID().toString();
+        var stream = redisClient.<String, IngestionBatch>getStream("test_ingestion_queue", IngestionQueue.CODEC);
+        var deadLetterStream = redisClient.<String, IngestionBatch>getStream("test_ingestion_queue_dead_letter",
+                IngestionQueue.CODEC);
+
+        // An empty batch is rejected by the trace service on every delivery
+        var queued = ingestionQueue.enqueue(TraceBatch.builder().traces(List.of()).build())
+                .contextWrite(ctx -> ctx.put(RequestContext.USER_NAME, USER)
+                        .put(RequestContext.WORKSPACE_ID, workspaceId))
+                .block();
+
+        assertThat(queued).isTrue();
+
+        Awaitility.await()
+                .atMost(10, TimeUnit.SECONDS)
+                .pollInterval(100, TimeUnit.MILLISECONDS)
+                .untilAsserted(() -> assertThat(batches(deadLetterStream.range(StreamMessageId.MIN,
+                        StreamMessageId.MAX).block()))
+                        .anySatisfy(batch -> {
+                            assertThat(batch.workspaceId()).isEqualTo(workspaceId);
+                            assertThat(batch.userName()).isEqualTo(USER);
+                            assertThat(batch.traces()).isEmpty();
+                        }));
+
+        assertThat(batches(stream.range(StreamMessageId.MIN, StreamMessageId.MAX).block()))
+                .noneMatch(batch -> workspaceId.equals(batch.workspaceId()));
+    }
+
+    private List<IngestionBatch> batches(Map<StreamMessageId, Map<String, IngestionBatch>> messages) {
+        return messages.values().stream()
+                .map(message -> message.get(IngestionQueue.PAYLOAD_FIELD))
+                .toList();
+    }
+}
@@ -0,0 +1,102 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
+
+class InsertCoalescerTest {
+
+    private static class TestCoalescer extends InsertCoalescer<Integer> {
+        TestCoalescer(IngestionConfig.CoalescerConfig config, Function<List<Integer>, Mono<Long>> bulkInsert) {
+            super("test", config, bulkInsert);
+        }
+    }
+
+    private static IngestionConfig.CoalescerConfig config(Duration window, int maxBatchSize) {
+        var config = new IngestionConfig.CoalescerConfig();
+        config.setEnabled(true);
+        config.setWindow(window);
+        config.setMaxBatchSize(maxBatchSize);
+        return config;
+    }
+
+    private static Mono<Void> add(TestCoalescer coalescer, int value, String workspaceId) {
+        return coalescer.add(value)
+                .contextWrite(ctx -> ctx.put(RequestContext.USER_NAME, "user")
+                        .put(RequestContext.WORKSPACE_ID, workspaceId));
+    }
+
+    @Test
+    @DisplayName("when the buffer reaches the max batch size, then flush all entities in a single bulk insert")
+    void add__whenMaxBatchSizeReached__thenFlushInSingleBulkInsert() {
+        var flushes = new CopyOnWriteArrayList<List<Integer>>();
+        var coalescer = new TestCoalescer(config(Duration.ofMinutes(1), 3), entities -> {
+            flushes.add(entities);
+            return Mono.just((long) entities.size());
+        });
+
+        Flux.range(0, 3)
+                .flatMap(value -> add(coalescer, value, "workspace"))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(flushes).hasSize(1);
+        assertThat(flushes.getFirst()).containsExactlyInAnyOrder(0, 1, 2);
+    }
+
+    @Test
+    @DisplayName("when the window elapses, then flush buffered entities per workspace")
+    void add__whenWindowElapses__thenFlushPerWorkspace() {
+        var flushes = new CopyOnWriteArrayList<List<Integer>>();
+        var coalescer = new TestCoalescer(config(Duration.ofMillis(20), 100), entities -> Mono.deferContextual(
+                ctx -> {
+                    assertThat(ctx.<String>get(RequestContext.WORKSPACE_ID)).startsWith("workspace");
+                    flushes.add(entities);
+                    return Mono.just((long) entities.size());
+                }));
+
+        Flux.merge(add(coalescer, 1, "workspace-1"), add(coalescer, 2, "workspace-2"),
+                add(coalescer, 3, "workspace-1"))
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(flushes).hasSize(2);
+        assertThat(flushes).anySatisfy(flush -> assertThat(flush).containsExactlyInAnyOrder(1, 3));
+        assertThat(flushes).anySatisfy(flush -> assertThat(flush).containsExactly(2));
+    }
+
+    @Test
+    @DisplayName("when buffers are flushed, then remove them")
+    void add__whenFlushed__thenRemoveBuffers() {
+        var coalescer = new TestCoalescer(config(Duration.ofMillis(20), 2),
+                entities -> Mono.just((long) entities.size()));
+
+        Flux.range(0, 10)
+                .flatMap(value -> add(coalescer, value, "workspace-" + (value % 5)))
+                .blockLast(Duration.ofSeconds(5));
+
+        // Buffers with a window flush scheduled are removed once it runs
+        await().atMost(Duration.ofSeconds(1)).untilAsserted(() -> assertThat(coalescer.bufferCount()).isZero());
+    }
+
+    @Test
+    @DisplayName("when the bulk insert fails, then fail every coalesced caller")
+    void add__whenBulkInsertFails__thenFailEveryCaller() {
+        var coalescer = new TestCoalescer(config(Duration.ofMillis(20), 100),
+                entities -> Mono.error(new IllegalStateException("insert failed")));
+
+        assertThatThrownBy(() -> add(coalescer, 1, "workspace").block(Duration.ofSeconds(5)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("insert failed");
+    }
+}
@@ -0,0 +1,218 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Span;
+import com.comet.opik.api.StreamIngestionReport;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.infrastructure.RateLimitConfig;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.infrastructure.ratelimit.RateLimitService;
+import com.comet.opik.podam.PodamFactoryUtils;
+import com.comet.opik.utils.JsonUtils;
+import io.dropwizard.jersey.validation.Validators;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import uk.co.jemos.podam.api.PodamFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+class NdjsonIngestorTest {
+
+    private final PodamFactory podamFactory = PodamFactoryUtils.newPodamFactory();
+
+    private static final String API_KEY = "api-key";
+
+    private NdjsonIngestor newIngestor(int chunkSize, int maxReportedErrors) {
+        return newIngestor(chunkSize, maxReportedErrors, new IngestionConfig.StreamConfig().getMaxLineLength(),
+                new RateLimitConfig(), null);
+    }
+
+    private NdjsonIngestor newIngestor(int chunkSize, int maxReportedErrors, int maxLineLength,
+            RateLimitConfig rateLimitConfig, RateLimitService rateLimitService) {
+        var ingestionConfig = new IngestionConfig();
+        ingestionConfig.getStream().setChunkSize(chunkSize);
+        ingestionConfig.getStream().setMaxReportedErrors(maxReportedErrors);
+        ingestionConfig.getStream().setMaxLineLength(maxLineLength);
+
+        var requestContext = new RequestContext();
+        requestContext.setApiKey(API_KEY);
+
+        return new NdjsonIngestor(ingestionConfig, rateLimitConfig, () -> rateLimitService, () -> requestContext,
+                Validators.newValidator());
+    }
+
+    private Span newSpan() {
+        return podamFactory.manufacturePojo(Span.class).toBuilder()
+                .projectId(null)
+                .feedbackScores(null)
+                .build();
+    }
+
+    private static ByteArrayInputStream ndjson(List<String> lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private StreamIngestionReport ingest(NdjsonIngestor ingestor, List<String> lines, List<List<Span>> chunks) {
+        return ingestor.ingest(ndjson(lines), Span.class, Span.View.Write.class, Span::id, chunk -> {
+            chunks.add(chunk);
+            return Mono.just((long) chunk.size());
+        });
+    }
+
+    @Test
+    void ingest__whenValidLines__thenWriteInChunks() {
+        var spans = podamFactory.manufacturePojoList(Span.class, 5).stream()
+                .map(span -> span.toBuilder().projectId(null).feedbackScores(null).build())
+                .toList();
+        var lines = new ArrayList<>(spans.stream().map(JsonUtils::writeValueAsString).toList());
+        lines.add(2, "   ");
+        List<List<Span>> chunks = new CopyOnWriteArrayList<>();
+
+        var report = ingest(newIngestor(2, 10), lines, chunks);
+
+        assertThat(report.received()).isEqualTo(5);
+        assertThat(report.created()).isEqualTo(5);
+        assertThat(report.failed()).isZero();
+        assertThat(report.errors()).isEmpty();
+        assertThat(report.stopReason()).isNull();
+        assertThat(chunks).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(chunks.stream().flatMap(List::stream).map(Span::id).toList())
+                .containsExactlyElementsOf(spans.stream().map(Span::id).toList());
+    }
+
+    @Test
+    void ingest__whenInvalidLines__thenReportThemAndWriteTheRest() {
+        var span = newSpan();
+        var duplicate = newSpan().toBuilder().id(span.id()).build();
+        var invalid = newSpan().toBuilder().name(null).build();
+        var lines = List.of(
+                JsonUtils.writeValueAsString(span),
+                "{not json",
+                JsonUtils.writeValueAsString(invalid),
+                JsonUtils.writeValueAsString(duplicate),
+                JsonUtils.writeValueAsString(newSpan()));
+        List<List<Span>> chunks = new CopyOnWriteArrayList<>();
+
+        var report = ingest(newIngestor(10, 10), lines, chunks);
+
+        assertThat(report.received()).isEqualTo(5);
+        assertThat(report.created()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(3);
+        assertThat(report.errors()).extracting(StreamIngestionReport.LineError::line).containsExactly(2L, 3L, 4L);
+        assertThat(report.errors().get(1).message()).contains("name");
+        assertThat(report.errors().get(2).message()).contains("Duplicate id");
+    }
+
+    @Test
+    void ingest__whenChunkWriteFails__thenReportItsLinesAndWriteTheNextChunks() {
+        var lines = List.of(
+                JsonUtils.writeValueAsString(newSpan()),
+                JsonUtils.writeValueAsString(newSpan()),
+                JsonUtils.writeValueAsString(newSpan()));
+        var writes = new ArrayList<Integer>();
+
+        var report = newIngestor(2, 1).ingest(ndjson(lines), Span.class, Span.View.Write.class, Span::id,
+                chunk -> {
+                    writes.add(chunk.size());
+                    return writes.size() == 1
+                            ? Mono.error(new IllegalStateException("ClickHouse unavailable"))
+                            : Mono.just((long) chunk.size());
+                });
+
+        assertThat(writes).containsExactly(2, 1);
+        assertThat(report.created()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(2);
+        // Errors are truncated to the configured maximum
+        assertThat(report.errors()).hasSize(1);
+        assertThat(report.errors().getFirst().message()).contains("ClickHouse unavailable");
+    }
+
+    @Test
+    void ingest__whenRateLimitIsExceeded__thenReportTheChunkAndStopReading() {
+        var rateLimitConfig = new RateLimitConfig();
+        rateLimitConfig.setEnabled(true);
+        rateLimitConfig.setGeneralLimit(new RateLimitConfig.LimitConfig(3, 60));
+
+        var rateLimitService = Mockito.mock(RateLimitService.class);
+        var state = new RateLimitService.LimitState(0, 1000);
+        Mockito.when(rateLimitService.tryAcquire(eq(API_KEY), anyLong(), anyString(), any()))
+                .thenReturn(Mono.just(new RateLimitService.Decision(false, state)))
+                .thenReturn(Mono.just(new RateLimitService.Decision(true, state)));
+
+        var lines = List.of(
+                JsonUtils.writeValueAsString(newSpan()),
+                JsonUtils.writeValueAsString(newSpan()),
+                JsonUtils.writeValueAsString(newSpan()),
+                JsonUtils.writeValueAsString(newSpan()),
+                JsonUtils.writeValueAsString(newSpan()));
+        List<List<Span>> chunks = new CopyOnWriteArrayList<>();
+
+        var report = ingest(newIngestor(2, 10, 100_000, rateLimitConfig, rateLimitService), lines, chunks);
+
+        assertThat(chunks).extracting(List::size).containsExactly(2);
+        assertThat(report.received()).isEqualTo(4);
+        assertThat(report.created()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(2);
+        assertThat(report.errors()).extracting(StreamIngestionReport.LineError::line).containsExactly(3L, 4L);
+        assertThat(report.stopReason()).contains("rest of the stream");
+        Mockito.verify(rateLimitService, Mockito.times(2))
+                .tryAcquire(eq(API_KEY), eq(2L), eq("general_events"), eq(rateLimitConfig.getGeneralLimit()));
+    }
+
+    @Test
+    void ingest__whenLineIsTooLong__thenReportItAndWriteTheRest() {
+        var span = newSpan();
+        var line = JsonUtils.writeValueAsString(span);
+        var ingestor = newIngestor(10, 10, line.length(), new RateLimitConfig(), null);
+        var tooLong = JsonUtils.writeValueAsString(newSpan().toBuilder().name("a".repeat(line.length())).build());
+        // A carriage return ending the line doesn't count towards the maximum length
+        var lines = List.of(tooLong, line + "\r");
+        List<List<Span>> chunks = new CopyOnWriteArrayList<>();
+
+        var report = ingest(ingestor, lines, chunks);
+
+        assertThat(report.received()).isEqualTo(2);
+        assertThat(report.created()).isEqualTo(1);
+        assertThat(report.errors()).extracting(StreamIngestionReport.LineError::line).containsExactly(1L);
+        assertThat(report.errors().getFirst().message()).contains("maximum length");
+        assertThat(chunks.getFirst()).extracting(Span::id).containsExactly(span.id());
+    }
+
+    @Test
+    void ingest__whenStreamIsCut__thenWriteTheLinesReadAndReportWhyItStopped() {
+        var span = newSpan();
+        var cut = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        var input = new SequenceInputStream(ndjson(List.of(JsonUtils.writeValueAsString(span), "")), cut);
+        List<List<Span>> chunks = new CopyOnWriteArrayList<>();
+
+        var report = newIngestor(10, 10).ingest(input, Span.class, Span.View.Write.class, Span::id, chunk -> {
+            chunks.add(chunk);
+            return Mono.just((long) chunk.size());
+        });
+
+        assertThat(report.received()).isEqualTo(1);
+        assertThat(report.created()).isEqualTo(1);
+        assertThat(report.failed()).isZero();
+        assertThat(report.errors()).isEmpty();
+        assertThat(report.stopReason()).contains("Connection reset");
+        assertThat(chunks.getFirst()).extracting(Span::id).containsExactly(span.id());
+    }
+}
@@ -0,0 +1,187 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Project;
+import com.comet.opik.api.error.EntityAlreadyExistsException;
+import com.comet.opik.api.error.ErrorMessage;
+import com.comet.opik.infrastructure.IngestionConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.redisson.api.RTopicReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.Codec;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+class ProjectResolutionCacheTest {
+
+    private static final String WORKSPACE_ID = UUID.randomUUID().toString();
+
+    private RTopicReactive topic;
+    private ProjectResolutionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        topic = Mockito.mock(RTopicReactive.class);
+        Mockito.when(topic.addListener(eq(ProjectResolutionCache.Invalidation.class), any()))
+                .thenReturn(Mono.just(1));
+        Mockito.when(topic.publish(any())).thenReturn(Mono.just(1L));
+
+        var redisClient = Mockito.mock(RedissonReactiveClient.class);
+        Mockito.when(redisClient.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+
+        var ingestionConfig = new IngestionConfig();
+        ingestionConfig.getProjectCache().setEnabled(true);
+
+        cache = new ProjectResolutionCache(ingestionConfig, () -> redisClient);
+    }
+
+    private static Project project(String name) {
+        return Project.builder().id(UUID.randomUUID()).name(name).build();
+    }
+
+    @Test
+    void get__whenConcurrentMisses__thenLoadOnce() throws Exception {
+        var project = project("my-project");
+        var loads = new AtomicInteger();
+        var start = new CountDownLatch(1);
+
+        try (var executor = Executors.newFixedThreadPool(8)) {
+            var futures = IntStream.range(0, 8)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException exception) {
+                            throw new IllegalStateException(exception);
+                        }
+                        return cache.get(WORKSPACE_ID, i % 2 == 0 ? "my-project" : "MY-PROJECT", () -> {
+                            loads.incrementAndGet();
+                            Thread.sleep(50);
+                            return project;
+                        });
+                    }, executor))
+                    .toList();
+
+            start.countDown();
+
+            for (var future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(project);
+            }
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void get__whenLoaderFails__thenPropagateUnwrappedAndDoNotCache() {
+        var conflict = new EntityAlreadyExistsException(new ErrorMessage(List.of("Project already exists")));
+
+        assertThatThrownBy(() -> cache.get(WORKSPACE_ID, "conflicting", () -> {
+            throw conflict;
+        })).isSameAs(conflict);
+
+        var project = project("conflicting");
+        assertThat(cache.get(WORKSPACE_ID, "conflicting", () -> project)).isEqualTo(project);
+    }
+
+    @Test
+    void getAll__whenPartiallyCached__thenLoadOnlyMissing() {
+        var cached = project("cached");
+        var missing = project("Missing");
+        cache.get(WORKSPACE_ID, "cached", () -> cached);
+
+        var requested = new AtomicInteger();
+        var projects = cache.getAll(WORKSPACE_ID, List.of("cached", "missing", "unknown"), names -> {
+            requested.addAndGet(names.size());
+            assertThat(names).containsExactly("missing", "unknown");
+            return List.of(missing);
+        });
+
+        assertThat(projects).containsExactlyInAnyOrder(cached, missing);
+        assertThat(requested).hasValue(2);
+
+        var again = cache.getAll(WORKSPACE_ID, List.of("cached", "missing"), names -> {
+            throw new AssertionError("Unexpected load of " + names);
+        });
+        assertThat(again).containsExactlyInAnyOrder(cached, missing);
+    }
+
+    @Test
+    void invalidate__thenEvictLocallyAndPublish() {
+        var project = project("invalidated");
+        var other = project("other");
+        cache.get(WORKSPACE_ID, "invalidated", () -> project);
+        cache.get(WORKSPACE_ID, "other", () -> other);
+
+        cache.invalidate(WORKSPACE_ID, Set.of(project.id()));
+
+        var reloaded = project("invalidated");
+        assertThat(cache.get(WORKSPACE_ID, "invalidated", () -> reloaded)).isEqualTo(reloaded);
+        assertThat(cache.get(WORKSPACE_ID, "other", () -> project("other"))).isEqualTo(other);
+        Mockito.verify(topic).publish(any(ProjectResolutionCache.Invalidation.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void invalidation__whenPublishedByAnotherNode__thenEvict() {
+        var project = project("remote");
+        cache.get(WORKSPACE_ID, "remote", () -> project);
+
+        var listener = ArgumentCaptor.forClass(MessageListener.class);
+        Mockito.verify(topic).addListener(eq(ProjectResolutionCache.Invalidation.class), listener.capture());
+
+        listener.getValue().onMessage("topic",
+                new ProjectResolutionCache.Invalidation(UUID.randomUUID().toString(), WORKSPACE_ID,
+                        Set.of(project.id())));
+
+        var reloaded = project("remote");
+        assertThat(cache.get(WORKSPACE_ID, "remote", () -> reloaded)).isEqualTo(reloaded);
+    }
+
+    @Test
+    void get__whenLoadedProjectHasOtherFields__thenCacheOnlyIdAndName() {
+        var project = project("detailed").toBuilder()
+                .description("description")
+                .lastUpdatedTraceAt(Instant.now())
+                .build();
+
+        var cached = cache.get(WORKSPACE_ID, "detailed", () -> project);
+
+        assertThat(cached).isEqualTo(Project.builder().id(project.id()).name(project.name()).build());
+        assertThat(cache.get(WORKSPACE_ID, "detailed", () -> project("detailed"))).isEqualTo(cached);
+    }
+
+    @Test
+    void invalidate__whenProjectCachedUnderSeveralNames__thenEvictOnlyItsKeysOfTheWorkspace() {
+        var project = project("renamed");
+        var otherWorkspaceId = UUID.randomUUID().toString();
+        cache.get(WORKSPACE_ID, "renamed", () -> project);
+        cache.get(WORKSPACE_ID, "previous-name", () -> project);
+        cache.get(otherWorkspaceId, "renamed", () -> project);
+
+        cache.invalidate(WORKSPACE_ID, Set.of(project.id()));
+
+        var reloaded = project("renamed");
+        assertThat(cache.get(WORKSPACE_ID, "renamed", () -> reloaded)).isEqualTo(reloaded);
+        assertThat(cache.get(WORKSPACE_ID, "previous-name", () -> reloaded)).isEqualTo(reloaded);
+        assertThat(cache.get(otherWorkspaceId, "renamed", () -> reloaded)).isEqualTo(project);
+    }
+}
@@ -0,0 +1,46 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.ProjectIdLastUpdated;
+import com.comet.opik.api.sorting.SortingFactoryProjects;
+import com.comet.opik.domain.sorting.SortingQueryBuilder;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.infrastructure.db.TransactionTemplateAsync;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.vyarus.guicey.jdbi3.tx.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static com.comet.opik.infrastructure.db.TransactionTemplateAsync.WRITE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class ProjectServiceImplTest {
+
+    private static final String WORKSPACE_ID = UUID.randomUUID().toString();
+
+    private final TransactionTemplate template = Mockito.mock(TransactionTemplate.class);
+    private final ProjectResolutionCache projectCache = Mockito.mock(ProjectResolutionCache.class);
+
+    private final ProjectServiceImpl projectService = new ProjectServiceImpl(
+            template,
+            Mockito.mock(IdGenerator.class),
+            () -> Mockito.mock(RequestContext.class),
+            Mockito.mock(TraceDAO.class),
+            Mockito.mock(TransactionTemplateAsync.class),
+            Mockito.mock(SortingFactoryProjects.class),
+            Mockito.mock(SortingQueryBuilder.class),
+            projectCache);
+
+    @Test
+    void recordLastUpdatedTrace__whenRecorded__thenDoNotInvalidateCachedProjects() {
+        projectService.recordLastUpdatedTrace(WORKSPACE_ID, List.of(
+                new ProjectIdLastUpdated(UUID.randomUUID(), Instant.now()),
+                new ProjectIdLastUpdated(UUID.randomUUID(), Instant.now())));
+
+        Mockito.verify(template).inTransaction(eq(WRITE), any());
+        Mockito.verifyNoInteractions(projectCache);
+    }
+}
@@ -0,0 +1,165 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.api.Span;
+import com.comet.opik.api.Trace;
+import com.comet.opik.api.resources.utils.ClickHouseContainerUtils;
+import com.comet.opik.api.resources.utils.MigrationUtils;
+import com.comet.opik.domain.filter.FilterQueryBuilder;
+import com.comet.opik.infrastructure.IngestionConfig;
+import com.comet.opik.infrastructure.auth.RequestContext;
+import com.comet.opik.infrastructure.db.TransactionTemplateAsync;
+import com.comet.opik.podam.PodamFactoryUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.testcontainers.clickhouse.ClickHouseContainer;
+import reactor.core.publisher.Mono;
+import uk.co.jemos.podam.api.PodamFactory;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Writes spans and traces through the RowBinary format and reads them back with the regular DAO queries.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RowBinaryInsertTest {
+
+    private static final String USER_NAME = "user";
+    private static final String QUERY_PARAMETERS = "health_check_interval=2000&compress=1&auto_discovery=true" +
+            "&failover=3&custom_http_params=max_query_size=100000000";
+
+    private final ClickHouseContainer clickHouseContainer = ClickHouseContainerUtils.newClickHouseContainer();
+    private final PodamFactory podamFactory = PodamFactoryUtils.newPodamFactory();
+
+    private SpanDAO spanDAO;
+    private TraceDAO traceDAO;
+    private TransactionTemplateAsync template;
+
+    @BeforeAll
+    void setUpAll() throws SQLException {
+        clickHouseContainer.start();
+        try (var connection = clickHouseContainer.createConnection("")) {
+            MigrationUtils.runDbMigration(connection, MigrationUtils.CLICKHOUSE_CHANGELOG_FILE,
+                    ClickHouseContainerUtils.migrationParameters());
+        }
+
+        var databaseAnalyticsFactory = ClickHouseContainerUtils
+                .newDatabaseAnalyticsFactory(clickHouseContainer, ClickHouseContainerUtils.DATABASE_NAME);
+        databaseAnalyticsFactory.setQueryParameters(QUERY_PARAMETERS);
+        var connectionFactory = databaseAnalyticsFactory.build();
+        template = TransactionTemplateAsync.create(connectionFactory);
+
+        var ingestionConfig = new IngestionConfig();
+        ingestionConfig.getRowBinary().setEnabled(true);
+        var rowBinaryWriter = new RowBinaryWriter(databaseAnalyticsFactory, ingestionConfig);
+        var feedbackScoreDAO = new FeedbackScoreDAOImpl(template);
+
+        spanDAO = new SpanDAO(connectionFactory, feedbackScoreDAO, new FilterQueryBuilder(), rowBinaryWriter);
+        traceDAO = new TraceDAOImpl(feedbackScoreDAO, new FilterQueryBuilder(), template, rowBinaryWriter);
+    }
+
+    @AfterAll
+    void tearDownAll() {
+        clickHouseContainer.stop();
+    }
+
+    private static <T> Mono<T> withContext(Mono<T> mono, String workspaceId) {
+        return mono.contextWrite(ctx -> ctx.put(RequestContext.USER_NAME, USER_NAME)
+                .put(RequestContext.WORKSPACE_ID, workspaceId));
+    }
+
+    @Test
+    void batchInsert__whenSpans__thenReadBackWithTheSameValues() {
+        var workspaceId = UUID.randomUUID().toString();
+        var llmSpan = podamFactory.manufacturePojo(Span.class).toBuilder()
+                .type(SpanType.llm)
+                .totalEstimatedCost(new BigDecimal("1.234567890123"))
+                .usage(Map.of("prompt_tokens", 10, "completion_tokens", 20))
+                .build();
+        var openSpan = podamFactory.manufacturePojo(Span.class).toBuilder()
+                .type(SpanType.tool)
+                .totalEstimatedCost(new BigDecimal("0.000000000001"))
+                .usage(Map.of())
+                .endTime(null)
+                .build();
+
+        var inserted = withContext(spanDAO.batchInsert(List.of(llmSpan, openSpan)), workspaceId).block();
+        assertThat(inserted).isEqualTo(2);
+
+        for (var expected : List.of(llmSpan, openSpan)) {
+            var actual = withContext(spanDAO.getById(expected.id()), workspaceId).block();
+
+            assertThat(actual).isNotNull();
+            assertThat(actual.projectId()).isEqualTo(expected.projectId());
+            assertThat(actual.traceId()).isEqualTo(expected.traceId());
+            assertThat(actual.parentSpanId()).isEqualTo(expected.parentSpanId());
+            assertThat(actual.name()).isEqualTo(expected.name());
+            assertThat(actual.type()).isEqualTo(expected.type());
+            assertThat(actual.startTime()).isCloseTo(expected.startTime(), within(1, ChronoUnit.MICROS));
+            assertThat(actual.input()).isEqualTo(expected.input());
+            assertThat(actual.output()).isEqualTo(expected.output());
+            assertThat(actual.metadata()).isEqualTo(expected.metadata());
+            assertThat(actual.model()).isEqualTo(expected.model());
+            assertThat(actual.provider()).isEqualTo(expected.provider());
+            assertThat(actual.tags()).isEqualTo(expected.tags());
+            assertThat(actual.usage()).isEqualTo(expected.usage());
+            assertThat(actual.totalEstimatedCost()).isEqualByComparingTo(expected.totalEstimatedCost());
+            assertThat(actual.createdBy()).isEqualTo(USER_NAME);
+        }
+
+        var llm = withContext(spanDAO.getById(llmSpan.id()), workspaceId).block();
+        assertThat(llm.endTime()).isCloseTo(llmSpan.endTime(), within(1, ChronoUnit.MICROS));
+
+        var open = withContext(spanDAO.getById(openSpan.id()), workspaceId).block();
+        assertThat(open.endTime()).isNull();
+    }
+
+    @Test
+    void batchInsert__whenTraces__thenReadBackWithTheSameValues() {
+        var workspaceId = UUID.randomUUID().toString();
+        var closedTrace = podamFactory.manufacturePojo(Trace.class);
+        var openTrace = podamFactory.manufacturePojo(Trace.class).toBuilder().endTime(null).build();
+
+        var inserted = withContext(template.nonTransaction(
+                connection -> traceDAO.batchInsert(List.of(closedTrace, openTrace), connection)), workspaceId)
+                .block();
+        assertThat(inserted).isEqualTo(2);
+
+        for (var expected : List.of(closedTrace, openTrace)) {
+            var actual = withContext(template.nonTransaction(
+                    connection -> traceDAO.findById(expected.id(), connection)), workspaceId).block();
+
+            assertThat(actual).isNotNull();
+            assertThat(actual.projectId()).isEqualTo(expected.projectId());
+            assertThat(actual.name()).isEqualTo(expected.name());
+            assertThat(actual.startTime()).isCloseTo(expected.startTime(), within(1, ChronoUnit.MICROS));
+            assertThat(actual.input()).isEqualTo(expected.input());
+            assertThat(actual.output()).isEqualTo(expected.output());
+            assertThat(actual.metadata()).isEqualTo(expected.metadata());
+            assertThat(actual.tags()).isEqualTo(expected.tags());
+            assertThat(actual.createdBy()).isEqualTo(USER_NAME);
+        }
+
+        var open = withContext(template.nonTransaction(
+                connection -> traceDAO.findById(openTrace.id(), connection)), workspaceId).block();
+        assertThat(open.endTime()).isNull();
+    }
+
+    @Test
+    void serverSettings__whenQueryParameters__thenKeepOnlyCustomHttpParams() {
+        assertThat(RowBinaryWriter.serverSettings(QUERY_PARAMETERS))
+                .containsExactly(Map.entry("max_query_size", "100000000"));
+        assertThat(RowBinaryWriter.serverSettings("custom_http_params=max_query_size=10,async_insert=1"))
+                .containsExactly(Map.entry("max_query_size", "10"), Map.entry("async_insert", "1"));
+        assertThat(RowBinaryWriter.serverSettings(null)).isEmpty();
+    }
+}
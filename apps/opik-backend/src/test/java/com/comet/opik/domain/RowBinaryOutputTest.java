@@ -0,0 +1,149 @@
+package com.comet.opik.domain;
+
+import com.comet.opik.utils.JsonUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RowBinaryOutputTest {
+
+    // Small buffers, so values are split across buffers
+    private final ByteBufferPool pool = new ByteBufferPool(7, 4);
+    private final RowBinaryOutput output = new RowBinaryOutput(pool);
+
+    @AfterEach
+    void tearDown() {
+        output.release();
+    }
+
+    private byte[] bytes() {
+        var bytes = new ByteArrayOutputStream();
+        output.buffers().forEach(buffer -> {
+            var array = new byte[buffer.remaining()];
+            buffer.get(array);
+            bytes.writeBytes(array);
+        });
+        assertThat((long) bytes.size()).isEqualTo(output.size());
+        return bytes.toByteArray();
+    }
+
+    private static byte[] stringColumn(byte[] value) {
+        assertThat(value.length).isLessThan(128);
+        var bytes = new ByteArrayOutputStream();
+        bytes.write(value.length);
+        bytes.writeBytes(value);
+        return bytes.toByteArray();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "span", "café", "日本語", "emoji 😀 mixed", "unpaired \uD83D surrogate"})
+    void writeString__shouldWriteLengthPrefixedUtf8(String value) {
+        output.writeString(value);
+
+        assertThat(bytes()).isEqualTo(stringColumn(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void writeVarUInt__shouldWriteLeb128() {
+        output.writeVarUInt(0);
+        output.writeVarUInt(127);
+        output.writeVarUInt(128);
+        output.writeVarUInt(300);
+
+        assertThat(bytes()).containsExactly(0x00, 0x7F, 0x80, 0x01, 0xAC, 0x02);
+    }
+
+    @Test
+    void writeUuid__shouldWriteCanonicalRepresentation() {
+        var id = UUID.randomUUID();
+
+        output.writeUuid(id);
+        output.writeUuidString(id);
+        output.writeUuidString(null);
+
+        var expected = new ByteArrayOutputStream();
+        expected.writeBytes(id.toString().getBytes(StandardCharsets.US_ASCII));
+        expected.writeBytes(stringColumn(id.toString().getBytes(StandardCharsets.US_ASCII)));
+        expected.write(0);
+        assertThat(bytes()).isEqualTo(expected.toByteArray());
+    }
+
+    @Test
+    void writeInts__shouldWriteLittleEndian() {
+        output.writeByte(1);
+        output.writeInt32(-2);
+        output.writeInt64(Long.MIN_VALUE + 3);
+
+        var buffer = ByteBuffer.wrap(bytes()).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(buffer.get()).isEqualTo((byte) 1);
+        assertThat(buffer.getInt()).isEqualTo(-2);
+        assertThat(buffer.getLong()).isEqualTo(Long.MIN_VALUE + 3);
+    }
+
+    @Test
+    void writeDateTime64__shouldWriteNanosSinceEpoch() {
+        var instant = Instant.parse("2024-11-05T10:15:30.123456789Z");
+
+        output.writeDateTime64(instant);
+        output.writeNullableDateTime64(instant);
+        output.writeNullableDateTime64(null);
+
+        var buffer = ByteBuffer.wrap(bytes()).order(ByteOrder.LITTLE_ENDIAN);
+        long nanos = instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+        assertThat(buffer.getLong()).isEqualTo(nanos);
+        assertThat(buffer.get()).isEqualTo((byte) 0);
+        assertThat(buffer.getLong()).isEqualTo(nanos);
+        assertThat(buffer.get()).isEqualTo((byte) 1);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void writeDecimal128__shouldWriteUnscaledLittleEndianInt128() {
+        output.writeDecimal128(new BigDecimal("1.5"), 12);
+        output.writeDecimal128(new BigDecimal("-0.0000000000019"), 12);
+
+        var buffer = ByteBuffer.wrap(bytes()).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(buffer.getLong()).isEqualTo(1_500_000_000_000L);
+        assertThat(buffer.getLong()).isZero();
+        assertThat(buffer.getLong()).isEqualTo(-1L);
+        assertThat(buffer.getLong()).isEqualTo(-1L);
+    }
+
+    @Test
+    void writeJsonAndArrays__shouldWriteStringColumns() {
+        var json = JsonUtils.getJsonNodeFromString("{\"key\":\"välue\",\"nested\":[1,2,3]}");
+
+        output.writeJson(json);
+        output.writeJson(null);
+        output.writeStringArray(List.of("a", "b"));
+
+        var expected = new ByteArrayOutputStream();
+        expected.writeBytes(stringColumn(json.toString().getBytes(StandardCharsets.UTF_8)));
+        expected.write(0);
+        expected.write(2);
+        expected.writeBytes(stringColumn("a".getBytes(StandardCharsets.UTF_8)));
+        expected.writeBytes(stringColumn("b".getBytes(StandardCharsets.UTF_8)));
+        assertThat(bytes()).isEqualTo(expected.toByteArray());
+    }
+
+    @Test
+    void release__shouldReturnBuffersToPool() {
+        output.writeString("a string spanning several buffers");
+
+        output.release();
+
+        assertThat(pool.pooled()).isEqualTo(4);
+    }
+}
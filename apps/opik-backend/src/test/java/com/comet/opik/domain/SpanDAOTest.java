@@ -5,6 +5,7 @@ import com.comet.opik.api.SpanSearchCriteria;
 import com.comet.opik.api.resources.utils.ClickHouseContainerUtils;
 import com.comet.opik.api.resources.utils.MigrationUtils;
 import com.comet.opik.domain.filter.FilterQueryBuilder;
+import com.comet.opik.infrastructure.IngestionConfig;
 import com.comet.opik.infrastructure.db.TransactionTemplateAsync;
 import com.comet.opik.podam.PodamFactoryUtils;
 import com.fasterxml.uuid.Generators;
@@ -41,14 +42,15 @@ class SpanDAOTest {
                     ClickHouseContainerUtils.migrationParameters());
         }
 
-        ConnectionFactory factory = ClickHouseContainerUtils
-                .newDatabaseAnalyticsFactory(CLICK_HOUSE_CONTAINER, ClickHouseContainerUtils.DATABASE_NAME)
-                .build();
+        var databaseAnalyticsFactory = ClickHouseContainerUtils
+                .newDatabaseAnalyticsFactory(CLICK_HOUSE_CONTAINER, ClickHouseContainerUtils.DATABASE_NAME);
+        ConnectionFactory factory = databaseAnalyticsFactory.build();
 
         spanDAO = new SpanDAO(
                 factory,
                 new FeedbackScoreDAOImpl(TransactionTemplateAsync.create(factory)),
-                new FilterQueryBuilder());
+                new FilterQueryBuilder(),
+                new RowBinaryWriter(databaseAnalyticsFactory, new IngestionConfig()));
     }
 
     @AfterAll
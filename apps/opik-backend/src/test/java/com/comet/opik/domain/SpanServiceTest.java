@@ -2,6 +2,7 @@ package com.comet.opik.domain;
 
 import com.comet.opik.api.SpanUpdate;
 import com.comet.opik.api.error.InvalidUUIDVersionException;
+import com.comet.opik.infrastructure.IngestionConfig;
 import com.comet.opik.infrastructure.lock.LockService;
 import com.comet.opik.podam.PodamFactoryUtils;
 import com.fasterxml.uuid.Generators;
@@ -32,10 +33,11 @@ class SpanServiceTest {
     private final SpanDAO spanDAO = mock(SpanDAO.class);
     private final ProjectService projectService = mock(ProjectService.class);
     private final CommentService commentService = mock(CommentService.class);;
+    private final SpanInsertCoalescer spanInsertCoalescer = mock(SpanInsertCoalescer.class);
 
     private final TimeBasedEpochGenerator generator = Generators.timeBasedEpochGenerator();
     private final SpanService spanService = new SpanService(spanDAO, projectService, generator::generate,
-            DUMMY_LOCK_SERVICE, commentService);
+            DUMMY_LOCK_SERVICE, commentService, spanInsertCoalescer, new IngestionConfig());
 
     @Test
     void allPublicConstructors() {
@@ -69,6 +69,9 @@ class TraceServiceImplTest {
     @Mock
     private EventBus eventBus;
 
+    @Mock
+    private TraceInsertCoalescer traceInsertCoalescer;
+
     private final PodamFactory factory = new PodamFactoryImpl();
 
     @BeforeEach
@@ -82,7 +85,8 @@ class TraceServiceImplTest {
                 projectService,
                 () -> Generators.timeBasedEpochGenerator().generate(),
                 DUMMY_LOCK_SERVICE,
-                eventBus);
+                eventBus,
+                traceInsertCoalescer);
     }
 
     @Nested
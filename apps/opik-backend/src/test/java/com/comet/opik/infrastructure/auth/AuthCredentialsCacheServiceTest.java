@@ -0,0 +1,114 @@
+package com.comet.opik.infrastructure.auth;
+
+import com.comet.opik.api.resources.utils.RedisContainerUtils;
+import com.comet.opik.infrastructure.RedisConfig;
+import com.redis.testcontainers.RedisContainer;
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class AuthCredentialsCacheServiceTest {
+
+    private static final RedisContainer REDIS = RedisContainerUtils.newRedisContainer();
+    private static final int TTL_IN_SECONDS = 2;
+    private static final int REJECTION_TTL_IN_SECONDS = 1;
+
+    private RedissonClient redisClient;
+
+    @BeforeAll
+    void setUpAll() {
+        REDIS.start();
+
+        var config = new RedisConfig();
+        config.setSingleNodeUrl(REDIS.getRedisURI());
+
+        redisClient = Redisson.create(config.build());
+    }
+
+    @AfterAll
+    void tearDownAll() {
+        redisClient.shutdown();
+    }
+
+    private AuthCredentialsCacheService newCacheService() {
+        return new AuthCredentialsCacheService(redisClient.reactive(), TTL_IN_SECONDS, REJECTION_TTL_IN_SECONDS, 100);
+    }
+
+    @Test
+    void cache__thenResolvedLocallyAndFromRedis() {
+        var cacheService = newCacheService();
+        var otherInstance = newCacheService();
+        var apiKey = UUID.randomUUID().toString();
+        var workspaceName = UUID.randomUUID().toString();
+        var credentials = new CacheService.AuthCredentials(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString());
+
+        cacheService.cache(apiKey, workspaceName, credentials.userName(), credentials.workspaceId());
+        cacheService.cache(apiKey, workspaceName, credentials.userName(), credentials.workspaceId());
+
+        var key = AuthCredentialsCacheService.KEY_FORMAT.formatted(apiKey, workspaceName);
+        assertThat(redisClient.<String>getList(key).readAll()).isEqualTo(List.of(credentials.userName(),
+                credentials.workspaceId()));
+
+        assertThat(cacheService.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName))
+                .contains(credentials);
+        assertThat(otherInstance.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName)).isEmpty();
+        assertThat(otherInstance.resolveApiKeyUserAndWorkspaceIdFromCache(apiKey, workspaceName))
+                .contains(credentials);
+        assertThat(otherInstance.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName))
+                .contains(credentials);
+    }
+
+    @Test
+    void resolveFromLocalCache__whenRedisEntryExpired__thenEmpty() {
+        var cacheService = newCacheService();
+        var otherInstance = newCacheService();
+        var apiKey = UUID.randomUUID().toString();
+        var workspaceName = UUID.randomUUID().toString();
+
+        cacheService.cache(apiKey, workspaceName, UUID.randomUUID().toString(), UUID.randomUUID().toString());
+
+        Mono.delay(Duration.ofSeconds(1)).block();
+        assertThat(otherInstance.resolveApiKeyUserAndWorkspaceIdFromCache(apiKey, workspaceName)).isPresent();
+
+        // Resolved from Redis halfway through the TTL, so it expires with the Redis entry
+        Mono.delay(Duration.ofMillis(1100)).block();
+        assertThat(cacheService.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName)).isEmpty();
+        assertThat(otherInstance.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName)).isEmpty();
+    }
+
+    @Test
+    void cacheRejection__thenRejectedLocallyUntilExpired() {
+        var cacheService = newCacheService();
+        var apiKey = UUID.randomUUID().toString();
+        var workspaceName = UUID.randomUUID().toString();
+
+        cacheService.cacheRejection(apiKey, workspaceName,
+                new ClientErrorException(RemoteAuthService.NOT_ALLOWED_TO_ACCESS_WORKSPACE,
+                        Response.Status.UNAUTHORIZED));
+
+        assertThatThrownBy(() -> cacheService.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName))
+                .isInstanceOf(ClientErrorException.class)
+                .hasMessage(RemoteAuthService.NOT_ALLOWED_TO_ACCESS_WORKSPACE)
+                .satisfies(exception -> assertThat(((ClientErrorException) exception).getResponse().getStatus())
+                        .isEqualTo(401));
+
+        Mono.delay(Duration.ofMillis(REJECTION_TTL_IN_SECONDS * 1000 + 100)).block();
+
+        assertThat(cacheService.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName)).isEmpty();
+    }
+}
@@ -2,7 +2,6 @@ package com.comet.opik.infrastructure.auth;
 
 import com.comet.opik.api.resources.utils.TestHttpClientUtils;
 import com.comet.opik.api.resources.utils.WireMockUtils;
-import com.comet.opik.domain.DummyLockService;
 import com.comet.opik.infrastructure.AuthenticationConfig;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,7 +21,11 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mockito;
 
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.comet.opik.infrastructure.auth.RemoteAuthService.NOT_ALLOWED_TO_ACCESS_WORKSPACE;
@@ -30,9 +33,13 @@ import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.ok;
 import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class RemoveAuthServiceTest {
@@ -124,11 +131,117 @@ class RemoveAuthServiceTest {
                 .hasMessage(NOT_ALLOWED_TO_ACCESS_WORKSPACE);
     }
 
+    @Test
+    void testAuthFromLocalCache() {
+        var workspaceId = UUID.randomUUID().toString();
+        var user = RandomStringUtils.randomAlphabetic(10);
+        var workspaceName = RandomStringUtils.randomAlphabetic(10);
+        var apiKey = RandomStringUtils.randomAlphabetic(10);
+
+        var cacheService = Mockito.mock(CacheService.class);
+        Mockito.when(cacheService.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName))
+                .thenReturn(Optional.of(new CacheService.AuthCredentials(user, workspaceId)));
+        RequestContext requestContext = new RequestContext();
+
+        getService(requestContext, cacheService).authenticate(
+                getHeadersMock(workspaceName, apiKey), null, "/priv/something");
+
+        assertThat(requestContext.getWorkspaceId()).isEqualTo(workspaceId);
+        assertThat(requestContext.getUserName()).isEqualTo(user);
+        assertThat(requestContext.getApiKey()).isEqualTo(apiKey);
+        wireMock.server().verify(0, postRequestedFor(urlEqualTo("/auth")));
+        Mockito.verify(cacheService, Mockito.never()).resolveApiKeyUserAndWorkspaceIdFromCache(apiKey, workspaceName);
+    }
+
+    @Test
+    void testAuthRejectionIsCached() {
+        var workspaceName = RandomStringUtils.randomAlphabetic(10);
+        var apiKey = RandomStringUtils.randomAlphabetic(10);
+
+        wireMock.server().stubFor(post("/auth").willReturn(aResponse().withStatus(HttpStatus.SC_UNAUTHORIZED)));
+
+        var cacheService = Mockito.mock(CacheService.class);
+        Mockito.when(cacheService.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName))
+                .thenReturn(Optional.empty());
+        Mockito.when(cacheService.resolveApiKeyUserAndWorkspaceIdFromCache(apiKey, workspaceName))
+                .thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> getService(new RequestContext(), cacheService).authenticate(
+                getHeadersMock(workspaceName, apiKey), null, "/priv/something"))
+                .isInstanceOf(ClientErrorException.class);
+
+        Mockito.verify(cacheService).cacheRejection(eq(apiKey), eq(workspaceName), any(ClientErrorException.class));
+        Mockito.verify(cacheService, Mockito.never()).cache(any(), any(), any(), any());
+    }
+
+    @Test
+    void testAuthConcurrentRequestsShareValidation() throws JsonProcessingException {
+        var workspaceId = UUID.randomUUID();
+        var user = RandomStringUtils.randomAlphabetic(10);
+        var workspaceName = RandomStringUtils.randomAlphabetic(10);
+        var apiKey = RandomStringUtils.randomAlphabetic(10);
+
+        wireMock.server().stubFor(post("/auth")
+                .willReturn(okJson(new ObjectMapper()
+                        .writeValueAsString(new RemoteAuthService.AuthResponse(user, workspaceId.toString())))
+                        .withFixedDelay(500)));
+
+        var service = getService(new RequestContext());
+        var headers = getHeadersMock(workspaceName, apiKey);
+
+        try (var executor = Executors.newFixedThreadPool(5)) {
+            var requests = IntStream.range(0, 5)
+                    .mapToObj(i -> CompletableFuture.runAsync(
+                            () -> service.authenticate(headers, null, "/priv/something"), executor))
+                    .toList();
+            requests.forEach(CompletableFuture::join);
+        }
+
+        wireMock.server().verify(1, postRequestedFor(urlEqualTo("/auth")));
+    }
+
+    @Test
+    void testAuthConcurrentRequestsCacheCredentialsOnce() throws JsonProcessingException {
+        var workspaceId = UUID.randomUUID().toString();
+        var user = RandomStringUtils.randomAlphabetic(10);
+        var workspaceName = RandomStringUtils.randomAlphabetic(10);
+        var apiKey = RandomStringUtils.randomAlphabetic(10);
+
+        wireMock.server().stubFor(post("/auth")
+                .willReturn(okJson(new ObjectMapper()
+                        .writeValueAsString(new RemoteAuthService.AuthResponse(user, workspaceId)))
+                        .withFixedDelay(500)));
+
+        var cacheService = Mockito.mock(CacheService.class);
+        Mockito.when(cacheService.resolveApiKeyUserAndWorkspaceIdFromLocalCache(apiKey, workspaceName))
+                .thenReturn(Optional.empty());
+        Mockito.when(cacheService.resolveApiKeyUserAndWorkspaceIdFromCache(apiKey, workspaceName))
+                .thenReturn(Optional.empty());
+
+        var service = getService(new RequestContext(), cacheService);
+        var headers = getHeadersMock(workspaceName, apiKey);
+
+        try (var executor = Executors.newFixedThreadPool(5)) {
+            var requests = IntStream.range(0, 5)
+                    .mapToObj(i -> CompletableFuture.runAsync(
+                            () -> service.authenticate(headers, null, "/priv/something"), executor))
+                    .toList();
+            requests.forEach(CompletableFuture::join);
+        }
+
+        wireMock.server().verify(1, postRequestedFor(urlEqualTo("/auth")));
+        Mockito.verify(cacheService).cache(apiKey, workspaceName, user, workspaceId);
+    }
+
     private RemoteAuthService getService(RequestContext requestContext) {
+        return getService(requestContext, new NoopCacheService());
+    }
+
+    private RemoteAuthService getService(RequestContext requestContext, CacheService cacheService) {
         return new RemoteAuthService(client,
                 new AuthenticationConfig.UrlConfig(wireMock.server().url("/auth")),
                 new AuthenticationConfig.UrlConfig(wireMock.server().url("/")),
-                () -> requestContext, new NoopCacheService(), new DummyLockService());
+                () -> requestContext, cacheService);
     }
 
     private HttpHeaders getHeadersMock(String workspaceName, String apiKey) {
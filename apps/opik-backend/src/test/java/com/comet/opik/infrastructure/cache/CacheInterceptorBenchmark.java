@@ -0,0 +1,216 @@
+package com.comet.opik.infrastructure.cache;
+
+import com.comet.opik.infrastructure.CacheConfiguration;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.aopalliance.intercept.MethodInvocation;
+import org.mvel2.MVEL;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of the cache interceptor per call: building the key the way it was built before, on every call
+ * by MVEL, against the concatenated and compiled key expressions, and a full interception served from an in-memory
+ * cache manager. Not run as part of the test suite, run it through its main method:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.comet.opik.infrastructure.cache.CacheInterceptorBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheInterceptorBenchmark {
+
+    private static final String CONCATENATED_KEY = "$projectId +'-'+ $workspaceId  +'-'+  $type";
+    private static final String PROPERTY_KEY = "$projectId +'-'+ $workspaceId  +'-'+ $rule.type";
+
+    public record Rule(String type) {
+    }
+
+    public static class Service {
+
+        @Cacheable(name = "benchmark", key = CONCATENATED_KEY, returnType = String.class)
+        public String find(UUID projectId, String workspaceId, String type, Rule rule) {
+            return "value";
+        }
+    }
+
+    private Method method;
+    private Object[] args;
+    private CacheKeyExpression concatenatedKey;
+    private CacheKeyExpression compiledKey;
+    private CacheInterceptor interceptor;
+    private MethodInvocation invocation;
+
+    @Setup
+    public void setUp() throws Throwable {
+        method = Service.class.getMethod("find", UUID.class, String.class, String.class, Rule.class);
+        args = new Object[]{UUID.randomUUID(), UUID.randomUUID().toString(), "llm_as_judge", new Rule("llm_as_judge")};
+        concatenatedKey = CacheKeyExpression.compile(CONCATENATED_KEY, method);
+        compiledKey = CacheKeyExpression.compile(PROPERTY_KEY, method);
+
+        var config = new CacheConfiguration();
+        config.setEnabled(true);
+        config.setDefaultDuration(Duration.ofHours(1));
+
+        var cacheManager = new InMemoryCacheManager();
+        interceptor = new CacheInterceptor(() -> cacheManager, () -> null, config);
+        invocation = new ServiceInvocation(new Service(), method, args);
+
+        // Warms the cache, so the benchmark only measures hits
+        interceptor.invoke(invocation);
+    }
+
+    @Benchmark
+    public String interpretedKey() {
+        Map<String, Object> params = new HashMap<>();
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            params.put("$" + parameters[i].getName(), args[i] != null ? args[i] : "");
+        }
+        return MVEL.evalToString(CONCATENATED_KEY, params);
+    }
+
+    @Benchmark
+    public String concatenatedKey() {
+        return concatenatedKey.evaluate(args);
+    }
+
+    @Benchmark
+    public String interpretedPropertyKey() {
+        Map<String, Object> params = new HashMap<>();
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            params.put("$" + parameters[i].getName(), args[i] != null ? args[i] : "");
+        }
+        return MVEL.evalToString(PROPERTY_KEY, params);
+    }
+
+    @Benchmark
+    public String compiledPropertyKey() {
+        return compiledKey.evaluate(args);
+    }
+
+    @Benchmark
+    public Object cacheHit() throws Throwable {
+        return interceptor.invoke(invocation);
+    }
+
+    private static class InMemoryCacheManager implements CacheManager {
+
+        private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+        @Override
+        public Mono<Boolean> evict(String key, boolean usePatternMatching) {
+            return Mono.just(values.remove(key) != null);
+        }
+
+        @Override
+        public Mono<Boolean> put(String key, Object value, Duration ttlDuration) {
+            values.put(key, value);
+            return Mono.just(true);
+        }
+
+        @Override
+        public Mono<Boolean> put(String key, Object value, Duration ttlDuration, String tag) {
+            return put(key, value, ttlDuration);
+        }
+
+        @Override
+        public Mono<Boolean> evictTag(String tag) {
+            return Mono.just(false);
+        }
+
+        @Override
+        public <T> Mono<T> get(String key, Class<T> clazz) {
+            return Mono.justOrEmpty(values.get(key)).map(clazz::cast);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Mono<T> get(String key, TypeReference<T> clazz) {
+            return Mono.justOrEmpty((T) values.get(key));
+        }
+
+        @Override
+        public Mono<Boolean> contains(String key) {
+            return Mono.just(values.containsKey(key));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Mono<Map<String, T>> getAll(Collection<String> keys, TypeReference<T> clazz) {
+            Map<String, T> found = new HashMap<>();
+            keys.forEach(key -> Optional.ofNullable(values.get(key)).ifPresent(value -> found.put(key, (T) value)));
+            return Mono.just(found);
+        }
+
+        @Override
+        public Mono<Boolean> putAll(Map<String, ?> entries, Duration ttlDuration) {
+            values.putAll(entries);
+            return Mono.just(true);
+        }
+    }
+
+    private record ServiceInvocation(Service service, Method method, Object[] args) implements MethodInvocation {
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Object[] getArguments() {
+            return args;
+        }
+
+        @Override
+        public Object proceed() throws Throwable {
+            return method.invoke(service, args);
+        }
+
+        @Override
+        public Object getThis() {
+            return service;
+        }
+
+        @Override
+        public AccessibleObject getStaticPart() {
+            return method;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheInterceptorBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.comet.opik.infrastructure.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.mvel2.MVEL;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+class CacheKeyExpressionTest {
+
+    enum Type {
+        LLM_AS_JUDGE
+    }
+
+    record Rule(Type type) {
+        public Type getType() {
+            return type;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    void method(UUID projectId, String workspaceId, Type type, Rule rule, Integer first, Integer second) {
+    }
+
+    private static final Method METHOD = method();
+    private static final Object[] ARGS = {UUID.randomUUID(), "workspace", Type.LLM_AS_JUDGE,
+            new Rule(Type.LLM_AS_JUDGE), 3, 4};
+
+    private static Method method() {
+        try {
+            return CacheKeyExpressionTest.class.getDeclaredMethod("method", UUID.class, String.class, Type.class,
+                    Rule.class, Integer.class, Integer.class);
+        } catch (NoSuchMethodException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    static Stream<Arguments> evaluate() {
+        return Stream.of(
+                arguments("$projectId +'-'+ $workspaceId", false),
+                arguments("$projectId +'-'+ $workspaceId  +'-*'", false),
+                arguments("$projectId +'-'+ $workspaceId  +'-'+  $type", false),
+                arguments("$workspaceId", false),
+                arguments("'a+b' + $first", false),
+                arguments("$first + '-' + $second", false),
+                arguments("$first + $second", true),
+                arguments("$projectId +'-'+ $workspaceId  +'-'+ $rule.type", true),
+                arguments("$workspaceId.toUpperCase()", true));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void evaluate(String expression, boolean compiled) {
+        var keyExpression = CacheKeyExpression.compile(expression, METHOD);
+
+        assertThat(keyExpression.isCompiled()).isEqualTo(compiled);
+        assertThat(keyExpression.evaluate(ARGS)).isEqualTo(MVEL.evalToString(expression, variables(ARGS)));
+    }
+
+    @Test
+    void evaluate__whenArgumentIsNull__thenReplacedByEmptyString() {
+        Object[] args = {null, "workspace", null, null, null, null};
+
+        assertThat(CacheKeyExpression.compile("$projectId + '-' + $workspaceId", METHOD).evaluate(args))
+                .isEqualTo("-workspace");
+        assertThat(CacheKeyExpression.compile("$workspaceId + '-' + $rule", METHOD).evaluate(args))
+                .isEqualTo("workspace-");
+    }
+
+    private static Map<String, Object> variables(Object[] args) {
+        Map<String, Object> variables = new HashMap<>();
+        var parameters = METHOD.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            variables.put("$" + parameters[i].getName(), args[i]);
+        }
+        return variables;
+    }
+}
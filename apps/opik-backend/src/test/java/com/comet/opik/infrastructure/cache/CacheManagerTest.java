@@ -19,6 +19,8 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 import org.testcontainers.clickhouse.ClickHouseContainer;
 import org.testcontainers.containers.MySQLContainer;
 import org.testcontainers.lifecycle.Startables;
+import org.testcontainers.shaded.org.awaitility.Awaitility;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import ru.vyarus.dropwizard.guice.test.jupiter.ext.TestDropwizardAppExtension;
 
@@ -38,6 +40,7 @@ class CacheManagerTest {
 
     static final String CACHE_NAME_1 = "test";
     static final String CACHE_NAME_2 = "test2";
+    static final String CACHE_NAME_3 = "test3";
 
     @RegisterExtension
     private static final TestDropwizardAppExtension APP;
@@ -65,7 +68,10 @@ class CacheManagerTest {
                                 List.of(
                                         new CustomConfig("cacheManager.enabled", "true"),
                                         new CustomConfig("cacheManager.defaultDuration", "PT0.500S"),
-                                        new CustomConfig("cacheManager.caches.%s".formatted(CACHE_NAME_2), "PT0.200S")))
+                                        new CustomConfig("cacheManager.caches.%s".formatted(CACHE_NAME_2), "PT0.200S"),
+                                        new CustomConfig("cacheManager.caches.%s".formatted(CACHE_NAME_3), "PT0.300S"),
+                                        new CustomConfig("cacheManager.staleDurations.%s".formatted(CACHE_NAME_3),
+                                                "PT5S")))
                         .build());
     }
 
@@ -357,4 +363,44 @@ class CacheManagerTest {
         Assertions.assertThat(dto).isNotEqualTo(dto3);
     }
 
-}
\ No newline at end of file
+    // Test single flight and stale while revalidate
+
+    @Test
+    void testCacheable__whenConcurrentMisses__shouldCallRealMethodOnce(CachedService service) {
+
+        String id = UUID.randomUUID().toString();
+        String workspaceId = UUID.randomUUID().toString();
+
+        // concurrent calls, should share a single call to the real method
+        var dtos = Flux.range(0, 10)
+                .flatMap(__ -> service.get3(id, workspaceId))
+                .collectList()
+                .block();
+
+        Assertions.assertThat(dtos).hasSize(10).containsOnly(dtos.getFirst());
+        Assertions.assertThat(service.getCalls(id)).isEqualTo(1);
+    }
+
+    @Test
+    void testCacheable__whenCacheableIsStale__shouldReturnStaleValueAndRefreshIt(CachedService service) {
+
+        String id = UUID.randomUUID().toString();
+        String workspaceId = UUID.randomUUID().toString();
+
+        // first call, should call real method
+        var dto = service.getCollection3(id, workspaceId);
+
+        // wait for cache entry to be stale
+        Mono.delay(Duration.ofMillis(500)).block();
+
+        // second call, should return stale value and refresh it in the background
+        var dto2 = service.getCollection3(id, workspaceId);
+
+        Assertions.assertThat(dto2).isEqualTo(dto);
+
+        // third call, should return refreshed value
+        Awaitility.await().untilAsserted(() -> Assertions.assertThat(service.getCollection3(id, workspaceId))
+                .isNotEqualTo(dto));
+    }
+
+}
@@ -4,8 +4,12 @@ import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 public class CachedService {
@@ -13,6 +17,12 @@ public class CachedService {
     public record DTO(String id, String workspaceId, String value) {
     }
 
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    public int getCalls(String id) {
+        return calls.getOrDefault(id, new AtomicInteger()).get();
+    }
+
     @Cacheable(name = CacheManagerTest.CACHE_NAME_1, key = "$id +'-'+ $workspaceId", returnType = DTO.class)
     public DTO get(String id, String workspaceId) {
         return new DTO(id, workspaceId, UUID.randomUUID().toString());
@@ -87,4 +97,18 @@ public class CachedService {
                 List.of(new DTO(id, workspaceId, UUID.randomUUID().toString())));
     }
 
+    @Cacheable(name = CacheManagerTest.CACHE_NAME_3, key = "$id +'-'+ $workspaceId", returnType = DTO.class)
+    public Mono<DTO> get3(String id, String workspaceId) {
+        return Mono.fromCallable(() -> {
+            calls.computeIfAbsent(id, __ -> new AtomicInteger()).incrementAndGet();
+            return new DTO(id, workspaceId, UUID.randomUUID().toString());
+        }).delayElement(Duration.ofMillis(100));
+    }
+
+    @Cacheable(name = CacheManagerTest.CACHE_NAME_3, key = "$id +'-'+ $workspaceId", returnType = DTO.class, wrapperType = List.class)
+    public List<DTO> getCollection3(String id, String workspaceId) {
+        calls.computeIfAbsent(id, __ -> new AtomicInteger()).incrementAndGet();
+        return List.of(new DTO(id, workspaceId, UUID.randomUUID().toString()));
+    }
+
 }
@@ -0,0 +1,203 @@
+package com.comet.opik.infrastructure.events;
+
+import com.comet.opik.api.events.TracesUpdated;
+import com.comet.opik.infrastructure.EventBusConfig;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
+
+class BoundedEventBusTest {
+
+    private static final String WORKSPACE_ID = UUID.randomUUID().toString();
+    private static final String USER_NAME = "user";
+
+    /**
+     * Blocks every event until released, recording the events and how many were handled at the same time.
+     */
+    public static class Listener {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<TracesUpdated> received = new CopyOnWriteArrayList<>();
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Subscribe
+        @AllowConcurrentEvents
+        public void onTracesUpdated(TracesUpdated event) throws InterruptedException {
+            started.incrementAndGet();
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            release.await(5, TimeUnit.SECONDS);
+            running.decrementAndGet();
+            received.add(event);
+        }
+    }
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Listener listener = new Listener();
+
+    @AfterEach
+    void tearDown() {
+        listener.release.countDown();
+        executor.shutdownNow();
+    }
+
+    private BoundedEventBus eventBus(int maxConcurrency, int maxQueueSize, EventBusConfig.OverflowPolicy policy) {
+        var dispatch = new EventBusConfig.DispatchConfig();
+        dispatch.setMaxConcurrency(maxConcurrency);
+        dispatch.setMaxQueueSize(maxQueueSize);
+        dispatch.setOverflowPolicy(policy);
+        dispatch.setMaxBlockDuration(Duration.ofSeconds(5));
+
+        var config = new EventBusConfig();
+        config.setEventTypes(Map.of(TracesUpdated.class.getSimpleName(), dispatch));
+
+        var eventBus = new BoundedEventBus("test-event-bus", config, executor);
+        eventBus.register(listener);
+        return eventBus;
+    }
+
+    private static TracesUpdated event(UUID projectId) {
+        return event(projectId, WORKSPACE_ID);
+    }
+
+    private static TracesUpdated event(UUID projectId, String workspaceId) {
+        return new TracesUpdated(Set.of(projectId), workspaceId, USER_NAME);
+    }
+
+    /**
+     * Posts one event and waits for it to be handled, so the following ones stay in the queue.
+     */
+    private void occupy(BoundedEventBus eventBus) {
+        eventBus.post(event(UUID.randomUUID()));
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.started.get() == 1);
+    }
+
+    @Test
+    void post__whenManyEvents__thenDispatchesUpToMaxConcurrencyAtOnce() {
+        var eventBus = eventBus(2, 100, EventBusConfig.OverflowPolicy.DROP);
+
+        for (int i = 0; i < 10; i++) {
+            eventBus.post(event(UUID.randomUUID()));
+        }
+
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.started.get() == 2);
+        listener.release.countDown();
+
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.received.size() == 10);
+        assertThat(listener.maxRunning.get()).isEqualTo(2);
+    }
+
+    @Test
+    void post__whenQueueIsFullAndPolicyIsDrop__thenDropsTheEvent() {
+        var eventBus = eventBus(1, 1, EventBusConfig.OverflowPolicy.DROP);
+        occupy(eventBus);
+
+        var queued = event(UUID.randomUUID());
+        eventBus.post(queued);
+        eventBus.post(event(UUID.randomUUID()));
+        listener.release.countDown();
+
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.received.size() == 2);
+        assertThat(listener.received.getLast()).isSameAs(queued);
+    }
+
+    @Test
+    void post__whenQueueIsFullAndPolicyIsCoalesce__thenMergesIntoTheLastQueuedEvent() {
+        var eventBus = eventBus(1, 1, EventBusConfig.OverflowPolicy.COALESCE);
+        occupy(eventBus);
+
+        var projectIds = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        projectIds.forEach(projectId -> eventBus.post(event(projectId)));
+        listener.release.countDown();
+
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.received.size() == 2);
+        assertThat(listener.received.getLast().projectIds()).containsExactlyInAnyOrderElementsOf(projectIds);
+    }
+
+    @Test
+    void post__whenQueueIsFullAndPolicyIsBlock__thenWaitsForRoom() {
+        var eventBus = eventBus(1, 1, EventBusConfig.OverflowPolicy.BLOCK);
+        occupy(eventBus);
+        eventBus.post(event(UUID.randomUUID()));
+
+        var posted = CompletableFuture.runAsync(() -> eventBus.post(event(UUID.randomUUID())), executor);
+
+        await().during(Duration.ofMillis(100)).atMost(Duration.ofSeconds(1)).until(() -> !posted.isDone());
+        listener.release.countDown();
+
+        await().atMost(Duration.ofSeconds(1)).until(posted::isDone);
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.received.size() == 3);
+    }
+
+    @Test
+    void post__whenQueueIsFullAndPolicyIsCoalesce__thenMergesInPlaceIntoTheQueuedEventOfTheSameWorkspace() {
+        var eventBus = eventBus(1, 2, EventBusConfig.OverflowPolicy.COALESCE);
+        occupy(eventBus);
+
+        var projectId = UUID.randomUUID();
+        var otherWorkspaceEvent = event(UUID.randomUUID(), UUID.randomUUID().toString());
+        var mergedProjectId = UUID.randomUUID();
+        eventBus.post(event(projectId));
+        eventBus.post(otherWorkspaceEvent);
+        eventBus.post(event(mergedProjectId));
+        listener.release.countDown();
+
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.received.size() == 3);
+        assertThat(listener.received.get(1).projectIds()).containsExactlyInAnyOrder(projectId, mergedProjectId);
+        assertThat(listener.received.get(2)).isSameAs(otherWorkspaceEvent);
+    }
+
+    @Test
+    void post__whenQueueIsFullAndPolicyIsCoalesceButEventsDontMerge__thenWaitsForRoomInsteadOfDropping() {
+        var eventBus = eventBus(1, 1, EventBusConfig.OverflowPolicy.COALESCE);
+        occupy(eventBus);
+        eventBus.post(event(UUID.randomUUID(), UUID.randomUUID().toString()));
+
+        var posted = CompletableFuture.runAsync(
+                () -> eventBus.post(event(UUID.randomUUID(), UUID.randomUUID().toString())), executor);
+
+        await().during(Duration.ofMillis(100)).atMost(Duration.ofSeconds(1)).until(() -> !posted.isDone());
+        listener.release.countDown();
+
+        await().atMost(Duration.ofSeconds(1)).until(posted::isDone);
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.received.size() == 3);
+    }
+
+    @Test
+    void post__whenQueueIsFullAndPostedFromPlatformThread__thenEventWaitsWithoutBlockingTheCaller()
+            throws InterruptedException {
+        var eventBus = eventBus(1, 1, EventBusConfig.OverflowPolicy.BLOCK);
+        occupy(eventBus);
+        eventBus.post(event(UUID.randomUUID()));
+
+        var posted = new CountDownLatch(1);
+        var platformThread = Thread.ofPlatform().start(() -> {
+            eventBus.post(event(UUID.randomUUID()));
+            posted.countDown();
+        });
+
+        assertThat(posted.await(100, TimeUnit.MILLISECONDS)).isTrue();
+        platformThread.join();
+        listener.release.countDown();
+
+        await().atMost(Duration.ofSeconds(1)).until(() -> listener.received.size() == 3);
+    }
+}
@@ -0,0 +1,72 @@
+package com.comet.opik.infrastructure.lock;
+
+import com.comet.opik.infrastructure.DistributedLockConfig;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HybridLockServiceTest {
+
+    /**
+     * Counts the callers waiting on the distributed lock, without locking.
+     */
+    private static class CountingLockService implements LockService {
+
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicInteger maxWaiting = new AtomicInteger();
+
+        @Override
+        public <T> Mono<T> executeWithLock(Lock lock, Mono<T> action) {
+            return Mono.defer(() -> {
+                maxWaiting.accumulateAndGet(waiting.incrementAndGet(), Math::max);
+                return action;
+            }).doOnTerminate(waiting::decrementAndGet);
+        }
+
+        @Override
+        public <T> Mono<T> executeWithLockCustomExpire(Lock lock, Mono<T> action, Duration duration) {
+            return executeWithLock(lock, action);
+        }
+
+        @Override
+        public <T> Flux<T> executeWithLock(Lock lock, Flux<T> action) {
+            return Flux.defer(() -> {
+                maxWaiting.accumulateAndGet(waiting.incrementAndGet(), Math::max);
+                return action;
+            }).doOnTerminate(waiting::decrementAndGet);
+        }
+
+        @Override
+        public <T> Mono<T> executeWithLocks(Collection<Lock> locks, Mono<T> action) {
+            return executeWithLock(locks.iterator().next(), action);
+        }
+    }
+
+    @Test
+    void executeWithLock__whenSameKey__thenOnlyOneContenderReachesTheDistributedLock() {
+        var config = new DistributedLockConfig();
+        config.setMode(DistributedLockConfig.Mode.HYBRID);
+        config.setLockTimeoutMS(5_000);
+        config.setTtlInSeconds(10);
+
+        var distributedLockService = new CountingLockService();
+        var lockService = new HybridLockService(new LocalLockService(config), distributedLockService);
+        var lock = new LockService.Lock(UUID.randomUUID(), "test-lock");
+        var executed = new AtomicInteger();
+
+        Flux.range(0, 10)
+                .flatMap(i -> lockService.executeWithLock(lock, Mono.delay(Duration.ofMillis(10))
+                        .doOnNext(__ -> executed.incrementAndGet())))
+                .blockLast();
+
+        assertThat(executed.get()).isEqualTo(10);
+        assertThat(distributedLockService.maxWaiting.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,176 @@
+package com.comet.opik.infrastructure.lock;
+
+import com.comet.opik.infrastructure.DistributedLockConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalLockServiceTest {
+
+    private LocalLockService lockService;
+
+    @BeforeEach
+    void setUp() {
+        var config = new DistributedLockConfig();
+        config.setMode(DistributedLockConfig.Mode.LOCAL);
+        config.setLockTimeoutMS(5_000);
+        config.setTtlInSeconds(10);
+
+        lockService = new LocalLockService(config);
+    }
+
+    private static LockService.Lock lock() {
+        return new LockService.Lock(UUID.randomUUID(), "test-lock");
+    }
+
+    @Test
+    void executeWithLock__whenSameKey__thenActionsDontOverlap() {
+        var lock = lock();
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+
+        Flux.range(0, 20)
+                .flatMap(i -> lockService.executeWithLock(lock, Mono.fromCallable(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(5);
+                    running.decrementAndGet();
+                    executed.add(i);
+                    return i;
+                })))
+                .blockLast();
+
+        assertThat(executed).hasSize(20);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void executeWithLock__whenDifferentKeys__thenActionsRunConcurrently() {
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+
+        Flux.range(0, 4)
+                .flatMap(i -> lockService.executeWithLock(lock(), Mono.fromCallable(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(200);
+                    return running.decrementAndGet();
+                })))
+                .blockLast();
+
+        assertThat(maxRunning.get()).isGreaterThan(1);
+    }
+
+    @Test
+    void executeWithLock__whenActionFails__thenLockIsReleased() {
+        var lock = lock();
+
+        StepVerifier.create(lockService.executeWithLock(lock, Mono.error(new IllegalStateException("failed"))))
+                .verifyError(IllegalStateException.class);
+
+        StepVerifier.create(lockService.executeWithLock(lock, Mono.just("done")))
+                .expectNext("done")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void executeWithLockCustomExpire__whenLeaseExpires__thenNextWaiterAcquiresTheLock() {
+        var lock = lock();
+
+        lockService.executeWithLockCustomExpire(lock, Mono.never(), Duration.ofMillis(100)).subscribe();
+
+        StepVerifier.create(lockService.executeWithLock(lock, Mono.just("done")))
+                .expectNext("done")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+
+    @Test
+    void executeWithLock__whenWaiterIsCancelled__thenNextWaiterAcquiresTheLock() {
+        var lock = lock();
+        var executed = new AtomicInteger();
+
+        lockService.executeWithLock(lock, Mono.delay(Duration.ofMillis(200))).subscribe();
+        var cancelled = lockService.executeWithLock(lock, Mono.fromRunnable(executed::incrementAndGet)).subscribe();
+        cancelled.dispose();
+
+        StepVerifier.create(lockService.executeWithLock(lock, Mono.just("done")))
+                .expectNext("done")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        assertThat(executed.get()).isZero();
+    }
+
+    @Test
+    void executeWithLock__whenFlux__thenLockIsHeldUntilStreamCompletes() {
+        var lock = lock();
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        var stream = lockService.executeWithLock(lock, Flux.just("A", "B")
+                .delayElements(Duration.ofMillis(50))
+                .doOnNext(events::add));
+        var action = lockService.executeWithLock(lock, Mono.fromRunnable(() -> events.add("C")));
+
+        Flux.merge(stream, action.delaySubscription(Duration.ofMillis(10))).blockLast();
+
+        assertThat(events).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    void executeWithLocks__whenBatchesOverlapInAnyOrder__thenActionsDontOverlapNorDeadlock() {
+        List<LockService.Lock> locks = List.of(lock(), lock(), lock());
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var executed = new AtomicInteger();
+
+        Mono<Integer> action = Mono.fromCallable(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return executed.incrementAndGet();
+        });
+
+        Flux.range(0, 30)
+                .flatMap(i -> switch (i % 3) {
+                    case 0 -> lockService.executeWithLocks(locks, action);
+                    case 1 -> lockService.executeWithLocks(locks.reversed(), action);
+                    default -> lockService.executeWithLock(locks.get(i % locks.size()), action);
+                })
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(executed.get()).isEqualTo(30);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void executeWithLocks__whenThousandKeys__thenAcquireAndReleaseAllOfThem() {
+        List<LockService.Lock> locks = IntStream.range(0, 1000).mapToObj(__ -> lock()).toList();
+
+        StepVerifier.create(lockService.executeWithLocks(locks, Mono.just("batch")))
+                .expectNext("batch")
+                .verifyComplete();
+
+        // All released, so every key is free again, alone or as a batch
+        StepVerifier.create(lockService.executeWithLocks(locks.reversed(), Mono.just("again")))
+                .expectNext("again")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+        StepVerifier.create(lockService.executeWithLock(locks.getLast(), Mono.just("single")))
+                .expectNext("single")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+    }
+}
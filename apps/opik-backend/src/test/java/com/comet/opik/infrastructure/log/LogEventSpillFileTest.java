@@ -0,0 +1,91 @@
+package com.comet.opik.infrastructure.log;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import com.comet.opik.domain.UserLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LogEventSpillFileTest {
+
+    @TempDir
+    private Path directory;
+
+    private static ILoggingEvent event(int i) {
+        var event = new LoggingEvent();
+        event.setInstant(Instant.now());
+        event.setLevel(Level.INFO);
+        event.setLoggerName(LogEventSpillFileTest.class.getName());
+        event.setMessage("message " + i);
+        event.setMDCPropertyMap(Map.of(UserLog.MARKER, UserLog.AUTOMATION_RULE_EVALUATOR.name(), "rule_id", "rule"));
+        return event;
+    }
+
+    @Test
+    void replay__thenReadBackSpilledEventsInOrder() {
+        var spillFile = new LogEventSpillFile(directory, 1024 * 1024);
+        IntStream.range(0, 10).forEach(i -> assertThat(spillFile.append(event(i))).isTrue());
+
+        List<ILoggingEvent> replayed = new ArrayList<>();
+        spillFile.replay(4, 10, replayed::addAll);
+
+        assertThat(replayed).extracting(ILoggingEvent::getFormattedMessage)
+                .containsExactlyElementsOf(IntStream.range(0, 10).mapToObj(i -> "message " + i).toList());
+        assertThat(replayed.getFirst().getLevel()).isEqualTo(Level.INFO);
+        assertThat(replayed.getFirst().getMDCPropertyMap())
+                .containsEntry(UserLog.MARKER, UserLog.AUTOMATION_RULE_EVALUATOR.name())
+                .containsEntry("rule_id", "rule");
+        assertThat(spillFile.hasPending()).isFalse();
+    }
+
+    @Test
+    void replay__whenBatchFails__thenRetryItOnNextReplay() {
+        var spillFile = new LogEventSpillFile(directory, 1024 * 1024);
+        IntStream.range(0, 10).forEach(i -> spillFile.append(event(i)));
+
+        List<String> replayed = new ArrayList<>();
+        var calls = new AtomicInteger();
+        spillFile.replay(3, 10, batch -> {
+            if (calls.incrementAndGet() == 2) {
+                return false;
+            }
+            batch.forEach(event -> replayed.add(event.getFormattedMessage()));
+            return true;
+        });
+
+        assertThat(replayed).hasSize(3);
+        assertThat(spillFile.hasPending()).isTrue();
+
+        // Events spilled during the replay are written after the ones being replayed
+        spillFile.append(event(10));
+
+        spillFile.replay(3, 10, batch -> replayed.addAll(batch.stream().map(ILoggingEvent::getFormattedMessage)
+                .toList()));
+        spillFile.replay(3, 10, batch -> replayed.addAll(batch.stream().map(ILoggingEvent::getFormattedMessage)
+                .toList()));
+
+        assertThat(replayed).containsExactlyElementsOf(
+                IntStream.rangeClosed(0, 10).mapToObj(i -> "message " + i).toList());
+        assertThat(spillFile.hasPending()).isFalse();
+    }
+
+    @Test
+    void append__whenMaxSizeReached__thenReject() {
+        var spillFile = new LogEventSpillFile(directory, 512);
+
+        long accepted = IntStream.range(0, 100).filter(i -> spillFile.append(event(i))).count();
+
+        assertThat(accepted).isPositive().isLessThan(100);
+    }
+}
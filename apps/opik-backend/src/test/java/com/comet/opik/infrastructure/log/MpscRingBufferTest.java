@@ -0,0 +1,83 @@
+package com.comet.opik.infrastructure.log;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MpscRingBufferTest {
+
+    @Test
+    void capacity__isRoundedUpToPowerOfTwo() {
+        assertThat(new MpscRingBuffer<>(2).capacity()).isEqualTo(2);
+        assertThat(new MpscRingBuffer<>(1000).capacity()).isEqualTo(1024);
+        assertThat(new MpscRingBuffer<>(1024).capacity()).isEqualTo(1024);
+        assertThatThrownBy(() -> new MpscRingBuffer<>(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void offer__whenFull__thenRejectUntilPolled() {
+        var buffer = new MpscRingBuffer<Integer>(4);
+
+        IntStream.range(0, 4).forEach(i -> assertThat(buffer.offer(i)).isTrue());
+
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(4)).isTrue();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(1, 2, 3, 4);
+        assertThat(buffer.isEmpty()).isTrue();
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void offer__whenConcurrentProducers__thenConsumeAllInProducerOrder() throws Exception {
+        int producers = 8;
+        int perProducer = 50_000;
+        var buffer = new MpscRingBuffer<Long>(256);
+
+        try (var executor = Executors.newFixedThreadPool(producers)) {
+            var futures = IntStream.range(0, producers)
+                    .mapToObj(producer -> CompletableFuture.runAsync(() -> {
+                        for (long i = 0; i < perProducer; i++) {
+                            long value = (long) producer * perProducer + i;
+                            while (!buffer.offer(value)) {
+                                Thread.onSpinWait();
+                            }
+                        }
+                    }, executor))
+                    .toList();
+
+            long[] lastPerProducer = new long[producers];
+            Arrays.fill(lastPerProducer, -1);
+            long consumed = 0;
+
+            while (consumed < (long) producers * perProducer) {
+                Long value = buffer.poll();
+                if (value == null) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                int producer = (int) (value / perProducer);
+                assertThat(value).isGreaterThan(lastPerProducer[producer]);
+                lastPerProducer[producer] = value;
+                consumed++;
+            }
+
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+        }
+
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+}
@@ -60,6 +60,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -109,6 +110,14 @@ class RateLimitE2ETest {
             }
             return Response.status(Response.Status.CREATED).build();
         }
+
+        @POST
+        @Path("/async")
+        @RateLimited(value = CUSTOM_LIMIT)
+        public CompletionStage<Response> testAsync(@RequestBody String test) {
+            return Mono.fromSupplier(() -> Response.status(Response.Status.CREATED).build())
+                    .toFuture();
+        }
     }
 
     static {
@@ -583,6 +592,41 @@ class RateLimitE2ETest {
 
     }
 
+    @Test
+    @DisplayName("Rate limit: When async custom rated bean method is called, Then rate limit is applied")
+    void rateLimit__whenAsyncCustomRatedBeanMethodIsCalled__thenRateLimitIsApplied() {
+        String apiKey = UUID.randomUUID().toString();
+        String user = UUID.randomUUID().toString();
+        String workspaceId = UUID.randomUUID().toString();
+        String workspaceName = UUID.randomUUID().toString();
+
+        mockTargetWorkspace(apiKey, workspaceName, workspaceId, user);
+
+        try (var response = client.target("%s/v1/private/test/async".formatted(baseURI))
+                .request()
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.AUTHORIZATION, apiKey)
+                .header(WORKSPACE_HEADER, workspaceName)
+                .post(Entity.json(""))) {
+
+            assertEquals(HttpStatus.SC_CREATED, response.getStatus());
+
+            assertLimitHeaders(response, 0, CUSTOM_LIMIT, 1);
+        }
+
+        try (var response = client.target("%s/v1/private/test/async".formatted(baseURI))
+                .request()
+                .accept(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.AUTHORIZATION, apiKey)
+                .header(WORKSPACE_HEADER, workspaceName)
+                .post(Entity.json(""))) {
+
+            assertEquals(HttpStatus.SC_TOO_MANY_REQUESTS, response.getStatus());
+
+            assertLimitHeaders(response, 0, CUSTOM_LIMIT, 1);
+        }
+    }
+
     @Test
     @DisplayName("Rate limit: When custom rated bean method is called but takes longer then ttl, Then rate limit header is reset")
     void rateLimit__whenCustomRatedBeanMethodIsCalledButTakesLongerThenTtl__thenRateLimitHeaderIsReset() {
@@ -0,0 +1,167 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.api.resources.utils.RedisContainerUtils;
+import com.comet.opik.infrastructure.DistributedLockConfig;
+import com.comet.opik.infrastructure.RedisConfig;
+import com.comet.opik.infrastructure.lock.LockService;
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FairLockServiceTest {
+
+    private static final RedisContainer REDIS = RedisContainerUtils.newRedisContainer();
+
+    private RedissonClient redisClient;
+    private FairLockService lockService;
+
+    @BeforeAll
+    void setUpAll() {
+        REDIS.start();
+
+        var config = new RedisConfig();
+        config.setSingleNodeUrl(REDIS.getRedisURI());
+
+        redisClient = Redisson.create(config.build());
+
+        var lockConfig = new DistributedLockConfig();
+        lockConfig.setStrategy(DistributedLockConfig.Strategy.FAIR);
+        lockConfig.setLockTimeoutMS(500);
+        lockConfig.setTtlInSeconds(1);
+
+        lockService = new FairLockService(redisClient.reactive(), lockConfig);
+    }
+
+    @AfterAll
+    void tearDownAll() {
+        redisClient.shutdown();
+    }
+
+    private static LockService.Lock lock() {
+        return new LockService.Lock(UUID.randomUUID(), "test-lock");
+    }
+
+    @Test
+    void executeWithLock__whenSameKey__thenActionsDontOverlap() {
+        var lock = lock();
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+
+        var executed = Flux.range(0, 20)
+                .flatMap(i -> lockService.executeWithLock(lock, Mono.fromCallable(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.sleep(5);
+                    running.decrementAndGet();
+                    return i;
+                })))
+                .collectList()
+                .block();
+
+        assertThat(executed).hasSize(20);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void executeWithLock__whenWaiting__thenLockIsGrantedInArrivalOrder() {
+        var lock = lock();
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        var holder = lockService.executeWithLock(lock, Mono.delay(Duration.ofMillis(200)).thenReturn("holder"));
+        var waiters = Flux.just("first", "second", "third")
+                .delayElements(Duration.ofMillis(30))
+                .flatMap(name -> lockService.executeWithLock(lock, Mono.fromCallable(() -> order.add(name))));
+
+        Flux.merge(holder, waiters).blockLast();
+
+        assertThat(order).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void executeWithLocks__whenSingleAndBatchLocksOverlap__thenActionsDontOverlapNorDeadlock() {
+        List<LockService.Lock> locks = List.of(lock(), lock(), lock());
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var executed = new AtomicInteger();
+
+        Mono<Integer> action = Mono.fromCallable(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return executed.incrementAndGet();
+        });
+
+        Flux.range(0, 15)
+                .flatMap(i -> switch (i % 3) {
+                    case 0 -> lockService.executeWithLocks(locks, action);
+                    case 1 -> lockService.executeWithLocks(locks.reversed(), action);
+                    default -> lockService.executeWithLock(locks.get(i % locks.size()), action);
+                })
+                .blockLast(Duration.ofSeconds(5));
+
+        assertThat(executed.get()).isEqualTo(15);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void executeWithLockCustomExpire__whenLeaseExpires__thenNextWaiterAcquiresTheLock() {
+        var lock = lock();
+
+        var holder = lockService.executeWithLockCustomExpire(lock, Mono.never(), Duration.ofMillis(100))
+                .subscribe();
+
+        StepVerifier.create(lockService.executeWithLock(lock, Mono.just("done")))
+                .expectNext("done")
+                .expectComplete()
+                .verify(Duration.ofSeconds(1));
+
+        holder.dispose();
+    }
+
+    @Test
+    void executeWithLock__whenWaitingLongerThanTimeToLive__thenFails() {
+        var lock = lock();
+
+        var holder = lockService.executeWithLockCustomExpire(lock, Mono.never(), Duration.ofSeconds(10))
+                .subscribe();
+
+        StepVerifier.create(lockService.executeWithLock(lock, Mono.just("done")))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(2));
+
+        holder.dispose();
+    }
+
+    @Test
+    void executeWithLock__whenActionCompletes__thenLockAndQueueAreDeleted() {
+        var lock = lock();
+        var owner = "opik:lock:{%s}".formatted(lock.key());
+
+        Flux.range(0, 3)
+                .flatMap(i -> lockService.executeWithLock(lock, Mono.delay(Duration.ofMillis(20))))
+                .blockLast();
+
+        await().atMost(Duration.ofSeconds(1)).untilAsserted(() -> {
+            assertThat(redisClient.getBucket(owner).isExists()).isFalse();
+            assertThat(redisClient.getList(owner + ":queue").isExists()).isFalse();
+            assertThat(redisClient.getScoredSortedSet(owner + ":waiters").isExists()).isFalse();
+        });
+    }
+}
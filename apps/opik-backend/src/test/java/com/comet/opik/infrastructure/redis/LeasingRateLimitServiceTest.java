@@ -0,0 +1,141 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.infrastructure.RateLimitConfig.LocalLeaseConfig;
+import com.comet.opik.infrastructure.redis.LeasableRateLimitService.PermitLease;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LeasingRateLimitServiceTest {
+
+    private static final String API_KEY = "api-key";
+    private static final String BUCKET = "bucket";
+    private static final LimitConfig LIMIT = new LimitConfig(1000, 60);
+
+    @Mock
+    private LeasableRateLimitService redisRateLimitService;
+
+    private LeasingRateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        var config = new LocalLeaseConfig();
+        config.setEnabled(true);
+        config.setMaxLeaseSize(10);
+        config.setLeaseDuration(Duration.ofMinutes(1));
+
+        rateLimitService = new LeasingRateLimitService(redisRateLimitService, config);
+    }
+
+    @Test
+    void isLimitExceeded__whenLeaseHasPermits__thenServeLocally() {
+        when(redisRateLimitService.lease(API_KEY, BUCKET, LIMIT, 10, 1))
+                .thenReturn(Mono.just(new PermitLease(10, 990, 60_000)));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimitService.isLimitExceeded(API_KEY, 1, BUCKET, LIMIT).block()).isFalse();
+        }
+
+        verify(redisRateLimitService).lease(API_KEY, BUCKET, LIMIT, 10, 1);
+        verifyNoMoreInteractions(redisRateLimitService);
+    }
+
+    @Test
+    void isLimitExceeded__whenLeaseIsUsedUp__thenLeaseAgain() {
+        when(redisRateLimitService.lease(API_KEY, BUCKET, LIMIT, 10, 4))
+                .thenReturn(Mono.just(new PermitLease(10, 990, 60_000)))
+                .thenReturn(Mono.just(new PermitLease(10, 980, 59_000)));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimitService.isLimitExceeded(API_KEY, 4, BUCKET, LIMIT).block()).isFalse();
+        }
+
+        verify(redisRateLimitService, times(2)).lease(API_KEY, BUCKET, LIMIT, 10, 4);
+        assertThat(rateLimitService.availableEvents(API_KEY, BUCKET, LIMIT).block()).isEqualTo(980 + 8);
+    }
+
+    @Test
+    void isLimitExceeded__whenRedisHasNoPermitsLeft__thenExceeded() {
+        when(redisRateLimitService.lease(API_KEY, BUCKET, LIMIT, 10, 1))
+                .thenReturn(Mono.just(new PermitLease(0, 0, 30_000)));
+
+        assertThat(rateLimitService.isLimitExceeded(API_KEY, 1, BUCKET, LIMIT).block()).isTrue();
+        assertThat(rateLimitService.availableEvents(API_KEY, BUCKET, LIMIT).block()).isZero();
+    }
+
+    @Test
+    void isLimitExceeded__whenEventsExceedLeaseSize__thenGoToRedis() {
+        when(redisRateLimitService.isLimitExceeded(API_KEY, 50, BUCKET, LIMIT)).thenReturn(Mono.just(false));
+
+        assertThat(rateLimitService.isLimitExceeded(API_KEY, 50, BUCKET, LIMIT).block()).isFalse();
+
+        verify(redisRateLimitService).isLimitExceeded(API_KEY, 50, BUCKET, LIMIT);
+        verifyNoMoreInteractions(redisRateLimitService);
+    }
+
+    @Test
+    void isLimitExceeded__whenLimitIsSmall__thenLeaseAtMostATenthOfIt() {
+        var smallLimit = new LimitConfig(30, 60);
+        when(redisRateLimitService.lease(API_KEY, BUCKET, smallLimit, 3, 1))
+                .thenReturn(Mono.just(new PermitLease(3, 27, 60_000)));
+
+        assertThat(rateLimitService.isLimitExceeded(API_KEY, 1, BUCKET, smallLimit).block()).isFalse();
+
+        verify(redisRateLimitService).lease(API_KEY, BUCKET, smallLimit, 3, 1);
+    }
+
+    @Test
+    void isLimitExceeded__whenConcurrentRefills__thenShareSingleLease() {
+        Sinks.One<PermitLease> lease = Sinks.one();
+        when(redisRateLimitService.lease(eq(API_KEY), eq(BUCKET), eq(LIMIT), anyLong(), anyLong()))
+                .thenReturn(lease.asMono());
+
+        var first = rateLimitService.isLimitExceeded(API_KEY, 1, BUCKET, LIMIT).toFuture();
+        var second = rateLimitService.isLimitExceeded(API_KEY, 1, BUCKET, LIMIT).toFuture();
+
+        lease.tryEmitValue(new PermitLease(10, 990, 60_000));
+
+        assertThat(first.join()).isFalse();
+        assertThat(second.join()).isFalse();
+        verify(redisRateLimitService).lease(API_KEY, BUCKET, LIMIT, 10, 1);
+        verifyNoMoreInteractions(redisRateLimitService);
+    }
+
+    @Test
+    void headers__whenNoLease__thenReadFromRedis() {
+        when(redisRateLimitService.availableEvents(API_KEY, BUCKET, LIMIT)).thenReturn(Mono.just(1000L));
+        when(redisRateLimitService.getRemainingTTL(API_KEY, BUCKET, LIMIT)).thenReturn(Mono.just(60_000L));
+
+        assertThat(rateLimitService.availableEvents(API_KEY, BUCKET, LIMIT).block()).isEqualTo(1000L);
+        assertThat(rateLimitService.getRemainingTTL(API_KEY, BUCKET, LIMIT).block()).isEqualTo(60_000L);
+    }
+
+    @Test
+    void headers__whenLeased__thenComputeLocally() {
+        when(redisRateLimitService.lease(API_KEY, BUCKET, LIMIT, 10, 1))
+                .thenReturn(Mono.just(new PermitLease(10, 990, 60_000)));
+
+        rateLimitService.isLimitExceeded(API_KEY, 1, BUCKET, LIMIT).block();
+
+        assertThat(rateLimitService.availableEvents(API_KEY, BUCKET, LIMIT).block()).isEqualTo(999L);
+        assertThat(rateLimitService.getRemainingTTL(API_KEY, BUCKET, LIMIT).block()).isBetween(0L, 60_000L);
+        verify(redisRateLimitService).lease(API_KEY, BUCKET, LIMIT, 10, 1);
+        verifyNoMoreInteractions(redisRateLimitService);
+    }
+}
@@ -0,0 +1,147 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.api.resources.utils.RedisContainerUtils;
+import com.comet.opik.infrastructure.RateLimitConfig;
+import com.comet.opik.infrastructure.RedisConfig;
+import com.comet.opik.infrastructure.ratelimit.RateLimitService;
+import com.redis.testcontainers.RedisContainer;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.NettyHook;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
+
+/**
+ * Compares the rate limit evaluation of a request, deciding and then reading the limit headers, between the rate
+ * limit strategies against a Redis Testcontainer. Besides the latency reported by JMH, prints the commands the client
+ * sent to Redis per evaluation, i.e. the round trips, as nothing is pipelined. Not run as part of the test suite, run it
+ * through its main method:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.comet.opik.infrastructure.redis.RateLimitServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RateLimitServiceBenchmark {
+
+    private static final String BUCKET = "benchmark";
+    // High enough for the limit never to be exceeded during a run
+    private static final LimitConfig LIMIT = new LimitConfig(1_000_000_000, 3600);
+
+    @Param({"RATE_LIMITER", "SCRIPT"})
+    private RateLimitConfig.Strategy strategy;
+
+    private RedisContainer redis;
+    private RedissonClient redisClient;
+    private RateLimitService rateLimitService;
+    private String apiKey;
+
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong commands = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        redis = RedisContainerUtils.newRedisContainer();
+        redis.start();
+
+        var config = new RedisConfig();
+        config.setSingleNodeUrl(redis.getRedisURI());
+        redisClient = Redisson.create(config.build().setNettyHook(new CommandCounter(commands)));
+
+        rateLimitService = switch (strategy) {
+            case RATE_LIMITER -> new RedisRateLimitService(redisClient.reactive());
+            case SCRIPT -> new ScriptRateLimitService(redisClient.reactive());
+        };
+        apiKey = UUID.randomUUID().toString();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        evaluations.set(0);
+        commands.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void printCounters() {
+        System.out.printf("%n%s: %.2f Redis round trips per evaluation%n", strategy,
+                (double) commands.get() / Math.max(1, evaluations.get()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        redisClient.shutdown();
+        redis.stop();
+    }
+
+    @Benchmark
+    public RateLimitService.LimitState evaluate() {
+        evaluations.incrementAndGet();
+
+        var decision = rateLimitService.tryAcquire(apiKey, 1, BUCKET, LIMIT).block();
+        if (decision.limitExceeded()) {
+            throw new IllegalStateException("Limit exceeded during the benchmark");
+        }
+
+        // The headers are read again once the request is processed
+        return rateLimitService.getLimitState(apiKey, BUCKET, LIMIT).block();
+    }
+
+    /**
+     * Counts the commands written to the Redis connections, keep-alive pings included.
+     */
+    private record CommandCounter(AtomicLong commands) implements NettyHook {
+
+        @Override
+        public void afterBoostrapInitialization(Bootstrap bootstrap) {
+        }
+
+        @Override
+        public void afterChannelInitialization(Channel channel) {
+            channel.pipeline().addFirst(new ChannelOutboundHandlerAdapter() {
+                @Override
+                public void write(ChannelHandlerContext context, Object message, ChannelPromise promise)
+                        throws Exception {
+                    commands.incrementAndGet();
+                    super.write(context, message, promise);
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitServiceBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.api.resources.utils.RedisContainerUtils;
+import com.comet.opik.infrastructure.CacheConfiguration;
+import com.comet.opik.infrastructure.RedisConfig;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RedisCacheManagerTest {
+
+    private static final RedisContainer REDIS = RedisContainerUtils.newRedisContainer();
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    record Value(String id, List<String> names) {
+    }
+
+    private RedissonClient redisClient;
+
+    @BeforeAll
+    void setUpAll() {
+        REDIS.start();
+
+        var config = new RedisConfig();
+        config.setSingleNodeUrl(REDIS.getRedisURI());
+
+        redisClient = Redisson.create(config.build());
+    }
+
+    @AfterAll
+    void tearDownAll() {
+        redisClient.shutdown();
+    }
+
+    private static String key() {
+        return "test:-" + UUID.randomUUID();
+    }
+
+    private static Value value() {
+        return new Value(UUID.randomUUID().toString(), List.of("first", "second"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheConfiguration.Codec.class)
+    void put__thenValueIsReadWithItsTtl(CacheConfiguration.Codec codec) {
+        var cacheManager = new RedisCacheManager(redisClient.reactive(), codec);
+        var key = key();
+        var value = value();
+
+        cacheManager.put(key, value, TTL).block();
+
+        assertThat(cacheManager.get(key, Value.class).block()).isEqualTo(value);
+        assertThat(cacheManager.contains(key).block()).isTrue();
+        assertThat(redisClient.getBucket(key).remainTimeToLive()).isBetween(1L, TTL.toMillis());
+    }
+
+    @ParameterizedTest
+    @EnumSource(CacheConfiguration.Codec.class)
+    void putAll__thenAllValuesAreReadTogether(CacheConfiguration.Codec codec) {
+        var cacheManager = new RedisCacheManager(redisClient.reactive(), codec);
+        var values = Map.of(key(), List.of(value()), key(), List.of(value(), value()));
+        var missingKey = key();
+
+        cacheManager.putAll(values, TTL).block();
+
+        var keys = new ArrayList<>(values.keySet());
+        keys.add(missingKey);
+        var found = cacheManager.getAll(keys, new TypeReference<List<Value>>() {
+        }).block();
+
+        assertThat(found).isEqualTo(values);
+        values.keySet().forEach(key -> assertThat(redisClient.getBucket(key).remainTimeToLive())
+                .isBetween(1L, TTL.toMillis()));
+    }
+
+    @Test
+    void evictTag__thenOnlyTaggedKeysAreEvicted() {
+        var cacheManager = new RedisCacheManager(redisClient.reactive(), CacheConfiguration.Codec.JSON);
+        var tag = "test:-#" + UUID.randomUUID();
+        var taggedKeys = List.of(key(), key());
+        var otherKey = key();
+
+        taggedKeys.forEach(key -> cacheManager.put(key, value(), TTL, tag).block());
+        cacheManager.put(otherKey, value(), TTL).block();
+
+        assertThat(redisClient.getSet(tag, StringCodec.INSTANCE).readAll())
+                .containsExactlyInAnyOrderElementsOf(taggedKeys);
+        assertThat(redisClient.getSet(tag).remainTimeToLive()).isBetween(1L, TTL.toMillis());
+
+        assertThat(cacheManager.evictTag(tag).block()).isTrue();
+
+        taggedKeys.forEach(key -> assertThat(cacheManager.contains(key).block()).isFalse());
+        assertThat(cacheManager.contains(otherKey).block()).isTrue();
+        assertThat(redisClient.getSet(tag).isExists()).isFalse();
+        assertThat(cacheManager.evictTag(tag).block()).isFalse();
+    }
+
+    @Test
+    void get__whenEntryWasWrittenWithAnotherCodec__thenValueIsRead() {
+        var jsonCacheManager = new RedisCacheManager(redisClient.reactive(), CacheConfiguration.Codec.JSON);
+        var lz4CacheManager = new RedisCacheManager(redisClient.reactive(), CacheConfiguration.Codec.LZ4);
+        var jsonKey = key();
+        var lz4Key = key();
+        var jsonValue = value();
+        var lz4Value = value();
+
+        jsonCacheManager.put(jsonKey, jsonValue, TTL).block();
+        lz4CacheManager.put(lz4Key, lz4Value, TTL).block();
+
+        assertThat(lz4CacheManager.get(jsonKey, Value.class).block()).isEqualTo(jsonValue);
+        assertThat(jsonCacheManager.get(lz4Key, Value.class).block()).isEqualTo(lz4Value);
+    }
+
+    @Test
+    void get__whenEntryCannotBeDecoded__thenTreatedAsMissing() {
+        var cacheManager = new RedisCacheManager(redisClient.reactive(), CacheConfiguration.Codec.JSON);
+        var key = key();
+
+        redisClient.getBucket(key, StringCodec.INSTANCE).set("\"not a value\"");
+
+        assertThat(cacheManager.get(key, Value.class).block()).isNull();
+    }
+}
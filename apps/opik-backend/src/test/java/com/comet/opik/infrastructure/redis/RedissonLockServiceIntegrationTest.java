@@ -9,12 +9,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.redisson.RedissonObject;
 import org.redisson.api.RedissonReactiveClient;
+import org.redisson.client.codec.StringCodec;
 import org.testcontainers.clickhouse.ClickHouseContainer;
 import org.testcontainers.containers.MySQLContainer;
 import org.testcontainers.lifecycle.Startables;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 import ru.vyarus.dropwizard.guice.test.jupiter.ext.TestDropwizardAppExtension;
@@ -23,6 +26,7 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.comet.opik.api.resources.utils.TestDropwizardAppExtensionUtils.AppContextConfig;
 import static com.comet.opik.api.resources.utils.TestDropwizardAppExtensionUtils.CustomConfig;
@@ -30,6 +34,7 @@ import static com.comet.opik.api.resources.utils.TestDropwizardAppExtensionUtils
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.testcontainers.shaded.org.awaitility.Awaitility.await;
 
 @Slf4j
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
@@ -54,7 +59,9 @@ class RedissonLockServiceIntegrationTest {
                         .jdbcUrl(MYSQL.getJdbcUrl())
                         .databaseAnalyticsFactory(databaseAnalyticsFactory)
                         .redisUrl(REDIS.getRedisURI())
-                        .customConfigs(List.of(new CustomConfig("distributedLock.lockTimeoutMS", "100"),
+                        .customConfigs(List.of(new CustomConfig("distributedLock.mode", "REDIS"),
+                                new CustomConfig("distributedLock.strategy", "SEMAPHORE"),
+                                new CustomConfig("distributedLock.lockTimeoutMS", "100"),
                                 new CustomConfig("distributedLock.ttlInSeconds", "1")))
                         .build());
     }
@@ -147,4 +154,73 @@ class RedissonLockServiceIntegrationTest {
                 .verifyComplete();
     }
 
+    @Test
+    void testExecuteWithLocks__whenSingleAndBatchLocksOverlap__thenActionsDontOverlap(LockService lockService) {
+        List<LockService.Lock> locks = List.of(
+                new LockService.Lock(UUID.randomUUID(), "test-lock"),
+                new LockService.Lock(UUID.randomUUID(), "test-lock"),
+                new LockService.Lock(UUID.randomUUID(), "test-lock"));
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var executed = new AtomicInteger();
+
+        Mono<Void> action = Mono.fromRunnable(() -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Mono.delay(Duration.ofMillis(5)).block();
+            running.decrementAndGet();
+            executed.incrementAndGet();
+        });
+
+        Flux.range(0, 12)
+                .flatMap(i -> switch (i % 3) {
+                    case 0 -> lockService.executeWithLocks(locks, action);
+                    case 1 -> lockService.executeWithLocks(locks.reversed(), action);
+                    default -> lockService.executeWithLock(locks.get(i % locks.size()), action);
+                })
+                .blockLast();
+
+        assertThat(executed.get()).isEqualTo(12);
+        assertThat(maxRunning.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testExecuteWithLocks__whenActionCompletes__thenAllLocksAreReleased(LockService lockService,
+            RedissonReactiveClient redisClient) {
+        List<LockService.Lock> locks = List.of(
+                new LockService.Lock(UUID.randomUUID(), "test-lock"),
+                new LockService.Lock(UUID.randomUUID(), "test-lock"));
+
+        StepVerifier.create(lockService.executeWithLocks(locks, Mono.just("batch")))
+                .expectNext("batch")
+                .verifyComplete();
+
+        // Released asynchronously, but well before the permits would have expired
+        await().atMost(Duration.ofMillis(50)).untilAsserted(() -> locks.forEach(lock -> assertThat(redisClient
+                .getScoredSortedSet(RedissonObject.suffixName(lock.key(), "timeout"), StringCodec.INSTANCE)
+                .size()
+                .block()).isZero()));
+    }
+
+    @Test
+    void testExecuteWithLocks__whenLockIsHeldPastTimeout__thenFailAsSingleLock(LockService lockService,
+            RedissonReactiveClient redisClient) {
+        List<LockService.Lock> locks = List.of(
+                new LockService.Lock(UUID.randomUUID(), "test-lock"),
+                new LockService.Lock(UUID.randomUUID(), "test-lock"));
+        Sinks.Empty<Void> held = Sinks.empty();
+
+        lockService.executeWithLockCustomExpire(locks.getFirst(), held.asMono(), Duration.ofSeconds(1)).subscribe();
+        await().atMost(Duration.ofMillis(500)).untilAsserted(() -> assertThat(redisClient
+                .getScoredSortedSet(RedissonObject.suffixName(locks.getFirst().key(), "timeout"), StringCodec.INSTANCE)
+                .size()
+                .block()).isOne());
+
+        StepVerifier.create(lockService.executeWithLocks(locks, Mono.just("batch")))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(IllegalStateException.class)
+                        .hasMessage("Could not acquire lock"))
+                .verify();
+
+        held.tryEmitEmpty();
+    }
 }
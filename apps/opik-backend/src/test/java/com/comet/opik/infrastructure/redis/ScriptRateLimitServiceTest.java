@@ -0,0 +1,112 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.api.resources.utils.RedisContainerUtils;
+import com.comet.opik.infrastructure.RedisConfig;
+import com.redis.testcontainers.RedisContainer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static com.comet.opik.infrastructure.RateLimitConfig.LimitConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ScriptRateLimitServiceTest {
+
+    private static final String BUCKET = "bucket";
+    private static final LimitConfig LIMIT = new LimitConfig(5, 1);
+
+    private static final RedisContainer REDIS = RedisContainerUtils.newRedisContainer();
+
+    private RedissonClient redisClient;
+    private ScriptRateLimitService rateLimitService;
+
+    @BeforeAll
+    void setUpAll() {
+        REDIS.start();
+
+        var config = new RedisConfig();
+        config.setSingleNodeUrl(REDIS.getRedisURI());
+
+        redisClient = Redisson.create(config.build());
+        rateLimitService = new ScriptRateLimitService(redisClient.reactive());
+    }
+
+    @AfterAll
+    void tearDownAll() {
+        redisClient.shutdown();
+    }
+
+    @Test
+    void tryAcquire__whenLimitIsExceeded__thenRejectAndReturnState() {
+        String apiKey = UUID.randomUUID().toString();
+
+        var first = rateLimitService.tryAcquire(apiKey, 3, BUCKET, LIMIT).block();
+        var second = rateLimitService.tryAcquire(apiKey, 3, BUCKET, LIMIT).block();
+        var third = rateLimitService.tryAcquire(apiKey, 2, BUCKET, LIMIT).block();
+
+        assertThat(first.limitExceeded()).isFalse();
+        assertThat(first.state().availableEvents()).isEqualTo(2);
+        assertThat(first.state().remainingTTL()).isBetween(0L, 1000L);
+
+        assertThat(second.limitExceeded()).isTrue();
+        assertThat(second.state().availableEvents()).isEqualTo(2);
+
+        assertThat(third.limitExceeded()).isFalse();
+        assertThat(third.state().availableEvents()).isZero();
+    }
+
+    @Test
+    void tryAcquire__whenWindowIsOver__thenAcceptAgain() {
+        String apiKey = UUID.randomUUID().toString();
+
+        assertThat(rateLimitService.isLimitExceeded(apiKey, 5, BUCKET, LIMIT).block()).isFalse();
+        assertThat(rateLimitService.isLimitExceeded(apiKey, 1, BUCKET, LIMIT).block()).isTrue();
+
+        Mono.delay(Duration.ofMillis(1100)).block();
+
+        assertThat(rateLimitService.isLimitExceeded(apiKey, 1, BUCKET, LIMIT).block()).isFalse();
+    }
+
+    @Test
+    void getLimitState__whenLimitIsNotSet__thenSetAndReturnLimit() {
+        String apiKey = UUID.randomUUID().toString();
+
+        var state = rateLimitService.getLimitState(apiKey, BUCKET, LIMIT).block();
+
+        assertThat(state.availableEvents()).isEqualTo(LIMIT.limit());
+        assertThat(state.remainingTTL()).isBetween(0L, 1000L);
+        assertThat(rateLimitService.availableEvents(apiKey, BUCKET, LIMIT).block()).isEqualTo(LIMIT.limit());
+    }
+
+    @Test
+    void lease__whenFewerPermitsThanLeaseAreLeft__thenAcquireMinPermits() {
+        String apiKey = UUID.randomUUID().toString();
+
+        var first = rateLimitService.lease(apiKey, BUCKET, LIMIT, 4, 1).block();
+        var second = rateLimitService.lease(apiKey, BUCKET, LIMIT, 4, 1).block();
+        var third = rateLimitService.lease(apiKey, BUCKET, LIMIT, 4, 1).block();
+
+        assertThat(first.permits()).isEqualTo(4);
+        assertThat(second.permits()).isEqualTo(1);
+        assertThat(third.permits()).isZero();
+        assertThat(third.availableEvents()).isZero();
+    }
+
+    @Test
+    void evaluate__whenScriptIsFlushed__thenSendItAgain() {
+        String apiKey = UUID.randomUUID().toString();
+
+        redisClient.getScript().scriptFlush();
+
+        assertThat(rateLimitService.isLimitExceeded(apiKey, 1, BUCKET, LIMIT).block()).isFalse();
+        assertThat(rateLimitService.availableEvents(apiKey, BUCKET, LIMIT).block()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,197 @@
+package com.comet.opik.infrastructure.redis;
+
+import com.comet.opik.infrastructure.CacheConfiguration;
+import com.comet.opik.infrastructure.cache.CacheManager;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.redisson.api.RTopicReactive;
+import org.redisson.api.RedissonReactiveClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.client.codec.Codec;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+class TwoLevelCacheManagerTest {
+
+    private static final String KEY = "group:-key";
+
+    private CacheManager redisCacheManager;
+    private RTopicReactive topic;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        redisCacheManager = Mockito.mock(CacheManager.class);
+
+        topic = Mockito.mock(RTopicReactive.class);
+        Mockito.when(topic.addListener(eq(TwoLevelCacheManager.Invalidation.class), any()))
+                .thenReturn(Mono.just(1));
+        Mockito.when(topic.publish(any())).thenReturn(Mono.just(1L));
+
+        var redisClient = Mockito.mock(RedissonReactiveClient.class);
+        Mockito.when(redisClient.getTopic(anyString(), any(Codec.class))).thenReturn(topic);
+
+        var config = new CacheConfiguration();
+        config.setEnabled(true);
+        config.setDefaultDuration(Duration.ofMinutes(1));
+        config.getLocal().setEnabled(true);
+
+        cacheManager = new TwoLevelCacheManager(redisCacheManager, redisClient, config);
+    }
+
+    @Test
+    void get__whenLoadedFromRedis__thenServedFromMemory() {
+        Mockito.when(redisCacheManager.get(KEY, String.class)).thenReturn(Mono.just("value"));
+
+        assertThat(cacheManager.get(KEY, String.class).block()).isEqualTo("value");
+        assertThat(cacheManager.get(KEY, String.class).block()).isEqualTo("value");
+        assertThat(cacheManager.contains(KEY).block()).isTrue();
+
+        Mockito.verify(redisCacheManager).get(KEY, String.class);
+        Mockito.verifyNoMoreInteractions(redisCacheManager);
+    }
+
+    @Test
+    void get__whenMissingInRedis__thenNothingIsCached() {
+        Mockito.when(redisCacheManager.get(KEY, String.class)).thenReturn(Mono.empty());
+
+        assertThat(cacheManager.get(KEY, String.class).block()).isNull();
+        assertThat(cacheManager.get(KEY, String.class).block()).isNull();
+
+        Mockito.verify(redisCacheManager, Mockito.times(2)).get(KEY, String.class);
+    }
+
+    @Test
+    void put__thenServedFromMemoryAndNotPublished() {
+        var value = List.of("a", "b");
+        Mockito.when(redisCacheManager.put(KEY, value, Duration.ofMinutes(1))).thenReturn(Mono.just(true));
+
+        cacheManager.put(KEY, value, Duration.ofMinutes(1)).block();
+
+        assertThat(cacheManager.get(KEY, new TypeReference<List<String>>() {
+        }).block()).isEqualTo(value);
+        Mockito.verify(redisCacheManager, Mockito.never()).get(eq(KEY), any(TypeReference.class));
+        Mockito.verify(topic, Mockito.never()).publish(any());
+    }
+
+    @Test
+    void putAll__thenServedFromMemoryAndNotPublished() {
+        Mockito.when(redisCacheManager.putAll(Map.of(KEY, "value"), Duration.ofMinutes(1)))
+                .thenReturn(Mono.just(true));
+
+        cacheManager.putAll(Map.of(KEY, "value"), Duration.ofMinutes(1)).block();
+
+        assertThat(cacheManager.get(KEY, String.class).block()).isEqualTo("value");
+        Mockito.verify(redisCacheManager, Mockito.never()).get(KEY, String.class);
+        Mockito.verify(topic, Mockito.never()).publish(any());
+    }
+
+    @Test
+    void replace__thenServedFromMemoryAndPublished() {
+        Mockito.when(redisCacheManager.replace(KEY, "value", Duration.ofMinutes(1))).thenReturn(Mono.just(true));
+
+        cacheManager.replace(KEY, "value", Duration.ofMinutes(1)).block();
+
+        assertThat(cacheManager.get(KEY, String.class).block()).isEqualTo("value");
+        Mockito.verify(redisCacheManager, Mockito.never()).get(KEY, String.class);
+        Mockito.verify(topic).publish(TwoLevelCacheManager.Invalidation.of(cacheManager.nodeId, KEY, false));
+    }
+
+    @Test
+    void evict__whenPatternMatching__thenMatchingKeysAreEvicted() {
+        Mockito.when(redisCacheManager.put(anyString(), any(), any())).thenReturn(Mono.just(true));
+        Mockito.when(redisCacheManager.evict("group:-project-*", true)).thenReturn(Mono.just(true));
+        Mockito.when(redisCacheManager.get(anyString(), eq(String.class))).thenReturn(Mono.empty());
+
+        cacheManager.put("group:-project-1", "first", Duration.ofMinutes(1)).block();
+        cacheManager.put("group:-project-2", "second", Duration.ofMinutes(1)).block();
+        cacheManager.put("group:-other-1", "third", Duration.ofMinutes(1)).block();
+
+        cacheManager.evict("group:-project-*", true).block();
+
+        assertThat(cacheManager.get("group:-project-1", String.class).block()).isNull();
+        assertThat(cacheManager.get("group:-project-2", String.class).block()).isNull();
+        assertThat(cacheManager.get("group:-other-1", String.class).block()).isEqualTo("third");
+        Mockito.verify(topic)
+                .publish(TwoLevelCacheManager.Invalidation.of(cacheManager.nodeId, "group:-project-*", true));
+    }
+
+    @Test
+    void evictTag__thenGroupIsEvicted() {
+        Mockito.when(redisCacheManager.put(anyString(), any(), any(), eq("group:-#project")))
+                .thenReturn(Mono.just(true));
+        Mockito.when(redisCacheManager.put(anyString(), any(), any())).thenReturn(Mono.just(true));
+        Mockito.when(redisCacheManager.evictTag("group:-#project")).thenReturn(Mono.just(true));
+        Mockito.when(redisCacheManager.get(anyString(), eq(String.class))).thenReturn(Mono.empty());
+
+        cacheManager.put("group:-project-1", "first", Duration.ofMinutes(1), "group:-#project").block();
+        cacheManager.put("other:-project-1", "second", Duration.ofMinutes(1)).block();
+
+        cacheManager.evictTag("group:-#project").block();
+
+        assertThat(cacheManager.get("group:-project-1", String.class).block()).isNull();
+        assertThat(cacheManager.get("other:-project-1", String.class).block()).isEqualTo("second");
+        Mockito.verify(topic).publish(new TwoLevelCacheManager.Invalidation(cacheManager.nodeId, "group:-#project",
+                TwoLevelCacheManager.Invalidation.Type.TAG));
+    }
+
+    @Test
+    void evict__whenReadFromRedisIsInFlight__thenStaleValueIsNotCached() {
+        Sinks.One<String> read = Sinks.one();
+        Mockito.when(redisCacheManager.get(KEY, String.class))
+                .thenReturn(read.asMono())
+                .thenReturn(Mono.just("new"));
+        Mockito.when(redisCacheManager.evict(KEY, false)).thenReturn(Mono.just(true));
+
+        var stale = cacheManager.get(KEY, String.class).toFuture();
+        cacheManager.evict(KEY, false).block();
+        read.tryEmitValue("old");
+
+        assertThat(stale.join()).isEqualTo("old");
+        assertThat(cacheManager.get(KEY, String.class).block()).isEqualTo("new");
+    }
+
+    @Test
+    void invalidation__whenPublishedByOtherNode__thenEvictedLocally() {
+        Mockito.when(redisCacheManager.get(KEY, String.class))
+                .thenReturn(Mono.just("old"))
+                .thenReturn(Mono.just("new"));
+
+        cacheManager.get(KEY, String.class).block();
+
+        var listener = ArgumentCaptor.forClass(MessageListener.class);
+        Mockito.verify(topic).addListener(eq(TwoLevelCacheManager.Invalidation.class), listener.capture());
+
+        listener.getValue().onMessage("topic",
+                TwoLevelCacheManager.Invalidation.of(cacheManager.nodeId, KEY, false));
+        assertThat(cacheManager.get(KEY, String.class).block()).isEqualTo("old");
+
+        listener.getValue().onMessage("topic",
+                TwoLevelCacheManager.Invalidation.of(UUID.randomUUID().toString(), KEY, false));
+        assertThat(cacheManager.get(KEY, String.class).block()).isEqualTo("new");
+    }
+
+    @Test
+    void globToRegex__thenMatchesLikeRedis() {
+        assertThat(TwoLevelCacheManager.globToRegex("a:-b-*").matcher("a:-b-c-d").matches()).isTrue();
+        assertThat(TwoLevelCacheManager.globToRegex("a:-b-*").matcher("a:-c-d").matches()).isFalse();
+        assertThat(TwoLevelCacheManager.globToRegex("h?llo").matcher("hello").matches()).isTrue();
+        assertThat(TwoLevelCacheManager.globToRegex("h[ae]llo").matcher("hallo").matches()).isTrue();
+        assertThat(TwoLevelCacheManager.globToRegex("h[ae]llo").matcher("hillo").matches()).isFalse();
+        assertThat(TwoLevelCacheManager.globToRegex("a.b\\*").matcher("a.b*").matches()).isTrue();
+        assertThat(TwoLevelCacheManager.globToRegex("a.b\\*").matcher("axb*").matches()).isFalse();
+    }
+}
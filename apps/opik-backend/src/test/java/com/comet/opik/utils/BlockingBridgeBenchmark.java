@@ -0,0 +1,84 @@
+package com.comet.opik.utils;
+
+import com.comet.opik.infrastructure.VirtualThreadsConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of blocking work bridged into reactive pipelines, i.e. JDBI or HTTP calls wrapped in
+ * {@code Mono.fromCallable(...).subscribeOn(...)}, on the bounded elastic platform threads against the virtual-thread
+ * mode of {@link SchedulerUtils}. Each operation runs a burst of concurrent blocking calls, as a request spike does. Not
+ * run as part of the test suite, run it through its main method:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.comet.opik.utils.BlockingBridgeBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BlockingBridgeBenchmark {
+
+    private static final Duration BLOCKING_CALL_LATENCY = Duration.ofMillis(5);
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    @Param({"100", "1000"})
+    private int concurrentCalls;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var config = new VirtualThreadsConfig();
+        config.setEnabled(virtualThreads);
+        SchedulerUtils.setConfig(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SchedulerUtils.setConfig(new VirtualThreadsConfig());
+    }
+
+    @Benchmark
+    public Long blockingCalls() {
+        return Flux.range(0, concurrentCalls)
+                .flatMap(__ -> Mono.fromCallable(BlockingBridgeBenchmark::blockingCall)
+                        .subscribeOn(SchedulerUtils.blocking()), concurrentCalls)
+                .count()
+                .block();
+    }
+
+    private static Long blockingCall() throws InterruptedException {
+        Thread.sleep(BLOCKING_CALL_LATENCY);
+        return 1L;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BlockingBridgeBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,108 @@
+package com.comet.opik.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.stringtemplate.v4.ST;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.comet.opik.utils.TemplateUtils.getQueryItemPlaceHolder;
+
+/**
+ * Compares rendering the bulk insert SQL and its parameter names on every batch against the cached variants in
+ * {@link TemplateUtils}. Not run as part of the test suite, run it through its main method:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.comet.opik.utils.BulkInsertTemplateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertTemplateBenchmark {
+
+    private static final String BULK_INSERT = """
+            INSERT INTO spans(
+                id,
+                project_id,
+                workspace_id,
+                trace_id,
+                name,
+                input,
+                output,
+                created_by,
+                last_updated_by
+            ) VALUES
+                <items:{item |
+                    (
+                         :id<item.index>,
+                         :project_id<item.index>,
+                         :workspace_id,
+                         :trace_id<item.index>,
+                         :name<item.index>,
+                         :input<item.index>,
+                         :output<item.index>,
+                         :created_by<item.index>,
+                         :last_updated_by<item.index>
+                     )
+                     <if(item.hasNext)>,<endif>
+                }>
+            ;
+            """;
+
+    private static final String[] PARAMS = {"id", "project_id", "trace_id", "name", "input", "output",
+            "created_by", "last_updated_by"};
+
+    @Param({"10", "100", "1000"})
+    private int batchSize;
+
+    @Benchmark
+    public String renderTemplate() {
+        return new ST(BULK_INSERT).add("items", getQueryItemPlaceHolder(batchSize)).render();
+    }
+
+    @Benchmark
+    public String renderCachedTemplate() {
+        return TemplateUtils.renderBulkInsert(BULK_INSERT, batchSize);
+    }
+
+    @Benchmark
+    public void concatParams(Blackhole blackhole) {
+        for (int i = 0; i < batchSize; i++) {
+            for (String param : PARAMS) {
+                blackhole.consume(param + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public void indexedParams(Blackhole blackhole) {
+        for (int i = 0; i < batchSize; i++) {
+            for (String param : PARAMS) {
+                blackhole.consume(TemplateUtils.indexedParam(param, i));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BulkInsertTemplateBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
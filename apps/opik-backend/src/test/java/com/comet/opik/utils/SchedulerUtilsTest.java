@@ -0,0 +1,45 @@
+package com.comet.opik.utils;
+
+import com.comet.opik.infrastructure.VirtualThreadsConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchedulerUtilsTest {
+
+    @AfterEach
+    void tearDown() {
+        SchedulerUtils.setConfig(new VirtualThreadsConfig());
+    }
+
+    private static Thread runBlocking() {
+        return Mono.fromCallable(Thread::currentThread)
+                .subscribeOn(SchedulerUtils.blocking())
+                .block();
+    }
+
+    @Test
+    void blocking__whenVirtualThreadsDisabled__thenUseBoundedElastic() {
+        SchedulerUtils.setConfig(new VirtualThreadsConfig());
+
+        assertThat(SchedulerUtils.isVirtualThreadsEnabled()).isFalse();
+        assertThat(SchedulerUtils.blocking()).isSameAs(Schedulers.boundedElastic());
+        assertThat(runBlocking().isVirtual()).isFalse();
+    }
+
+    @Test
+    void blocking__whenVirtualThreadsEnabled__thenRunOnVirtualThreads() {
+        var config = new VirtualThreadsConfig();
+        config.setEnabled(true);
+
+        SchedulerUtils.setConfig(config);
+
+        assertThat(SchedulerUtils.isVirtualThreadsEnabled()).isTrue();
+        var thread = runBlocking();
+        assertThat(thread.isVirtual()).isTrue();
+        assertThat(thread.getName()).startsWith("opik-virtual-");
+    }
+}
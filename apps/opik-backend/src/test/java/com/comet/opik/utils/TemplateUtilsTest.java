@@ -0,0 +1,41 @@
+package com.comet.opik.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.stringtemplate.v4.ST;
+
+import static com.comet.opik.utils.TemplateUtils.getQueryItemPlaceHolder;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemplateUtilsTest {
+
+    private static final String BULK_INSERT = """
+            INSERT INTO test(id, name, workspace_id) VALUES
+                <items:{item |
+                    (:id<item.index>, :name<item.index>, :workspace_id)
+                    <if(item.hasNext)>,<endif>
+                }>
+            ;
+            """;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 10, 1000})
+    void renderBulkInsert__shouldMatchTemplateRender(int size) {
+        var expected = new ST(BULK_INSERT).add("items", getQueryItemPlaceHolder(size)).render();
+
+        assertThat(TemplateUtils.renderBulkInsert(BULK_INSERT, size)).isEqualTo(expected);
+        assertThat(TemplateUtils.renderBulkInsert(BULK_INSERT, size)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 999, 1000, 5000})
+    void indexedParam__shouldMatchConcatenation(int index) {
+        assertThat(TemplateUtils.indexedParam("id", index)).isEqualTo("id" + index);
+    }
+
+    @Test
+    void indexedParam__whenSameNameAndIndex__thenReturnSameInstance() {
+        assertThat(TemplateUtils.indexedParam("name", 7)).isSameAs(TemplateUtils.indexedParam("name", 7));
+    }
+}
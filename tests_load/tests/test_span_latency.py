@@ -0,0 +1,94 @@
+import logging
+import os
+import random
+import secrets
+import statistics
+import string
+import time
+import uuid
+from concurrent.futures import ThreadPoolExecutor
+from datetime import datetime, timezone
+
+import click
+import httpx
+
+logging.basicConfig(level=logging.INFO, format="%(levelname)s: %(message)s")
+
+LOGGER = logging.getLogger(__name__)
+
+
+def create_random_string(length: int) -> str:
+    return ''.join(random.choices(string.ascii_letters + string.digits, k=length))
+
+
+def generate_uuid7() -> str:
+    timestamp_ms = time.time_ns() // 1_000_000
+    value = (timestamp_ms & ((1 << 48) - 1)) << 80
+    value |= 0x7 << 76
+    value |= secrets.randbits(12) << 64
+    value |= 0b10 << 62
+    value |= secrets.randbits(62)
+    return str(uuid.UUID(int=value))
+
+
+def now_iso() -> str:
+    return datetime.now(timezone.utc).isoformat().replace("+00:00", "Z")
+
+
+def create_span_payload(project_name: str) -> dict:
+    return {
+        "id": generate_uuid7(),
+        "project_name": project_name,
+        "trace_id": generate_uuid7(),
+        "name": "latency_test_span",
+        "type": "general",
+        "start_time": now_iso(),
+        "end_time": now_iso(),
+        "input": {"input": create_random_string(100)},
+        "output": {"output": create_random_string(100)},
+    }
+
+
+def post_span(client: httpx.Client, project_name: str) -> float:
+    payload = create_span_payload(project_name)
+    start_time = time.perf_counter()
+    response = client.post("/v1/private/spans", json=payload)
+    elapsed_ms = (time.perf_counter() - start_time) * 1000
+    response.raise_for_status()
+    return elapsed_ms
+
+
+def percentile(values: list[float], percent: float) -> float:
+    ordered = sorted(values)
+    index = min(len(ordered) - 1, max(0, round(percent / 100 * len(ordered)) - 1))
+    return ordered[index]
+
+
+@click.command()
+@click.option('--num-spans', default=5000, help='Number of single-span POST requests to send')
+@click.option('--concurrency', default=8, help='Number of concurrent clients')
+@click.option('--project-name', default="performance_test", help='Project to log the spans to')
+@click.option('--base-url', default=lambda: os.environ.get("OPIK_URL_OVERRIDE", "http://localhost:5173/api"),
+              help='Opik API base URL')
+def main(num_spans, concurrency, project_name, base_url):
+    with httpx.Client(base_url=base_url, timeout=30) as client:
+        # Warm up the project and the connection pool, so they don't skew the measured latencies
+        for _ in range(min(50, num_spans)):
+            post_span(client, project_name)
+
+        start_time = time.time()
+        with ThreadPoolExecutor(max_workers=concurrency) as executor:
+            latencies = list(executor.map(lambda _: post_span(client, project_name), range(num_spans)))
+        total_time = time.time() - start_time
+
+    LOGGER.info("\n---------------- Single span POST latency ----------------")
+    LOGGER.info(f"Requests                : {num_spans} ({concurrency} concurrent clients)")
+    LOGGER.info(f"Throughput              : {num_spans / total_time:.2f} requests/second")
+    LOGGER.info(f"Mean                    : {statistics.mean(latencies):.2f} ms")
+    LOGGER.info(f"p50                     : {percentile(latencies, 50):.2f} ms")
+    LOGGER.info(f"p95                     : {percentile(latencies, 95):.2f} ms")
+    LOGGER.info(f"p99                     : {percentile(latencies, 99):.2f} ms")
+
+
+if __name__ == "__main__":
+    main()